@@ -16,7 +16,10 @@
 
 package org.gradle.caching.http.internal
 
+import org.gradle.caching.internal.operations.BuildCacheRemoteStatisticsBuildOperationType
+import org.gradle.caching.internal.services.BuildCacheControllerFactory
 import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import org.gradle.integtests.fixtures.BuildOperationsFixture
 import org.gradle.integtests.fixtures.timeout.IntegrationTestTimeout
 import org.gradle.test.fixtures.keystore.TestKeyStore
 
@@ -66,6 +69,39 @@ class HttpBuildCacheServiceIntegrationTest extends AbstractIntegrationSpec imple
         skipped ":compileJava"
     }
 
+    def "prefetches entries and stores entries in the background"() {
+        def operations = new BuildOperationsFixture(executer, temporaryFolder)
+        def asyncRemoteAccess = "-D${BuildCacheControllerFactory.REMOTE_ASYNC_THREADS_PROPERTY}=2"
+
+        when:
+        withBuildCache().run asyncRemoteAccess, "jar"
+        then:
+        noneSkipped()
+        with(operations.only(BuildCacheRemoteStatisticsBuildOperationType)) {
+            details.asynchronous
+            result.storeCount > 0
+            result.requestCount >= result.loadCount + result.storeCount
+        }
+
+        when:
+        // Work without execution history is prefetched, so build a copy of the project
+        def copy = file("copy")
+        copy.file("settings.gradle") << useHttpBuildCache(httpBuildCacheServer.uri)
+        copy.file("build.gradle").text = buildFile.text
+        copy.file("src/main/java/Hello.java").text = ORIGINAL_HELLO_WORLD
+        copy.file("src/main/resources/resource.properties").text = file("src/main/resources/resource.properties").text
+        executer.inDirectory(copy)
+        withBuildCache().run asyncRemoteAccess, "jar"
+        then:
+        skipped ":compileJava"
+        with(operations.only(BuildCacheRemoteStatisticsBuildOperationType).result) {
+            prefetchCount > 0
+            prefetchUsedCount > 0
+            loadHitCount > 0
+        }
+        copy.file("build/classes/java/main/Hello.class").exists()
+    }
+
     def "outputs are correctly loaded from cache"() {
         buildFile << """
             apply plugin: "application"
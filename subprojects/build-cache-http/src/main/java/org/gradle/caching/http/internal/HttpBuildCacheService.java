@@ -31,6 +31,7 @@
 import org.gradle.caching.BuildCacheException;
 import org.gradle.caching.BuildCacheKey;
 import org.gradle.caching.BuildCacheService;
+import org.gradle.caching.internal.controller.service.BuildCacheServiceConnectionStatistics;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.resource.transport.http.HttpClientHelper;
 import org.gradle.internal.resource.transport.http.HttpClientResponse;
@@ -47,7 +48,7 @@
 /**
  * Build cache implementation that delegates to a service accessible via HTTP.
  */
-public class HttpBuildCacheService implements BuildCacheService {
+public class HttpBuildCacheService implements BuildCacheService, BuildCacheServiceConnectionStatistics {
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpBuildCacheService.class);
     static final String BUILD_CACHE_CONTENT_TYPE = "application/vnd.gradle.build-cache-artifact.v1";
 
@@ -202,6 +203,16 @@ private boolean throwHttpStatusCodeException(int statusCode, String message) {
         }
     }
 
+    @Override
+    public long getRequestCount() {
+        return httpClientHelper.getRequestCount();
+    }
+
+    @Override
+    public long getReusedConnectionCount() {
+        return httpClientHelper.getReusedConnectionCount();
+    }
+
     @Override
     public void close() throws IOException {
         httpClientHelper.close();
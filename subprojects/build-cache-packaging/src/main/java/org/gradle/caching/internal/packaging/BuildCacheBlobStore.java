@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.caching.internal.packaging;
+
+import org.gradle.internal.hash.HashCode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A content-addressed store for the contents of the files of deduplicated build cache entries.
+ * Deduplicated entries only refer to the contents of their files by hash, so identical files produced by different entries are stored once.
+ */
+public interface BuildCacheBlobStore {
+    /**
+     * Returns whether the store contains a blob with the given hash.
+     */
+    boolean contains(HashCode contentHash);
+
+    /**
+     * Adds a blob with the given hash unless it is already present.
+     *
+     * @param writer writes the contents of the blob, and returns whether the written contents actually have the given hash.
+     * @return whether the store contains the blob afterwards.
+     */
+    boolean put(HashCode contentHash, BlobWriter writer) throws IOException;
+
+    /**
+     * Opens the contents of the blob with the given hash. Callers copy the contents, so the blob is never shared with files that may be modified later.
+     *
+     * @throws MissingBlobException when the store does not contain the blob.
+     */
+    InputStream open(HashCode contentHash) throws IOException;
+
+    /**
+     * Removes the blob with the given hash, because its contents turned out not to have that hash.
+     */
+    void discard(HashCode contentHash);
+
+    interface BlobWriter {
+        boolean writeTo(OutputStream output) throws IOException;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.caching.internal.packaging;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The compression applied to packed build cache entries.
+ */
+public interface BuildCacheEntryCompression {
+    /**
+     * Returns a stream that compresses the data written to it into the given output. Closing the returned stream closes the output.
+     */
+    OutputStream compress(OutputStream output) throws IOException;
+
+    /**
+     * Returns a stream that decompresses the given input. Implementations should be able to decompress entries written by previous Gradle versions.
+     * Closing the returned stream closes the input.
+     */
+    InputStream decompress(InputStream input) throws IOException;
+}
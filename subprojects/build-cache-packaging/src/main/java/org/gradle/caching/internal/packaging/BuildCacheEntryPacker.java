@@ -31,6 +31,12 @@
 public interface BuildCacheEntryPacker {
     PackResult pack(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OutputStream output, OriginWriter writeOrigin) throws IOException;
 
+    /**
+     * Packs the entry like {@link #pack(CacheableEntity, Map, OutputStream, OriginWriter)}, but adds the contents of the files to the given blob store,
+     * and only refers to them from the packed entry.
+     */
+    PackResult packDeduplicated(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OutputStream output, OriginWriter writeOrigin, BuildCacheBlobStore blobStore) throws IOException;
+
     class PackResult {
         private final long entries;
 
@@ -43,8 +49,21 @@ public long getEntries() {
         }
     }
 
+    /**
+     * Unpacks an entry packed by {@link #pack(CacheableEntity, Map, OutputStream, OriginWriter)}.
+     *
+     * @throws MissingBlobException when the entry is a deduplicated entry.
+     */
     UnpackResult unpack(CacheableEntity entity, InputStream input, OriginReader readOrigin) throws IOException;
 
+    /**
+     * Unpacks an entry packed by either {@link #pack(CacheableEntity, Map, OutputStream, OriginWriter)}
+     * or {@link #packDeduplicated(CacheableEntity, Map, OutputStream, OriginWriter, BuildCacheBlobStore)}, taking the contents of files from the given blob store.
+     *
+     * @throws MissingBlobException when the blob store does not contain the contents of a file.
+     */
+    UnpackResult unpackDeduplicated(CacheableEntity entity, InputStream input, OriginReader readOrigin, BuildCacheBlobStore blobStore) throws IOException;
+
     class UnpackResult {
         private final OriginMetadata originMetadata;
         private final long entries;
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.caching.internal.packaging;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the contents of a deduplicated build cache entry are not available, either because there is no blob store to read them from, or because a blob is missing from the store or has been corrupted.
+ * The entry is not corrupt in this case, so it should be treated as a cache miss.
+ */
+public class MissingBlobException extends IOException {
+    public MissingBlobException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.caching.internal.packaging.impl;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encodes and decodes the self-contained GZip members written by {@link ParallelGZipBuildCacheEntryCompression}.
+ *
+ * <pre>
+ * 1f 8b 08 04 00 00 00 00 00 ff   GZip header with FEXTRA set
+ * 09 00                           length of the extra field
+ * 47 52 05 00                     subfield 'GR' with 5 bytes of data
+ * vv                              format version
+ * ss ss ss ss                     size of the whole member
+ * ...                             deflated data
+ * cc cc cc cc                     CRC-32 of the uncompressed data
+ * ll ll ll ll                     size of the uncompressed data
+ * </pre>
+ */
+class GZipBlock {
+    static final int HEADER_LENGTH = 21;
+    private static final int TRAILER_LENGTH = 8;
+    private static final byte[] HEADER_PREFIX = {
+        (byte) 0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff,
+        9, 0,
+        'G', 'R', 5, 0
+    };
+    private static final int MEMBER_SIZE_OFFSET = HEADER_PREFIX.length + 1;
+    // Guards against allocating huge buffers for corrupt entries
+    private static final int MAX_MEMBER_SIZE = 64 * 1024 * 1024;
+
+    private GZipBlock() {
+    }
+
+    /**
+     * Compresses the given data into a complete GZip member.
+     */
+    static byte[] compress(byte[] data, int length) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            // Deflate can make incompressible data slightly larger
+            byte[] member = new byte[HEADER_LENGTH + length + length / 1000 + 64 + TRAILER_LENGTH];
+            int memberLength = HEADER_LENGTH;
+            while (!deflater.finished()) {
+                if (memberLength == member.length - TRAILER_LENGTH) {
+                    member = Arrays.copyOf(member, member.length * 2);
+                }
+                memberLength += deflater.deflate(member, memberLength, member.length - TRAILER_LENGTH - memberLength);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(data, 0, length);
+            System.arraycopy(HEADER_PREFIX, 0, member, 0, HEADER_PREFIX.length);
+            member[HEADER_PREFIX.length] = ParallelGZipBuildCacheEntryCompression.FORMAT_VERSION;
+            memberLength += TRAILER_LENGTH;
+            writeInt(member, MEMBER_SIZE_OFFSET, memberLength);
+            writeInt(member, memberLength - TRAILER_LENGTH, (int) crc.getValue());
+            writeInt(member, memberLength - 4, length);
+            return memberLength == member.length ? member : Arrays.copyOf(member, memberLength);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Decompresses a complete GZip member, as returned by {@link #compress(byte[], int)}.
+     */
+    static byte[] decompress(byte[] member) throws IOException {
+        int dataLength = readInt(member, member.length - 4);
+        if (dataLength < 0 || dataLength > MAX_MEMBER_SIZE) {
+            throw new IOException("Corrupt GZip block: invalid size " + dataLength + ".");
+        }
+        byte[] data = new byte[dataLength];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(member, HEADER_LENGTH, member.length - HEADER_LENGTH - TRAILER_LENGTH);
+            int length = 0;
+            while (length < dataLength) {
+                int inflated = inflater.inflate(data, length, dataLength - length);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            // Consume the end of the deflate stream, which must not produce more data
+            if (length == dataLength && !inflater.finished() && inflater.inflate(new byte[1]) != 0) {
+                length++;
+            }
+            if (length != dataLength || !inflater.finished()) {
+                throw new IOException("Corrupt GZip block: uncompressed size does not match.");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt GZip block.", e);
+        } finally {
+            inflater.end();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, dataLength);
+        if ((int) crc.getValue() != readInt(member, member.length - TRAILER_LENGTH)) {
+            throw new IOException("Corrupt GZip block: CRC mismatch.");
+        }
+        return data;
+    }
+
+    /**
+     * Returns whether the given header starts a member in the current format.
+     */
+    static boolean hasBlockHeader(byte[] header) {
+        for (int i = 0; i < HEADER_PREFIX.length; i++) {
+            // Ignore the modification time, extra flags and OS
+            if (i >= 4 && i < 10) {
+                continue;
+            }
+            if (header[i] != HEADER_PREFIX[i]) {
+                return false;
+            }
+        }
+        return header[HEADER_PREFIX.length] == ParallelGZipBuildCacheEntryCompression.FORMAT_VERSION;
+    }
+
+    /**
+     * Reads the rest of the member whose header has already been read.
+     */
+    static byte[] readMember(InputStream input, byte[] header) throws IOException {
+        if (!hasBlockHeader(header)) {
+            throw new IOException("Corrupt GZip block: unexpected header.");
+        }
+        int memberLength = readInt(header, MEMBER_SIZE_OFFSET);
+        if (memberLength < HEADER_LENGTH + TRAILER_LENGTH || memberLength > MAX_MEMBER_SIZE) {
+            throw new IOException("Corrupt GZip block: invalid size " + memberLength + ".");
+        }
+        byte[] member = new byte[memberLength];
+        System.arraycopy(header, 0, member, 0, HEADER_LENGTH);
+        if (readFully(input, member, HEADER_LENGTH, memberLength - HEADER_LENGTH) != memberLength - HEADER_LENGTH) {
+            throw new EOFException("Unexpected end of GZip block.");
+        }
+        return member;
+    }
+
+    /**
+     * Reads until the given range is filled or the end of the stream is reached, and returns the number of bytes read.
+     */
+    static int readFully(InputStream input, byte[] buffer, int offset, int length) throws IOException {
+        int total = 0;
+        while (total < length) {
+            int read = input.read(buffer, offset + total, length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private static void writeInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) value;
+        buffer[offset + 1] = (byte) (value >>> 8);
+        buffer[offset + 2] = (byte) (value >>> 16);
+        buffer[offset + 3] = (byte) (value >>> 24);
+    }
+
+    private static int readInt(byte[] buffer, int offset) {
+        return (buffer[offset] & 0xff)
+            | (buffer[offset + 1] & 0xff) << 8
+            | (buffer[offset + 2] & 0xff) << 16
+            | (buffer[offset + 3] & 0xff) << 24;
+    }
+}
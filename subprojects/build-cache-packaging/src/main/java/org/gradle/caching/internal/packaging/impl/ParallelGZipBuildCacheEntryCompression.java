@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.caching.internal.packaging.impl;
+
+import org.gradle.caching.internal.packaging.BuildCacheEntryCompression;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compresses build cache entries as a sequence of independently compressed GZip members, which are compressed and decompressed in parallel.
+ *
+ * <p>The result is a valid multi-member GZip stream, so it can be read by any GZip implementation.
+ * Each member carries an extra field with the format version and the size of the member, so that the members can be found without decompressing them.
+ * Entries without this field, such as the entries written by previous Gradle versions, are decompressed sequentially.</p>
+ *
+ * <p>The number of blocks in flight is bounded across all the streams created by an instance, so that concurrent packing and unpacking
+ * does not buffer an unbounded number of blocks.</p>
+ */
+public class ParallelGZipBuildCacheEntryCompression implements BuildCacheEntryCompression, Closeable {
+    /**
+     * The version of the block layout written by this class. Entries with a different version are decompressed sequentially.
+     */
+    static final byte FORMAT_VERSION = 1;
+
+    static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+
+    private final ExecutorService executor;
+    private final int blockSize;
+    private final int maxBlocksInFlight;
+    private final Semaphore blockBudget;
+
+    public ParallelGZipBuildCacheEntryCompression(ExecutorService executor, int parallelism) {
+        this(executor, parallelism, DEFAULT_BLOCK_SIZE);
+    }
+
+    ParallelGZipBuildCacheEntryCompression(ExecutorService executor, int parallelism, int blockSize) {
+        this.executor = executor;
+        this.blockSize = blockSize;
+        // Keep all workers busy while the calling thread writes out or consumes finished blocks
+        this.maxBlocksInFlight = 2 * Math.max(1, parallelism);
+        this.blockBudget = new Semaphore(maxBlocksInFlight);
+    }
+
+    @Override
+    public OutputStream compress(OutputStream output) {
+        return new ParallelGZipOutputStream(output, executor, blockSize, maxBlocksInFlight, blockBudget);
+    }
+
+    @Override
+    public InputStream decompress(InputStream input) throws IOException {
+        byte[] header = new byte[GZipBlock.HEADER_LENGTH];
+        int headerLength = GZipBlock.readFully(input, header, 0, header.length);
+        if (headerLength == header.length && GZipBlock.hasBlockHeader(header)) {
+            return new ParallelGZipInputStream(input, header, executor, maxBlocksInFlight, blockBudget);
+        }
+        return new GZIPInputStream(new SequenceInputStream(new ByteArrayInputStream(header, 0, headerLength), input));
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
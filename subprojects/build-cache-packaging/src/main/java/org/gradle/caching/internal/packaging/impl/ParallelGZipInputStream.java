@@ -0,0 +1,149 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.caching.internal.packaging.impl;
+
+import com.google.common.base.Throwables;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Reads ahead a number of blocks written by {@link ParallelGZipOutputStream}, and decompresses them in parallel.
+ * Each block in flight holds a permit of the block budget shared by all streams. When other streams use the whole budget,
+ * the next block is decompressed by the calling thread.
+ */
+class ParallelGZipInputStream extends InputStream {
+    private static final byte[] NO_DATA = new byte[0];
+
+    private final InputStream input;
+    private final ExecutorService executor;
+    private final int maxBlocksInFlight;
+    private final Semaphore blockBudget;
+    private final Deque<Future<byte[]>> blocksInFlight = new ArrayDeque<>();
+    private byte[] nextHeader;
+    private byte[] block = NO_DATA;
+    private int blockPosition;
+
+    ParallelGZipInputStream(InputStream input, byte[] firstHeader, ExecutorService executor, int maxBlocksInFlight, Semaphore blockBudget) {
+        this.input = input;
+        this.executor = executor;
+        this.maxBlocksInFlight = maxBlocksInFlight;
+        this.blockBudget = blockBudget;
+        this.nextHeader = firstHeader;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureData()) {
+            return -1;
+        }
+        return block[blockPosition++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureData()) {
+            return -1;
+        }
+        int count = Math.min(len, block.length - blockPosition);
+        System.arraycopy(block, blockPosition, b, off, count);
+        blockPosition += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return block.length - blockPosition;
+    }
+
+    private boolean ensureData() throws IOException {
+        while (blockPosition == block.length) {
+            fillBlocksInFlight();
+            if (!blocksInFlight.isEmpty()) {
+                block = takeDecompressedBlock();
+            } else if (nextHeader != null) {
+                // Other streams use the whole block budget
+                block = GZipBlock.decompress(readNextMember());
+            } else {
+                return false;
+            }
+            blockPosition = 0;
+        }
+        return true;
+    }
+
+    private void fillBlocksInFlight() throws IOException {
+        while (nextHeader != null && blocksInFlight.size() < maxBlocksInFlight && blockBudget.tryAcquire()) {
+            try {
+                byte[] member = readNextMember();
+                blocksInFlight.add(executor.submit(() -> GZipBlock.decompress(member)));
+            } catch (IOException | RuntimeException e) {
+                blockBudget.release();
+                throw e;
+            }
+        }
+    }
+
+    private byte[] readNextMember() throws IOException {
+        byte[] member = GZipBlock.readMember(input, nextHeader);
+        byte[] header = new byte[GZipBlock.HEADER_LENGTH];
+        int headerLength = GZipBlock.readFully(input, header, 0, header.length);
+        if (headerLength == 0) {
+            nextHeader = null;
+        } else if (headerLength < header.length) {
+            throw new IOException("Corrupt GZip block: unexpected end of stream.");
+        } else {
+            nextHeader = header;
+        }
+        return member;
+    }
+
+    private byte[] takeDecompressedBlock() throws IOException {
+        Future<byte[]> decompressedBlock = blocksInFlight.removeFirst();
+        try {
+            return decompressedBlock.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while decompressing build cache entry.");
+        } catch (ExecutionException e) {
+            Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IOException(e.getCause());
+        } finally {
+            blockBudget.release();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        blocksInFlight.forEach(future -> future.cancel(false));
+        blockBudget.release(blocksInFlight.size());
+        blocksInFlight.clear();
+        input.close();
+    }
+}
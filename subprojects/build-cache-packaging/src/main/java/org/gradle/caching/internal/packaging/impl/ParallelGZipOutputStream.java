@@ -0,0 +1,152 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.caching.internal.packaging.impl;
+
+import com.google.common.base.Throwables;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Splits the written data into blocks which are compressed in parallel, and writes the compressed blocks in order.
+ * At most a fixed number of blocks are compressed at the same time, so that a fast producer does not buffer the whole entry in memory.
+ * Each block in flight holds a permit of the block budget shared by all streams. When other streams use the whole budget,
+ * the block is compressed by the calling thread.
+ */
+class ParallelGZipOutputStream extends OutputStream {
+    private final OutputStream output;
+    private final ExecutorService executor;
+    private final int blockSize;
+    private final int maxBlocksInFlight;
+    private final Semaphore blockBudget;
+    private final Deque<Future<byte[]>> blocksInFlight = new ArrayDeque<>();
+    private byte[] block;
+    private int blockLength;
+    private boolean anyBlockSubmitted;
+    private boolean closed;
+
+    ParallelGZipOutputStream(OutputStream output, ExecutorService executor, int blockSize, int maxBlocksInFlight, Semaphore blockBudget) {
+        this.output = output;
+        this.executor = executor;
+        this.blockSize = blockSize;
+        this.maxBlocksInFlight = maxBlocksInFlight;
+        this.blockBudget = blockBudget;
+        this.block = new byte[blockSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (blockLength == blockSize) {
+            submitBlock();
+        }
+        block[blockLength++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (blockLength == blockSize) {
+                submitBlock();
+            }
+            int count = Math.min(len, blockSize - blockLength);
+            System.arraycopy(b, off, block, blockLength, count);
+            blockLength += count;
+            off += count;
+            len -= count;
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        while (blocksInFlight.size() >= maxBlocksInFlight) {
+            writeCompressedBlock();
+        }
+        byte[] data = block;
+        int length = blockLength;
+        if (reserveBlock()) {
+            blocksInFlight.add(executor.submit(() -> GZipBlock.compress(data, length)));
+        } else {
+            output.write(GZipBlock.compress(data, length));
+        }
+        anyBlockSubmitted = true;
+        block = new byte[blockSize];
+        blockLength = 0;
+    }
+
+    /**
+     * Reserves a permit of the block budget, writing out blocks of this stream to free permits. Returns false when there are no blocks in flight
+     * and other streams use the whole budget, in which case the block has to be compressed by the calling thread.
+     */
+    private boolean reserveBlock() throws IOException {
+        while (!blockBudget.tryAcquire()) {
+            if (blocksInFlight.isEmpty()) {
+                return false;
+            }
+            writeCompressedBlock();
+        }
+        return true;
+    }
+
+    private void writeCompressedBlock() throws IOException {
+        Future<byte[]> compressedBlock = blocksInFlight.removeFirst();
+        try {
+            output.write(compressedBlock.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing build cache entry.");
+        } catch (ExecutionException e) {
+            Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IOException(e.getCause());
+        } finally {
+            blockBudget.release();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        output.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (OutputStream output = this.output) {
+            // Always write at least one block so that the result is a valid GZip stream
+            if (blockLength > 0 || !anyBlockSubmitted) {
+                submitBlock();
+            }
+            while (!blocksInFlight.isEmpty()) {
+                writeCompressedBlock();
+            }
+        } finally {
+            blocksInFlight.forEach(future -> future.cancel(false));
+            blockBudget.release(blocksInFlight.size());
+            blocksInFlight.clear();
+        }
+    }
+}
@@ -30,7 +30,9 @@
 import org.gradle.caching.internal.origin.OriginMetadata;
 import org.gradle.caching.internal.origin.OriginReader;
 import org.gradle.caching.internal.origin.OriginWriter;
+import org.gradle.caching.internal.packaging.BuildCacheBlobStore;
 import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
+import org.gradle.caching.internal.packaging.MissingBlobException;
 import org.gradle.internal.file.FileMetadata.AccessType;
 import org.gradle.internal.file.FileType;
 import org.gradle.internal.file.TreeType;
@@ -68,6 +70,9 @@
 
 /**
  * Packages build cache entries to a POSIX TAR file.
+ *
+ * Deduplicated entries start with a marker entry, so that they cannot be unpacked by Gradle versions that don't know about blob stores.
+ * Their regular files are stored as empty entries with a PAX header holding the hash of the contents of the file in the blob store.
  */
 public class TarBuildCacheEntryPacker implements BuildCacheEntryPacker {
 
@@ -82,6 +87,8 @@ private interface UnixPermissions {
 
     private static final Charset ENCODING = StandardCharsets.UTF_8;
     private static final String METADATA_PATH = "METADATA";
+    private static final String DEDUPLICATED_PATH = "DEDUPLICATED";
+    private static final String BLOB_HASH_HEADER = "GRADLE.blob";
     private static final Pattern TREE_PATH = Pattern.compile("(missing-)?tree-([^/]+)(?:/(.*))?");
     private static final int BUFFER_SIZE = 64 * 1024;
     private static final ThreadLocal<byte[]> COPY_BUFFERS = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
@@ -105,6 +112,15 @@ public TarBuildCacheEntryPacker(
 
     @Override
     public PackResult pack(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OutputStream output, OriginWriter writeOrigin) throws IOException {
+        return pack(entity, snapshots, output, writeOrigin, null);
+    }
+
+    @Override
+    public PackResult packDeduplicated(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OutputStream output, OriginWriter writeOrigin, BuildCacheBlobStore blobStore) throws IOException {
+        return pack(entity, snapshots, output, writeOrigin, blobStore);
+    }
+
+    private PackResult pack(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OutputStream output, OriginWriter writeOrigin, @Nullable BuildCacheBlobStore blobStore) throws IOException {
         BufferedOutputStream bufferedOutput;
         if (output instanceof BufferedOutputStream) {
             bufferedOutput = (BufferedOutputStream) output;
@@ -115,8 +131,12 @@ public PackResult pack(CacheableEntity entity, Map<String, ? extends FileSystemS
             tarOutput.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
             tarOutput.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
             tarOutput.setAddPaxHeadersForNonAsciiNames(true);
+            if (blobStore != null) {
+                createTarEntry(DEDUPLICATED_PATH, 0, UnixPermissions.FILE_FLAG | UnixPermissions.DEFAULT_FILE_PERM, tarOutput);
+                tarOutput.closeArchiveEntry();
+            }
             packMetadata(writeOrigin, tarOutput);
-            long entryCount = pack(entity, snapshots, tarOutput);
+            long entryCount = pack(entity, snapshots, tarOutput, blobStore);
             return new PackResult(entryCount + 1);
         }
     }
@@ -129,12 +149,12 @@ private void packMetadata(OriginWriter writeMetadata, TarArchiveOutputStream tar
         tarOutput.closeArchiveEntry();
     }
 
-    private long pack(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, TarArchiveOutputStream tarOutput) {
+    private long pack(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, TarArchiveOutputStream tarOutput, @Nullable BuildCacheBlobStore blobStore) {
         AtomicLong entries = new AtomicLong();
         entity.visitOutputTrees((treeName, type, root) -> {
             FileSystemSnapshot treeSnapshots = snapshots.get(treeName);
             try {
-                entries.addAndGet(packTree(treeName, type, treeSnapshots, tarOutput));
+                entries.addAndGet(packTree(treeName, type, treeSnapshots, tarOutput, blobStore));
             } catch (Exception ex) {
                 throw new RuntimeException(String.format("Could not pack tree '%s': %s", treeName, ex.getMessage()), ex);
             }
@@ -142,8 +162,8 @@ private long pack(CacheableEntity entity, Map<String, ? extends FileSystemSnapsh
         return entries.get();
     }
 
-    private long packTree(String name, TreeType type, FileSystemSnapshot snapshots, TarArchiveOutputStream tarOutput) {
-        PackingVisitor packingVisitor = new PackingVisitor(tarOutput, name, type, filePermissionAccess);
+    private long packTree(String name, TreeType type, FileSystemSnapshot snapshots, TarArchiveOutputStream tarOutput, @Nullable BuildCacheBlobStore blobStore) {
+        PackingVisitor packingVisitor = new PackingVisitor(tarOutput, name, type, filePermissionAccess, blobStore, streamHasher);
         snapshots.accept(packingVisitor);
         return packingVisitor.finish();
     }
@@ -158,11 +178,18 @@ private static void createTarEntry(String path, long size, int mode, TarArchiveO
     @Override
     public UnpackResult unpack(CacheableEntity entity, InputStream input, OriginReader readOrigin) throws IOException {
         try (TarArchiveInputStream tarInput = new TarArchiveInputStream(input, ENCODING.name())) {
-            return unpack(entity, tarInput, readOrigin);
+            return unpack(entity, tarInput, readOrigin, null);
+        }
+    }
+
+    @Override
+    public UnpackResult unpackDeduplicated(CacheableEntity entity, InputStream input, OriginReader readOrigin, BuildCacheBlobStore blobStore) throws IOException {
+        try (TarArchiveInputStream tarInput = new TarArchiveInputStream(input, ENCODING.name())) {
+            return unpack(entity, tarInput, readOrigin, blobStore);
         }
     }
 
-    private UnpackResult unpack(CacheableEntity entity, TarArchiveInputStream tarInput, OriginReader readOriginAction) throws IOException {
+    private UnpackResult unpack(CacheableEntity entity, TarArchiveInputStream tarInput, OriginReader readOriginAction, @Nullable BuildCacheBlobStore blobStore) throws IOException {
         ImmutableMap.Builder<String, CacheableTree> treesBuilder = ImmutableMap.builder();
         entity.visitOutputTrees((name, type, root) -> treesBuilder.put(name, new CacheableTree(type, root)));
         ImmutableMap<String, CacheableTree> treesByName = treesBuilder.build();
@@ -172,6 +199,12 @@ private UnpackResult unpack(CacheableEntity entity, TarArchiveInputStream tarInp
         Map<String, CompleteFileSystemLocationSnapshot> snapshots = new HashMap<>();
 
         tarEntry = tarInput.getNextTarEntry();
+        if (tarEntry != null && tarEntry.getName().equals(DEDUPLICATED_PATH)) {
+            if (blobStore == null) {
+                throw new MissingBlobException("Deduplicated cache entry cannot be unpacked without a blob store.");
+            }
+            tarEntry = tarInput.getNextTarEntry();
+        }
         AtomicLong entries = new AtomicLong();
         while (tarEntry != null) {
             entries.incrementAndGet();
@@ -196,7 +229,7 @@ private UnpackResult unpack(CacheableEntity entity, TarArchiveInputStream tarInp
 
                 boolean missing = matcher.group(1) != null;
                 String childPath = matcher.group(3);
-                tarEntry = unpackTree(treeName, tree.getType(), tree.getRoot(), tarInput, tarEntry, childPath, missing, snapshots, entries);
+                tarEntry = unpackTree(treeName, tree.getType(), tree.getRoot(), tarInput, tarEntry, childPath, missing, snapshots, entries, blobStore);
             }
         }
         if (originMetadata == null) {
@@ -225,7 +258,7 @@ public File getRoot() {
     }
 
     @Nullable
-    private TarArchiveEntry unpackTree(String treeName, TreeType treeType, File treeRoot, TarArchiveInputStream input, TarArchiveEntry rootEntry, String childPath, boolean missing, Map<String, CompleteFileSystemLocationSnapshot> snapshots, AtomicLong entries) throws IOException {
+    private TarArchiveEntry unpackTree(String treeName, TreeType treeType, File treeRoot, TarArchiveInputStream input, TarArchiveEntry rootEntry, String childPath, boolean missing, Map<String, CompleteFileSystemLocationSnapshot> snapshots, AtomicLong entries, @Nullable BuildCacheBlobStore blobStore) throws IOException {
         boolean isDirEntry = rootEntry.isDirectory();
         boolean root = Strings.isNullOrEmpty(childPath);
         if (!root) {
@@ -242,7 +275,7 @@ private TarArchiveEntry unpackTree(String treeName, TreeType treeType, File tree
             if (isDirEntry) {
                 throw new IllegalStateException("Should be a file: " + treeName);
             }
-            RegularFileSnapshot fileSnapshot = unpackFile(input, rootEntry, treeRoot, treeRoot.getName());
+            RegularFileSnapshot fileSnapshot = unpackFile(input, rootEntry, treeRoot, treeRoot.getName(), blobStore);
             snapshots.put(treeName, fileSnapshot);
             return input.getNextTarEntry();
         }
@@ -252,10 +285,31 @@ private TarArchiveEntry unpackTree(String treeName, TreeType treeType, File tree
         }
         chmodUnpackedFile(rootEntry, treeRoot);
 
-        return unpackDirectoryTree(input, rootEntry, snapshots, entries, treeRoot, treeName);
+        return unpackDirectoryTree(input, rootEntry, snapshots, entries, treeRoot, treeName, blobStore);
+    }
+
+    private RegularFileSnapshot unpackFile(TarArchiveInputStream input, TarArchiveEntry entry, File file, String fileName, @Nullable BuildCacheBlobStore blobStore) throws IOException {
+        String blobHash = entry.getExtraPaxHeader(BLOB_HASH_HEADER);
+        if (blobHash == null) {
+            return copyToFile(input, entry, file, fileName);
+        }
+        if (blobStore == null) {
+            throw new MissingBlobException("No blob store to unpack contents of: " + entry.getName());
+        }
+        HashCode expectedHash = HashCode.fromString(blobHash);
+        RegularFileSnapshot snapshot;
+        // Blobs are copied instead of linked, so that modifying the unpacked file later cannot change the blob
+        try (InputStream blob = blobStore.open(expectedHash)) {
+            snapshot = copyToFile(blob, entry, file, fileName);
+        }
+        if (!snapshot.getHash().equals(expectedHash)) {
+            blobStore.discard(expectedHash);
+            throw new MissingBlobException("Contents of blob " + expectedHash + " do not match its hash, cannot unpack: " + entry.getName());
+        }
+        return snapshot;
     }
 
-    private RegularFileSnapshot unpackFile(TarArchiveInputStream input, TarArchiveEntry entry, File file, String fileName) throws IOException {
+    private RegularFileSnapshot copyToFile(InputStream input, TarArchiveEntry entry, File file, String fileName) throws IOException {
         try (CountingOutputStream output = new CountingOutputStream(new FileOutputStream(file))) {
             HashCode hash = streamHasher.hashCopy(input, output);
             chmodUnpackedFile(entry, file);
@@ -266,7 +320,7 @@ private RegularFileSnapshot unpackFile(TarArchiveInputStream input, TarArchiveEn
     }
 
     @Nullable
-    private TarArchiveEntry unpackDirectoryTree(TarArchiveInputStream input, TarArchiveEntry rootEntry, Map<String, CompleteFileSystemLocationSnapshot> snapshots, AtomicLong entries, File treeRoot, String treeName) throws IOException {
+    private TarArchiveEntry unpackDirectoryTree(TarArchiveInputStream input, TarArchiveEntry rootEntry, Map<String, CompleteFileSystemLocationSnapshot> snapshots, AtomicLong entries, File treeRoot, String treeName, @Nullable BuildCacheBlobStore blobStore) throws IOException {
         RelativePathParser parser = new RelativePathParser();
         parser.rootPath(rootEntry.getName());
 
@@ -296,7 +350,7 @@ private TarArchiveEntry unpackDirectoryTree(TarArchiveInputStream input, TarArch
                 String internedDirName = stringInterner.intern(parser.getName());
                 builder.preVisitDirectory(internedAbsolutePath, internedDirName);
             } else {
-                RegularFileSnapshot fileSnapshot = unpackFile(input, entry, file, parser.getName());
+                RegularFileSnapshot fileSnapshot = unpackFile(input, entry, file, parser.getName(), blobStore);
                 builder.visitFile(fileSnapshot);
             }
         }
@@ -336,15 +390,19 @@ private static class PackingVisitor implements FileSystemSnapshotVisitor {
         private final String treeRoot;
         private final FilePermissionAccess filePermissionAccess;
         private final TreeType type;
+        private final BuildCacheBlobStore blobStore;
+        private final StreamHasher streamHasher;
 
         private long entries;
 
-        public PackingVisitor(TarArchiveOutputStream tarOutput, String treeName, TreeType type, FilePermissionAccess filePermissionAccess) {
+        public PackingVisitor(TarArchiveOutputStream tarOutput, String treeName, TreeType type, FilePermissionAccess filePermissionAccess, @Nullable BuildCacheBlobStore blobStore, StreamHasher streamHasher) {
             this.tarOutput = tarOutput;
             this.treePath = "tree-" + escape(treeName);
             this.treeRoot = treePath + "/";
             this.type = type;
             this.filePermissionAccess = filePermissionAccess;
+            this.blobStore = blobStore;
+            this.streamHasher = streamHasher;
             this.relativePathStringTracker = new RelativePathStringTracker();
         }
 
@@ -374,7 +432,11 @@ public void visitFile(CompleteFileSystemLocationSnapshot fileSnapshot) {
                 assertCorrectType(isRoot, fileSnapshot);
                 File file = new File(fileSnapshot.getAbsolutePath());
                 int mode = filePermissionAccess.getUnixMode(file);
-                storeFileEntry(file, targetPath, file.length(), mode, tarOutput);
+                if (blobStore != null && storeBlob(file, fileSnapshot.getHash())) {
+                    storeBlobReferenceEntry(fileSnapshot.getHash(), targetPath, mode, tarOutput);
+                } else {
+                    storeFileEntry(file, targetPath, file.length(), mode, tarOutput);
+                }
             }
             relativePathStringTracker.leave();
             entries++;
@@ -437,6 +499,35 @@ private void storeDirectoryEntry(String path, int mode, TarArchiveOutputStream t
             }
         }
 
+        private boolean storeBlob(File file, HashCode hash) {
+            try {
+                if (blobStore.contains(hash)) {
+                    return true;
+                }
+                return blobStore.put(hash, output -> {
+                    try (FileInputStream input = new FileInputStream(file)) {
+                        // Don't store contents that have changed since the file was snapshotted under the wrong hash
+                        return streamHasher.hashCopy(input, output).equals(hash);
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void storeBlobReferenceEntry(HashCode hash, String path, int mode, TarArchiveOutputStream tarOutput) {
+            try {
+                TarArchiveEntry entry = new TarArchiveEntry(path, true);
+                entry.setSize(0);
+                entry.setMode(UnixPermissions.FILE_FLAG | mode);
+                entry.addPaxHeader(BLOB_HASH_HEADER, hash.toString());
+                tarOutput.putArchiveEntry(entry);
+                tarOutput.closeArchiveEntry();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
         private void storeFileEntry(File inputFile, String path, long size, int mode, TarArchiveOutputStream tarOutput) {
             try {
                 createTarEntry(path, size, UnixPermissions.FILE_FLAG | mode, tarOutput);
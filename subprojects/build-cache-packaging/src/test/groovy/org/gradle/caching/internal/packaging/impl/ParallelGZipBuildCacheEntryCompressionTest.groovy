@@ -0,0 +1,164 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.caching.internal.packaging.impl
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.concurrent.Executors
+import java.util.zip.GZIPInputStream
+import java.util.zip.GZIPOutputStream
+
+class ParallelGZipBuildCacheEntryCompressionTest extends Specification {
+    def executor = Executors.newFixedThreadPool(4)
+    def compression = new ParallelGZipBuildCacheEntryCompression(executor, 4, 1000)
+
+    def cleanup() {
+        compression.close()
+    }
+
+    @Unroll
+    def "can decompress #size bytes compressed in blocks"() {
+        def data = data(size)
+
+        when:
+        def compressed = compress(data)
+
+        then:
+        decompress(compression.decompress(new ByteArrayInputStream(compressed))) == data
+
+        where:
+        size << [0, 1, 999, 1000, 1001, 12345]
+    }
+
+    def "compressed data can be read as GZip"() {
+        def data = data(12345)
+
+        expect:
+        decompress(new GZIPInputStream(new ByteArrayInputStream(compress(data)))) == data
+    }
+
+    @Unroll
+    def "can decompress #size bytes compressed as a single GZip stream"() {
+        def data = data(size)
+        def compressed = new ByteArrayOutputStream()
+        new GZIPOutputStream(compressed).withStream { it.write(data) }
+
+        expect:
+        decompress(compression.decompress(new ByteArrayInputStream(compressed.toByteArray()))) == data
+
+        where:
+        size << [0, 1, 12345]
+    }
+
+    def "detects corrupt blocks"() {
+        def compressed = compress(data(12345))
+        compressed[compressed.length - 100] ^= 0x55
+
+        when:
+        decompress(compression.decompress(new ByteArrayInputStream(compressed)))
+
+        then:
+        def e = thrown(IOException)
+        e.message.startsWith("Corrupt GZip block")
+    }
+
+    def "detects truncated entries"() {
+        def compressed = compress(data(12345))
+
+        when:
+        decompress(compression.decompress(new ByteArrayInputStream(compressed, 0, compressed.length - 10)))
+
+        then:
+        thrown(IOException)
+    }
+
+    def "streams used at the same time share the block budget"() {
+        def data = (0..<5).collect { data(12345 + it) }
+        def outputs = data.collect { new ByteArrayOutputStream() }
+
+        when:
+        def compressingStreams = outputs.collect { compression.compress(it) }
+        interleave(data) { index, offset, count -> compressingStreams[index].write(data[index], offset, count) }
+        compressingStreams*.close()
+
+        then:
+        compression.blockBudget.availablePermits() == 8
+
+        when:
+        def decompressingStreams = outputs.collect { compression.decompress(new ByteArrayInputStream(it.toByteArray())) }
+        def read = data.collect { new byte[it.length] }
+        interleave(data) { index, offset, count -> new DataInputStream(decompressingStreams[index]).readFully(read[index], offset, count) }
+        decompressingStreams*.close()
+
+        then:
+        read == data
+        compression.blockBudget.availablePermits() == 8
+    }
+
+    def "releases the block budget of streams closed early"() {
+        def compressed = compress(data(12345))
+
+        when:
+        def input = compression.decompress(new ByteArrayInputStream(compressed))
+        input.read()
+        input.close()
+
+        then:
+        compression.blockBudget.availablePermits() == 8
+    }
+
+    private static void interleave(List<byte[]> data, Closure<?> action) {
+        int offset = 0
+        while (data.any { offset < it.length }) {
+            data.eachWithIndex { bytes, index ->
+                if (offset < bytes.length) {
+                    action(index, offset, Math.min(bytes.length - offset, 333))
+                }
+            }
+            offset += 333
+        }
+    }
+
+    private byte[] compress(byte[] data) {
+        def output = new ByteArrayOutputStream()
+        compression.compress(output).withStream { stream ->
+            // Write in uneven chunks to cross block boundaries
+            int offset = 0
+            while (offset < data.length) {
+                int count = Math.min(data.length - offset, 333)
+                stream.write(data, offset, count)
+                offset += count
+            }
+        }
+        return output.toByteArray()
+    }
+
+    private static byte[] decompress(InputStream input) {
+        input.withStream { it.bytes }
+    }
+
+    private static byte[] data(int size) {
+        def random = new Random(1234L)
+        def data = new byte[size]
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) ('a' + random.nextInt(8))
+        }
+        return data
+    }
+}
@@ -20,11 +20,14 @@ import org.gradle.api.internal.file.TestFiles
 import org.gradle.caching.internal.CacheableEntity
 import org.gradle.caching.internal.origin.OriginReader
 import org.gradle.caching.internal.origin.OriginWriter
+import org.gradle.caching.internal.packaging.BuildCacheBlobStore
+import org.gradle.caching.internal.packaging.MissingBlobException
 import org.gradle.internal.file.Deleter
 import org.gradle.internal.file.TreeType
 import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint
 import org.gradle.internal.fingerprint.FingerprintingStrategy
 import org.gradle.internal.fingerprint.impl.AbsolutePathFingerprintingStrategy
+import org.gradle.internal.hash.HashCode
 import org.gradle.internal.nativeintegration.filesystem.FileSystem
 import org.gradle.util.Requires
 import org.gradle.util.TestPrecondition
@@ -251,6 +254,152 @@ class TarBuildCacheEntryPackerTest extends AbstractTarBuildCacheEntryPackerSpec
         targetDir.assertIsEmptyDir()
     }
 
+    def "can pack deduplicated directory with contents in blob store"() {
+        def sourceOutputDir = temporaryFolder.file("source").createDir()
+        sourceOutputDir.file("first.txt") << "output"
+        sourceOutputDir.file("second.txt") << "output"
+        sourceOutputDir.file("third.txt") << "other"
+        def targetOutputDir = temporaryFolder.file("target")
+        def blobStore = new InMemoryBlobStore()
+        def output = new ByteArrayOutputStream()
+
+        when:
+        packer.packDeduplicated(entity(prop(DIRECTORY, sourceOutputDir)), [test: prop(DIRECTORY, sourceOutputDir).fingerprint()], output, writeOrigin, blobStore)
+
+        then:
+        blobStore.blobs.size() == 2
+        blobStore.blobs.values()*.toString("UTF-8") as Set == ["output", "other"] as Set
+
+        when:
+        def result = packer.unpackDeduplicated(entity(prop(DIRECTORY, targetOutputDir)), new ByteArrayInputStream(output.toByteArray()), readOrigin, blobStore)
+
+        then:
+        targetOutputDir.file("first.txt").text == "output"
+        targetOutputDir.file("second.txt").text == "output"
+        targetOutputDir.file("third.txt").text == "other"
+        result.entries == 5
+    }
+
+    def "does not reference blob store for files that changed since they were snapshotted"() {
+        def sourceOutputFile = temporaryFolder.file("source.txt")
+        sourceOutputFile << "output"
+        def fingerprint = prop(FILE, sourceOutputFile).fingerprint()
+        sourceOutputFile.text = "changed"
+        def targetOutputFile = temporaryFolder.file("target.txt")
+        def blobStore = new InMemoryBlobStore()
+        def output = new ByteArrayOutputStream()
+
+        when:
+        packer.packDeduplicated(entity(prop(FILE, sourceOutputFile)), [test: fingerprint], output, writeOrigin, blobStore)
+
+        then:
+        blobStore.blobs.isEmpty()
+
+        when:
+        packer.unpackDeduplicated(entity(prop(FILE, targetOutputFile)), new ByteArrayInputStream(output.toByteArray()), readOrigin, blobStore)
+
+        then:
+        targetOutputFile.text == "changed"
+    }
+
+    def "cannot unpack deduplicated entry without blob store"() {
+        def sourceOutputFile = temporaryFolder.file("source.txt")
+        sourceOutputFile << "output"
+        def targetOutputFile = temporaryFolder.file("target.txt")
+        def output = new ByteArrayOutputStream()
+        packer.packDeduplicated(entity(prop(FILE, sourceOutputFile)), [test: prop(FILE, sourceOutputFile).fingerprint()], output, writeOrigin, new InMemoryBlobStore())
+
+        when:
+        unpack new ByteArrayInputStream(output.toByteArray()), prop(FILE, targetOutputFile)
+
+        then:
+        def ex = thrown MissingBlobException
+        ex.message.contains("without a blob store")
+        !targetOutputFile.exists()
+    }
+
+    def "cannot unpack deduplicated entry with missing blob"() {
+        def sourceOutputFile = temporaryFolder.file("source.txt")
+        sourceOutputFile << "output"
+        def targetOutputFile = temporaryFolder.file("target.txt")
+        def blobStore = new InMemoryBlobStore()
+        def output = new ByteArrayOutputStream()
+        packer.packDeduplicated(entity(prop(FILE, sourceOutputFile)), [test: prop(FILE, sourceOutputFile).fingerprint()], output, writeOrigin, blobStore)
+        blobStore.blobs.clear()
+
+        when:
+        packer.unpackDeduplicated(entity(prop(FILE, targetOutputFile)), new ByteArrayInputStream(output.toByteArray()), readOrigin, blobStore)
+
+        then:
+        thrown MissingBlobException
+    }
+
+    def "modifying unpacked files does not change blobs"() {
+        def sourceOutputFile = temporaryFolder.file("source.txt")
+        sourceOutputFile << "output"
+        def targetOutputFile = temporaryFolder.file("target.txt")
+        def blobStore = new InMemoryBlobStore()
+        def output = new ByteArrayOutputStream()
+        packer.packDeduplicated(entity(prop(FILE, sourceOutputFile)), [test: prop(FILE, sourceOutputFile).fingerprint()], output, writeOrigin, blobStore)
+        packer.unpackDeduplicated(entity(prop(FILE, targetOutputFile)), new ByteArrayInputStream(output.toByteArray()), readOrigin, blobStore)
+
+        when:
+        targetOutputFile.text = "modified"
+
+        then:
+        blobStore.blobs.values()*.toString("UTF-8") == ["output"]
+    }
+
+    def "cannot unpack deduplicated entry with corrupted blob"() {
+        def sourceOutputFile = temporaryFolder.file("source.txt")
+        sourceOutputFile << "output"
+        def targetOutputFile = temporaryFolder.file("target.txt")
+        def blobStore = new InMemoryBlobStore()
+        def output = new ByteArrayOutputStream()
+        packer.packDeduplicated(entity(prop(FILE, sourceOutputFile)), [test: prop(FILE, sourceOutputFile).fingerprint()], output, writeOrigin, blobStore)
+        blobStore.blobs.values().each { it.reset(); it << "corrupted" }
+
+        when:
+        packer.unpackDeduplicated(entity(prop(FILE, targetOutputFile)), new ByteArrayInputStream(output.toByteArray()), readOrigin, blobStore)
+
+        then:
+        def ex = thrown MissingBlobException
+        ex.message.contains("do not match its hash")
+        blobStore.blobs.isEmpty()
+    }
+
+    private static class InMemoryBlobStore implements BuildCacheBlobStore {
+        final Map<HashCode, ByteArrayOutputStream> blobs = [:]
+
+        @Override
+        boolean contains(HashCode contentHash) {
+            return blobs.containsKey(contentHash)
+        }
+
+        @Override
+        boolean put(HashCode contentHash, BlobWriter writer) {
+            def blob = new ByteArrayOutputStream()
+            if (!writer.writeTo(blob)) {
+                return false
+            }
+            blobs[contentHash] = blob
+            return true
+        }
+
+        @Override
+        InputStream open(HashCode contentHash) {
+            if (!blobs.containsKey(contentHash)) {
+                throw new MissingBlobException("Missing blob " + contentHash)
+            }
+            return new ByteArrayInputStream(blobs[contentHash].toByteArray())
+        }
+
+        @Override
+        void discard(HashCode contentHash) {
+            blobs.remove(contentHash)
+        }
+    }
+
     def pack(OutputStream output, OriginWriter writeOrigin = this.writeOrigin, TreeDefinition... treeDefs) {
         Map<String, CurrentFileCollectionFingerprint> fingerprints = treeDefs.collectEntries { treeDef ->
             return [(treeDef.tree.name): treeDef.fingerprint()]
@@ -21,6 +21,7 @@ plugins {
 dependencies {
     api(project(":build-cache-base"))
     api(project(":snapshots"))
+    api(project(":build-cache-packaging"))
 
     implementation(project(":base-services"))
     implementation(project(":core-api"))
@@ -30,6 +30,7 @@
 import org.openjdk.jmh.annotations.Warmup;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
@@ -55,6 +56,7 @@ public abstract class AbstractTaskOutputPackagingBenchmark {
         .put("tar.small", new AntTarPacker(2))
         .put("tar.large", new AntTarPacker(64))
         .put("tar.gz", new GzipPacker(new AntTarPacker(4)))
+        .put("tar.gz.parallel", new ParallelGzipPacker(new AntTarPacker(4)))
         .put("zip", new ZipPacker(4))
         .build();
 
@@ -66,6 +68,8 @@ public abstract class AbstractTaskOutputPackagingBenchmark {
         .put("in-memory", new InMemoryDataAccessor())
         .build();
 
+    private static final byte[][] VOCABULARY = createVocabulary();
+
     DataSource sample;
 
     List<DataSource> inputs;
@@ -77,15 +81,23 @@ public abstract class AbstractTaskOutputPackagingBenchmark {
 
     protected abstract String getAccessorName();
 
+    /**
+     * Either "random" for incompressible files, or "compressible" for files that compress about as well as class files.
+     */
+    protected String getContentName() {
+        return "random";
+    }
+
     @Setup(Level.Trial)
     public void setupTrial() throws IOException {
         DIRECTORY_PROVIDER.setupTrial();
         String packerName = getPackerName();
         String accessorName = getAccessorName();
-        System.out.println(">>> Measuring format: " + packerName + " with accessor " + accessorName);
+        String contentName = getContentName();
+        System.out.println(">>> Measuring format: " + packerName + " with accessor " + accessorName + " and " + contentName + " content");
         Packer packer = PACKERS.get(packerName);
         DataAccessor accessor = ACCESSORS.get(accessorName);
-        this.inputs = createInputFiles(fileCount, minFileSize, maxFileSize, accessor);
+        this.inputs = createInputFiles(fileCount, minFileSize, maxFileSize, accessor, contentName.equals("compressible"));
         this.sample = packSample("sample." + packerName, inputs, packer, accessor);
     }
 
@@ -104,20 +116,56 @@ public void tearDownIteration() throws IOException {
         DIRECTORY_PROVIDER.tearDownIteration();
     }
 
-    private static ImmutableList<DataSource> createInputFiles(int fileCount, int minFileSize, int maxFileSize, DataAccessor accessor) throws IOException {
+    private static ImmutableList<DataSource> createInputFiles(int fileCount, int minFileSize, int maxFileSize, DataAccessor accessor, boolean compressible) throws IOException {
         Random random = new Random(1234L);
         ImmutableList.Builder<DataSource> inputs = ImmutableList.builder();
         for (int idx = 0; idx < fileCount; idx++) {
             String name = "input-" + idx + ".bin";
             int fileSize = minFileSize + random.nextInt(maxFileSize - minFileSize);
             byte[] buffer = new byte[fileSize];
-            random.nextBytes(buffer);
+            if (compressible) {
+                fillCompressible(buffer, random);
+            } else {
+                random.nextBytes(buffer);
+            }
             DataSource input = accessor.createSource(name, buffer, Level.Trial);
             inputs.add(input);
         }
         return inputs.build();
     }
 
+    /**
+     * Mixes names drawn from a small vocabulary with a few random bytes, similar to the constant pools and code of class files.
+     */
+    private static void fillCompressible(byte[] buffer, Random random) {
+        int position = 0;
+        while (position < buffer.length) {
+            byte[] token;
+            if (random.nextInt(4) == 0) {
+                token = new byte[1 + random.nextInt(8)];
+                random.nextBytes(token);
+            } else {
+                token = VOCABULARY[random.nextInt(VOCABULARY.length)];
+            }
+            int count = Math.min(token.length, buffer.length - position);
+            System.arraycopy(token, 0, buffer, position, count);
+            position += count;
+        }
+    }
+
+    private static byte[][] createVocabulary() {
+        String[] packages = {"org/gradle/api/", "org/gradle/internal/", "java/lang/", "java/util/", "kotlin/jvm/internal/"};
+        String[] names = {"Object", "String", "List", "Map", "Provider", "Property", "Action", "Task", "Project", "Intrinsics", "Iterator", "Builder"};
+        String[] members = {"get", "set", "create", "apply", "execute", "toString", "hashCode", "equals", "<init>", "checkNotNull"};
+        Random random = new Random(4321L);
+        byte[][] vocabulary = new byte[1000][];
+        for (int i = 0; i < vocabulary.length; i++) {
+            String token = packages[random.nextInt(packages.length)] + names[random.nextInt(names.length)] + "." + members[random.nextInt(members.length)] + random.nextInt(100);
+            vocabulary[i] = token.getBytes(StandardCharsets.UTF_8);
+        }
+        return vocabulary;
+    }
+
     private static DataSource packSample(String name, List<DataSource> inputs, Packer packer, DataAccessor accessor) throws IOException {
         long sumLength = 0;
         for (DataSource input : inputs) {
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.caching.internal.controller;
+
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.controller.service.LoadTarget;
+import org.gradle.caching.internal.controller.service.StoreTarget;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.util.GFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
+
+/**
+ * Accesses the remote build cache off the execution worker threads.
+ *
+ * Entries can be prefetched as soon as their key is known, and are then handed to the next load of the same key.
+ * Prefetched entries that end up not being loaded are discarded, so they don't pile up in the temporary directory.
+ * Stores are uploaded in the background from a copy of the packed entry.
+ * The number of pending uploads is bounded, so that a slow remote cache eventually slows down the build instead of filling up the disk.
+ */
+class AsyncRemoteBuildCacheAccess implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncRemoteBuildCacheAccess.class);
+
+    private final ManagedExecutor executor;
+    private final File tempDir;
+    private final BiConsumer<BuildCacheKey, LoadTarget> remoteLoad;
+    private final BiConsumer<BuildCacheKey, StoreTarget> remoteStore;
+    private final Semaphore pendingStores;
+    private final Map<String, Prefetch> prefetches = new ConcurrentHashMap<>();
+
+    AsyncRemoteBuildCacheAccess(ManagedExecutor executor, int maxPendingStores, File tempDir, BiConsumer<BuildCacheKey, LoadTarget> remoteLoad, BiConsumer<BuildCacheKey, StoreTarget> remoteStore) {
+        this.executor = executor;
+        this.tempDir = tempDir;
+        this.remoteLoad = remoteLoad;
+        this.remoteStore = remoteStore;
+        this.pendingStores = new Semaphore(maxPendingStores);
+        GFileUtils.mkdirs(tempDir);
+    }
+
+    /**
+     * Starts loading the given entry, unless it is already being loaded.
+     *
+     * @return whether a new load has been started.
+     */
+    boolean prefetch(BuildCacheKey key) {
+        boolean[] started = new boolean[1];
+        prefetches.computeIfAbsent(key.getHashCode(), hashCode -> {
+            started[0] = true;
+            Prefetch prefetch = new Prefetch(key);
+            prefetch.future = executor.submit(prefetch::load);
+            return prefetch;
+        });
+        return started[0];
+    }
+
+    /**
+     * Waits for the prefetch of the given entry, and loads the prefetched contents into the given target.
+     *
+     * @return whether the given entry had been prefetched, in which case the target is only loaded if the remote cache has the entry.
+     */
+    boolean loadPrefetched(BuildCacheKey key, LoadTarget loadTarget) {
+        Prefetch prefetch = prefetches.remove(key.getHashCode());
+        if (prefetch == null) {
+            return false;
+        }
+        File file;
+        try {
+            file = prefetch.future.get();
+        } catch (ExecutionException e) {
+            LOGGER.debug("Could not prefetch entry {} from remote build cache, loading it again.", key.getHashCode(), e.getCause());
+            return false;
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        if (file != null) {
+            try {
+                loadTarget.readFrom(new FileInputStream(file));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                GFileUtils.deleteQuietly(file);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Discards the prefetch of the given entry if it has not been used, without waiting for it to finish.
+     */
+    void discardPrefetched(BuildCacheKey key) {
+        Prefetch prefetch = prefetches.remove(key.getHashCode());
+        if (prefetch != null) {
+            prefetch.discard();
+        }
+    }
+
+    /**
+     * Uploads a copy of the given entry in the background.
+     */
+    void store(BuildCacheKey key, File entry) {
+        try {
+            pendingStores.acquire();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        try {
+            File file = File.createTempFile(key.getHashCode() + "-", ".upload", tempDir);
+            Files.copy(entry.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            executor.execute(() -> {
+                try {
+                    remoteStore.accept(key, new StoreTarget(file));
+                } finally {
+                    GFileUtils.deleteQuietly(file);
+                    pendingStores.release();
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            pendingStores.release();
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    /**
+     * Waits for pending uploads and discards prefetched entries that have not been used.
+     */
+    @Override
+    public void close() {
+        for (Prefetch prefetch : prefetches.values()) {
+            prefetch.discard();
+        }
+        prefetches.clear();
+        executor.stop();
+    }
+
+    private class Prefetch {
+        private final BuildCacheKey key;
+        private Future<File> future;
+        private File file;
+        private boolean discarded;
+
+        private Prefetch(BuildCacheKey key) {
+            this.key = key;
+        }
+
+        @Nullable
+        private File load() throws IOException {
+            File file = File.createTempFile(key.getHashCode() + "-", ".prefetch", tempDir);
+            LoadTarget loadTarget = new LoadTarget(file);
+            try {
+                remoteLoad.accept(key, loadTarget);
+            } catch (RuntimeException e) {
+                GFileUtils.deleteQuietly(file);
+                throw e;
+            }
+            if (!loadTarget.isLoaded()) {
+                GFileUtils.deleteQuietly(file);
+                return null;
+            }
+            synchronized (this) {
+                if (discarded) {
+                    GFileUtils.deleteQuietly(file);
+                    return null;
+                }
+                this.file = file;
+                return file;
+            }
+        }
+
+        private void discard() {
+            future.cancel(false);
+            synchronized (this) {
+                discarded = true;
+                if (file != null) {
+                    GFileUtils.deleteQuietly(file);
+                }
+            }
+        }
+    }
+}
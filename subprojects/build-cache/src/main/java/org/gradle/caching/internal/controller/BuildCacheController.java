@@ -16,6 +16,7 @@
 
 package org.gradle.caching.internal.controller;
 
+import org.gradle.caching.BuildCacheKey;
 import org.gradle.caching.BuildCacheService;
 
 import java.io.Closeable;
@@ -36,4 +37,16 @@ public interface BuildCacheController extends Closeable {
 
     void store(BuildCacheStoreCommand command);
 
+    /**
+     * Hints that the entry with the given key is likely to be loaded soon.
+     *
+     * The controller may start downloading the entry from the remote cache, so that the subsequent load does not have to wait for it.
+     */
+    void prefetch(BuildCacheKey key);
+
+    /**
+     * Signals that the entry with the given key is not going to be loaded, so that the controller can discard a prefetched entry.
+     */
+    void discardPrefetched(BuildCacheKey key);
+
 }
@@ -17,6 +17,7 @@
 package org.gradle.caching.internal.controller;
 
 import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.packaging.BuildCacheBlobStore;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -29,9 +30,19 @@
      * Called at-most-once to initiate loading the artifact from the input stream.
      *
      * The input stream will be closed by this method.
+     *
+     * @throws org.gradle.caching.internal.packaging.MissingBlobException when the artifact refers to file contents that are not available.
+     * The outputs of the artifact have been removed in this case, and the artifact should be treated as a miss.
      */
     Result<T> load(InputStream inputStream) throws IOException;
 
+    /**
+     * Like {@link #load(InputStream)}, but the artifact may also be a deduplicated artifact referring to the contents of its files in the given blob store.
+     */
+    default Result<T> loadDeduplicated(InputStream inputStream, BuildCacheBlobStore blobStore) throws IOException {
+        return load(inputStream);
+    }
+
     interface Result<T> {
 
         /**
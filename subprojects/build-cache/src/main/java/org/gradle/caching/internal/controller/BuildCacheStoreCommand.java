@@ -17,6 +17,7 @@
 package org.gradle.caching.internal.controller;
 
 import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.packaging.BuildCacheBlobStore;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -32,6 +33,15 @@ public interface BuildCacheStoreCommand {
      */
     Result store(OutputStream outputStream) throws IOException;
 
+    /**
+     * Like {@link #store(OutputStream)}, but may write a deduplicated artifact that refers to the contents of its files in the given blob store.
+     *
+     * This can be called in addition to {@link #store(OutputStream)} when the artifact is stored deduplicated locally and in full remotely.
+     */
+    default Result storeDeduplicated(OutputStream outputStream, BuildCacheBlobStore blobStore) throws IOException {
+        return store(outputStream);
+    }
+
     interface Result {
 
         /**
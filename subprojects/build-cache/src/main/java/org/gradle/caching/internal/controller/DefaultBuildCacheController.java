@@ -26,6 +26,7 @@
 import org.gradle.caching.internal.controller.operations.PackOperationResult;
 import org.gradle.caching.internal.controller.operations.UnpackOperationDetails;
 import org.gradle.caching.internal.controller.operations.UnpackOperationResult;
+import org.gradle.caching.internal.controller.service.BuildCacheServiceConnectionStatistics;
 import org.gradle.caching.internal.controller.service.BuildCacheServiceHandle;
 import org.gradle.caching.internal.controller.service.BuildCacheServiceRole;
 import org.gradle.caching.internal.controller.service.BuildCacheServicesConfiguration;
@@ -36,13 +37,21 @@
 import org.gradle.caching.internal.controller.service.NullLocalBuildCacheServiceHandle;
 import org.gradle.caching.internal.controller.service.OpFiringBuildCacheServiceHandle;
 import org.gradle.caching.internal.controller.service.StoreTarget;
+import org.gradle.caching.internal.operations.BuildCacheRemoteStatisticsBuildOperationType;
+import org.gradle.caching.internal.packaging.BuildCacheBlobStore;
+import org.gradle.caching.internal.packaging.MissingBlobException;
 import org.gradle.caching.local.internal.BuildCacheTempFileStore;
 import org.gradle.caching.local.internal.DefaultBuildCacheTempFileStore;
 import org.gradle.caching.local.internal.LocalBuildCacheService;
+import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.operations.BuildOperationContext;
 import org.gradle.internal.operations.BuildOperationDescriptor;
 import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.time.Time;
+import org.gradle.internal.time.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import java.io.File;
@@ -54,6 +63,8 @@
 
 public class DefaultBuildCacheController implements BuildCacheController {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultBuildCacheController.class);
+
     @VisibleForTesting
     final BuildCacheServiceHandle remote;
 
@@ -63,6 +74,8 @@ public class DefaultBuildCacheController implements BuildCacheController {
     private final BuildCacheTempFileStore tmp;
     private final BuildOperationExecutor buildOperationExecutor;
     private final boolean emitDebugLogging;
+    private final RemoteAccessStatistics remoteStatistics = new RemoteAccessStatistics();
+    private final AsyncRemoteBuildCacheAccess asyncRemote;
 
     private boolean closed;
 
@@ -73,12 +86,32 @@ public DefaultBuildCacheController(
         boolean logStackTraces,
         boolean emitDebugLogging,
         boolean disableRemoteOnError
+    ) {
+        this(config, buildOperationExecutor, gradleUserHomeDir, logStackTraces, emitDebugLogging, disableRemoteOnError, null, 0);
+    }
+
+    /**
+     * Creates a controller that accesses the remote cache using the given executor, if any.
+     * Prefetched entries and pending uploads are kept in the temporary directory of the build cache until they are used.
+     */
+    public DefaultBuildCacheController(
+        BuildCacheServicesConfiguration config,
+        BuildOperationExecutor buildOperationExecutor,
+        File gradleUserHomeDir,
+        boolean logStackTraces,
+        boolean emitDebugLogging,
+        boolean disableRemoteOnError,
+        @Nullable ManagedExecutor remoteExecutor,
+        int maxPendingRemoteStores
     ) {
         this.buildOperationExecutor = buildOperationExecutor;
         this.emitDebugLogging = emitDebugLogging;
         this.local = toLocalHandle(config.getLocal(), config.isLocalPush());
         this.remote = toRemoteHandle(config.getRemote(), config.isRemotePush(), buildOperationExecutor, logStackTraces, disableRemoteOnError);
         this.tmp = toTempFileStore(config.getLocal(), gradleUserHomeDir);
+        this.asyncRemote = remoteExecutor == null || config.getRemote() == null
+            ? null
+            : new AsyncRemoteBuildCacheAccess(remoteExecutor, maxPendingRemoteStores, new File(gradleUserHomeDir, "build-cache-tmp"), this::loadRemote, this::storeRemote);
     }
 
     @Override
@@ -93,24 +126,28 @@ public boolean isEmitDebugLogging() {
 
     @Override
     public <T> Optional<T> load(BuildCacheLoadCommand<T> command) {
-        final Unpack<T> unpack = new Unpack<>(command);
-
         if (local.canLoad()) {
+            Unpack<T> localUnpack = new Unpack<>(command, local.getBlobStore());
             try {
-                local.load(command.getKey(), unpack);
+                local.load(command.getKey(), localUnpack);
             } catch (Exception e) {
                 throw new GradleException("Build cache entry " + command.getKey().getHashCode() + " from local build cache is invalid", e);
             }
 
-            if (unpack.result != null) {
-                return Optional.of(unpack.result.getMetadata());
+            if (localUnpack.result != null) {
+                return Optional.of(localUnpack.result.getMetadata());
             }
         }
 
+        final Unpack<T> unpack = new Unpack<>(command, null);
         if (remote.canLoad()) {
             tmp.withTempFile(command.getKey(), file -> {
                 LoadTarget loadTarget = new LoadTarget(file);
-                remote.load(command.getKey(), loadTarget);
+                if (asyncRemote != null && asyncRemote.loadPrefetched(command.getKey(), loadTarget)) {
+                    remoteStatistics.recordPrefetchUsed();
+                } else {
+                    loadRemote(command.getKey(), loadTarget);
+                }
 
                 if (loadTarget.isLoaded()) {
                     try {
@@ -131,13 +168,44 @@ public <T> Optional<T> load(BuildCacheLoadCommand<T> command) {
             : Optional.of(result.getMetadata());
     }
 
+    private void loadRemote(BuildCacheKey key, LoadTarget loadTarget) {
+        Timer timer = Time.startTimer();
+        remote.load(key, loadTarget);
+        remoteStatistics.recordLoad(timer.getElapsedMillis(), loadTarget.isLoaded());
+    }
+
+    @Override
+    public void prefetch(BuildCacheKey key) {
+        if (asyncRemote != null && remote.canLoad() && !existsLocally(key) && asyncRemote.prefetch(key)) {
+            remoteStatistics.recordPrefetch();
+        }
+    }
+
+    private boolean existsLocally(BuildCacheKey key) {
+        if (!local.canLoad()) {
+            return false;
+        }
+        boolean[] found = new boolean[1];
+        local.load(key, file -> found[0] = true);
+        return found[0];
+    }
+
+    @Override
+    public void discardPrefetched(BuildCacheKey key) {
+        if (asyncRemote != null) {
+            asyncRemote.discardPrefetched(key);
+        }
+    }
+
     private class Unpack<T> implements Action<File> {
         private final BuildCacheLoadCommand<T> command;
+        private final BuildCacheBlobStore blobStore;
 
         private BuildCacheLoadCommand.Result<T> result;
 
-        private Unpack(BuildCacheLoadCommand<T> command) {
+        private Unpack(BuildCacheLoadCommand<T> command, @Nullable BuildCacheBlobStore blobStore) {
             this.command = command;
+            this.blobStore = blobStore;
         }
 
         @Override
@@ -146,10 +214,15 @@ public void execute(File file) {
                 @Override
                 public void run(BuildOperationContext context) throws IOException {
                     try (InputStream input = new FileInputStream(file)) {
-                        result = command.load(input);
+                        result = blobStore == null
+                            ? command.load(input)
+                            : command.loadDeduplicated(input, blobStore);
                         context.setResult(new UnpackOperationResult(
                             result.getArtifactEntryCount()
                         ));
+                    } catch (MissingBlobException e) {
+                        // The entry is fine, but its contents are not available here, so treat it as a miss
+                        LOGGER.debug("Cannot unpack build cache entry {}: {}", command.getKey().getHashCode(), e.getMessage());
                     }
                 }
 
@@ -170,13 +243,22 @@ public void store(BuildCacheStoreCommand command) {
         }
 
         BuildCacheKey key = command.getKey();
-        Pack pack = new Pack(command);
+        if (local.canStore() && !remote.canStore() && local.getBlobStore() != null) {
+            // Only deduplicate when there is no remote cache, which needs the full entry, so that the entry is only packed once
+            local.storeDeduplicated(key, (file, blobStore) -> new Pack(command, blobStore).execute(file));
+            return;
+        }
 
+        Pack pack = new Pack(command, null);
         tmp.withTempFile(command.getKey(), file -> {
             pack.execute(file);
 
             if (remote.canStore()) {
-                remote.store(key, new StoreTarget(file));
+                if (asyncRemote != null) {
+                    asyncRemote.store(key, file);
+                } else {
+                    storeRemote(key, new StoreTarget(file));
+                }
             }
 
             if (local.canStore()) {
@@ -185,12 +267,20 @@ public void store(BuildCacheStoreCommand command) {
         });
     }
 
+    private void storeRemote(BuildCacheKey key, StoreTarget storeTarget) {
+        Timer timer = Time.startTimer();
+        remote.store(key, storeTarget);
+        remoteStatistics.recordStore(timer.getElapsedMillis());
+    }
+
     private class Pack implements Action<File> {
 
         private final BuildCacheStoreCommand command;
+        private final BuildCacheBlobStore blobStore;
 
-        private Pack(BuildCacheStoreCommand command) {
+        private Pack(BuildCacheStoreCommand command, @Nullable BuildCacheBlobStore blobStore) {
             this.command = command;
+            this.blobStore = blobStore;
         }
 
         @Override
@@ -199,7 +289,9 @@ public void execute(final File file) {
                 @Override
                 public void run(BuildOperationContext context) throws IOException {
                     try (FileOutputStream fileOutputStream = new FileOutputStream(file)) {
-                        BuildCacheStoreCommand.Result result = command.store(fileOutputStream);
+                        BuildCacheStoreCommand.Result result = blobStore == null
+                            ? command.store(fileOutputStream)
+                            : command.storeDeduplicated(fileOutputStream, blobStore);
                         context.setResult(new PackOperationResult(
                             result.getArtifactEntryCount(),
                             file.length()
@@ -221,6 +313,12 @@ public BuildOperationDescriptor.Builder description() {
     public void close() throws IOException {
         if (!closed) {
             closed = true;
+            if (asyncRemote != null) {
+                asyncRemote.close();
+            }
+            if (remote.getService() != null) {
+                reportRemoteStatistics();
+            }
             Closer closer = Closer.create();
             closer.register(local);
             closer.register(remote);
@@ -228,6 +326,38 @@ public void close() throws IOException {
         }
     }
 
+    private void reportRemoteStatistics() {
+        BuildCacheService service = remote.getService();
+        BuildCacheServiceConnectionStatistics connectionStatistics = service instanceof BuildCacheServiceConnectionStatistics
+            ? (BuildCacheServiceConnectionStatistics) service
+            : null;
+        buildOperationExecutor.run(new RunnableBuildOperation() {
+            @Override
+            public void run(BuildOperationContext context) {
+                context.setResult(remoteStatistics.toResult(connectionStatistics));
+            }
+
+            @Override
+            public BuildOperationDescriptor.Builder description() {
+                return BuildOperationDescriptor.displayName("Report remote build cache statistics")
+                    .details(new RemoteStatisticsDetails(asyncRemote != null));
+            }
+        });
+    }
+
+    private static class RemoteStatisticsDetails implements BuildCacheRemoteStatisticsBuildOperationType.Details {
+        private final boolean asynchronous;
+
+        private RemoteStatisticsDetails(boolean asynchronous) {
+            this.asynchronous = asynchronous;
+        }
+
+        @Override
+        public boolean isAsynchronous() {
+            return asynchronous;
+        }
+    }
+
     private static BuildCacheServiceHandle toRemoteHandle(@Nullable BuildCacheService service, boolean push, BuildOperationExecutor buildOperationExecutor, boolean logStackTraces, boolean disableOnError) {
         return service == null
             ? NullBuildCacheServiceHandle.INSTANCE
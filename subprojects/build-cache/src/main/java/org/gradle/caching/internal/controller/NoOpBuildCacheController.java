@@ -16,6 +16,8 @@
 
 package org.gradle.caching.internal.controller;
 
+import org.gradle.caching.BuildCacheKey;
+
 import java.util.Optional;
 
 public class NoOpBuildCacheController implements BuildCacheController {
@@ -45,6 +47,16 @@ public void store(BuildCacheStoreCommand command) {
 
     }
 
+    @Override
+    public void prefetch(BuildCacheKey key) {
+
+    }
+
+    @Override
+    public void discardPrefetched(BuildCacheKey key) {
+
+    }
+
     @Override
     public void close() {
 
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.caching.internal.controller;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.caching.internal.controller.service.BuildCacheServiceConnectionStatistics;
+import org.gradle.caching.internal.operations.BuildCacheRemoteStatisticsBuildOperationType;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Collects the latencies of the accesses to the remote build cache during a build.
+ */
+class RemoteAccessStatistics {
+    private static final int BUCKET_COUNT = 16;
+
+    private final AtomicLongArray loadLatencies = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLongArray storeLatencies = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong loadHits = new AtomicLong();
+    private final AtomicLong prefetches = new AtomicLong();
+    private final AtomicLong prefetchesUsed = new AtomicLong();
+
+    void recordLoad(long durationMillis, boolean hit) {
+        loadLatencies.incrementAndGet(bucketFor(durationMillis));
+        if (hit) {
+            loadHits.incrementAndGet();
+        }
+    }
+
+    void recordStore(long durationMillis) {
+        storeLatencies.incrementAndGet(bucketFor(durationMillis));
+    }
+
+    void recordPrefetch() {
+        prefetches.incrementAndGet();
+    }
+
+    void recordPrefetchUsed() {
+        prefetchesUsed.incrementAndGet();
+    }
+
+    private static int bucketFor(long durationMillis) {
+        int bucket = Long.SIZE - Long.numberOfLeadingZeros(durationMillis);
+        return Math.min(bucket, BUCKET_COUNT - 1);
+    }
+
+    BuildCacheRemoteStatisticsBuildOperationType.Result toResult(@Nullable BuildCacheServiceConnectionStatistics connectionStatistics) {
+        return new ResultImpl(
+            histogram(loadLatencies),
+            loadHits.get(),
+            histogram(storeLatencies),
+            prefetches.get(),
+            prefetchesUsed.get(),
+            connectionStatistics == null ? null : connectionStatistics.getRequestCount(),
+            connectionStatistics == null ? null : connectionStatistics.getReusedConnectionCount()
+        );
+    }
+
+    private static List<Long> histogram(AtomicLongArray latencies) {
+        ImmutableList.Builder<Long> builder = ImmutableList.builderWithExpectedSize(BUCKET_COUNT);
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            builder.add(latencies.get(i));
+        }
+        return builder.build();
+    }
+
+    private static long sum(List<Long> histogram) {
+        return histogram.stream().mapToLong(Long::longValue).sum();
+    }
+
+    private static class ResultImpl implements BuildCacheRemoteStatisticsBuildOperationType.Result {
+        private final List<Long> loadLatencyHistogram;
+        private final long loadHitCount;
+        private final List<Long> storeLatencyHistogram;
+        private final long prefetchCount;
+        private final long prefetchUsedCount;
+        private final Long requestCount;
+        private final Long reusedConnectionCount;
+
+        ResultImpl(List<Long> loadLatencyHistogram, long loadHitCount, List<Long> storeLatencyHistogram, long prefetchCount, long prefetchUsedCount, @Nullable Long requestCount, @Nullable Long reusedConnectionCount) {
+            this.loadLatencyHistogram = loadLatencyHistogram;
+            this.loadHitCount = loadHitCount;
+            this.storeLatencyHistogram = storeLatencyHistogram;
+            this.prefetchCount = prefetchCount;
+            this.prefetchUsedCount = prefetchUsedCount;
+            this.requestCount = requestCount;
+            this.reusedConnectionCount = reusedConnectionCount;
+        }
+
+        @Override
+        public long getLoadCount() {
+            return sum(loadLatencyHistogram);
+        }
+
+        @Override
+        public long getLoadHitCount() {
+            return loadHitCount;
+        }
+
+        @Override
+        public List<Long> getLoadLatencyHistogram() {
+            return loadLatencyHistogram;
+        }
+
+        @Override
+        public long getStoreCount() {
+            return sum(storeLatencyHistogram);
+        }
+
+        @Override
+        public List<Long> getStoreLatencyHistogram() {
+            return storeLatencyHistogram;
+        }
+
+        @Override
+        public long getPrefetchCount() {
+            return prefetchCount;
+        }
+
+        @Override
+        public long getPrefetchUsedCount() {
+            return prefetchUsedCount;
+        }
+
+        @Nullable
+        @Override
+        public Long getRequestCount() {
+            return requestCount;
+        }
+
+        @Nullable
+        @Override
+        public Long getReusedConnectionCount() {
+            return reusedConnectionCount;
+        }
+    }
+}
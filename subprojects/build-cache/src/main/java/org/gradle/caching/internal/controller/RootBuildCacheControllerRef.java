@@ -16,6 +16,8 @@
 
 package org.gradle.caching.internal.controller;
 
+import org.gradle.caching.BuildCacheKey;
+
 import java.util.Optional;
 
 public class RootBuildCacheControllerRef {
@@ -68,6 +70,16 @@ public void store(BuildCacheStoreCommand command) {
             delegate.store(command);
         }
 
+        @Override
+        public void prefetch(BuildCacheKey key) {
+            delegate.prefetch(key);
+        }
+
+        @Override
+        public void discardPrefetched(BuildCacheKey key) {
+            delegate.discardPrefetched(key);
+        }
+
         @Override
         public void close() {
         }
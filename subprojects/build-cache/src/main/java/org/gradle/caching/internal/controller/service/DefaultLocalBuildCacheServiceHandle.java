@@ -18,6 +18,9 @@
 
 import org.gradle.api.Action;
 import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.packaging.BuildCacheBlobStore;
+import org.gradle.caching.local.internal.DeduplicatingLocalBuildCacheService;
+import org.gradle.caching.local.internal.DeduplicatingLocalBuildCacheService.DeduplicatedArtifactWriter;
 import org.gradle.caching.local.internal.LocalBuildCacheService;
 
 import javax.annotation.Nullable;
@@ -59,6 +62,22 @@ public void store(BuildCacheKey key, File file) {
         service.storeLocally(key, file);
     }
 
+    @Nullable
+    @Override
+    public BuildCacheBlobStore getBlobStore() {
+        return service instanceof DeduplicatingLocalBuildCacheService
+            ? ((DeduplicatingLocalBuildCacheService) service).getBlobStore()
+            : null;
+    }
+
+    @Override
+    public void storeDeduplicated(BuildCacheKey key, DeduplicatedArtifactWriter writer) {
+        if (!(service instanceof DeduplicatingLocalBuildCacheService)) {
+            throw new UnsupportedOperationException();
+        }
+        ((DeduplicatingLocalBuildCacheService) service).storeDeduplicatedLocally(key, writer);
+    }
+
     @Override
     public void close() {
         service.close();
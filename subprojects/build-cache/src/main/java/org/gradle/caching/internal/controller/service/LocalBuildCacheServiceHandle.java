@@ -19,6 +19,8 @@
 import com.google.common.annotations.VisibleForTesting;
 import org.gradle.api.Action;
 import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.packaging.BuildCacheBlobStore;
+import org.gradle.caching.local.internal.DeduplicatingLocalBuildCacheService.DeduplicatedArtifactWriter;
 import org.gradle.caching.local.internal.LocalBuildCacheService;
 
 import javax.annotation.Nullable;
@@ -41,6 +43,17 @@ public interface LocalBuildCacheServiceHandle extends Closeable {
     // TODO: what if this errors?
     void store(BuildCacheKey key, File file);
 
+    /**
+     * The blob store to use for deduplicated entries, or {@code null} if entries should not be deduplicated.
+     */
+    @Nullable
+    BuildCacheBlobStore getBlobStore();
+
+    /**
+     * Stores a deduplicated entry using the {@link #getBlobStore() blob store}.
+     */
+    void storeDeduplicated(BuildCacheKey key, DeduplicatedArtifactWriter writer);
+
     @Override
     void close();
 
@@ -18,6 +18,8 @@
 
 import org.gradle.api.Action;
 import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.packaging.BuildCacheBlobStore;
+import org.gradle.caching.local.internal.DeduplicatingLocalBuildCacheService.DeduplicatedArtifactWriter;
 import org.gradle.caching.local.internal.LocalBuildCacheService;
 
 import javax.annotation.Nullable;
@@ -56,6 +58,17 @@ public void store(BuildCacheKey key, File file) {
         throw new UnsupportedOperationException();
     }
 
+    @Nullable
+    @Override
+    public BuildCacheBlobStore getBlobStore() {
+        return null;
+    }
+
+    @Override
+    public void storeDeduplicated(BuildCacheKey key, DeduplicatedArtifactWriter writer) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public void close() {
 
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.caching.internal.operations;
+
+import org.gradle.internal.operations.BuildOperationType;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Reports how the remote build cache performed during a build.
+ *
+ * Latency histograms contain the number of operations per bucket.
+ * Bucket {@code i} counts operations that took less than {@code 2^i} milliseconds and at least {@code 2^(i-1)} milliseconds.
+ * The last bucket also counts all slower operations.
+ */
+public final class BuildCacheRemoteStatisticsBuildOperationType implements BuildOperationType<BuildCacheRemoteStatisticsBuildOperationType.Details, BuildCacheRemoteStatisticsBuildOperationType.Result> {
+
+    public interface Details {
+
+        /**
+         * Whether remote entries were prefetched and stored asynchronously.
+         */
+        boolean isAsynchronous();
+
+    }
+
+    public interface Result {
+
+        long getLoadCount();
+
+        long getLoadHitCount();
+
+        List<Long> getLoadLatencyHistogram();
+
+        long getStoreCount();
+
+        List<Long> getStoreLatencyHistogram();
+
+        /**
+         * The number of loads that have been started before the entry was requested.
+         */
+        long getPrefetchCount();
+
+        /**
+         * The number of requested entries that had been prefetched.
+         */
+        long getPrefetchUsedCount();
+
+        /**
+         * The number of requests sent to the remote cache, or {@code null} if the remote cache does not track connections.
+         */
+        @Nullable
+        Long getRequestCount();
+
+        /**
+         * The number of requests sent over a connection that was reused from a previous request, or {@code null} if the remote cache does not track connections.
+         */
+        @Nullable
+        Long getReusedConnectionCount();
+
+    }
+
+    private BuildCacheRemoteStatisticsBuildOperationType() {
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.caching.local.internal;
+
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.packaging.BuildCacheBlobStore;
+
+import javax.annotation.Nullable;
+import java.io.File;
+
+/**
+ * A local build cache service that can store the contents of the files of its cache artifacts in a {@link BuildCacheBlobStore}, so that identical files are only stored once.
+ */
+public interface DeduplicatingLocalBuildCacheService extends LocalBuildCacheService {
+
+    /**
+     * Returns the store for the file contents of deduplicated cache artifacts, or {@code null} when deduplication is disabled.
+     */
+    @Nullable
+    BuildCacheBlobStore getBlobStore();
+
+    /**
+     * Stores a deduplicated cache artifact created by the given writer in the local file store.
+     * The writer is called while holding the lock of the cache, so that the blobs it adds cannot be cleaned up before the artifact referring to them has been stored.
+     */
+    void storeDeduplicatedLocally(BuildCacheKey key, DeduplicatedArtifactWriter writer);
+
+    interface DeduplicatedArtifactWriter {
+        /**
+         * Writes the cache artifact to the given file, adding the contents of its files to the given blob store.
+         */
+        void writeTo(File file, BuildCacheBlobStore blobStore);
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.caching.local.internal;
+
+import org.gradle.cache.CleanableStore;
+import org.gradle.cache.CleanupAction;
+import org.gradle.cache.CleanupProgressMonitor;
+import org.gradle.caching.internal.packaging.BuildCacheBlobStore;
+import org.gradle.caching.internal.packaging.MissingBlobException;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.util.GFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Stores the file contents of deduplicated entries of a directory build cache.
+ *
+ * Blobs are stored under {@code blobs/contents/<first two characters of hash>/<hash>}.
+ * For each deduplicated entry, the hashes of the blobs it refers to are stored in {@code blobs/references/<cache key>}.
+ * Blobs that are not referenced by any entry anymore are removed by {@link #createCleanupAction()} after the entries themselves have been cleaned up.
+ */
+public class DirectoryBuildCacheBlobStore implements BuildCacheBlobStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryBuildCacheBlobStore.class);
+
+    public static final String DIRECTORY_NAME = "blobs";
+    private static final String PARTIAL_BLOB_SUFFIX = ".part";
+
+    private final File contentsDir;
+    private final File referencesDir;
+
+    public DirectoryBuildCacheBlobStore(File cacheDir) {
+        File blobsDir = new File(cacheDir, DIRECTORY_NAME);
+        this.contentsDir = new File(blobsDir, "contents");
+        this.referencesDir = new File(blobsDir, "references");
+    }
+
+    @Override
+    public boolean contains(HashCode contentHash) {
+        return blobFile(contentHash).isFile();
+    }
+
+    @Override
+    public boolean put(HashCode contentHash, BlobWriter writer) throws IOException {
+        File blobFile = blobFile(contentHash);
+        if (blobFile.isFile()) {
+            return true;
+        }
+        File blobDir = blobFile.getParentFile();
+        GFileUtils.mkdirs(blobDir);
+        File partialFile = File.createTempFile(contentHash + "-", PARTIAL_BLOB_SUFFIX, blobDir);
+        try {
+            boolean matches;
+            try (OutputStream output = Files.newOutputStream(partialFile.toPath())) {
+                matches = writer.writeTo(output);
+            }
+            if (!matches) {
+                return false;
+            }
+            // Another worker may have stored the same blob in the meantime, which is fine as the contents are the same
+            Files.move(partialFile.toPath(), blobFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } finally {
+            GFileUtils.deleteQuietly(partialFile);
+        }
+    }
+
+    @Override
+    public InputStream open(HashCode contentHash) throws IOException {
+        try {
+            return Files.newInputStream(blobFile(contentHash).toPath());
+        } catch (NoSuchFileException e) {
+            throw new MissingBlobException("Cached entry refers to missing blob " + contentHash);
+        }
+    }
+
+    @Override
+    public void discard(HashCode contentHash) {
+        GFileUtils.deleteQuietly(blobFile(contentHash));
+    }
+
+    /**
+     * Records the blobs referenced by the deduplicated entry with the given key.
+     */
+    public void storeReferences(String key, Set<HashCode> referencedBlobs) {
+        GFileUtils.mkdirs(referencesDir);
+        List<String> lines = referencedBlobs.stream()
+            .map(HashCode::toString)
+            .collect(Collectors.toList());
+        try {
+            Files.write(referencesFile(key).toPath(), lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Forgets about the blobs referenced by the entry with the given key, e.g. because it has been replaced by an entry that is not deduplicated.
+     */
+    public void removeReferences(String key) {
+        GFileUtils.deleteQuietly(referencesFile(key));
+    }
+
+    /**
+     * Checks whether all blobs referenced by the entry with the given key are present. Entries that are not deduplicated have no references.
+     */
+    public boolean hasAllReferencedBlobs(String key) {
+        File referencesFile = referencesFile(key);
+        if (!referencesFile.isFile()) {
+            return true;
+        }
+        for (HashCode contentHash : readReferences(referencesFile)) {
+            if (!contains(contentHash)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates the cleanup action removing blobs that are not referenced by any entry of the cache anymore.
+     * This needs to run after the entries of the cache have been cleaned up.
+     */
+    public CleanupAction createCleanupAction() {
+        return this::removeUnreferencedBlobs;
+    }
+
+    private void removeUnreferencedBlobs(CleanableStore cleanableStore, CleanupProgressMonitor progressMonitor) {
+        Set<HashCode> referencedBlobs = new HashSet<>();
+        File[] referencesFiles = referencesDir.listFiles();
+        if (referencesFiles != null) {
+            for (File referencesFile : referencesFiles) {
+                File entry = new File(cleanableStore.getBaseDir(), referencesFile.getName());
+                if (entry.isFile()) {
+                    referencedBlobs.addAll(readReferences(referencesFile));
+                } else {
+                    GFileUtils.deleteQuietly(referencesFile);
+                }
+            }
+        }
+
+        int blobsDeleted = 0;
+        File[] blobDirs = contentsDir.listFiles();
+        if (blobDirs != null) {
+            for (File blobDir : blobDirs) {
+                File[] blobFiles = blobDir.listFiles();
+                if (blobFiles == null) {
+                    continue;
+                }
+                for (File blobFile : blobFiles) {
+                    // Left-over partial blobs are never referenced
+                    if (referencedBlobs.contains(parseHash(blobFile.getName()))) {
+                        progressMonitor.incrementSkipped();
+                    } else {
+                        progressMonitor.incrementDeleted();
+                        if (GFileUtils.deleteQuietly(blobFile)) {
+                            blobsDeleted++;
+                        }
+                    }
+                }
+                String[] remaining = blobDir.list();
+                if (remaining != null && remaining.length == 0) {
+                    GFileUtils.deleteQuietly(blobDir);
+                }
+            }
+        }
+        LOGGER.debug("{} cleanup deleted {} unreferenced blobs.", cleanableStore.getDisplayName(), blobsDeleted);
+    }
+
+    private static Set<HashCode> readReferences(File referencesFile) {
+        try {
+            return Files.readAllLines(referencesFile.toPath(), StandardCharsets.UTF_8).stream()
+                .filter(line -> !line.isEmpty())
+                .map(HashCode::fromString)
+                .collect(Collectors.toSet());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Nullable
+    private static HashCode parseHash(String fileName) {
+        try {
+            return HashCode.fromString(fileName);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private File blobFile(HashCode contentHash) {
+        String hash = contentHash.toString();
+        return new File(new File(contentsDir, hash.substring(0, 2)), hash);
+    }
+
+    private File referencesFile(String key) {
+        return new File(referencesDir, key);
+    }
+}
@@ -25,35 +25,47 @@
 import org.gradle.caching.BuildCacheException;
 import org.gradle.caching.BuildCacheKey;
 import org.gradle.caching.BuildCacheService;
+import org.gradle.caching.internal.packaging.BuildCacheBlobStore;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.file.FileAccessTracker;
+import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.resource.local.LocallyAvailableResource;
 import org.gradle.internal.resource.local.PathKeyFileStore;
 import org.gradle.util.GFileUtils;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-public class DirectoryBuildCacheService implements LocalBuildCacheService, BuildCacheService {
+public class DirectoryBuildCacheService implements DeduplicatingLocalBuildCacheService, BuildCacheService {
 
     private final PathKeyFileStore fileStore;
     private final PersistentCache persistentCache;
     private final BuildCacheTempFileStore tempFileStore;
     private final FileAccessTracker fileAccessTracker;
     private final String failedFileSuffix;
+    private final DirectoryBuildCacheBlobStore blobStore;
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
 
     public DirectoryBuildCacheService(PathKeyFileStore fileStore, PersistentCache persistentCache, BuildCacheTempFileStore tempFileStore, FileAccessTracker fileAccessTracker, String failedFileSuffix) {
+        this(fileStore, persistentCache, tempFileStore, fileAccessTracker, failedFileSuffix, null);
+    }
+
+    public DirectoryBuildCacheService(PathKeyFileStore fileStore, PersistentCache persistentCache, BuildCacheTempFileStore tempFileStore, FileAccessTracker fileAccessTracker, String failedFileSuffix, @Nullable DirectoryBuildCacheBlobStore blobStore) {
         this.fileStore = fileStore;
         this.persistentCache = persistentCache;
         this.tempFileStore = tempFileStore;
         this.fileAccessTracker = fileAccessTracker;
         this.failedFileSuffix = failedFileSuffix;
+        this.blobStore = blobStore;
     }
 
     private static class LoadAction implements Action<File> {
@@ -109,6 +121,10 @@ private void loadInsideLock(BuildCacheKey key, Action<? super File> reader) {
         if (resource == null) {
             return;
         }
+        if (blobStore != null && !blobStore.hasAllReferencedBlobs(key.getHashCode())) {
+            // Treat entries with missing contents as a miss, they will be replaced when the entry is stored again
+            return;
+        }
 
         File file = resource.getFile();
         fileAccessTracker.markAccessed(file);
@@ -166,10 +182,40 @@ public void run() {
     }
 
     private void storeInsideLock(BuildCacheKey key, File file) {
+        if (blobStore != null) {
+            blobStore.removeReferences(key.getHashCode());
+        }
         LocallyAvailableResource resource = fileStore.move(key.getHashCode(), file);
         fileAccessTracker.markAccessed(resource.getFile());
     }
 
+    @Nullable
+    @Override
+    public BuildCacheBlobStore getBlobStore() {
+        return blobStore;
+    }
+
+    @Override
+    public void storeDeduplicatedLocally(BuildCacheKey key, DeduplicatedArtifactWriter writer) {
+        if (blobStore == null) {
+            throw new IllegalStateException("Build cache does not store deduplicated entries.");
+        }
+        // Cleanup in another process would remove the new blobs while they are not referenced by an entry yet
+        persistentCache.withFileLock(() -> tempFileStore.withTempFile(key, file -> {
+            ReferenceRecordingBlobStore recordingBlobStore = new ReferenceRecordingBlobStore(blobStore);
+            writer.writeTo(file, recordingBlobStore);
+            lock.writeLock().lock();
+            try {
+                // Record the references before the entry appears, so that cleanup never sees a deduplicated entry without references
+                blobStore.storeReferences(key.getHashCode(), recordingBlobStore.referencedBlobs);
+                LocallyAvailableResource resource = fileStore.move(key.getHashCode(), file);
+                fileAccessTracker.markAccessed(resource.getFile());
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }));
+    }
+
     @Override
     public void withTempFile(final BuildCacheKey key, final Action<? super File> action) {
         persistentCache.withFileLock(new Runnable() {
@@ -184,4 +230,43 @@ public void run() {
     public void close() {
         persistentCache.close();
     }
+
+    /**
+     * Records the blobs a deduplicated entry refers to, so that they can be tracked with the entry.
+     */
+    private static class ReferenceRecordingBlobStore implements BuildCacheBlobStore {
+        private final BuildCacheBlobStore delegate;
+        private final Set<HashCode> referencedBlobs = new HashSet<>();
+
+        private ReferenceRecordingBlobStore(BuildCacheBlobStore delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean contains(HashCode contentHash) {
+            return record(contentHash, delegate.contains(contentHash));
+        }
+
+        @Override
+        public boolean put(HashCode contentHash, BlobWriter writer) throws IOException {
+            return record(contentHash, delegate.put(contentHash, writer));
+        }
+
+        @Override
+        public InputStream open(HashCode contentHash) throws IOException {
+            return delegate.open(contentHash);
+        }
+
+        @Override
+        public void discard(HashCode contentHash) {
+            delegate.discard(contentHash);
+        }
+
+        private boolean record(HashCode contentHash, boolean present) {
+            if (present) {
+                referencedBlobs.add(contentHash);
+            }
+            return present;
+        }
+    }
 }
@@ -22,6 +22,8 @@
 import org.gradle.cache.PersistentCache;
 import org.gradle.cache.internal.CacheScopeMapping;
 import org.gradle.cache.internal.CleanupActionFactory;
+import org.gradle.cache.internal.CompositeCleanupAction;
+import org.gradle.cache.internal.FilesFinder;
 import org.gradle.cache.internal.LeastRecentlyUsedCacheCleanup;
 import org.gradle.cache.internal.SingleDepthFilesFinder;
 import org.gradle.cache.internal.VersionStrategy;
@@ -36,12 +38,17 @@
 
 import javax.inject.Inject;
 import java.io.File;
+import java.io.FileFilter;
 
 import static org.gradle.cache.FileLockManager.LockMode.OnDemand;
 import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
 
 public class DirectoryBuildCacheServiceFactory implements BuildCacheServiceFactory<DirectoryBuildCache> {
     public static final String FAILED_READ_SUFFIX = ".failed";
+    /**
+     * Stores the contents of the files of locally stored entries in a content-addressed blob store, so that identical files are stored only once.
+     */
+    public static final String DEDUPLICATE_PROPERTY = "org.gradle.internal.caching.local.deduplicate";
 
     private static final String BUILD_CACHE_VERSION = "1";
     private static final String BUILD_CACHE_KEY = "build-cache-" + BUILD_CACHE_VERSION;
@@ -83,9 +90,19 @@ public BuildCacheService createBuildCacheService(DirectoryBuildCache configurati
             config("removeUnusedEntriesAfter", String.valueOf(removeUnusedEntriesAfterDays) + " days");
 
         PathKeyFileStore fileStore = fileStoreFactory.createFileStore(target);
+        DirectoryBuildCacheBlobStore blobStore = Boolean.getBoolean(DEDUPLICATE_PROPERTY)
+            ? new DirectoryBuildCacheBlobStore(target)
+            : null;
+        // Blobs are removed once no entry refers to them anymore, so they are not subject to the least recently used cleanup themselves
+        FilesFinder entriesFinder = new ExcludingBlobsFilesFinder(new SingleDepthFilesFinder(FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP));
+        CompositeCleanupAction.Builder cleanup = CompositeCleanupAction.builder()
+            .add(new LeastRecentlyUsedCacheCleanup(entriesFinder, fileAccessTimeJournal, removeUnusedEntriesAfterDays));
+        if (blobStore != null) {
+            cleanup.add(blobStore.createCleanupAction());
+        }
         PersistentCache persistentCache = cacheRepository
             .cache(target)
-            .withCleanup(cleanupActionFactory.create(new LeastRecentlyUsedCacheCleanup(new SingleDepthFilesFinder(FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP), fileAccessTimeJournal, removeUnusedEntriesAfterDays)))
+            .withCleanup(cleanupActionFactory.create(cleanup.build()))
             .withDisplayName("Build cache")
             .withLockOptions(mode(OnDemand))
             .withCrossVersionCache(CacheBuilder.LockTarget.DefaultTarget)
@@ -93,7 +110,21 @@ public BuildCacheService createBuildCacheService(DirectoryBuildCache configurati
         BuildCacheTempFileStore tempFileStore = new DefaultBuildCacheTempFileStore(target);
         FileAccessTracker fileAccessTracker = new SingleDepthFileAccessTracker(fileAccessTimeJournal, target, FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP);
 
-        return new DirectoryBuildCacheService(fileStore, persistentCache, tempFileStore, fileAccessTracker, FAILED_READ_SUFFIX);
+        return new DirectoryBuildCacheService(fileStore, persistentCache, tempFileStore, fileAccessTracker, FAILED_READ_SUFFIX, blobStore);
+    }
+
+    private static class ExcludingBlobsFilesFinder implements FilesFinder {
+        private final FilesFinder delegate;
+
+        ExcludingBlobsFilesFinder(FilesFinder delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Iterable<File> find(File baseDir, FileFilter filter) {
+            File blobsDir = new File(baseDir, DirectoryBuildCacheBlobStore.DIRECTORY_NAME);
+            return delegate.find(baseDir, file -> !file.equals(blobsDir) && filter.accept(file));
+        }
     }
 
     private static void checkDirectory(File directory) {
@@ -22,7 +22,13 @@ import org.gradle.caching.BuildCacheEntryWriter
 import org.gradle.caching.BuildCacheKey
 import org.gradle.caching.BuildCacheService
 import org.gradle.caching.internal.controller.service.BuildCacheServicesConfiguration
-import org.gradle.caching.local.internal.LocalBuildCacheService
+import org.gradle.caching.internal.operations.BuildCacheRemoteStatisticsBuildOperationType
+import org.gradle.caching.internal.packaging.BuildCacheBlobStore
+import org.gradle.caching.internal.packaging.MissingBlobException
+import org.gradle.caching.local.internal.DeduplicatingLocalBuildCacheService
+import org.gradle.caching.local.internal.DeduplicatingLocalBuildCacheService.DeduplicatedArtifactWriter
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.concurrent.ManagedExecutor
 import org.gradle.internal.operations.TestBuildOperationExecutor
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import spock.lang.Specification
@@ -81,9 +87,9 @@ class DefaultBuildCacheControllerTest extends Specification {
     @Rule
     final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
 
-    interface Local extends BuildCacheService, LocalBuildCacheService {}
+    interface Local extends BuildCacheService, DeduplicatingLocalBuildCacheService {}
 
-    BuildCacheController getController(boolean disableRemoteOnError = true) {
+    BuildCacheController getController(boolean disableRemoteOnError = true, ManagedExecutor remoteExecutor = null) {
         new DefaultBuildCacheController(
             new BuildCacheServicesConfiguration(
                 local,
@@ -95,7 +101,9 @@ class DefaultBuildCacheControllerTest extends Specification {
             tmpDir.file("dir"),
             false,
             false,
-            disableRemoteOnError
+            disableRemoteOnError,
+            remoteExecutor,
+            4
         )
     }
 
@@ -147,6 +155,61 @@ class DefaultBuildCacheControllerTest extends Specification {
         0 * local.store(key, _)
     }
 
+    def "stores full entry locally when storing to remote"() {
+        given:
+        local.getBlobStore() >> Stub(BuildCacheBlobStore)
+
+        when:
+        controller.store(storeCommand)
+
+        then:
+        1 * remote.store(key, _)
+        1 * local.storeLocally(key, _)
+        0 * local.storeDeduplicatedLocally(_, _)
+    }
+
+    def "stores deduplicated entry locally when there is no remote"() {
+        given:
+        remote = null
+        def blobStore = Stub(BuildCacheBlobStore)
+        local.getBlobStore() >> blobStore
+        def deduplicatingStoreCommand = Mock(BuildCacheStoreCommand) {
+            getKey() >> key
+        }
+
+        when:
+        controller.store(deduplicatingStoreCommand)
+
+        then:
+        1 * local.storeDeduplicatedLocally(key, _) >> { BuildCacheKey key, DeduplicatedArtifactWriter writer ->
+            writer.writeTo(tmpDir.file("entry"), blobStore)
+        }
+        1 * deduplicatingStoreCommand.storeDeduplicated(_ as OutputStream, blobStore) >> Stub(BuildCacheStoreCommand.Result)
+        0 * deduplicatingStoreCommand.store(_)
+        0 * local.storeLocally(_, _)
+    }
+
+    def "treats local entry with missing blobs as a miss"() {
+        given:
+        local.getBlobStore() >> Stub(BuildCacheBlobStore)
+        1 * local.loadLocally(key, _) >> { BuildCacheKey key, Action<File> action ->
+            def file = tmpDir.file("file")
+            file.text = "deduplicated"
+            action.execute(file)
+        }
+        def deduplicatedLoadCommand = Stub(BuildCacheLoadCommand) {
+            getKey() >> key
+            loadDeduplicated(_ as InputStream, _ as BuildCacheBlobStore) >> { throw new MissingBlobException("missing") }
+        }
+
+        when:
+        def result = controller.load(deduplicatedLoadCommand)
+
+        then:
+        !result.present
+        1 * remote.load(key, _) >> false
+    }
+
     def "local load does not stores to local"() {
         given:
         1 * local.loadLocally(key, _) >> { BuildCacheKey key, Action<File> action ->
@@ -283,4 +346,100 @@ class DefaultBuildCacheControllerTest extends Specification {
         1 * local.close()
         1 * remote.close()
     }
+
+    def "reports remote statistics on close"() {
+        given:
+        local = null
+        def controller = getController()
+
+        when:
+        controller.load(loadCommand)
+        controller.store(storeCommand)
+        controller.close()
+
+        then:
+        1 * remote.load(key, _) >> { BuildCacheKey key, BuildCacheEntryReader reader ->
+            reader.readFrom(new ByteArrayInputStream("foo".bytes))
+            true
+        }
+        1 * remote.store(key, _)
+
+        and:
+        with(operations.log.mostRecentResult(BuildCacheRemoteStatisticsBuildOperationType)) {
+            loadCount == 1
+            loadHitCount == 1
+            loadLatencyHistogram.sum() == 1
+            storeCount == 1
+            storeLatencyHistogram.sum() == 1
+            prefetchCount == 0
+            requestCount == null
+        }
+    }
+
+    def "loads prefetched entry and uploads entries in the background"() {
+        given:
+        local = null
+        def controller = getController(true, new DefaultExecutorFactory().create("remote", 1))
+
+        when:
+        controller.prefetch(key)
+        def result = controller.load(loadCommand)
+        controller.store(storeCommand)
+        controller.close()
+
+        then:
+        1 * remote.load(key, _) >> { BuildCacheKey key, BuildCacheEntryReader reader ->
+            reader.readFrom(new ByteArrayInputStream("foo".bytes))
+            true
+        }
+        1 * remote.store(key, _) >> { BuildCacheKey key, BuildCacheEntryWriter writer ->
+            writer.writeTo(new ByteArrayOutputStream())
+        }
+        result.get() == loadmetadata
+
+        and:
+        with(operations.log.mostRecentResult(BuildCacheRemoteStatisticsBuildOperationType)) {
+            prefetchCount == 1
+            prefetchUsedCount == 1
+            loadCount == 1
+            storeCount == 1
+        }
+        tmpDir.file("dir/build-cache-tmp").list() as List == []
+    }
+
+    def "does not prefetch entries found in the local cache"() {
+        given:
+        def controller = getController(true, new DefaultExecutorFactory().create("remote", 1))
+
+        when:
+        controller.prefetch(key)
+        controller.close()
+
+        then:
+        1 * local.loadLocally(key, _) >> { BuildCacheKey key, Action<File> action ->
+            action.execute(tmpDir.file("file"))
+        }
+        0 * remote.load(_, _)
+
+        and:
+        operations.log.mostRecentResult(BuildCacheRemoteStatisticsBuildOperationType).prefetchCount == 0
+    }
+
+    def "discards prefetched entries that are not loaded"() {
+        given:
+        local = null
+        def controller = getController(true, new DefaultExecutorFactory().create("remote", 1))
+
+        when:
+        controller.prefetch(key)
+        controller.discardPrefetched(key)
+        controller.close()
+
+        then:
+        (0..1) * remote.load(key, _) >> { BuildCacheKey key, BuildCacheEntryReader reader ->
+            reader.readFrom(new ByteArrayInputStream("foo".bytes))
+            true
+        }
+        tmpDir.file("dir/build-cache-tmp").list() as List == []
+    }
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.caching.local.internal
+
+import org.gradle.cache.CleanableStore
+import org.gradle.cache.CleanupProgressMonitor
+import org.gradle.caching.internal.packaging.MissingBlobException
+import org.gradle.internal.hash.HashCode
+import org.gradle.test.fixtures.file.CleanupTestDirectory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+@CleanupTestDirectory
+class DirectoryBuildCacheBlobStoreTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+    def cacheDir = temporaryFolder.createDir("cache")
+    def blobStore = new DirectoryBuildCacheBlobStore(cacheDir)
+    def cleanableStore = Stub(CleanableStore) {
+        getBaseDir() >> cacheDir
+        getDisplayName() >> "build cache"
+    }
+    def firstHash = HashCode.fromString("abcd01")
+    def secondHash = HashCode.fromString("abcd02")
+
+    def "stores blobs only when written contents match"() {
+        when:
+        def stored = blobStore.put(firstHash) { output -> output << "first"; true }
+        def rejected = blobStore.put(secondHash) { output -> output << "changed"; false }
+
+        then:
+        stored
+        blobStore.contains(firstHash)
+        !rejected
+        !blobStore.contains(secondHash)
+        cacheDir.file("blobs/contents/ab").list() as List == ["abcd01"]
+    }
+
+    def "opens contents of stored blobs"() {
+        blobStore.put(firstHash) { output -> output << "first"; true }
+
+        expect:
+        blobStore.open(firstHash).withCloseable { it.text } == "first"
+
+        when:
+        blobStore.open(secondHash)
+
+        then:
+        thrown MissingBlobException
+    }
+
+    def "discards blobs"() {
+        blobStore.put(firstHash) { output -> output << "first"; true }
+
+        when:
+        blobStore.discard(firstHash)
+
+        then:
+        !blobStore.contains(firstHash)
+    }
+
+    def "cleanup removes blobs not referenced by remaining entries"() {
+        blobStore.put(firstHash) { output -> output << "first"; true }
+        blobStore.put(secondHash) { output -> output << "second"; true }
+        cacheDir.file("kept").text = "entry"
+        blobStore.storeReferences("kept", [firstHash] as Set)
+        blobStore.storeReferences("removed", [firstHash, secondHash] as Set)
+
+        when:
+        blobStore.createCleanupAction().clean(cleanableStore, CleanupProgressMonitor.NO_OP)
+
+        then:
+        blobStore.contains(firstHash)
+        !blobStore.contains(secondHash)
+        blobStore.hasAllReferencedBlobs("kept")
+        !cacheDir.file("blobs/references/removed").exists()
+    }
+}
@@ -20,7 +20,9 @@ import org.gradle.cache.PersistentCache
 import org.gradle.caching.BuildCacheEntryReader
 import org.gradle.caching.BuildCacheEntryWriter
 import org.gradle.caching.BuildCacheKey
+import org.gradle.caching.internal.packaging.BuildCacheBlobStore
 import org.gradle.internal.file.FileAccessTracker
+import org.gradle.internal.hash.HashCode
 import org.gradle.internal.resource.local.DefaultPathKeyFileStore
 import org.gradle.test.fixtures.file.CleanupTestDirectory
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
@@ -133,4 +135,57 @@ class DirectoryBuildCacheServiceTest extends Specification {
         1 * fileAccessTracker.markAccessed(cachedFile)
         loaded
     }
+
+    def "treats deduplicated entry with missing blobs as a miss"() {
+        def blobStore = new DirectoryBuildCacheBlobStore(cacheDir)
+        def deduplicatingService = new DirectoryBuildCacheService(fileStore, persistentCache, tempFileStore, fileAccessTracker, ".failed", blobStore)
+        def contentHash = HashCode.fromString("abcdef")
+
+        when:
+        deduplicatingService.storeDeduplicatedLocally(key) { File file, BuildCacheBlobStore blobs ->
+            blobs.put(contentHash) { output -> output << "contents"; true }
+            file.text = "manifest"
+        }
+        def loaded = false
+        deduplicatingService.loadLocally(key, { loaded = true })
+
+        then:
+        loaded
+
+        when:
+        cacheDir.file("blobs/contents/ab/abcdef").delete()
+        loaded = false
+        deduplicatingService.loadLocally(key, { loaded = true })
+
+        then:
+        !loaded
+    }
+
+    def "writes deduplicated entry while holding the cache lock"() {
+        def blobStore = new DirectoryBuildCacheBlobStore(cacheDir)
+        def lockingCache = Mock(PersistentCache)
+        def deduplicatingService = new DirectoryBuildCacheService(fileStore, lockingCache, tempFileStore, fileAccessTracker, ".failed", blobStore)
+        def locked = false
+        def contentHash = HashCode.fromString("abcdef")
+
+        when:
+        deduplicatingService.storeDeduplicatedLocally(key) { File file, BuildCacheBlobStore blobs ->
+            assert locked
+            blobs.put(contentHash) { output -> output << "contents"; true }
+            file.text = "manifest"
+        }
+
+        then:
+        1 * lockingCache.withFileLock(_) >> { Runnable r ->
+            locked = true
+            try {
+                r.run()
+            } finally {
+                locked = false
+            }
+        }
+        blobStore.hasAllReferencedBlobs(hashCode)
+        cacheDir.file(hashCode).text == "manifest"
+        cacheDir.file("blobs/references/" + hashCode).text.trim() == contentHash.toString()
+    }
 }
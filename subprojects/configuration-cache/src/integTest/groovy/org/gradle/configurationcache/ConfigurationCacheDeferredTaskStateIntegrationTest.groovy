@@ -0,0 +1,182 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache
+
+class ConfigurationCacheDeferredTaskStateIntegrationTest extends AbstractConfigurationCacheIntegrationTest {
+
+    static final String DEFER_TASK_STATE = "-Dorg.gradle.configuration-cache.internal.defer-task-state=true"
+
+    def setup() {
+        buildFile << """
+            import org.gradle.api.services.BuildService
+            import org.gradle.api.services.BuildServiceParameters
+
+            abstract class Counter implements BuildService<BuildServiceParameters.None> {
+                private int count
+                synchronized int increment() { ++count }
+            }
+
+            abstract class CountingTask extends DefaultTask {
+                @Internal
+                abstract Property<Counter> getCounter()
+
+                @Input
+                abstract Property<String> getMessage()
+
+                @TaskAction
+                def go() {
+                    println("\$path: \${message.get()} \${counter.get().increment()}")
+                }
+            }
+        """
+    }
+
+    def "restores the state of tasks sharing instances when state is deferred"() {
+        def configurationCache = newConfigurationCacheFixture()
+
+        given:
+        buildFile << """
+            def counterService = gradle.sharedServices.registerIfAbsent("counter", Counter) {}
+
+            // The state of the first task defines the shared service, so it is loaded in order.
+            // The state of the second task only refers to it, so it is loaded just before the task runs.
+            tasks.register("first", CountingTask) {
+                counter = counterService
+                message = "one"
+            }
+            tasks.register("second", CountingTask) {
+                counter = counterService
+                message = "two"
+                mustRunAfter "first"
+            }
+        """
+
+        when:
+        configurationCacheRun DEFER_TASK_STATE, "first", "second"
+
+        then:
+        configurationCache.assertStateStored()
+        outputContains(":first: one 1")
+        outputContains(":second: two 2")
+
+        when:
+        configurationCacheRun DEFER_TASK_STATE, "first", "second"
+
+        then:
+        configurationCache.assertStateLoaded()
+        outputContains(":first: one 1")
+        outputContains(":second: two 2")
+    }
+
+    def "restores the deferred state of tasks of different projects run in parallel"() {
+        def configurationCache = newConfigurationCacheFixture()
+
+        given:
+        settingsFile << """
+            include 'a', 'b', 'c'
+        """
+        buildFile << """
+            def counterService = gradle.sharedServices.registerIfAbsent("counter", Counter) {}
+
+            tasks.register("count", CountingTask) {
+                counter = counterService
+                message = "root"
+            }
+            subprojects {
+                tasks.register("count", CountingTask) {
+                    counter = counterService
+                    message = project.name
+                    mustRunAfter rootProject.tasks.named("count")
+                }
+            }
+        """
+
+        when:
+        configurationCacheRun DEFER_TASK_STATE, "--parallel", "count"
+
+        then:
+        configurationCache.assertStateStored()
+        outputContains(":count: root 1")
+
+        when:
+        configurationCacheRun DEFER_TASK_STATE, "--parallel", "count"
+
+        then:
+        configurationCache.assertStateLoaded()
+        outputContains(":count: root 1")
+        // All tasks share the same service
+        output.readLines().findAll { it ==~ /:([abc]:)?count: \w+ \d+/ }.collect { it.split(' ').last() as int }.sort() == [1, 2, 3, 4]
+    }
+
+    def "does not load the deferred state of tasks which do not run"() {
+        def configurationCache = newConfigurationCacheFixture()
+
+        given:
+        buildFile << """
+            class Message implements Serializable {
+                String text
+
+                private void readObject(ObjectInputStream input) {
+                    input.defaultReadObject()
+                    println("loading '\$text'")
+                }
+            }
+
+            abstract class MessageTask extends DefaultTask {
+                @Input
+                abstract Property<Message> getMessage()
+
+                @TaskAction
+                def go() {
+                    println("\$path: \${message.get().text}")
+                }
+            }
+
+            tasks.register("first", MessageTask) {
+                message = new Message(text: "first")
+            }
+            tasks.register("broken") {
+                mustRunAfter "first"
+                doLast { throw new RuntimeException("broken") }
+            }
+            tasks.register("last", MessageTask) {
+                message = new Message(text: "last")
+                dependsOn "broken"
+            }
+        """
+
+        when:
+        configurationCacheFails DEFER_TASK_STATE, "first", "last"
+
+        then:
+        configurationCache.assertStateStored()
+        outputContains(":first: first")
+        failureDescriptionStartsWith("Execution failed for task ':broken'.")
+
+        when:
+        configurationCacheFails DEFER_TASK_STATE, "first", "last"
+
+        then:
+        configurationCache.assertStateLoaded()
+        outputContains("loading 'first'")
+        outputContains(":first: first")
+        failureDescriptionStartsWith("Execution failed for task ':broken'.")
+        // The task does not run, so its state is never loaded
+        result.assertTaskNotExecuted(":last")
+        outputDoesNotContain("loading 'last'")
+    }
+}
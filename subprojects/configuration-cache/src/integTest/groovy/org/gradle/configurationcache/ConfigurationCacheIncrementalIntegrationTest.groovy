@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache
+
+class ConfigurationCacheIncrementalIntegrationTest extends AbstractConfigurationCacheIntegrationTest {
+
+    static final String INCREMENTAL = "-Dorg.gradle.configuration-cache.internal.incremental=true"
+
+    def setup() {
+        settingsFile << """
+            include 'a', 'b'
+        """
+        file("a/build.gradle") << """
+            tasks.register("ok") {
+                doLast { println("a is ok") }
+            }
+        """
+        file("b/build.gradle") << """
+            version = "1"
+            tasks.register("ok") {
+                doLast { println("b is ok") }
+            }
+        """
+    }
+
+    def "reuses the state when only a project which does not contribute to the work has changed"() {
+        def configurationCache = newConfigurationCacheFixture()
+
+        when:
+        configurationCacheRun INCREMENTAL, ":a:ok"
+
+        then:
+        configurationCache.assertStateStored()
+        outputContains("a is ok")
+
+        when:
+        file("b/build.gradle") << """
+            println("configuring b")
+        """
+        configurationCacheRun INCREMENTAL, ":a:ok"
+
+        then:
+        configurationCache.assertStateLoaded()
+        outputContains("a is ok")
+        outputDoesNotContain("configuring b")
+
+        when:
+        file("a/build.gradle") << """
+            println("configuring a")
+        """
+        configurationCacheRun INCREMENTAL, ":a:ok"
+
+        then:
+        configurationCache.assertStateStored()
+        outputContains("configuring a")
+        outputContains("a is ok")
+    }
+
+    def "invalidates the state when a project accessed by the work has changed"() {
+        def configurationCache = newConfigurationCacheFixture()
+
+        given:
+        file("a/build.gradle") << """
+            evaluationDependsOn(":b")
+            def bVersion = project(":b").version
+            tasks.register("version") {
+                doLast { println("b has version \$bVersion") }
+            }
+        """
+
+        when:
+        configurationCacheRun INCREMENTAL, ":a:version"
+
+        then:
+        configurationCache.assertStateStored()
+        outputContains("b has version 1")
+
+        when:
+        file("b/build.gradle").text = file("b/build.gradle").text.replace('version = "1"', 'version = "2"')
+        configurationCacheRun INCREMENTAL, ":a:version"
+
+        then:
+        configurationCache.assertStateStored()
+        outputContains("b has version 2")
+    }
+
+    def "invalidates the state when any project has changed and tasks are selected by name"() {
+        def configurationCache = newConfigurationCacheFixture()
+
+        when:
+        configurationCacheRun INCREMENTAL, "ok"
+
+        then:
+        configurationCache.assertStateStored()
+
+        when:
+        file("b/build.gradle") << """
+            println("configuring b")
+        """
+        configurationCacheRun INCREMENTAL, "ok"
+
+        then:
+        configurationCache.assertStateStored()
+        outputContains("configuring b")
+    }
+
+    def "invalidates the state when any project has changed and not incremental"() {
+        def configurationCache = newConfigurationCacheFixture()
+
+        when:
+        configurationCacheRun ":a:ok"
+
+        then:
+        configurationCache.assertStateStored()
+
+        when:
+        file("b/build.gradle") << """
+            println("configuring b")
+        """
+        configurationCacheRun ":a:ok"
+
+        then:
+        configurationCache.assertStateStored()
+        outputContains("configuring b")
+    }
+}
@@ -177,7 +177,8 @@ class ConfigurationCacheIO internal constructor(
             patternSetFactory = factory(),
             fileOperations = service(),
             fileFactory = service(),
-            includedTaskGraph = service()
+            includedTaskGraph = service(),
+            artifactStageLimits = service()
         )
 
     private
@@ -35,6 +35,10 @@ import org.gradle.internal.nativeintegration.filesystem.FileSystem
 import java.io.File
 import java.io.InputStream
 import java.io.OutputStream
+import java.util.zip.Deflater
+import java.util.zip.DeflaterOutputStream
+import java.util.zip.Inflater
+import java.util.zip.InflaterInputStream
 
 
 internal
@@ -116,12 +120,17 @@ class ConfigurationCacheRepository(
             throw UnsupportedOperationException()
 
         override fun inputStream(): InputStream =
-            file.also(::markAccessed).inputStream()
+            decompressing(file.also(::markAccessed).inputStream())
 
         override fun stateFileForIncludedBuild(build: BuildDefinition): ConfigurationCacheStateFile =
             ReadableConfigurationCacheStateFile(
                 includedBuildFileFor(file, build)
             )
+
+        override fun stateFileForShard(shard: Int): ConfigurationCacheStateFile =
+            ReadableConfigurationCacheStateFile(
+                shardFileFor(file, shard)
+            )
     }
 
     private
@@ -131,7 +140,7 @@ class ConfigurationCacheRepository(
     ) : ConfigurationCacheStateFile {
 
         override fun outputStream(): OutputStream =
-            file.also(onFileAccess).outputStream()
+            compressing(file.also(onFileAccess).outputStream())
 
         override fun inputStream(): InputStream =
             throw UnsupportedOperationException()
@@ -141,14 +150,71 @@ class ConfigurationCacheRepository(
                 includedBuildFileFor(file, build),
                 onFileAccess
             )
+
+        override fun stateFileForShard(shard: Int): ConfigurationCacheStateFile =
+            WriteableConfigurationCacheStateFile(
+                shardFileFor(file, shard),
+                onFileAccess
+            )
     }
 
+    /**
+     * Writes a header telling whether the state file is compressed, and compresses it when enabled.
+     */
+    private
+    fun compressing(outputStream: OutputStream): OutputStream =
+        if (startParameter.isCompressed) {
+            outputStream.write(COMPRESSED_STATE)
+            val deflater = Deflater(Deflater.BEST_SPEED)
+            object : DeflaterOutputStream(outputStream, deflater, COMPRESSION_BUFFER_SIZE) {
+                override fun close() {
+                    try {
+                        super.close()
+                    } finally {
+                        deflater.end()
+                    }
+                }
+            }
+        } else {
+            outputStream.write(UNCOMPRESSED_STATE)
+            outputStream
+        }
+
+    private
+    fun decompressing(inputStream: InputStream): InputStream =
+        when (val header = inputStream.read()) {
+            UNCOMPRESSED_STATE -> inputStream
+            COMPRESSED_STATE -> {
+                val inflater = Inflater()
+                object : InflaterInputStream(inputStream, inflater, COMPRESSION_BUFFER_SIZE) {
+                    override fun close() {
+                        try {
+                            super.close()
+                        } finally {
+                            inflater.end()
+                        }
+                    }
+                }
+            }
+            else -> {
+                inputStream.close()
+                throw IllegalStateException("Unexpected configuration cache state file header: $header")
+            }
+        }
+
     private
     fun includedBuildFileFor(parentStateFile: File, build: BuildDefinition) =
         parentStateFile.run {
             resolveSibling("$name.${build.name}")
         }
 
+    private
+    fun shardFileFor(parentStateFile: File, shard: Int) =
+        parentStateFile.run {
+            // Included build names are appended after a dot, so they cannot clash with shards
+            resolveSibling("$name-shard$shard")
+        }
+
     private
     val cacheRootDir
         get() = startParameter.rootDirectory.resolve(".gradle/configuration-cache")
@@ -221,4 +287,11 @@ class ConfigurationCacheRepository(
     private
     val File.stateFile
         get() = resolve("state.bin")
+
+    private
+    companion object {
+        const val UNCOMPRESSED_STATE = 0
+        const val COMPRESSED_STATE = 1
+        const val COMPRESSION_BUFFER_SIZE = 64 * 1024
+    }
 }
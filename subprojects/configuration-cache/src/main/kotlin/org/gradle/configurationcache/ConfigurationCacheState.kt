@@ -64,6 +64,7 @@ interface ConfigurationCacheStateFile {
     fun outputStream(): OutputStream
     fun inputStream(): InputStream
     fun stateFileForIncludedBuild(build: BuildDefinition): ConfigurationCacheStateFile
+    fun stateFileForShard(shard: Int): ConfigurationCacheStateFile
 }
 
 
@@ -133,7 +134,7 @@ class ConfigurationCacheState(
         withDebugFrame({ "Work Graph" }) {
             val scheduledNodes = build.scheduledWork
             writeRelevantProjectsFor(scheduledNodes, build.gradle.serviceOf())
-            WorkNodeCodec(build.gradle, internalTypesCodec).run {
+            WorkNodeCodec(build.gradle, internalTypesCodec, build.gradle.serviceOf(), stateFile).run {
                 writeWork(scheduledNodes)
             }
         }
@@ -149,7 +150,7 @@ class ConfigurationCacheState(
 
         initProjectProvider(build::getProject)
 
-        val scheduledNodes = WorkNodeCodec(build.gradle, internalTypesCodec).run {
+        val scheduledNodes = WorkNodeCodec(build.gradle, internalTypesCodec, build.gradle.serviceOf(), stateFile).run {
             readWork()
         }
 
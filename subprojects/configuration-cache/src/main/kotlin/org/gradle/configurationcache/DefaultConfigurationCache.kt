@@ -31,6 +31,7 @@ import org.gradle.configurationcache.serialization.withIsolate
 import org.gradle.initialization.ConfigurationCache
 import org.gradle.initialization.GradlePropertiesController
 import org.gradle.internal.Factory
+import org.gradle.internal.build.event.BuildEventListenerRegistryInternal
 import org.gradle.internal.classpath.Instrumented
 import org.gradle.internal.operations.BuildOperationExecutor
 import org.gradle.util.IncubationLogger
@@ -194,7 +195,34 @@ class DefaultConfigurationCache internal constructor(
 
     private
     fun writeConfigurationCacheFingerprint(fingerprintFile: File) =
-        cacheFingerprintController.commitFingerprintTo(fingerprintFile)
+        cacheFingerprintController.commitFingerprintTo(fingerprintFile, storedWorkProjects())
+
+    /**
+     * The identity paths of the projects that own or contribute to the stored work graph,
+     * or `null` when the stored state could depend on the configuration of any project.
+     */
+    private
+    fun storedWorkProjects(): Set<String>? {
+        if (!startParameter.isIncremental) {
+            return null
+        }
+        val build = host.currentBuild
+        val requestedTaskNames = startParameter.requestedTaskNames
+        return when {
+            // Default tasks and task names which are not absolute paths are looked up in all projects
+            requestedTaskNames.isEmpty() -> null
+            (requestedTaskNames + startParameter.excludedTaskNames).any { !it.startsWith(":") } -> null
+            build.gradle.includedBuilds.isNotEmpty() -> null
+            service<BuildEventListenerRegistryInternal>().subscriptions.isNotEmpty() -> null
+            else -> {
+                val owningProjects = build.scheduledWork.map { node ->
+                    node.owningProject ?: return null
+                }
+                val relevantProjects = service<RelevantProjectsRegistry>().relevantProjects(build.scheduledWork)
+                (owningProjects + relevantProjects).mapTo(sortedSetOf()) { it.identityPath.path }
+            }
+        }
+    }
 
     private
     fun startCollectingCacheFingerprint() {
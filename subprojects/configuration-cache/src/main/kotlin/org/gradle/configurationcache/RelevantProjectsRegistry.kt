@@ -40,4 +40,7 @@ class RelevantProjectsRegistry : ProjectAccessHandler {
     override fun beforeResolvingProjectDependency(dependencyProject: ProjectInternal) {
         targetProjects.add(dependencyProject)
     }
+
+    override fun beforeAccessingProject(targetProject: ProjectInternal) {
+    }
 }
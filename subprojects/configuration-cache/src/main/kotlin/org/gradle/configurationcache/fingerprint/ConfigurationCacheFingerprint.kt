@@ -50,6 +50,30 @@ sealed class ConfigurationCacheFingerprint {
         val obtainedValue: ObtainedValue
     ) : ConfigurationCacheFingerprint()
 
+    /**
+     * An [input] observed while configuring the project with the given identity path.
+     */
+    data class ProjectInput(
+        val projectPath: String,
+        val input: ConfigurationCacheFingerprint
+    ) : ConfigurationCacheFingerprint()
+
+    /**
+     * The project with the given identity path has been accessed while configuring the [accessorPath] project,
+     * or by the build itself when [accessorPath] is `null`.
+     */
+    data class ProjectAccess(
+        val accessorPath: String?,
+        val projectPath: String
+    ) : ConfigurationCacheFingerprint()
+
+    /**
+     * The identity paths of the projects that own or contribute to the stored work graph.
+     */
+    data class StoredWork(
+        val projectPaths: Set<String>
+    ) : ConfigurationCacheFingerprint()
+
     data class UndeclaredSystemProperty(
         val key: String
     ) : ConfigurationCacheFingerprint()
@@ -25,6 +25,7 @@ import org.gradle.configurationcache.serialization.ReadContext
 import org.gradle.internal.hash.HashCode
 import org.gradle.internal.util.NumberUtil.ordinal
 import java.io.File
+import java.util.ArrayDeque
 
 
 internal
@@ -35,6 +36,7 @@ internal
 class ConfigurationCacheFingerprintChecker(private val host: Host) {
 
     interface Host {
+        val isIncremental: Boolean
         val gradleUserHomeDir: File
         val allInitScripts: List<File>
         val buildStartTime: Long
@@ -46,52 +48,148 @@ class ConfigurationCacheFingerprintChecker(private val host: Host) {
 
     suspend fun ReadContext.checkFingerprint(): InvalidationReason? {
         // TODO: log some debug info
+        val invalidatedProjects = LinkedHashMap<String, InvalidationReason>()
+        val projectAccesses = mutableListOf<ConfigurationCacheFingerprint.ProjectAccess>()
+        var storedWork: Set<String>? = null
         while (true) {
-            when (val input = read()) {
-                null -> return null
-                is ConfigurationCacheFingerprint.TaskInputs -> input.run {
-                    val currentFingerprint = host.fingerprintOf(fileSystemInputs)
-                    if (currentFingerprint != fileSystemInputsFingerprint) {
-                        // TODO: summarize what has changed (see https://github.com/gradle/configuration-cache/issues/282)
-                        return "an input to task '$taskPath' has changed"
+            val input = read() ?: break
+            when (input) {
+                is ConfigurationCacheFingerprint.ProjectInput -> input.run {
+                    if (projectPath !in invalidatedProjects) {
+                        val reason = check(this.input)
+                        if (reason != null) {
+                            if (!host.isIncremental) return reason
+                            invalidatedProjects[projectPath] = reason
+                        }
                     }
                 }
-                is ConfigurationCacheFingerprint.InputFile -> input.run {
-                    if (hasFileChanged(file, hash)) {
-                        return "file '${displayNameOf(file)}' has changed"
-                    }
-                }
-                is ConfigurationCacheFingerprint.ValueSource -> input.run {
-                    val reason = checkFingerprintValueIsUpToDate(obtainedValue)
+                is ConfigurationCacheFingerprint.ProjectAccess -> projectAccesses.add(input)
+                is ConfigurationCacheFingerprint.StoredWork -> storedWork = input.projectPaths
+                else -> {
+                    val reason = check(input)
                     if (reason != null) return reason
                 }
-                is ConfigurationCacheFingerprint.InitScripts -> input.run {
-                    val reason = checkInitScriptsAreUpToDate(fingerprints, host.allInitScripts)
-                    if (reason != null) return reason
+            }
+        }
+        return checkInvalidatedProjects(invalidatedProjects, projectAccesses, storedWork)
+    }
+
+    private
+    fun check(input: Any): InvalidationReason? {
+        when (input) {
+            is ConfigurationCacheFingerprint.TaskInputs -> input.run {
+                val currentFingerprint = host.fingerprintOf(fileSystemInputs)
+                if (currentFingerprint != fileSystemInputsFingerprint) {
+                    // TODO: summarize what has changed (see https://github.com/gradle/configuration-cache/issues/282)
+                    return "an input to task '$taskPath' has changed"
                 }
-                is ConfigurationCacheFingerprint.UndeclaredSystemProperty -> input.run {
-                    if (isDefined(key)) {
-                        return "system property '$key' has changed"
-                    }
+            }
+            is ConfigurationCacheFingerprint.InputFile -> input.run {
+                if (hasFileChanged(file, hash)) {
+                    return "file '${displayNameOf(file)}' has changed"
                 }
-                is ConfigurationCacheFingerprint.ChangingDependencyResolutionValue -> input.run {
-                    if (host.buildStartTime >= expireAt) {
-                        return input.reason
-                    }
+            }
+            is ConfigurationCacheFingerprint.ValueSource -> input.run {
+                val reason = checkFingerprintValueIsUpToDate(obtainedValue)
+                if (reason != null) return reason
+            }
+            is ConfigurationCacheFingerprint.InitScripts -> input.run {
+                val reason = checkInitScriptsAreUpToDate(fingerprints, host.allInitScripts)
+                if (reason != null) return reason
+            }
+            is ConfigurationCacheFingerprint.UndeclaredSystemProperty -> input.run {
+                if (isDefined(key)) {
+                    return "system property '$key' has changed"
+                }
+            }
+            is ConfigurationCacheFingerprint.ChangingDependencyResolutionValue -> input.run {
+                if (host.buildStartTime >= expireAt) {
+                    return input.reason
+                }
+            }
+            is ConfigurationCacheFingerprint.GradleEnvironment -> input.run {
+                if (host.gradleUserHomeDir != gradleUserHomeDir) {
+                    return "Gradle user home directory has changed"
+                }
+                if (jvmFingerprint() != jvm) {
+                    return "JVM has changed"
                 }
-                is ConfigurationCacheFingerprint.GradleEnvironment -> input.run {
-                    if (host.gradleUserHomeDir != gradleUserHomeDir) {
-                        return "Gradle user home directory has changed"
+            }
+            else -> throw IllegalStateException("Unexpected configuration cache fingerprint: $input")
+        }
+        return null
+    }
+
+    /**
+     * The state can still be reused when none of the projects with changed inputs can affect the projects of the stored work graph.
+     */
+    private
+    fun ReadContext.checkInvalidatedProjects(
+        invalidatedProjects: Map<String, InvalidationReason>,
+        projectAccesses: List<ConfigurationCacheFingerprint.ProjectAccess>,
+        storedWork: Set<String>?
+    ): InvalidationReason? {
+        if (invalidatedProjects.isEmpty()) {
+            return null
+        }
+        if (storedWork == null) {
+            return invalidatedProjects.values.first()
+        }
+        for ((projectPath, reason) in invalidatedProjects) {
+            if (affectsStoredWork(projectPath, projectAccesses, storedWork)) {
+                return reason
+            }
+        }
+        logger.info(
+            "Inputs of {} have changed but do not affect the stored work graph: {}",
+            invalidatedProjects.keys.joinToString { "project '$it'" },
+            invalidatedProjects.values.joinToString()
+        )
+        return null
+    }
+
+    /**
+     * A project can configure its subprojects, and a project accessing another one can either observe or configure it,
+     * so the change of a project affects its subprojects and the projects it has accessed or was accessed by, transitively.
+     */
+    private
+    fun affectsStoredWork(
+        invalidatedProject: String,
+        projectAccesses: List<ConfigurationCacheFingerprint.ProjectAccess>,
+        storedWork: Set<String>
+    ): Boolean {
+        val affectedProjects = hashSetOf(invalidatedProject)
+        val queue = ArrayDeque(affectedProjects)
+        while (queue.isNotEmpty()) {
+            val project = queue.removeFirst()
+            if (storedWork.any { isSameOrDescendantOf(it, project) }) {
+                return true
+            }
+            for (access in projectAccesses) {
+                val accessorPath = access.accessorPath
+                if (isSameOrDescendantOf(access.projectPath, project)) {
+                    if (accessorPath == null) {
+                        // Accessed by the build itself
+                        return storedWork.isNotEmpty()
                     }
-                    if (jvmFingerprint() != jvm) {
-                        return "JVM has changed"
+                    if (affectedProjects.add(accessorPath)) {
+                        queue.add(accessorPath)
+                    }
+                }
+                if (accessorPath != null && isSameOrDescendantOf(accessorPath, project)) {
+                    if (affectedProjects.add(access.projectPath)) {
+                        queue.add(access.projectPath)
                     }
                 }
-                else -> throw IllegalStateException("Unexpected configuration cache fingerprint: $input")
             }
         }
+        return false
     }
 
+    private
+    fun isSameOrDescendantOf(projectPath: String, ancestorPath: String) =
+        projectPath == ancestorPath || ancestorPath == ":" || projectPath.startsWith("$ancestorPath:")
+
     private
     fun checkInitScriptsAreUpToDate(
         previous: List<ConfigurationCacheFingerprint.InputFile>,
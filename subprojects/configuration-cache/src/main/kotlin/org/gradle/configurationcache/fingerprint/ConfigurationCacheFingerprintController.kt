@@ -20,6 +20,7 @@ import org.gradle.api.execution.internal.TaskInputsListeners
 import org.gradle.api.internal.file.FileCollectionFactory
 import org.gradle.api.internal.file.FileCollectionInternal
 import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory
+import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.api.internal.provider.DefaultValueSourceProviderFactory
 import org.gradle.api.internal.provider.ValueSourceProviderFactory
 import org.gradle.configurationcache.BuildTreeListenerManager
@@ -27,6 +28,7 @@ import org.gradle.configurationcache.extensions.hashCodeOf
 import org.gradle.configurationcache.initialization.ConfigurationCacheStartParameter
 import org.gradle.configurationcache.serialization.DefaultWriteContext
 import org.gradle.configurationcache.serialization.ReadContext
+import org.gradle.initialization.ProjectAccessHandler
 import org.gradle.internal.concurrent.Stoppable
 import org.gradle.internal.event.ListenerManager
 import org.gradle.internal.fingerprint.impl.AbsolutePathFileCollectionFingerprinter
@@ -43,6 +45,9 @@ import java.io.OutputStream
 
 /**
  * Coordinates the writing and reading of the configuration cache fingerprint.
+ *
+ * Accesses to projects are forwarded to the fingerprint writer while the fingerprint is being collected,
+ * see [ConfigurationCacheStartParameter.isIncremental].
  */
 @ServiceScope(Scopes.Build::class)
 internal
@@ -57,7 +62,7 @@ class ConfigurationCacheFingerprintController internal constructor(
     private val buildTreeListenerManager: BuildTreeListenerManager,
     private val fileCollectionFactory: FileCollectionFactory,
     private val directoryFileTreeFactory: DirectoryFileTreeFactory
-) : Stoppable {
+) : Stoppable, ProjectAccessHandler {
 
     private
     abstract class WritingState {
@@ -68,9 +73,12 @@ class ConfigurationCacheFingerprintController internal constructor(
         open fun stop(): WritingState =
             illegalStateFor("stop")
 
-        open fun commit(fingerprintFile: File): WritingState =
+        open fun commit(fingerprintFile: File, storedWork: Set<String>?): WritingState =
             illegalStateFor("commit")
 
+        open fun projectAccessed(project: ProjectInternal) =
+            Unit
+
         abstract fun dispose(): WritingState
 
         private
@@ -108,6 +116,9 @@ class ConfigurationCacheFingerprintController internal constructor(
             return Written(fingerprintWriter, outputStream)
         }
 
+        override fun projectAccessed(project: ProjectInternal) =
+            fingerprintWriter.projectAccessed(project)
+
         override fun dispose() =
             stop().dispose()
     }
@@ -117,7 +128,10 @@ class ConfigurationCacheFingerprintController internal constructor(
         private val fingerprintWriter: ConfigurationCacheFingerprintWriter,
         private val outputStream: ByteArrayOutputStream
     ) : WritingState() {
-        override fun commit(fingerprintFile: File): WritingState {
+        override fun commit(fingerprintFile: File, storedWork: Set<String>?): WritingState {
+            if (storedWork != null) {
+                fingerprintWriter.writeStoredWork(storedWork)
+            }
             dispose()
             fingerprintFile
                 .outputStream()
@@ -143,8 +157,24 @@ class ConfigurationCacheFingerprintController internal constructor(
         writingState = writingState.stop()
     }
 
-    fun commitFingerprintTo(fingerprintFile: File) {
-        writingState = writingState.commit(fingerprintFile)
+    /**
+     * Writes the collected fingerprint to the given file, along with the identity paths of the projects
+     * that own or contribute to the stored work graph when they are known.
+     */
+    fun commitFingerprintTo(fingerprintFile: File, storedWork: Set<String>?) {
+        writingState = writingState.commit(fingerprintFile, storedWork)
+    }
+
+    override fun beforeRequestingTaskByPath(targetProject: ProjectInternal) {
+        writingState.projectAccessed(targetProject)
+    }
+
+    override fun beforeResolvingProjectDependency(dependencyProject: ProjectInternal) {
+        writingState.projectAccessed(dependencyProject)
+    }
+
+    override fun beforeAccessingProject(targetProject: ProjectInternal) {
+        writingState.projectAccessed(targetProject)
     }
 
     override fun stop() {
@@ -174,6 +204,9 @@ class ConfigurationCacheFingerprintController internal constructor(
     inner class CacheFingerprintComponentHost :
         ConfigurationCacheFingerprintWriter.Host, ConfigurationCacheFingerprintChecker.Host {
 
+        override val isIncremental: Boolean
+            get() = startParameter.isIncremental
+
         override val gradleUserHomeDir: File
             get() = startParameter.gradleUserHomeDir
 
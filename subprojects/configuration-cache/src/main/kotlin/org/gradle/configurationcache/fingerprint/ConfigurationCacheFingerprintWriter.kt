@@ -17,6 +17,9 @@
 package org.gradle.configurationcache.fingerprint
 
 import com.google.common.collect.Sets.newConcurrentHashSet
+import org.gradle.api.Project
+import org.gradle.api.ProjectEvaluationListener
+import org.gradle.api.ProjectState
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier
 import org.gradle.api.artifacts.component.ModuleComponentSelector
 import org.gradle.api.execution.internal.TaskInputsListener
@@ -29,6 +32,7 @@ import org.gradle.api.internal.file.FileCollectionStructureVisitor
 import org.gradle.api.internal.file.FileTreeInternal
 import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory
 import org.gradle.api.internal.file.collections.FileSystemMirroringFileTree
+import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.api.internal.provider.ValueSourceProviderFactory
 import org.gradle.api.internal.provider.sources.FileContentValueSource
 import org.gradle.api.provider.ValueSourceParameters
@@ -57,9 +61,11 @@ class ConfigurationCacheFingerprintWriter(
     ScriptExecutionListener,
     UndeclaredBuildInputListener,
     ChangingValueDependencyResolutionListener,
-    FileResourceListener {
+    FileResourceListener,
+    ProjectEvaluationListener {
 
     interface Host {
+        val isIncremental: Boolean
         val gradleUserHomeDir: File
         val allInitScripts: List<File>
         val buildStartTime: Long
@@ -72,17 +78,34 @@ class ConfigurationCacheFingerprintWriter(
     var ignoreValueSources = false
 
     private
-    val capturedFiles = newConcurrentHashSet<File>()
+    val isIncremental = host.isIncremental
+
+    /**
+     * The identity paths of the projects being configured by the current thread, innermost first,
+     * as configuring a project can require another one to be configured.
+     * Projects of other builds are `null` entries, their inputs being attributed to the build.
+     */
+    private
+    val projectsBeingConfigured = ThreadLocal.withInitial { ArrayList<String?>() }
+
+    /**
+     * Files and system properties are captured once per project, and once for the build itself (`null`).
+     */
+    private
+    val capturedFiles = newConcurrentHashSet<Pair<String?, File>>()
+
+    private
+    val undeclaredSystemProperties = newConcurrentHashSet<Pair<String?, String>>()
 
     private
-    val undeclaredSystemProperties = newConcurrentHashSet<String>()
+    val projectAccesses = newConcurrentHashSet<Pair<String?, String>>()
 
     private
     var closestChangingValue: ConfigurationCacheFingerprint.ChangingDependencyResolutionValue? = null
 
     init {
         val initScripts = host.allInitScripts
-        capturedFiles.addAll(initScripts)
+        initScripts.mapTo(capturedFiles) { null to it }
         write(
             ConfigurationCacheFingerprint.InitScripts(
                 initScripts.map(::inputFile)
@@ -115,6 +138,14 @@ class ConfigurationCacheFingerprintWriter(
         }
     }
 
+    /**
+     * Records the projects that own or contribute to the stored work graph,
+     * so that the checker can tell whether a change to a project input affects it.
+     */
+    fun writeStoredWork(projectPaths: Set<String>) {
+        write(ConfigurationCacheFingerprint.StoredWork(projectPaths))
+    }
+
     fun stopCollectingValueSources() {
         // TODO - this is a temporary step, see the comment in DefaultConfigurationCache
         ignoreValueSources = true
@@ -139,15 +170,42 @@ class ConfigurationCacheFingerprintWriter(
         }
     }
 
+    override fun beforeEvaluate(project: Project) {
+        if (isIncremental) {
+            projectsBeingConfigured.get().add(0, identityPathOf(project))
+        }
+    }
+
+    override fun afterEvaluate(project: Project, state: ProjectState) {
+        if (isIncremental) {
+            projectsBeingConfigured.get().removeAt(0)
+        }
+    }
+
+    /**
+     * Records that the current project, or the build itself, has accessed the given project.
+     */
+    fun projectAccessed(project: ProjectInternal) {
+        if (!isIncremental) {
+            return
+        }
+        val projectPath = identityPathOf(project) ?: return
+        val accessorPath = currentProjectPath()
+        if (accessorPath == projectPath || !projectAccesses.add(accessorPath to projectPath)) {
+            return
+        }
+        write(ConfigurationCacheFingerprint.ProjectAccess(accessorPath, projectPath))
+    }
+
     override fun fileObserved(file: File) {
         captureFile(file)
     }
 
     override fun systemPropertyRead(key: String) {
-        if (!undeclaredSystemProperties.add(key)) {
+        if (!undeclaredSystemProperties.add(currentProjectPath() to key)) {
             return
         }
-        write(ConfigurationCacheFingerprint.UndeclaredSystemProperty(key))
+        writeInput(ConfigurationCacheFingerprint.UndeclaredSystemProperty(key))
     }
 
     override fun <T : Any, P : ValueSourceParameters> valueObtained(
@@ -164,7 +222,7 @@ class ConfigurationCacheFingerprintWriter(
                 }
             }
             else -> {
-                write(
+                writeInput(
                     ValueSource(
                         obtainedValue.uncheckedCast()
                     )
@@ -185,10 +243,10 @@ class ConfigurationCacheFingerprintWriter(
 
     private
     fun captureFile(file: File) {
-        if (!capturedFiles.add(file)) {
+        if (!capturedFiles.add(currentProjectPath() to file)) {
             return
         }
-        write(inputFile(file))
+        writeInput(inputFile(file))
     }
 
     private
@@ -200,7 +258,7 @@ class ConfigurationCacheFingerprintWriter(
 
     private
     fun captureTaskInputs(task: TaskInternal, fileSystemInputs: FileCollectionInternal) {
-        write(
+        writeInput(
             ConfigurationCacheFingerprint.TaskInputs(
                 task.identityPath.path,
                 simplify(fileSystemInputs),
@@ -209,6 +267,27 @@ class ConfigurationCacheFingerprintWriter(
         )
     }
 
+    private
+    fun identityPathOf(project: Project): String? =
+        (project as ProjectInternal).takeIf { it.gradle.isRootBuild }?.identityPath?.path
+
+    private
+    fun currentProjectPath(): String? =
+        if (isIncremental) projectsBeingConfigured.get().firstOrNull()
+        else null
+
+    /**
+     * Writes the given input, attributing it to the project being configured by the current thread, if any.
+     */
+    private
+    fun writeInput(input: ConfigurationCacheFingerprint) {
+        write(
+            currentProjectPath()?.let { projectPath ->
+                ConfigurationCacheFingerprint.ProjectInput(projectPath, input)
+            } ?: input
+        )
+    }
+
     private
     fun write(value: ConfigurationCacheFingerprint?) {
         synchronized(writeContext) {
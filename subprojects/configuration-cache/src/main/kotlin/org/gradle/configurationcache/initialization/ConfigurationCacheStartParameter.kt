@@ -50,6 +50,22 @@ class ConfigurationCacheStartParameter(
     val recreateCache: Boolean
         get() = startParameter.isConfigurationCacheRecreateCache
 
+    /**
+     * Whether state files are compressed, which makes them smaller at the cost of some time to store and load them.
+     */
+    val isCompressed: Boolean
+        get() = java.lang.Boolean.getBoolean("org.gradle.configuration-cache.internal.compress")
+
+    /**
+     * Whether a configuration cache entry can be reused when only inputs of projects that do not contribute to its work graph have changed.
+     *
+     * Inputs are attributed to the project being configured when they are read, and accesses from a project to another one are recorded,
+     * so it requires projects to only configure themselves and their subprojects, and to reach other projects through
+     * `project(path)` lookups, project dependencies or task paths.
+     */
+    val isIncremental: Boolean
+        get() = java.lang.Boolean.getBoolean("org.gradle.configuration-cache.internal.incremental")
+
     /**
      * See [StartParameter.getProjectDir].
      */
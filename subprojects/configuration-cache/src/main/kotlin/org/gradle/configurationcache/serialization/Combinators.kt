@@ -290,13 +290,18 @@ fun Decoder.readClassPath(): ClassPath =
 
 internal
 fun Encoder.writeFile(file: File?) {
-    BaseSerializerFactory.FILE_SERIALIZER.write(this, file)
+    if (this is DefaultWriteContext) {
+        writeFile(file!!)
+    } else {
+        BaseSerializerFactory.FILE_SERIALIZER.write(this, file)
+    }
 }
 
 
 internal
 fun Decoder.readFile(): File =
-    BaseSerializerFactory.FILE_SERIALIZER.read(this)
+    if (this is DefaultReadContext) readFile()
+    else BaseSerializerFactory.FILE_SERIALIZER.read(this)
 
 
 internal
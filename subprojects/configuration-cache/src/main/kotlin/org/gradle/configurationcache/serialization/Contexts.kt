@@ -33,11 +33,13 @@ import org.gradle.internal.hash.HashCode
 import org.gradle.internal.instantiation.InstantiatorFactory
 import org.gradle.internal.serialize.Decoder
 import org.gradle.internal.serialize.Encoder
+import java.io.File
 
 
 internal
 class DefaultWriteContext(
-    codec: Codec<Any?>,
+    private
+    val codec: Codec<Any?>,
 
     private
     val encoder: Encoder,
@@ -50,11 +52,17 @@ class DefaultWriteContext(
     override val tracer: Tracer?,
 
     private
-    val problemsListener: ProblemsListener
+    val problemsListener: ProblemsListener,
 
-) : AbstractIsolateContext<WriteIsolate>(codec), WriteContext, Encoder by encoder, AutoCloseable {
+    internal
+    val shards: WriteShards = WriteShards(),
+
+    override val sharedIdentities: WriteIdentities = WriteIdentities(shards),
 
-    override val sharedIdentities = WriteIdentities()
+    private
+    val scopes: WriteIdentities = WriteIdentities(shards)
+
+) : AbstractIsolateContext<WriteIsolate>(codec), WriteContext, Encoder by encoder, AutoCloseable {
 
     private
     val beanPropertyWriters = hashMapOf<Class<*>, BeanStateWriter>()
@@ -62,8 +70,42 @@ class DefaultWriteContext(
     private
     val classes = WriteIdentities()
 
+    /**
+     * The tables of strings and files are per stream, not global: the state file, the fingerprint, each shard and
+     * the state file of each included build have their own, so a value used by several streams is written once in each of them.
+     * This keeps the streams independent, so they can be read concurrently and in any order.
+     */
+    private
+    val strings = WriteIdentities(byEquality = true)
+
     private
-    val scopes = WriteIdentities()
+    val files = WriteIdentities(byEquality = true)
+
+    /**
+     * Creates a context writing a shard of the state to the given [encoder].
+     *
+     * The shard shares the instances and class loader scopes written by this context, and has its own tables of classes, strings and files,
+     * so that shards do not depend on each other for common values.
+     */
+    internal
+    fun forShard(encoder: Encoder) = DefaultWriteContext(
+        codec,
+        encoder,
+        scopeLookup,
+        logger,
+        null,
+        problemsListener,
+        shards,
+        sharedIdentities,
+        scopes
+    )
+
+    /**
+     * The number of shared instances and class loader scopes defined so far, which the following state can refer to.
+     */
+    internal
+    val definedInstanceCount: Int
+        get() = sharedIdentities.size + scopes.size
 
     /**
      * Closes the given [encoder] if it is [AutoCloseable].
@@ -134,9 +176,39 @@ class DefaultWriteContext(
         }
     }
 
-    // TODO: consider interning strings
-    override fun writeString(string: CharSequence) =
-        encoder.writeString(string)
+    override fun writeString(string: CharSequence) {
+        val value = string.toString()
+        val id = strings.getId(value)
+        if (id != null) {
+            writeSmallInt(id)
+        } else {
+            writeSmallInt(strings.putInstance(value))
+            encoder.writeString(value)
+        }
+    }
+
+    /**
+     * Writes the given [file] as a reference to its parent directory and its name, so that the paths sharing a prefix share its encoding.
+     */
+    internal
+    fun writeFile(file: File) {
+        // Keyed on the path, as files which only differ in case are equal on Windows
+        val id = files.getId(file.path)
+        if (id != null) {
+            writeSmallInt(id)
+        } else {
+            writeSmallInt(files.putInstance(file.path))
+            val parent = file.parentFile
+            if (parent == null) {
+                writeBoolean(false)
+                writeString(file.path)
+            } else {
+                writeBoolean(true)
+                writeFile(parent)
+                writeString(file.name)
+            }
+        }
+    }
 
     override fun newIsolate(owner: IsolateOwner): WriteIsolate =
         DefaultWriteIsolate(owner)
@@ -197,7 +269,8 @@ interface ScopeLookup {
 
 internal
 class DefaultReadContext(
-    codec: Codec<Any?>,
+    private
+    val codec: Codec<Any?>,
 
     private
     val decoder: Decoder,
@@ -211,11 +284,14 @@ class DefaultReadContext(
     override val logger: Logger,
 
     private
-    val problemsListener: ProblemsListener
+    val problemsListener: ProblemsListener,
 
-) : AbstractIsolateContext<ReadIsolate>(codec), ReadContext, Decoder by decoder {
+    override val sharedIdentities: ReadIdentities = ReadIdentities(concurrent = true),
+
+    private
+    val scopes: ReadIdentities = ReadIdentities(concurrent = true)
 
-    override val sharedIdentities = ReadIdentities()
+) : AbstractIsolateContext<ReadIsolate>(codec), ReadContext, Decoder by decoder {
 
     private
     val beanStateReaders = hashMapOf<Class<*>, BeanStateReader>()
@@ -223,8 +299,14 @@ class DefaultReadContext(
     private
     val classes = ReadIdentities()
 
+    /**
+     * Per stream, like the tables of the [DefaultWriteContext] that wrote it.
+     */
+    private
+    val strings = ReadIdentities()
+
     private
-    val scopes = ReadIdentities()
+    val files = ReadIdentities()
 
     private
     lateinit var projectProvider: ProjectProvider
@@ -243,6 +325,27 @@ class DefaultReadContext(
 
     override var immediateMode: Boolean = false
 
+    /**
+     * Creates a context reading a shard of the state from the given [decoder], which can be used concurrently with this context.
+     *
+     * The shard shares the instances and class loader scopes read by this context, and has its own tables of classes, strings and files.
+     */
+    internal
+    fun forShard(decoder: Decoder) = DefaultReadContext(
+        codec,
+        decoder,
+        instantiatorFactory,
+        constructors,
+        logger,
+        problemsListener,
+        sharedIdentities,
+        scopes
+    ).also { shard ->
+        shard.classLoader = classLoader
+        shard.projectProvider = projectProvider
+        shard.immediateMode = immediateMode
+    }
+
     override suspend fun read(): Any? = getCodec().run {
         decode()
     }
@@ -253,6 +356,34 @@ class DefaultReadContext(
     override fun beanStateReaderFor(beanType: Class<*>): BeanStateReader =
         beanStateReaders.computeIfAbsent(beanType) { type -> BeanPropertyReader(type, constructors, instantiatorFactory) }
 
+    override fun readString(): String {
+        val id = readSmallInt()
+        val string = strings.getInstance(id)
+        if (string != null) {
+            return string as String
+        }
+        return decoder.readString().also {
+            strings.putInstance(id, it)
+        }
+    }
+
+    internal
+    fun readFile(): File {
+        val id = readSmallInt()
+        val file = files.getInstance(id)
+        if (file != null) {
+            return file as File
+        }
+        val newFile = if (readBoolean()) {
+            val parent = readFile()
+            File(parent, readString())
+        } else {
+            File(readString())
+        }
+        files.putInstance(id, newFile)
+        return newFile
+    }
+
     override fun readClass(): Class<*> {
         val id = readSmallInt()
         val type = classes.getInstance(id)
@@ -288,10 +419,13 @@ class DefaultReadContext(
             val localClassPath = readClassPath()
             val localImplementationHash = readHashCode()
             val exportClassPath = readClassPath()
-            if (localImplementationHash != null && exportClassPath.isEmpty) {
-                parent.createLockedChild(name, localClassPath, localImplementationHash, null)
-            } else {
-                parent.createChild(name).local(localClassPath).export(exportClassPath).lock()
+            // Shards decoded concurrently may create children of the same scope
+            synchronized(scopes) {
+                if (localImplementationHash != null && exportClassPath.isEmpty) {
+                    parent.createLockedChild(name, localClassPath, localImplementationHash, null)
+                } else {
+                    parent.createChild(name).local(localClassPath).export(exportClassPath).lock()
+                }
             }
         } else {
             ownerService<ClassLoaderScopeRegistry>().coreAndPluginsScope
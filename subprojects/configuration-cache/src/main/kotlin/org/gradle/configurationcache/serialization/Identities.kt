@@ -16,28 +16,55 @@
 
 package org.gradle.configurationcache.serialization
 
+import java.util.BitSet
 import java.util.IdentityHashMap
+import java.util.concurrent.ConcurrentHashMap
 
 
-class WriteIdentities {
+class WriteIdentities(
+    /**
+     * Records the shards defining and referencing the instances, when the instances are shared by the shards of a state file.
+     */
+    private val shards: WriteShards? = null,
+    /**
+     * Whether equal instances share an id, for values such as strings, rather than only identical instances.
+     */
+    byEquality: Boolean = false
+) {
 
     private
-    val instanceIds = IdentityHashMap<Any, Int>()
+    val instanceIds: MutableMap<Any, Int> = if (byEquality) HashMap() else IdentityHashMap()
 
-    fun getId(instance: Any) = instanceIds[instance]
+    private
+    val owners = ArrayList<Int>()
+
+    val size: Int
+        get() = instanceIds.size
+
+    fun getId(instance: Any) = instanceIds[instance]?.also { id ->
+        shards?.referenced(owners[id])
+    }
 
     fun putInstance(instance: Any): Int {
         val id = instanceIds.size
         instanceIds[instance] = id
+        if (shards != null) {
+            owners.add(shards.current)
+        }
         return id
     }
 }
 
 
-class ReadIdentities {
+class ReadIdentities(
+    /**
+     * Whether the instances can be put by shards decoded concurrently.
+     */
+    concurrent: Boolean = false
+) {
 
     private
-    val instanceIds = HashMap<Int, Any>()
+    val instanceIds: MutableMap<Int, Any> = if (concurrent) ConcurrentHashMap() else HashMap()
 
     fun getInstance(id: Int) = instanceIds[id]
 
@@ -45,3 +72,49 @@ class ReadIdentities {
         instanceIds[id] = instance
     }
 }
+
+
+/**
+ * Tracks which shard of a state file is being written, and which other shards it references instances of.
+ *
+ * Shards are written one after the other, so a shard can only reference instances defined by the main stream or by an earlier shard.
+ * The shards it depends on must be decoded before it, while the other shards can be decoded concurrently.
+ */
+class WriteShards {
+
+    /**
+     * The shard being written, or [MAIN_SHARD].
+     */
+    var current = MAIN_SHARD
+        private set
+
+    private
+    val dependencies = BitSet()
+
+    fun start(shard: Int) {
+        require(current == MAIN_SHARD) {
+            "Shard $current is still being written."
+        }
+        current = shard
+    }
+
+    /**
+     * Finishes writing the current shard and returns the earlier shards it depends on.
+     */
+    fun finish(): List<Int> =
+        dependencies.stream().toArray().toList().also {
+            dependencies.clear()
+            current = MAIN_SHARD
+        }
+
+    internal
+    fun referenced(owner: Int) {
+        // The main stream is decoded up to the shards before any of them, and continues once all of them are decoded
+        if (current != MAIN_SHARD && owner != MAIN_SHARD && owner != current) {
+            dependencies.set(owner)
+        }
+    }
+}
+
+
+const val MAIN_SHARD = -1
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.configurationcache.serialization
+
+import org.gradle.configurationcache.extensions.uncheckedCast
+import org.gradle.configurationcache.extensions.useToRun
+import org.gradle.internal.operations.BuildOperationContext
+import org.gradle.internal.operations.BuildOperationDescriptor
+import org.gradle.internal.operations.BuildOperationExecutor
+import org.gradle.internal.operations.RunnableBuildOperation
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder
+import java.io.InputStream
+import java.io.OutputStream
+
+
+/**
+ * Writes each of the given [contents] to the stream of its shard, one shard after the other, so that the identity tables keep
+ * assigning ids deterministically.
+ *
+ * The main stream records, for each shard, the earlier shards it references instances of.
+ */
+internal
+suspend fun <T> DefaultWriteContext.writeShards(
+    contents: List<T>,
+    outputStreamFor: (Int) -> OutputStream,
+    writeShard: suspend WriteContext.(T) -> Unit
+) {
+    writeSmallInt(contents.size)
+    contents.forEachIndexed { shard, content ->
+        shards.start(shard)
+        forShard(KryoBackedEncoder(outputStreamFor(shard))).useToRun {
+            writeShard(content)
+        }
+        val dependencies = shards.finish()
+        writeSmallInt(dependencies.size)
+        for (dependency in dependencies) {
+            writeSmallInt(dependency)
+        }
+    }
+}
+
+
+/**
+ * Reads the shards written by [writeShards], each from its own stream.
+ *
+ * The shards which do not depend on each other are decoded concurrently, one dependency level at a time.
+ */
+internal
+fun <T : Any> DefaultReadContext.readShards(
+    buildOperationExecutor: BuildOperationExecutor,
+    inputStreamFor: (Int) -> InputStream,
+    readShard: suspend ReadContext.() -> T
+): List<T> {
+    val shardCount = readSmallInt()
+    val levels = IntArray(shardCount)
+    for (shard in 0 until shardCount) {
+        // A shard is decoded once the shards it depends on are
+        var level = 0
+        repeat(readSmallInt()) {
+            level = maxOf(level, levels[readSmallInt()] + 1)
+        }
+        levels[shard] = level
+    }
+    val contents = arrayOfNulls<Any>(shardCount)
+    for (level in 0..(levels.maxOrNull() ?: -1)) {
+        buildOperationExecutor.runAll<RunnableBuildOperation> {
+            for (shard in 0 until shardCount) {
+                if (levels[shard] == level) {
+                    add(object : RunnableBuildOperation {
+
+                        override fun description(): BuildOperationDescriptor.Builder =
+                            BuildOperationDescriptor.displayName("Load configuration cache state shard ${shard + 1} of $shardCount")
+
+                        override fun run(context: BuildOperationContext) {
+                            contents[shard] = readShardFrom(inputStreamFor(shard), readShard)
+                        }
+                    })
+                }
+            }
+        }
+    }
+    return contents.map { it!!.uncheckedCast<T>() }
+}
+
+
+private
+fun <T> DefaultReadContext.readShardFrom(inputStream: InputStream, readShard: suspend ReadContext.() -> T): T =
+    KryoBackedDecoder(inputStream).use { decoder ->
+        forShard(decoder).runReadOperation {
+            readShard()
+        }
+    }
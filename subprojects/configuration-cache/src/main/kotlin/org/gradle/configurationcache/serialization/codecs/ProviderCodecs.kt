@@ -156,7 +156,9 @@ class BuildServiceProviderCodec(
             val implementationType = readClassOf<BuildService<*>>()
             val parameters = read() as BuildServiceParameters?
             val maxUsages = readInt()
-            serviceRegistry.register(name, implementationType, parameters, maxUsages)
+            synchronized(serviceRegistry) {
+                serviceRegistry.register(name, implementationType, parameters, maxUsages)
+            }
         }
 }
 
@@ -33,9 +33,12 @@ import org.gradle.api.internal.tasks.properties.PropertyVisitor
 import org.gradle.api.specs.Spec
 import org.gradle.api.tasks.FileNormalizer
 import org.gradle.configurationcache.extensions.uncheckedCast
+import org.gradle.configurationcache.extensions.useToRun
 import org.gradle.configurationcache.problems.PropertyKind
 import org.gradle.configurationcache.problems.PropertyTrace
 import org.gradle.configurationcache.serialization.Codec
+import org.gradle.configurationcache.serialization.DefaultReadContext
+import org.gradle.configurationcache.serialization.DefaultWriteContext
 import org.gradle.configurationcache.serialization.IsolateContext
 import org.gradle.configurationcache.serialization.IsolateOwner
 import org.gradle.configurationcache.serialization.MutableIsolateContext
@@ -49,6 +52,7 @@ import org.gradle.configurationcache.serialization.readCollection
 import org.gradle.configurationcache.serialization.readCollectionInto
 import org.gradle.configurationcache.serialization.readEnum
 import org.gradle.configurationcache.serialization.readNonNull
+import org.gradle.configurationcache.serialization.runReadOperation
 import org.gradle.configurationcache.serialization.withDebugFrame
 import org.gradle.configurationcache.serialization.withIsolate
 import org.gradle.configurationcache.serialization.withPropertyTrace
@@ -56,7 +60,11 @@ import org.gradle.configurationcache.serialization.writeCollection
 import org.gradle.configurationcache.serialization.writeEnum
 import org.gradle.execution.plan.LocalTaskNode
 import org.gradle.execution.plan.TaskNodeFactory
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder
 import org.gradle.util.DeferredUtil
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
 
 
 class TaskNodeCodec(
@@ -70,9 +78,28 @@ class TaskNodeCodec(
     }
 
     override suspend fun ReadContext.decode(): LocalTaskNode {
-        val task = readTask()
-        val node = taskNodeFactory.getOrCreateNode(task) as LocalTaskNode
+        val taskType = readClassOf<Task>()
+        val projectPath = readString()
+        val taskName = readString()
+
+        val task = createTask(projectPath, taskName, taskType)
+        // Tasks of different projects are decoded concurrently
+        val node = synchronized(taskNodeFactory) {
+            taskNodeFactory.getOrCreateNode(task)
+        } as LocalTaskNode
         node.isolated()
+
+        if (readBoolean()) {
+            withTaskOf(taskType, task, userTypesCodec) {
+                readRegisteredServicesOf(task)
+            }
+            readDeferredStateOf(node, taskType)
+        } else {
+            withTaskOf(taskType, task, userTypesCodec) {
+                readTaskStateOf(task)
+                readRegisteredServicesOf(task)
+            }
+        }
         return node
     }
 
@@ -87,47 +114,95 @@ class TaskNodeCodec(
             writeString(taskName)
 
             withDebugFrame({ taskType.name }) {
-                withTaskOf(taskType, task, userTypesCodec) {
-                    writeUpToDateSpec(task)
-                    writeCollection(task.outputs.cacheIfSpecs)
-                    writeCollection(task.outputs.doNotCacheIfSpecs)
-                    beanStateWriterFor(task.javaClass).run {
-                        writeStateOf(task)
-                        writeRegisteredPropertiesOf(
-                            task,
-                            this as BeanPropertyWriter
-                        )
+                val deferredStateContext = (this as? DefaultWriteContext)?.takeIf { isTaskStateDeferred }
+                writeBoolean(deferredStateContext != null)
+                if (deferredStateContext != null) {
+                    withTaskOf(taskType, task, userTypesCodec) {
+                        writeRegisteredServicesOf(task)
+                    }
+                    deferredStateContext.writeDeferredStateOf(task, taskType)
+                } else {
+                    withTaskOf(taskType, task, userTypesCodec) {
+                        writeTaskStateOf(task)
+                        writeRegisteredServicesOf(task)
                     }
-                    writeDestroyablesOf(task)
-                    writeLocalStateOf(task)
-                    writeRegisteredServicesOf(task)
                 }
             }
         }
     }
 
+    /**
+     * Writes the state of the task to a separate chunk, which can be loaded just before the task executes.
+     *
+     * The registered services of the task are written eagerly, as they are required to schedule the task.
+     */
     private
-    suspend fun ReadContext.readTask(): Task {
-        val taskType = readClassOf<Task>()
-        val projectPath = readString()
-        val taskName = readString()
+    suspend fun DefaultWriteContext.writeDeferredStateOf(task: TaskInternal, taskType: Class<*>) {
+        val definedInstances = definedInstanceCount
+        val bytes = ByteArrayOutputStream()
+        forShard(KryoBackedEncoder(bytes)).useToRun {
+            withTaskOf(taskType, task, userTypesCodec) {
+                writeTaskStateOf(task)
+            }
+        }
+        // State defining instances the following state refers to has to be loaded in order
+        writeBoolean(definedInstanceCount == definedInstances)
+        writeBinary(bytes.toByteArray())
+    }
 
-        val task = createTask(projectPath, taskName, taskType)
+    private
+    fun ReadContext.readDeferredStateOf(node: LocalTaskNode, taskType: Class<*>) {
+        // Deferred state is only written by a `DefaultWriteContext`, so it is read by a `DefaultReadContext`
+        val context = this as DefaultReadContext
+        val canDefer = readBoolean()
+        val bytes = readBinary()
+        if (canDefer) {
+            node.loadStateBeforeExecution {
+                context.loadDeferredStateOf(node.task, taskType, bytes)
+            }
+        } else {
+            context.loadDeferredStateOf(node.task, taskType, bytes)
+        }
+    }
 
-        withTaskOf(taskType, task, userTypesCodec) {
-            readUpToDateSpec(task)
-            readCollectionInto { task.outputs.cacheIfSpecs.uncheckedCast() }
-            readCollectionInto { task.outputs.doNotCacheIfSpecs.uncheckedCast() }
-            beanStateReaderFor(task.javaClass).run {
-                readStateOf(task)
+    private
+    fun DefaultReadContext.loadDeferredStateOf(task: TaskInternal, taskType: Class<*>, bytes: ByteArray) {
+        KryoBackedDecoder(ByteArrayInputStream(bytes)).use { decoder ->
+            forShard(decoder).runReadOperation {
+                withTaskOf(taskType, task, userTypesCodec) {
+                    readTaskStateOf(task)
+                }
             }
-            readRegisteredPropertiesOf(task)
-            readDestroyablesOf(task)
-            readLocalStateOf(task)
-            readRegisteredServicesOf(task)
         }
+    }
+
+    private
+    suspend fun WriteContext.writeTaskStateOf(task: TaskInternal) {
+        writeUpToDateSpec(task)
+        writeCollection(task.outputs.cacheIfSpecs)
+        writeCollection(task.outputs.doNotCacheIfSpecs)
+        beanStateWriterFor(task.javaClass).run {
+            writeStateOf(task)
+            writeRegisteredPropertiesOf(
+                task,
+                this as BeanPropertyWriter
+            )
+        }
+        writeDestroyablesOf(task)
+        writeLocalStateOf(task)
+    }
 
-        return task
+    private
+    suspend fun ReadContext.readTaskStateOf(task: TaskInternal) {
+        readUpToDateSpec(task)
+        readCollectionInto { task.outputs.cacheIfSpecs.uncheckedCast() }
+        readCollectionInto { task.outputs.doNotCacheIfSpecs.uncheckedCast() }
+        beanStateReaderFor(task.javaClass).run {
+            readStateOf(task)
+        }
+        readRegisteredPropertiesOf(task)
+        readDestroyablesOf(task)
+        readLocalStateOf(task)
     }
 
     private
@@ -198,6 +273,14 @@ class TaskNodeCodec(
 }
 
 
+/**
+ * Whether the state of tasks is stored so that it can be loaded just before the tasks execute, rather than when loading the cache entry.
+ */
+private
+val isTaskStateDeferred: Boolean
+    get() = java.lang.Boolean.getBoolean("org.gradle.configuration-cache.internal.defer-task-state")
+
+
 private
 inline fun <T> T.withTaskOf(
     taskType: Class<*>,
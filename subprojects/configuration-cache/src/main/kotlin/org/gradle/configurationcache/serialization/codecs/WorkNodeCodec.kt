@@ -17,74 +17,152 @@
 package org.gradle.configurationcache.serialization.codecs
 
 import org.gradle.api.internal.GradleInternal
+import org.gradle.configurationcache.ConfigurationCacheStateFile
 import org.gradle.configurationcache.serialization.Codec
+import org.gradle.configurationcache.serialization.DefaultReadContext
+import org.gradle.configurationcache.serialization.DefaultWriteContext
+import org.gradle.configurationcache.serialization.MAIN_SHARD
 import org.gradle.configurationcache.serialization.ReadContext
 import org.gradle.configurationcache.serialization.WriteContext
 import org.gradle.configurationcache.serialization.readNonNull
+import org.gradle.configurationcache.serialization.readShards
 import org.gradle.configurationcache.serialization.withGradleIsolate
+import org.gradle.configurationcache.serialization.writeShards
+import org.gradle.execution.plan.LocalTaskNode
 import org.gradle.execution.plan.Node
 import org.gradle.execution.plan.TaskInAnotherBuild
 import org.gradle.execution.plan.TaskNode
+import org.gradle.internal.operations.BuildOperationExecutor
 
 
+/**
+ * Writes the scheduled nodes of a build, with the tasks of each group of projects in a separate shard.
+ *
+ * The state is laid out as follows:
+ * - the shard of each node, or [MAIN_SHARD] for the nodes written to the main stream,
+ * - the nodes of the main stream, which are all the nodes other than local tasks,
+ * - the index of shards, each with the earlier shards it references instances of, the shards being stored in their own state files,
+ * - the successors and execution state of each node.
+ *
+ * Tasks only reference instances of the main stream, their own project, or shared instances such as build services.
+ * The shards which do not depend on each other are decoded concurrently.
+ */
 internal
 class WorkNodeCodec(
     private val owner: GradleInternal,
-    private val internalTypesCodec: Codec<Any?>
+    private val internalTypesCodec: Codec<Any?>,
+    private val buildOperationExecutor: BuildOperationExecutor,
+    private val stateFile: ConfigurationCacheStateFile
 ) {
 
-    suspend fun WriteContext.writeWork(nodes: List<Node>) {
+    suspend fun DefaultWriteContext.writeWork(nodes: List<Node>) {
+        val shardOfNode = shardsOf(nodes)
+        writeSmallInt(nodes.size)
+        for (node in nodes) {
+            writeSmallInt(shardOfNode.getOrDefault(node, MAIN_SHARD) - MAIN_SHARD)
+        }
         // Share bean instances across all nodes (except tasks, which have their own isolate)
         withGradleIsolate(owner, internalTypesCodec) {
-            writeNodes(nodes)
+            for (node in nodes) {
+                if (node !in shardOfNode) {
+                    write(node)
+                }
+            }
+        }
+        val shardCount = shardOfNode.values.maxOrNull()?.plus(1) ?: 0
+        writeShards(
+            (0 until shardCount).map { shard -> nodes.filter { shardOfNode[it] == shard } },
+            { shard -> stateFile.stateFileForShard(shard).outputStream() }
+        ) { shardNodes ->
+            writeShard(shardNodes)
         }
+        writeEdges(nodes)
     }
 
-    suspend fun ReadContext.readWork(): List<Node> =
+    suspend fun DefaultReadContext.readWork(): List<Node> {
+        val nodeCount = readSmallInt()
+        val shardOfNode = IntArray(nodeCount) { readSmallInt() + MAIN_SHARD }
+        val nodes = arrayOfNulls<Node>(nodeCount)
         withGradleIsolate(owner, internalTypesCodec) {
-            readNodes()
+            for (nodeId in 0 until nodeCount) {
+                if (shardOfNode[nodeId] == MAIN_SHARD) {
+                    nodes[nodeId] = readNonNull<Node>()
+                }
+            }
         }
+        val shardNodes = readShards(
+            buildOperationExecutor,
+            { shard -> stateFile.stateFileForShard(shard).inputStream() }
+        ) {
+            readShard()
+        }.map { it.iterator() }
+        for (nodeId in 0 until nodeCount) {
+            val shard = shardOfNode[nodeId]
+            if (shard != MAIN_SHARD) {
+                nodes[nodeId] = shardNodes[shard].next()
+            }
+        }
+        return readEdges(nodes.map { it!! })
+    }
 
     private
-    suspend fun WriteContext.writeNodes(nodes: List<Node>) {
-        val nodeCount = nodes.size
-        writeSmallInt(nodeCount)
-        val scheduledNodeIds = HashMap<Node, Int>(nodeCount)
-        nodes.forEachIndexed { nodeId, node ->
-            writeNode(node, scheduledNodeIds)
-            scheduledNodeIds[node] = nodeId
+    fun shardsOf(nodes: List<Node>): Map<Node, Int> {
+        val maxWorkerCount = owner.startParameter.maxWorkerCount
+        val tasksByProject = nodes.filterIsInstance<LocalTaskNode>().groupBy { it.task.project.path }
+        val shardCount = minOf(tasksByProject.size, maxWorkerCount * SHARDS_PER_WORKER)
+        if (maxWorkerCount < 2 || shardCount < 2) {
+            return emptyMap()
+        }
+        // Keep the tasks of a project together, as they are created in the task container of the project
+        val shardOfNode = HashMap<Node, Int>()
+        tasksByProject.values.forEachIndexed { projectIndex, tasks ->
+            val shard = projectIndex * shardCount / tasksByProject.size
+            for (task in tasks) {
+                shardOfNode[task] = shard
+            }
         }
+        return shardOfNode
     }
 
     private
-    suspend fun ReadContext.readNodes(): List<Node> {
+    suspend fun WriteContext.writeShard(nodes: List<Node>) {
+        writeSmallInt(nodes.size)
+        withGradleIsolate(owner, internalTypesCodec) {
+            for (node in nodes) {
+                write(node)
+            }
+        }
+    }
+
+    private
+    suspend fun ReadContext.readShard(): List<Node> {
         val nodeCount = readSmallInt()
         val nodes = ArrayList<Node>(nodeCount)
-        val nodesById = HashMap<Int, Node>(nodeCount)
-        for (nodeId in 0 until nodeCount) {
-            val node = readNode(nodesById)
-            nodesById[nodeId] = node
-            nodes.add(node)
+        withGradleIsolate(owner, internalTypesCodec) {
+            for (i in 0 until nodeCount) {
+                nodes.add(readNonNull())
+            }
         }
         return nodes
     }
 
     private
-    suspend fun WriteContext.writeNode(
-        node: Node,
-        scheduledNodeIds: Map<Node, Int>
-    ) {
-        write(node)
-        writeSuccessorReferencesOf(node, scheduledNodeIds)
-        writeExecutionStateOf(node)
+    fun WriteContext.writeEdges(nodes: List<Node>) {
+        val scheduledNodeIds = HashMap<Node, Int>(nodes.size)
+        nodes.forEachIndexed { nodeId, node ->
+            writeSuccessorReferencesOf(node, scheduledNodeIds)
+            writeExecutionStateOf(node)
+            scheduledNodeIds[node] = nodeId
+        }
     }
 
     private
-    suspend fun ReadContext.readNode(nodesById: Map<Int, Node>): Node {
-        val node = readNonNull<Node>()
-        readSuccessorReferencesOf(node, nodesById)
-        readExecutionStateOf(node)
-        return node
+    fun ReadContext.readEdges(nodes: List<Node>): List<Node> {
+        for (node in nodes) {
+            readSuccessorReferencesOf(node, nodes)
+            readExecutionStateOf(node)
+        }
+        return nodes
     }
 
     private
@@ -119,7 +197,7 @@ class WorkNodeCodec(
     }
 
     private
-    fun ReadContext.readSuccessorReferencesOf(node: Node, nodesById: Map<Int, Node>) {
+    fun ReadContext.readSuccessorReferencesOf(node: Node, nodesById: List<Node>) {
         readSuccessorReferences(nodesById) {
             node.addDependencySuccessor(it)
         }
@@ -155,12 +233,17 @@ class WorkNodeCodec(
     }
 
     private
-    fun ReadContext.readSuccessorReferences(nodesById: Map<Int, Node>, onSuccessor: (Node) -> Unit) {
+    fun ReadContext.readSuccessorReferences(nodesById: List<Node>, onSuccessor: (Node) -> Unit) {
         while (true) {
             val successorId = readSmallInt()
             if (successorId == -1) break
-            val successor = nodesById.getValue(successorId)
+            val successor = nodesById[successorId]
             onSuccessor(successor)
         }
     }
+
+    private
+    companion object {
+        const val SHARDS_PER_WORKER = 4
+    }
 }
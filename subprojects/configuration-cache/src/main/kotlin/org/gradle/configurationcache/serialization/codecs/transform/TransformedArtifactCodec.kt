@@ -18,6 +18,7 @@ package org.gradle.configurationcache.serialization.codecs.transform
 
 import org.gradle.api.artifacts.component.ComponentIdentifier
 import org.gradle.api.internal.artifacts.PreResolvedResolvableArtifact
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactStageLimits
 import org.gradle.api.internal.artifacts.transform.BoundTransformationStep
 import org.gradle.api.internal.artifacts.transform.TransformingAsyncArtifactListener
 import org.gradle.api.internal.attributes.ImmutableAttributes
@@ -31,11 +32,14 @@ import org.gradle.internal.DisplayName
 import org.gradle.internal.component.local.model.ComponentFileArtifactIdentifier
 import org.gradle.internal.component.model.DefaultIvyArtifactName
 import org.gradle.internal.model.CalculatedValueContainerFactory
+import org.gradle.internal.operations.BuildOperationExecutor
 import java.io.File
 
 
 class TransformedArtifactCodec(
-    private val calculatedValueContainerFactory: CalculatedValueContainerFactory
+    private val calculatedValueContainerFactory: CalculatedValueContainerFactory,
+    private val buildOperationExecutor: BuildOperationExecutor,
+    private val artifactStageLimits: ArtifactStageLimits
 ) : Codec<TransformingAsyncArtifactListener.TransformedArtifact> {
     override suspend fun WriteContext.encode(value: TransformingAsyncArtifactListener.TransformedArtifact) {
         write(value.variantName)
@@ -53,6 +57,6 @@ class TransformedArtifactCodec(
         val artifactId = ComponentFileArtifactIdentifier(ownerId, file.name)
         val artifact = PreResolvedResolvableArtifact(null, DefaultIvyArtifactName.forFile(file, null), artifactId, calculatedValueContainerFactory.create(Describables.of(artifactId), file), TaskDependencyContainer.EMPTY, calculatedValueContainerFactory)
         val steps = readNonNull<List<TransformStepSpec>>().map { BoundTransformationStep(it.transformation, it.recreate()) }
-        return TransformingAsyncArtifactListener.TransformedArtifact(variantName, target, artifact, steps)
+        return TransformingAsyncArtifactListener.TransformedArtifact(variantName, target, artifact, steps, buildOperationExecutor, artifactStageLimits.transforms)
     }
 }
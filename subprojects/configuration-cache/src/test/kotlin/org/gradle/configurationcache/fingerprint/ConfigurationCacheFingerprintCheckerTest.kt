@@ -44,6 +44,7 @@ import org.gradle.internal.hash.HashCode
 import org.gradle.internal.serialize.Decoder
 import org.gradle.internal.serialize.Encoder
 import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
 import org.hamcrest.MatcherAssert.assertThat
 import org.junit.Test
 import java.io.File
@@ -197,6 +198,143 @@ class ConfigurationCacheFingerprintCheckerTest {
         )
     }
 
+    @Test
+    fun `project input change invalidates the state when not incremental`() {
+        assertThat(
+            checkFingerprintGiven(
+                projectsHost(isIncremental = false),
+                changedInputOf(":a"),
+                ConfigurationCacheFingerprint.StoredWork(setOf(":b"))
+            ),
+            equalTo("file 'build.gradle.kts' has changed")
+        )
+    }
+
+    @Test
+    fun `project input change does not invalidate the state when the stored work does not depend on the project`() {
+        assertThat(
+            checkFingerprintGiven(
+                projectsHost(),
+                unchangedInputOf(":b"),
+                changedInputOf(":a"),
+                ConfigurationCacheFingerprint.ProjectAccess(":c", ":b"),
+                ConfigurationCacheFingerprint.StoredWork(setOf(":b"))
+            ),
+            nullValue()
+        )
+    }
+
+    @Test
+    fun `project input change invalidates the state when the project is an ancestor of a stored work project`() {
+        assertThat(
+            checkFingerprintGiven(
+                projectsHost(),
+                changedInputOf(":a"),
+                ConfigurationCacheFingerprint.StoredWork(setOf(":a:b"))
+            ),
+            equalTo("file 'build.gradle.kts' has changed")
+        )
+    }
+
+    @Test
+    fun `project input change invalidates the state when the project is accessed by a stored work project`() {
+        assertThat(
+            checkFingerprintGiven(
+                projectsHost(),
+                changedInputOf(":a"),
+                ConfigurationCacheFingerprint.ProjectAccess(":b", ":a"),
+                ConfigurationCacheFingerprint.StoredWork(setOf(":b"))
+            ),
+            equalTo("file 'build.gradle.kts' has changed")
+        )
+    }
+
+    @Test
+    fun `project input change invalidates the state when the project accesses a stored work project`() {
+        assertThat(
+            checkFingerprintGiven(
+                projectsHost(),
+                changedInputOf(":a"),
+                ConfigurationCacheFingerprint.ProjectAccess(":a", ":b"),
+                ConfigurationCacheFingerprint.StoredWork(setOf(":b"))
+            ),
+            equalTo("file 'build.gradle.kts' has changed")
+        )
+    }
+
+    @Test
+    fun `project input change invalidates the state when a subproject of an affected project is accessed by a stored work project`() {
+        assertThat(
+            checkFingerprintGiven(
+                projectsHost(),
+                changedInputOf(":a"),
+                ConfigurationCacheFingerprint.ProjectAccess(":c", ":a"),
+                ConfigurationCacheFingerprint.ProjectAccess(":b", ":c:d"),
+                ConfigurationCacheFingerprint.StoredWork(setOf(":b"))
+            ),
+            equalTo("file 'build.gradle.kts' has changed")
+        )
+    }
+
+    @Test
+    fun `project input change invalidates the state when the project is accessed by the build`() {
+        assertThat(
+            checkFingerprintGiven(
+                projectsHost(),
+                changedInputOf(":a"),
+                ConfigurationCacheFingerprint.ProjectAccess(null, ":a"),
+                ConfigurationCacheFingerprint.StoredWork(setOf(":b"))
+            ),
+            equalTo("file 'build.gradle.kts' has changed")
+        )
+    }
+
+    @Test
+    fun `project input change invalidates the state when the stored work is unknown`() {
+        assertThat(
+            checkFingerprintGiven(
+                projectsHost(),
+                changedInputOf(":a")
+            ),
+            equalTo("file 'build.gradle.kts' has changed")
+        )
+    }
+
+    @Test
+    fun `build input change invalidates the state when incremental`() {
+        assertThat(
+            checkFingerprintGiven(
+                projectsHost(),
+                ConfigurationCacheFingerprint.InputFile(File("build.gradle.kts"), HashCode.fromInt(2)),
+                ConfigurationCacheFingerprint.StoredWork(setOf(":b"))
+            ),
+            equalTo("file 'build.gradle.kts' has changed")
+        )
+    }
+
+    private
+    fun projectsHost(isIncremental: Boolean = true): ConfigurationCacheFingerprintChecker.Host = mock {
+        on { this.isIncremental } doReturn isIncremental
+        on { hashCodeOf(any()) } doReturn HashCode.fromInt(1)
+        on { displayNameOf(any()) }.then { invocation ->
+            invocation.getArgument<File>(0).name
+        }
+    }
+
+    private
+    fun changedInputOf(projectPath: String) =
+        ConfigurationCacheFingerprint.ProjectInput(
+            projectPath,
+            ConfigurationCacheFingerprint.InputFile(File("build.gradle.kts"), HashCode.fromInt(2))
+        )
+
+    private
+    fun unchangedInputOf(projectPath: String) =
+        ConfigurationCacheFingerprint.ProjectInput(
+            projectPath,
+            ConfigurationCacheFingerprint.InputFile(File("build.gradle.kts"), HashCode.fromInt(1))
+        )
+
     private
     fun invalidationReasonForInitScriptsChange(
         from: Iterable<Pair<File, HashCode?>>,
@@ -221,11 +359,11 @@ class ConfigurationCacheFingerprintCheckerTest {
     private
     fun checkFingerprintGiven(
         host: ConfigurationCacheFingerprintChecker.Host,
-        fingerprint: ConfigurationCacheFingerprint
+        vararg fingerprints: ConfigurationCacheFingerprint
     ): InvalidationReason? {
 
         val readContext = recordWritingOf {
-            write(fingerprint)
+            fingerprints.forEach { write(it) }
             write(null)
         }
 
@@ -382,8 +520,7 @@ class ConfigurationCacheFingerprintCheckerTest {
         override fun readClass(): Class<*> =
             undefined()
 
-        override val logger: Logger
-            get() = undefined()
+        override val logger: Logger = mock()
 
         override var trace: PropertyTrace
             get() = undefined()
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.configurationcache.serialization
+
+import com.nhaarman.mockitokotlin2.mock
+import org.gradle.api.Action
+import org.gradle.cache.internal.TestCrossBuildInMemoryCacheFactory
+import org.gradle.configurationcache.extensions.uncheckedCast
+import org.gradle.configurationcache.extensions.useToRun
+import org.gradle.configurationcache.serialization.beans.BeanConstructors
+import org.gradle.internal.operations.BuildOperation
+import org.gradle.internal.operations.BuildOperationExecutor
+import org.gradle.internal.operations.BuildOperationQueue
+import org.gradle.internal.operations.RunnableBuildOperation
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder
+import org.gradle.util.TestUtil
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.sameInstance
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Test
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+
+class ShardsTest {
+
+    private
+    val executor = Executors.newFixedThreadPool(SHARD_COUNT)
+
+    @After
+    fun stopExecutor() {
+        executor.shutdownNow()
+    }
+
+    @Test
+    fun `shards sharing build services are decoded concurrently`() {
+
+        // The first half of the shards each define a service, which a shard of the second half also uses
+        val mainService = Service("main")
+        val shardServices = (0 until SHARD_COUNT / 2).map { Service("shard $it") }
+        val shards = (0 until SHARD_COUNT).map { shard ->
+            val shardService = shardServices[shard % shardServices.size]
+            (0 until TASKS_PER_SHARD).map { task ->
+                Task("task $task of shard $shard", listOf(mainService, shardService))
+            }
+        }
+
+        val mainStream = ByteArrayOutputStream()
+        val shardStreams = shards.map { ByteArrayOutputStream() }
+        writeContextFor(mainStream).useToRun {
+            runWriteOperation {
+                write(mainService)
+                writeShards(shards, shardStreams::get) { tasks ->
+                    writeCollection(tasks)
+                }
+                write(mainService)
+            }
+        }
+
+        val buildOperationExecutor = ConcurrentBuildOperationExecutor()
+        readContextFor(mainStream).run {
+            runReadOperation {
+                val readMainService = read()
+                val readShards = readShards(buildOperationExecutor, { shard -> ByteArrayInputStream(shardStreams[shard].toByteArray()) }) {
+                    readList().uncheckedCast<List<Task>>()
+                }
+
+                assertThat(read(), sameInstance(readMainService))
+                assertThat(buildOperationExecutor.batchSizes, equalTo(listOf(SHARD_COUNT / 2, SHARD_COUNT / 2)))
+                assertThat(readShards.map { tasks -> tasks.map { it.name } }, equalTo(shards.map { tasks -> tasks.map { it.name } }))
+                for ((shard, tasks) in readShards.withIndex()) {
+                    val readShardService = readShards[shard % shardServices.size].first().services[1]
+                    assertThat(readShardService.name, equalTo(shardServices[shard % shardServices.size].name))
+                    for (task in tasks) {
+                        assertThat(task.services[0], sameInstance(readMainService))
+                        assertThat(task.services[1], sameInstance(readShardService))
+                    }
+                }
+            }
+        }
+    }
+
+    class Service(val name: String)
+
+    class Task(val name: String, val services: List<Service>)
+
+    private
+    object TestCodec : Codec<Any?> {
+
+        override suspend fun WriteContext.encode(value: Any?) {
+            when (value) {
+                is Service -> {
+                    writeBoolean(true)
+                    encodePreservingSharedIdentityOf(value) {
+                        writeString(value.name)
+                    }
+                }
+                is Task -> {
+                    writeBoolean(false)
+                    writeString(value.name)
+                    writeCollection(value.services)
+                }
+                else -> throw IllegalArgumentException("Unexpected value $value")
+            }
+        }
+
+        override suspend fun ReadContext.decode(): Any? =
+            if (readBoolean()) {
+                decodePreservingSharedIdentity {
+                    Service(readString())
+                }
+            } else {
+                Task(readString(), readList().uncheckedCast())
+            }
+    }
+
+    /**
+     * Runs each batch of operations concurrently, all of them starting together.
+     */
+    private
+    inner class ConcurrentBuildOperationExecutor : BuildOperationExecutor by mock<BuildOperationExecutor>() {
+
+        val batchSizes = mutableListOf<Int>()
+
+        override fun <O : RunnableBuildOperation> runAll(schedulingAction: Action<BuildOperationQueue<O>>) {
+            val operations = mutableListOf<O>()
+            schedulingAction.execute(CollectingQueue(operations))
+            batchSizes.add(operations.size)
+            val barrier = CyclicBarrier(operations.size)
+            operations.map { operation ->
+                executor.submit(
+                    Runnable {
+                        barrier.await(10, TimeUnit.SECONDS)
+                        operation.run(mock())
+                    }
+                )
+            }.forEach {
+                it.get()
+            }
+        }
+    }
+
+    private
+    class CollectingQueue<O : BuildOperation>(private val operations: MutableList<O>) : BuildOperationQueue<O> {
+
+        override fun add(operation: O) {
+            operations.add(operation)
+        }
+
+        override fun cancel() {
+            throw UnsupportedOperationException()
+        }
+
+        override fun waitForCompletion() {
+            throw UnsupportedOperationException()
+        }
+
+        override fun setLogLocation(logLocation: String) {
+            throw UnsupportedOperationException()
+        }
+    }
+
+    private
+    fun writeContextFor(outputStream: ByteArrayOutputStream) =
+        DefaultWriteContext(
+            codec = TestCodec,
+            encoder = KryoBackedEncoder(outputStream),
+            scopeLookup = mock(),
+            logger = mock(),
+            tracer = null,
+            problemsListener = mock()
+        )
+
+    private
+    fun readContextFor(state: ByteArrayOutputStream) =
+        DefaultReadContext(
+            codec = TestCodec,
+            decoder = KryoBackedDecoder(ByteArrayInputStream(state.toByteArray())),
+            instantiatorFactory = TestUtil.instantiatorFactory(),
+            constructors = BeanConstructors(TestCrossBuildInMemoryCacheFactory()),
+            logger = mock(),
+            problemsListener = mock()
+        ).apply {
+            initClassLoader(javaClass.classLoader)
+            initProjectProvider(mock())
+        }
+
+    private
+    companion object {
+        const val SHARD_COUNT = 8
+        const val TASKS_PER_SHARD = 100
+    }
+}
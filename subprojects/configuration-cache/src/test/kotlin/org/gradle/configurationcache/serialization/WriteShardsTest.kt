@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.configurationcache.serialization
+
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+
+class WriteShardsTest {
+
+    private
+    val shards = WriteShards()
+
+    private
+    val identities = WriteIdentities(shards)
+
+    @Test
+    fun `records the earlier shards referenced by a shard`() {
+        val inMain = Any()
+        val inFirst = Any()
+        val inSecond = Any()
+        identities.putInstance(inMain)
+
+        shards.start(0)
+        identities.putInstance(inFirst)
+        identities.getId(inMain)
+        assertThat(shards.finish(), equalTo(emptyList()))
+
+        shards.start(1)
+        identities.putInstance(inSecond)
+        identities.getId(inSecond)
+        assertThat(shards.finish(), equalTo(emptyList()))
+
+        shards.start(2)
+        identities.getId(inSecond)
+        identities.getId(inMain)
+        identities.getId(inFirst)
+        assertThat(shards.finish(), equalTo(listOf(0, 1)))
+    }
+
+    @Test
+    fun `main stream does not depend on shards`() {
+        val inFirst = Any()
+
+        shards.start(0)
+        identities.putInstance(inFirst)
+        shards.finish()
+
+        assertThat(identities.getId(inFirst), equalTo(0))
+        shards.start(1)
+        assertThat(shards.finish(), equalTo(emptyList()))
+    }
+}
@@ -175,6 +175,7 @@ abstract class AbstractUserTypeCodecTest {
         patternSetFactory = mock(),
         fileOperations = mock(),
         fileFactory = mock(),
-        includedTaskGraph = mock()
+        includedTaskGraph = mock(),
+        artifactStageLimits = mock()
     )
 }
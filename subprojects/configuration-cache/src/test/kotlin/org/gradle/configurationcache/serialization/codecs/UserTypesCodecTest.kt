@@ -21,6 +21,7 @@ import org.hamcrest.CoreMatchers.equalTo
 import org.hamcrest.CoreMatchers.sameInstance
 import org.hamcrest.MatcherAssert.assertThat
 import org.junit.Test
+import java.io.File
 
 
 class UserTypesCodecTest : AbstractUserTypeCodecTest() {
@@ -38,6 +39,31 @@ class UserTypesCodecTest : AbstractUserTypeCodecTest() {
         )
     }
 
+    @Test
+    fun `can handle repeated strings and files`() {
+
+        val root = File("root")
+        val graph = listOf(
+            "a", "b", "a", "root",
+            root, File(root, "a"), File(root, "a"), File("a"), File(""),
+            File(root, "A"), File(root, "b/c"), File(File(root, "b"), "c"),
+            File("/"), File("/root/a"), File("/ROOT/a")
+        )
+
+        val read = configurationCacheRoundtripOf(graph)
+
+        assertThat(
+            read,
+            equalTo(graph)
+        )
+
+        // File equality ignores case on Windows
+        assertThat(
+            read.map { if (it is File) it.path else it },
+            equalTo(graph.map { if (it is File) it.path else it })
+        )
+    }
+
     @Test
     fun `internal types codec leaves not implemented trace for unsupported types`() {
 
@@ -386,7 +386,7 @@ task check {
 
         when:
         server.resetExpectations()
-        server.expectHead('/' + scriptName, scriptFile)
+        server.expectGetUnmodified('/' + scriptName, scriptFile)
         args('-I', 'init.gradle')
 
         then:
@@ -414,7 +414,6 @@ task check {
 
         when:
         scriptFile.setText("""println 'loaded external script 2'""", "UTF-8")
-        server.expectHead('/' + scriptName, scriptFile)
         server.expectGet('/' + scriptName, scriptFile)
 
         then:
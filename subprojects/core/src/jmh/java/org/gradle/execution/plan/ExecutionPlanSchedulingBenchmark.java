@@ -0,0 +1,238 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.api.Action;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.internal.resources.ResourceLock;
+import org.gradle.internal.resources.ResourceLockState;
+import org.gradle.internal.work.WorkerLeaseRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast nodes of a large synthetic execution plan can be selected and finished,
+ * simulating a number of workers that each hold one running node.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ExecutionPlanSchedulingBenchmark {
+
+    @Param({"100000"})
+    int nodeCount;
+
+    @Param({"1", "8", "48"})
+    int workerCount;
+
+    @Param({"wide", "deep"})
+    String shape;
+
+    private DefaultExecutionPlan executionPlan;
+
+    @Setup(Level.Invocation)
+    public void setupPlan() {
+        // The build and the task node factory are only used when adding tasks, which the benchmark does not do
+        executionPlan = new DefaultExecutionPlan(null, null, new TaskDependencyResolver(Collections.emptyList()), NodeDurationStore.NONE);
+        executionPlan.addNodes(createNodes());
+        executionPlan.determineExecutionPlan();
+    }
+
+    @Benchmark
+    public void selectAndFinishAllNodes(Blackhole blackhole) {
+        List<Node> running = new ArrayList<>(workerCount);
+        while (executionPlan.hasNodesRemaining()) {
+            while (running.size() < workerCount) {
+                Node node = executionPlan.selectNext(LEASE, LOCK_STATE);
+                if (node == null) {
+                    break;
+                }
+                running.add(node);
+            }
+            // Finish the longest running node first, like a worker would
+            Node finished = running.remove(0);
+            executionPlan.finishedExecuting(finished);
+            blackhole.consume(finished);
+        }
+    }
+
+    private List<Node> createNodes() {
+        Random random = new Random(1234L);
+        // A wide plan has many independent nodes per layer, a deep plan has long dependency chains
+        int layerSize = shape.equals("wide") ? nodeCount / 10 : 50;
+        List<Node> nodes = new ArrayList<>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            SyntheticNode node = new SyntheticNode(i);
+            int layerStart = (i / layerSize) * layerSize;
+            if (layerStart > 0) {
+                for (int dependency = 0; dependency < 3; dependency++) {
+                    int previousLayerStart = layerStart - layerSize;
+                    node.addDependencySuccessor(nodes.get(previousLayerStart + random.nextInt(layerSize)));
+                }
+            }
+            node.require();
+            node.dependenciesProcessed();
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    private static final ResourceLockState LOCK_STATE = new ResourceLockState() {
+        @Override
+        public void registerLocked(ResourceLock resourceLock) {
+        }
+
+        @Override
+        public void registerUnlocked(ResourceLock resourceLock) {
+        }
+
+        @Override
+        public void releaseLocks() {
+        }
+    };
+
+    private static final WorkerLeaseRegistry.WorkerLease LEASE = new WorkerLeaseRegistry.WorkerLease() {
+        @Override
+        public WorkerLeaseRegistry.WorkerLease createChild() {
+            return this;
+        }
+
+        @Override
+        public WorkerLeaseRegistry.WorkerLeaseCompletion startChild() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isLocked() {
+            return false;
+        }
+
+        @Override
+        public boolean isLockedByCurrentThread() {
+            return false;
+        }
+
+        @Override
+        public boolean tryLock() {
+            return true;
+        }
+
+        @Override
+        public void unlock() {
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "worker lease";
+        }
+    };
+
+    private static class SyntheticNode extends Node {
+        private final int id;
+
+        SyntheticNode(int id) {
+            this.id = id;
+        }
+
+        @Nullable
+        @Override
+        public Throwable getNodeFailure() {
+            return null;
+        }
+
+        @Override
+        public void rethrowNodeFailure() {
+        }
+
+        @Override
+        public void prepareForExecution() {
+        }
+
+        @Override
+        public void resolveDependencies(TaskDependencyResolver dependencyResolver, Action<Node> processHardSuccessor) {
+        }
+
+        @Override
+        public Set<Node> getFinalizers() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public void resolveMutations() {
+            getMutationInfo().resolved = true;
+        }
+
+        @Override
+        public boolean isPublicNode() {
+            return true;
+        }
+
+        @Override
+        public boolean requiresMonitoring() {
+            return false;
+        }
+
+        @Nullable
+        @Override
+        public ResourceLock getProjectToLock() {
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public ProjectInternal getOwningProject() {
+            return null;
+        }
+
+        @Override
+        public List<? extends ResourceLock> getResourcesToLock() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public int compareTo(Node o) {
+            return Integer.compare(id, ((SyntheticNode) o).id);
+        }
+
+        @Override
+        public String toString() {
+            return "node " + id;
+        }
+    }
+}
@@ -30,6 +30,7 @@
 import org.gradle.internal.serialize.HashCodeSerializer;
 import org.gradle.internal.serialize.InterningStringSerializer;
 
+import javax.annotation.Nullable;
 import java.io.File;
 
 public class CachingFileHasher implements FileHasher {
@@ -81,14 +82,18 @@ private FileInfo snapshot(File file) {
         return snapshot(file, fileMetadata.getLength(), fileMetadata.getLastModified());
     }
 
+    @Nullable
+    @Override
+    public HashCode hashIfCached(File file, long length, long lastModified) {
+        FileInfo info = cached(file.getAbsolutePath(), length, lastModified);
+        return info != null ? info.getHash() : null;
+    }
+
     private FileInfo snapshot(File file, long length, long timestamp) {
         String absolutePath = file.getAbsolutePath();
-        if (timestampInspector.timestampCanBeUsedToDetectFileChange(absolutePath, timestamp)) {
-            FileInfo info = cache.getIfPresent(absolutePath);
-
-            if (info != null && length == info.length && timestamp == info.timestamp) {
-                return info;
-            }
+        FileInfo cached = cached(absolutePath, length, timestamp);
+        if (cached != null) {
+            return cached;
         }
 
         HashCode hash = delegate.hash(file);
@@ -98,6 +103,18 @@ private FileInfo snapshot(File file, long length, long timestamp) {
         return info;
     }
 
+    @Nullable
+    private FileInfo cached(String absolutePath, long length, long timestamp) {
+        if (timestampInspector.timestampCanBeUsedToDetectFileChange(absolutePath, timestamp)) {
+            FileInfo info = cache.getIfPresent(absolutePath);
+
+            if (info != null && length == info.length && timestamp == info.timestamp) {
+                return info;
+            }
+        }
+        return null;
+    }
+
     public void discard(String path) {
         cache.remove(path);
     }
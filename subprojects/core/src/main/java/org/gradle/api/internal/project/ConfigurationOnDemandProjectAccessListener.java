@@ -30,6 +30,10 @@ public void beforeResolvingProjectDependency(ProjectInternal targetProject) {
         evaluateProjectAndDiscoverTasks(targetProject);
     }
 
+    @Override
+    public void beforeAccessingProject(ProjectInternal targetProject) {
+    }
+
     private synchronized void evaluateProjectAndDiscoverTasks(final ProjectInternal targetProject) {
         targetProject.evaluate();
         targetProject.getTasks().discoverTasks();
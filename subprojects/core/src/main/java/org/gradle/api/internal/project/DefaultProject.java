@@ -79,6 +79,7 @@
 import org.gradle.configuration.project.ProjectConfigurationActionContainer;
 import org.gradle.configuration.project.ProjectEvaluator;
 import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.initialization.ProjectAccessListener;
 import org.gradle.internal.Actions;
 import org.gradle.internal.Cast;
 import org.gradle.internal.Factories;
@@ -653,7 +654,11 @@ public ProjectInternal findProject(String path) {
         if (isNullOrEmpty(path)) {
             throw new InvalidUserDataException("A path must be specified!");
         }
-        return getProjectRegistry().getProject(absoluteProjectPath(path));
+        ProjectInternal project = getProjectRegistry().getProject(absoluteProjectPath(path));
+        if (project != null && project != this) {
+            getProjectAccessListener().beforeAccessingProject(project);
+        }
+        return project;
     }
 
     @Override
@@ -769,6 +774,7 @@ public void setBuildDir(Object path) {
     public void evaluationDependsOnChildren() {
         for (Project project : childProjects.values()) {
             DefaultProject defaultProjectToEvaluate = (DefaultProject) project;
+            getProjectAccessListener().beforeAccessingProject(defaultProjectToEvaluate);
             evaluationDependsOn(defaultProjectToEvaluate);
         }
     }
@@ -1390,6 +1396,11 @@ protected CrossProjectConfigurator getProjectConfigurator() {
         throw new UnsupportedOperationException();
     }
 
+    @Inject
+    protected ProjectAccessListener getProjectAccessListener() {
+        throw new UnsupportedOperationException();
+    }
+
     @Inject
     protected ListenerBuildOperationDecorator getListenerBuildOperationDecorator() {
         throw new UnsupportedOperationException();
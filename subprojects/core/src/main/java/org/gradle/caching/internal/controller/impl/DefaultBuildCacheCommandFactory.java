@@ -26,7 +26,9 @@
 import org.gradle.caching.internal.controller.BuildCacheStoreCommand;
 import org.gradle.caching.internal.origin.OriginMetadata;
 import org.gradle.caching.internal.origin.OriginMetadataFactory;
+import org.gradle.caching.internal.packaging.BuildCacheBlobStore;
 import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
+import org.gradle.caching.internal.packaging.MissingBlobException;
 import org.gradle.internal.file.FileMetadata.AccessType;
 import org.gradle.internal.file.FileType;
 import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint;
@@ -37,7 +39,9 @@
 import org.gradle.internal.snapshot.FileSystemSnapshot;
 import org.gradle.internal.snapshot.MissingFileSnapshot;
 import org.gradle.internal.vfs.FileSystemAccess;
+import org.gradle.util.GFileUtils;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -86,11 +90,29 @@ public BuildCacheKey getKey() {
 
         @Override
         public BuildCacheLoadCommand.Result<LoadMetadata> load(InputStream input) throws IOException {
+            return load(input, null);
+        }
+
+        @Override
+        public BuildCacheLoadCommand.Result<LoadMetadata> loadDeduplicated(InputStream input, BuildCacheBlobStore blobStore) throws IOException {
+            return load(input, blobStore);
+        }
+
+        private BuildCacheLoadCommand.Result<LoadMetadata> load(InputStream input, @Nullable BuildCacheBlobStore blobStore) throws IOException {
             ImmutableList.Builder<String> roots = ImmutableList.builder();
             entity.visitOutputTrees((name, type, root) -> roots.add(root.getAbsolutePath()));
             // TODO: Actually unpack the roots inside of the action
             fileSystemAccess.write(roots.build(), () -> {});
-            BuildCacheEntryPacker.UnpackResult unpackResult = packer.unpack(entity, input, originMetadataFactory.createReader(entity));
+            BuildCacheEntryPacker.UnpackResult unpackResult;
+            try {
+                unpackResult = blobStore == null
+                    ? packer.unpack(entity, input, originMetadataFactory.createReader(entity))
+                    : packer.unpackDeduplicated(entity, input, originMetadataFactory.createReader(entity), blobStore);
+            } catch (MissingBlobException e) {
+                // Don't leave partially unpacked outputs behind, the work is executed instead
+                entity.visitOutputTrees((name, type, root) -> GFileUtils.deleteQuietly(root));
+                throw e;
+            }
             // TODO: Update the snapshots from the action
             ImmutableSortedMap<String, CurrentFileCollectionFingerprint> snapshots = snapshotUnpackedData(unpackResult.getSnapshots());
             return new Result<LoadMetadata>() {
@@ -176,5 +198,11 @@ public BuildCacheStoreCommand.Result store(OutputStream output) throws IOExcepti
             final BuildCacheEntryPacker.PackResult packResult = packer.pack(entity, fingerprints, output, originMetadataFactory.createWriter(entity, executionTime));
             return packResult::getEntries;
         }
+
+        @Override
+        public BuildCacheStoreCommand.Result storeDeduplicated(OutputStream output, BuildCacheBlobStore blobStore) throws IOException {
+            final BuildCacheEntryPacker.PackResult packResult = packer.packDeduplicated(entity, fingerprints, output, originMetadataFactory.createWriter(entity, executionTime), blobStore);
+            return packResult::getEntries;
+        }
     }
 }
@@ -32,6 +32,8 @@
 import org.gradle.caching.local.DirectoryBuildCache;
 import org.gradle.caching.local.internal.DirectoryBuildCacheService;
 import org.gradle.internal.Cast;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.operations.BuildOperationContext;
 import org.gradle.internal.operations.BuildOperationDescriptor;
 import org.gradle.internal.operations.BuildOperationExecutor;
@@ -52,6 +54,12 @@ public final class BuildCacheControllerFactory {
 
     public static final String REMOTE_CONTINUE_ON_ERROR_PROPERTY = "org.gradle.unsafe.build-cache.remote-continue-on-error";
 
+    /**
+     * The number of threads used to prefetch and upload remote entries in the background.
+     * Remote entries are loaded and stored by the execution workers themselves when not set.
+     */
+    public static final String REMOTE_ASYNC_THREADS_PROPERTY = "org.gradle.internal.build-cache.remote-async-threads";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(BuildCacheControllerFactory.class);
 
     public enum BuildCacheMode {
@@ -71,7 +79,8 @@ public static BuildCacheController create(
         final RemoteAccessMode remoteAccessMode,
         final boolean logStackTraces,
         final boolean emitDebugLogging,
-        final Instantiator instantiator
+        final Instantiator instantiator,
+        final ExecutorFactory executorFactory
     ) {
         return buildOperationExecutor.call(new CallableBuildOperation<BuildCacheController>() {
             @Override
@@ -117,13 +126,21 @@ public BuildCacheController call(BuildOperationContext context) {
                         remoteDescribedService
                     );
 
+                    int remoteAsyncThreads = Integer.getInteger(REMOTE_ASYNC_THREADS_PROPERTY, 0);
+                    ManagedExecutor remoteExecutor = remoteEnabled && remoteAsyncThreads > 0
+                        ? executorFactory.create("Remote build cache", remoteAsyncThreads)
+                        : null;
+
                     return new DefaultBuildCacheController(
                         config,
                         buildOperationExecutor,
                         gradleUserHomeDir,
                         logStackTraces,
                         emitDebugLogging,
-                        !Boolean.getBoolean(REMOTE_CONTINUE_ON_ERROR_PROPERTY)
+                        !Boolean.getBoolean(REMOTE_CONTINUE_ON_ERROR_PROPERTY),
+                        remoteExecutor,
+                        // Bound the number of entries waiting to be uploaded, so that a slow remote cache slows down the build instead of filling up the disk
+                        remoteAsyncThreads * 4
                     );
                 }
             }
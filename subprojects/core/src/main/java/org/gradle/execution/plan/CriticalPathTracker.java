@@ -0,0 +1,193 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.api.NonNullApi;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estimates the critical path of an execution plan from the durations of previous builds, and measures the critical path of the actual execution.
+ *
+ * The remaining critical path of a node is the estimated duration of the node plus the longest remaining critical path of the nodes that need to run after it.
+ * Nodes with a longer remaining critical path should be started first.
+ *
+ * This class is not thread-safe, and should only be accessed while holding the state lock.
+ */
+@NonNullApi
+class CriticalPathTracker {
+    private final Map<Node, Long> remainingEstimatedDurations = new IdentityHashMap<>();
+    // Start and finish times are measured with System.nanoTime(), so that they are not affected by changes of the wall clock
+    private final Map<Node, Long> startTimes = new IdentityHashMap<>();
+    private final Map<Node, Long> finishTimes = new IdentityHashMap<>();
+    private final Map<Node, Long> actualDurations = new IdentityHashMap<>();
+    private CriticalPath predictedCriticalPath = CriticalPath.EMPTY;
+
+    /**
+     * Estimates the remaining critical path of each of the given nodes, which must be in execution order.
+     */
+    public void estimate(Collection<Node> executionQueue, NodeDurationStore durationStore) {
+        clear();
+        Map<Node, Long> estimatedDurations = durationStore.getEstimatedDurationsMillis(executionQueue);
+        if (estimatedDurations.isEmpty()) {
+            return;
+        }
+
+        // Nodes that need to run after a node come later in the execution queue, so visit the queue backwards
+        List<Node> nodes = new ArrayList<>(executionQueue);
+        Collections.reverse(nodes);
+        Node start = null;
+        long longestPath = 0;
+        for (Node node : nodes) {
+            long remaining = estimatedDurations.getOrDefault(node, 0L) + longestRemainingPathOfPredecessors(node);
+            remainingEstimatedDurations.put(node, remaining);
+            if (remaining >= longestPath && remaining > 0) {
+                longestPath = remaining;
+                start = node;
+            }
+        }
+
+        if (start != null) {
+            ImmutableList.Builder<Node> path = ImmutableList.builder();
+            for (Node node = start; node != null; node = predecessorOnLongestRemainingPath(node)) {
+                path.add(node);
+            }
+            predictedCriticalPath = new CriticalPath(path.build(), longestPath);
+        }
+    }
+
+    private long longestRemainingPathOfPredecessors(Node node) {
+        long longest = 0;
+        for (Node predecessor : node.getAllPredecessors()) {
+            longest = Math.max(longest, remainingEstimatedDurations.getOrDefault(predecessor, 0L));
+        }
+        return longest;
+    }
+
+    @Nullable
+    private Node predecessorOnLongestRemainingPath(Node node) {
+        Node selected = null;
+        long longest = 0;
+        for (Node predecessor : node.getAllPredecessors()) {
+            long remaining = remainingEstimatedDurations.getOrDefault(predecessor, 0L);
+            if (remaining > longest) {
+                longest = remaining;
+                selected = predecessor;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Returns the estimated time needed to execute the given node and all nodes that need to run after it, or 0 when unknown.
+     */
+    public long getRemainingEstimatedDurationMillis(Node node) {
+        return remainingEstimatedDurations.getOrDefault(node, 0L);
+    }
+
+    public void started(Node node) {
+        startTimes.put(node, System.nanoTime());
+    }
+
+    public void finished(Node node) {
+        Long startTime = startTimes.get(node);
+        if (startTime == null) {
+            return;
+        }
+        long finishTime = System.nanoTime();
+        finishTimes.put(node, finishTime);
+        if (!node.isFailed()) {
+            actualDurations.put(node, TimeUnit.NANOSECONDS.toMillis(finishTime - startTime));
+        }
+    }
+
+    public CriticalPath getPredictedCriticalPath() {
+        return predictedCriticalPath;
+    }
+
+    /**
+     * Returns the chain of nodes that determined when the execution finished: starting from the node that finished last,
+     * the chain goes through the dependency of each node that finished last.
+     */
+    public CriticalPath getActualCriticalPath() {
+        Node last = null;
+        for (Map.Entry<Node, Long> entry : finishTimes.entrySet()) {
+            if (last == null || entry.getValue() - finishTimes.get(last) > 0) {
+                last = entry.getKey();
+            }
+        }
+        if (last == null) {
+            return CriticalPath.EMPTY;
+        }
+
+        List<Node> path = new ArrayList<>();
+        for (Node node = last; node != null; node = successorFinishedLast(node)) {
+            path.add(node);
+        }
+        Collections.reverse(path);
+        return new CriticalPath(ImmutableList.copyOf(path), getActualDurationMillis(path));
+    }
+
+    @Nullable
+    private Node successorFinishedLast(Node node) {
+        Node selected = null;
+        for (Node successor : node.getAllSuccessors()) {
+            Long finishTime = finishTimes.get(successor);
+            if (finishTime != null && (selected == null || finishTime - finishTimes.get(selected) > 0)) {
+                selected = successor;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Returns the sum of the actual durations of the given nodes.
+     */
+    public long getActualDurationMillis(List<Node> nodes) {
+        long duration = 0;
+        for (Node node : nodes) {
+            Long finishTime = finishTimes.get(node);
+            if (finishTime != null) {
+                duration += finishTime - startTimes.get(node);
+            }
+        }
+        return TimeUnit.NANOSECONDS.toMillis(duration);
+    }
+
+    /**
+     * Returns the durations of the nodes that executed successfully.
+     */
+    public Map<Node, Long> getActualDurations() {
+        return actualDurations;
+    }
+
+    public void clear() {
+        remainingEstimatedDurations.clear();
+        startTimes.clear();
+        finishTimes.clear();
+        actualDurations.clear();
+        predictedCriticalPath = CriticalPath.EMPTY;
+    }
+}
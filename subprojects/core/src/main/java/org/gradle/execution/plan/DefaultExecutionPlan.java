@@ -71,29 +71,35 @@ public class DefaultExecutionPlan implements ExecutionPlan {
 
     private final Set<Node> entryNodes = new LinkedHashSet<>();
     private final NodeMapping nodeMapping = new NodeMapping();
-    private final List<Node> executionQueue = new LinkedList<>();
+    private final Set<Node> executionQueue = new LinkedHashSet<>();
+    // The number of nodes of the execution queue which are not complete
+    private int incompleteQueuedNodes;
+    private final ReadyQueue readyQueue = new ReadyQueue();
+    private final CriticalPathTracker criticalPathTracker = new CriticalPathTracker();
     private final Set<ResourceLock> projectLocks = new HashSet<>();
     private final FailureCollector failureCollector = new FailureCollector();
     private final TaskNodeFactory taskNodeFactory;
     private final TaskDependencyResolver dependencyResolver;
+    private final NodeDurationStore durationStore;
     private Spec<? super Task> filter = Specs.satisfyAll();
 
     private boolean continueOnFailure;
 
     private final Set<Node> runningNodes = newIdentityHashSet();
+    private final Set<Node> nodesBeingPrepared = newIdentityHashSet();
     private final Set<Node> filteredNodes = newIdentityHashSet();
     private final Set<Node> producedButNotYetConsumed = newIdentityHashSet();
     private final Map<Pair<Node, Node>, Boolean> reachableCache = new HashMap<>();
     private final List<Node> dependenciesWhichRequireMonitoring = new ArrayList<>();
-    private boolean maybeNodesReady;
     private final GradleInternal gradle;
 
     private boolean buildCancelled;
 
-    public DefaultExecutionPlan(GradleInternal gradle, TaskNodeFactory taskNodeFactory, TaskDependencyResolver dependencyResolver) {
+    public DefaultExecutionPlan(GradleInternal gradle, TaskNodeFactory taskNodeFactory, TaskDependencyResolver dependencyResolver, NodeDurationStore durationStore) {
         this.gradle = gradle;
         this.taskNodeFactory = taskNodeFactory;
         this.dependencyResolver = dependencyResolver;
+        this.durationStore = durationStore;
     }
 
     @Override
@@ -338,9 +344,9 @@ public NodeInVisitingSegment apply(Node node) {
         dependencyResolver.clear();
         nodeMapping.removeIf(Node::requiresMonitoring);
         executionQueue.addAll(nodeMapping);
-        for (Node node : executionQueue) {
-            maybeNodesReady |= node.updateAllDependenciesComplete() && node.isReady();
-        }
+        incompleteQueuedNodes = (int) executionQueue.stream().filter(node -> !node.isComplete()).count();
+        criticalPathTracker.estimate(executionQueue, durationStore);
+        readyQueue.schedule(executionQueue, criticalPathTracker::getRemainingEstimatedDurationMillis);
         this.dependenciesWhichRequireMonitoring.addAll(dependenciesWhichRequireMonitoring);
     }
 
@@ -479,12 +485,16 @@ public void clear() {
         entryNodes.clear();
         nodeMapping.clear();
         executionQueue.clear();
+        incompleteQueuedNodes = 0;
+        readyQueue.clear();
+        criticalPathTracker.clear();
         projectLocks.clear();
         failureCollector.clearFailures();
         producedButNotYetConsumed.clear();
         reachableCache.clear();
         dependenciesWhichRequireMonitoring.clear();
         runningNodes.clear();
+        nodesBeingPrepared.clear();
     }
 
     @Override
@@ -507,6 +517,34 @@ public List<Node> getScheduledNodesPlusDependencies() {
         return builder.addAll(nodes).build();
     }
 
+    /**
+     * Returns the critical path of this plan, as estimated from the durations of previous executions of the nodes.
+     */
+    public CriticalPath getPredictedCriticalPath() {
+        return criticalPathTracker.getPredictedCriticalPath();
+    }
+
+    /**
+     * Returns the critical path of the execution of this plan.
+     */
+    public CriticalPath getActualCriticalPath() {
+        return criticalPathTracker.getActualCriticalPath();
+    }
+
+    /**
+     * Returns the sum of the durations of the given nodes during the execution of this plan.
+     */
+    public long getActualDurationMillis(CriticalPath path) {
+        return criticalPathTracker.getActualDurationMillis(path.getNodes());
+    }
+
+    /**
+     * Records the durations of the nodes of this plan that executed successfully, to be used as estimates by later builds.
+     */
+    public void storeNodeDurations() {
+        durationStore.storeDurations(criticalPathTracker.getActualDurations());
+    }
+
     @Override
     public Set<Task> getFilteredTasks() {
         ImmutableSet.Builder<Task> builder = ImmutableSet.builder();
@@ -542,57 +580,99 @@ public Node selectNext(WorkerLeaseRegistry.WorkerLease workerLease, ResourceLock
                 iterator.remove();
             }
         }
-        if (!maybeNodesReady) {
+        readyQueue.unblockReleasedProjectLocks();
+        if (!readyQueue.hasReadyNodes()) {
             return null;
         }
-        Iterator<Node> iterator = executionQueue.iterator();
-        boolean foundReadyNode = false;
+        Iterator<Node> iterator = readyQueue.readyNodes();
         while (iterator.hasNext()) {
             Node node = iterator.next();
-            if (node.isReady() && node.allDependenciesComplete()) {
-                foundReadyNode = true;
-                MutationInfo mutations = getResolvedMutationInfo(node);
-
-                if (!tryAcquireLocksForNode(node, workerLease, mutations)) {
-                    resourceLockState.releaseLocks();
-                    continue;
+            if (!node.isReady() || !node.allDependenciesComplete()) {
+                // Node has been completed or aborted since it became ready
+                iterator.remove();
+                continue;
+            }
+            if (nodesBeingPrepared.contains(node) || (node.requiresPreparation() && node.allDependenciesSuccessful())) {
+                // A worker prepares the node once it can lock the node's project, and notifies the other workers when done
+                continue;
+            }
+            MutationInfo mutations = getResolvedMutationInfo(node);
+
+            LockResult lockResult = tryAcquireLocksForNode(node, workerLease, mutations);
+            if (lockResult != LockResult.ACQUIRED) {
+                resourceLockState.releaseLocks();
+                if (lockResult == LockResult.NO_WORKER_LEASE) {
+                    // The worker lease does not depend on the node, so no other node can be started either
+                    return null;
                 }
-
-                if (node.allDependenciesSuccessful()) {
-                    node.startExecution(this::recordNodeExecutionStarted);
+                iterator.remove();
+                if (lockResult == LockResult.PROJECT_LOCKED) {
+                    readyQueue.blockOnProjectLock(node, node.getProjectToLock());
                 } else {
-                    node.skipExecution(this::recordNodeCompleted);
+                    readyQueue.blockOnRunningNodes(node);
                 }
-                iterator.remove();
+                continue;
+            }
+
+            iterator.remove();
+            if (executionQueue.remove(node)) {
+                incompleteQueuedNodes--;
+            }
+            if (node.allDependenciesSuccessful()) {
+                node.startExecution(this::recordNodeExecutionStarted);
+            } else {
+                node.skipExecution(this::recordNodeCompleted);
+            }
+            return node;
+        }
+        LOGGER.debug("No node could be selected");
+        return null;
+    }
+
+    @Override
+    @Nullable
+    public Node selectNextToPrepare() {
+        Iterator<Node> iterator = readyQueue.readyNodes();
+        while (iterator.hasNext()) {
+            Node node = iterator.next();
+            if (!nodesBeingPrepared.contains(node) && node.isReady() && node.allDependenciesComplete() && node.allDependenciesSuccessful() && node.requiresPreparation() && tryLockProjectFor(node)) {
+                // The project stays locked while the node is prepared, as it is while the node executes
+                nodesBeingPrepared.add(node);
                 return node;
             }
         }
-        LOGGER.debug("No node could be selected, nodes ready: {}", foundReadyNode);
-        maybeNodesReady = foundReadyNode;
         return null;
     }
 
-    private boolean tryAcquireLocksForNode(Node node, WorkerLeaseRegistry.WorkerLease workerLease, MutationInfo mutations) {
+    @Override
+    public void finishedPreparing(Node node) {
+        nodesBeingPrepared.remove(node);
+        unlockProjectFor(node);
+    }
+
+    private LockResult tryAcquireLocksForNode(Node node, WorkerLeaseRegistry.WorkerLease workerLease, MutationInfo mutations) {
         if (!tryLockProjectFor(node)) {
             LOGGER.debug("Cannot acquire project lock for node {}", node);
-            return false;
+            return LockResult.PROJECT_LOCKED;
         } else if (!tryLockSharedResourceFor(node)) {
             LOGGER.debug("Cannot acquire shared resource lock for node {}", node);
-            return false;
+            return LockResult.CONFLICTS_WITH_RUNNING_NODES;
         } else if (!workerLease.tryLock()) {
             LOGGER.debug("Cannot acquire worker lease lock for node {}", node);
-            return false;
+            return LockResult.NO_WORKER_LEASE;
             // TODO: convert output file checks to a resource lock
         } else if (!canRunWithCurrentlyExecutedNodes(node, mutations)) {
             LOGGER.debug("Node {} cannot run with currently running nodes {}", node, runningNodes);
-            return false;
+            return LockResult.CONFLICTS_WITH_RUNNING_NODES;
         }
-        return true;
+        return LockResult.ACQUIRED;
     }
 
     private void updateAllDependenciesCompleteForPredecessors(Node node) {
         for (Node predecessor : node.getAllPredecessors()) {
-            maybeNodesReady |= predecessor.updateAllDependenciesComplete() && predecessor.isReady();
+            if (predecessor.updateAllDependenciesComplete()) {
+                readyQueue.maybeReady(predecessor);
+            }
         }
     }
 
@@ -751,10 +831,14 @@ private static String getOverLappedPath(String firstPath, String secondPath) {
 
     private void recordNodeExecutionStarted(Node node) {
         runningNodes.add(node);
+        criticalPathTracker.started(node);
     }
 
     private void recordNodeCompleted(Node node) {
         LOGGER.debug("Node {} completed, executed: {}", node, node.isExecuted());
+        if (executionQueue.contains(node)) {
+            incompleteQueuedNodes--;
+        }
         MutationInfo mutations = node.getMutationInfo();
         for (Node producer : node.getDependencySuccessors()) {
             MutationInfo producerMutations = producer.getMutationInfo();
@@ -768,6 +852,7 @@ private void recordNodeCompleted(Node node) {
         }
 
         updateAllDependenciesCompleteForPredecessors(node);
+        readyQueue.unblockNodesWaitingForRunningNodes();
     }
 
     @Override
@@ -775,7 +860,6 @@ public void finishedExecuting(Node node) {
         try {
             if (!node.isComplete()) {
                 enforceFinalizers(node);
-                maybeNodesReady = true;
                 if (node.isFailed()) {
                     LOGGER.debug("Node {} failed", node);
                     handleFailure(node);
@@ -784,6 +868,7 @@ public void finishedExecuting(Node node) {
                 }
 
                 runningNodes.remove(node);
+                criticalPathTracker.finished(node);
                 node.finishExecution(this::recordNodeCompleted);
             } else {
                 LOGGER.debug("Already completed node {} reported as finished executing", node);
@@ -791,10 +876,12 @@ public void finishedExecuting(Node node) {
         } finally {
             unlockProjectFor(node);
             unlockSharedResourcesFor(node);
+            readyQueue.unblockReleasedProjectLocks();
+            readyQueue.unblockNodesWaitingForRunningNodes();
         }
     }
 
-    private static void enforceFinalizers(Node node) {
+    private void enforceFinalizers(Node node) {
         for (Node finalizerNode : node.getFinalizers()) {
             if (finalizerNode.isRequired() || finalizerNode.isMustNotRun()) {
                 enforceWithDependencies(finalizerNode);
@@ -802,7 +889,7 @@ private static void enforceFinalizers(Node node) {
         }
     }
 
-    private static void enforceWithDependencies(Node node) {
+    private void enforceWithDependencies(Node node) {
         Set<Node> enforcedNodes = new HashSet<>();
 
         Deque<Node> candidates = new ArrayDeque<>();
@@ -816,10 +903,15 @@ private static void enforceWithDependencies(Node node) {
                 candidates.addAll(candidate.getDependencySuccessors());
 
                 if (candidate.isMustNotRun() || candidate.isRequired()) {
+                    if (candidate.isComplete() && executionQueue.contains(candidate)) {
+                        incompleteQueuedNodes++;
+                    }
                     candidate.enforceRun();
+                    readyQueue.maybeReady(candidate);
                     // Completed changed from true to false - inform all nodes depending on this one.
                     for (Node predecessor : candidate.getAllPredecessors()) {
                         predecessor.forceAllDependenciesCompleteUpdate();
+                        readyQueue.maybeReady(predecessor);
                     }
                 }
             }
@@ -903,12 +995,7 @@ public boolean allNodesComplete() {
 
     @Override
     public boolean hasNodesRemaining() {
-        for (Node node : executionQueue) {
-            if (!node.isComplete()) {
-                return true;
-            }
-        }
-        return !runningNodes.isEmpty();
+        return incompleteQueuedNodes > 0 || !runningNodes.isEmpty();
     }
 
     @Override
@@ -916,6 +1003,10 @@ public int size() {
         return nodeMapping.getNumberOfPublicNodes();
     }
 
+    private enum LockResult {
+        ACQUIRED, PROJECT_LOCKED, NO_WORKER_LEASE, CONFLICTS_WITH_RUNNING_NODES
+    }
+
     private static class GraphEdge {
         private final Node from;
         private final Node to;
@@ -151,6 +151,7 @@ public void run() {
          */
         private boolean executeNextNode(final WorkerLease workerLease, final Action<Node> nodeExecutor) {
             final MutableReference<Node> selected = MutableReference.empty();
+            final MutableReference<Node> toPrepare = MutableReference.empty();
             final MutableBoolean nodesRemaining = new MutableBoolean();
             coordinationService.withStateLock(resourceLockState -> {
                 if (cancellationToken.isCancellationRequested()) {
@@ -163,6 +164,10 @@ private boolean executeNextNode(final WorkerLease workerLease, final Action<Node
                 }
 
                 try {
+                    toPrepare.set(executionPlan.selectNextToPrepare());
+                    if (toPrepare.get() != null) {
+                        return FINISHED;
+                    }
                     selected.set(executionPlan.selectNext(workerLease, resourceLockState));
                 } catch (Throwable t) {
                     resourceLockState.releaseLocks();
@@ -177,6 +182,10 @@ private boolean executeNextNode(final WorkerLease workerLease, final Action<Node
                 }
             });
 
+            Node nodeToPrepare = toPrepare.get();
+            if (nodeToPrepare != null) {
+                prepare(nodeToPrepare);
+            }
             Node selectedNode = selected.get();
             if (selectedNode != null) {
                 execute(selectedNode, workerLease, nodeExecutor);
@@ -184,6 +193,19 @@ private boolean executeNextNode(final WorkerLease workerLease, final Action<Node
             return nodesRemaining.get();
         }
 
+        private void prepare(final Node node) {
+            try {
+                node.prepare();
+            } finally {
+                coordinationService.withStateLock(state -> {
+                    executionPlan.finishedPreparing(node);
+                    return FINISHED;
+                });
+                // Wake up the workers waiting for the node to be prepared
+                coordinationService.notifyStateChange();
+            }
+        }
+
         private void execute(final Node selected, final WorkerLease workerLease, Action<Node> nodeExecutor) {
             try {
                 if (!selected.isComplete()) {
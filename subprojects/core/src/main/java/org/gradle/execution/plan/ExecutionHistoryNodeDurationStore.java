@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.PersistentIndexedCacheParameters;
+import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
+import org.gradle.internal.execution.history.ExecutionHistoryCacheAccess;
+import org.gradle.internal.lazy.Lazy;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stores the durations of the tasks executed by a build next to the execution history of the build.
+ *
+ * Only the durations of tasks of the current build are tracked, other nodes have no estimate.
+ */
+public class ExecutionHistoryNodeDurationStore implements NodeDurationStore {
+    private final Lazy<PersistentCache> cache;
+    private final Lazy<PersistentIndexedCache<String, Long>> durations;
+
+    public ExecutionHistoryNodeDurationStore(ExecutionHistoryCacheAccess cacheAccess, InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory) {
+        this.cache = Lazy.locking().of(cacheAccess);
+        this.durations = Lazy.locking().of(() -> cache.get().createCache(
+            PersistentIndexedCacheParameters.of("nodeDurations", String.class, BaseSerializerFactory.LONG_SERIALIZER)
+                .withCacheDecorator(inMemoryCacheDecoratorFactory.decorator(10000, true))
+        ));
+    }
+
+    @Override
+    public Map<Node, Long> getEstimatedDurationsMillis(Collection<Node> nodes) {
+        return cache.get().useCache(() -> {
+            Map<Node, Long> estimates = new HashMap<>();
+            for (Node node : nodes) {
+                String key = keyFor(node);
+                if (key != null) {
+                    Long duration = durations.get().getIfPresent(key);
+                    if (duration != null) {
+                        estimates.put(node, duration);
+                    }
+                }
+            }
+            return estimates;
+        });
+    }
+
+    @Override
+    public void storeDurations(Map<Node, Long> durationsMillis) {
+        if (durationsMillis.isEmpty()) {
+            return;
+        }
+        cache.get().useCache(() -> {
+            durationsMillis.forEach((node, duration) -> {
+                String key = keyFor(node);
+                if (key != null) {
+                    durations.get().put(key, duration);
+                }
+            });
+        });
+    }
+
+    @Nullable
+    private static String keyFor(Node node) {
+        if (node instanceof LocalTaskNode) {
+            // Same key as used for the execution history of the task
+            return ((LocalTaskNode) node).getTask().getPath();
+        }
+        return null;
+    }
+}
@@ -37,6 +37,16 @@ public interface ExecutionPlan extends Describable {
 
     void finishedExecuting(Node node);
 
+    /**
+     * Selects a ready node which requires preparation and whose dependencies succeeded before it can be selected by {@link #selectNext(WorkerLeaseRegistry.WorkerLease, ResourceLockState)}, returns null if there is none.
+     * The caller should prepare the node without holding the state lock, then call {@link #finishedPreparing(Node)}. The node is not selected in the meantime.
+     * The project lock of the node, if any, is acquired by this method and held until {@link #finishedPreparing(Node)}, so a node is only prepared when it could execute.
+     */
+    @Nullable
+    Node selectNextToPrepare();
+
+    void finishedPreparing(Node node);
+
     void abortAllAndFail(Throwable t);
 
     void cancelExecution();
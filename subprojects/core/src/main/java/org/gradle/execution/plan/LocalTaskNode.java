@@ -45,6 +45,8 @@ public class LocalTaskNode extends TaskNode {
     private boolean isolated;
     private List<? extends ResourceLock> resourceLocks;
     private TaskProperties taskProperties;
+    private Runnable stateLoader;
+    private Exception stateLoadFailure;
 
     public LocalTaskNode(TaskInternal task) {
         this.task = task;
@@ -57,6 +59,36 @@ public void isolated() {
         isolated = true;
     }
 
+    /**
+     * Defers loading the state of the task until the task is ready to execute. The state is loaded by a worker when preparing the node,
+     * and is not loaded when the task does not become ready, for example when the build fails before the task can run.
+     *
+     * <p>The whole state is loaded, including for tasks which turn out to be up-to-date, as checking whether the task is up-to-date
+     * fingerprints its actions and all of its properties, which together make up the state.</p>
+     */
+    public void loadStateBeforeExecution(Runnable stateLoader) {
+        this.stateLoader = stateLoader;
+    }
+
+    @Override
+    public boolean requiresPreparation() {
+        return stateLoader != null;
+    }
+
+    @Override
+    public void prepare() {
+        Runnable loader = stateLoader;
+        if (loader == null) {
+            return;
+        }
+        stateLoader = null;
+        try {
+            loader.run();
+        } catch (Exception e) {
+            stateLoadFailure = e;
+        }
+    }
+
     @Nullable
     @Override
     public ResourceLock getProjectToLock() {
@@ -190,6 +222,11 @@ public void resolveMutations() {
         final FileCollectionFactory fileCollectionFactory = serviceRegistry.get(FileCollectionFactory.class);
         PropertyWalker propertyWalker = serviceRegistry.get(PropertyWalker.class);
         try {
+            // A node whose dependencies failed is not prepared by a worker, but its mutations are still resolved before it is skipped
+            prepare();
+            if (stateLoadFailure != null) {
+                throw stateLoadFailure;
+            }
             taskProperties = DefaultTaskProperties.resolve(propertyWalker, fileCollectionFactory, task);
             taskProperties.getOutputFileProperties()
                 .forEach(spec -> withDeadlockHandling(
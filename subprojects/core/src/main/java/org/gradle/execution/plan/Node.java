@@ -268,6 +268,20 @@ public MutationInfo getMutationInfo() {
 
     public abstract void resolveMutations();
 
+    /**
+     * Returns true when {@link #prepare()} has work to do before the mutations of this node can be resolved.
+     */
+    public boolean requiresPreparation() {
+        return false;
+    }
+
+    /**
+     * Does the work required before the mutations of this node can be resolved. This is called by a worker which does not hold the state lock,
+     * so that other nodes can be selected meanwhile. Any failure is reported when the mutations are resolved.
+     */
+    public void prepare() {
+    }
+
     public abstract boolean isPublicNode();
 
     /**
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Keeps track of how long nodes took to execute in previous builds, so that the execution plan can start the nodes on the critical path first.
+ */
+public interface NodeDurationStore {
+    NodeDurationStore NONE = new NodeDurationStore() {
+        @Override
+        public Map<Node, Long> getEstimatedDurationsMillis(Collection<Node> nodes) {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public void storeDurations(Map<Node, Long> durationsMillis) {
+        }
+    };
+
+    /**
+     * Returns the estimated durations in milliseconds of those of the given nodes for which an estimate is available.
+     */
+    Map<Node, Long> getEstimatedDurationsMillis(Collection<Node> nodes);
+
+    /**
+     * Records the durations of the nodes executed by the current build, so they can be used as estimates by later builds.
+     */
+    void storeDurations(Map<Node, Long> durationsMillis);
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.api.NonNullApi;
+import org.gradle.internal.resources.ResourceLock;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.ToLongFunction;
+
+/**
+ * Keeps track of the nodes of an execution plan that can be started, so that selecting the next node does not need to walk the whole execution queue.
+ *
+ * <p>Nodes are kept in one of the following states:</p>
+ * <ul>
+ *     <li>ready: all dependencies are complete and the node has not been tried yet, or may now be able to start.</li>
+ *     <li>blocked on project lock: the node could not acquire the lock of its project. The node becomes ready again when the lock is released.</li>
+ *     <li>blocked on running nodes: the node could not start because of a shared resource or because it conflicts with the mutations of running nodes.
+ *     The node becomes ready again when some node completes.</li>
+ * </ul>
+ *
+ * <p>Ready nodes are returned by descending priority, and in execution queue order for nodes with the same priority.</p>
+ *
+ * This class is not thread-safe, and should only be accessed while holding the state lock.
+ */
+@NonNullApi
+class ReadyQueue {
+    private final Map<Node, Integer> positions = new IdentityHashMap<>();
+    private final NavigableSet<Node> ready = new TreeSet<>(Comparator.comparingInt(positions::get));
+    private final Map<ResourceLock, List<Node>> blockedOnProjectLock = new LinkedHashMap<>();
+    private final List<Node> blockedOnRunningNodes = new ArrayList<>();
+
+    /**
+     * Resets this queue to contain the given nodes, which must be in execution order. Any nodes that can already be started are moved into the ready state.
+     */
+    public void schedule(Collection<Node> executionQueue, ToLongFunction<Node> priority) {
+        clear();
+        List<Node> nodes = new ArrayList<>(executionQueue);
+        // Sorting is stable, so nodes with the same priority stay in execution order
+        nodes.sort(Comparator.comparingLong(priority).reversed());
+        int position = 0;
+        for (Node node : nodes) {
+            positions.put(node, position++);
+        }
+        for (Node node : executionQueue) {
+            node.updateAllDependenciesComplete();
+            maybeReady(node);
+        }
+    }
+
+    /**
+     * Moves the given node into the ready state when it is part of this queue and can be started.
+     */
+    public void maybeReady(Node node) {
+        if (node.isReady() && node.allDependenciesComplete() && positions.containsKey(node)) {
+            ready.add(node);
+        }
+    }
+
+    public boolean hasReadyNodes() {
+        return !ready.isEmpty();
+    }
+
+    /**
+     * Returns the nodes in the ready state, in the order they should be started. The nodes can be removed from the ready state via the returned iterator.
+     */
+    public Iterator<Node> readyNodes() {
+        return ready.iterator();
+    }
+
+    /**
+     * Records a node that has been removed from the ready state as waiting for the given project lock.
+     */
+    public void blockOnProjectLock(Node node, ResourceLock projectLock) {
+        blockedOnProjectLock.computeIfAbsent(projectLock, lock -> new ArrayList<>()).add(node);
+    }
+
+    /**
+     * Records a node that has been removed from the ready state as waiting for some running node to complete.
+     */
+    public void blockOnRunningNodes(Node node) {
+        blockedOnRunningNodes.add(node);
+    }
+
+    /**
+     * Moves nodes waiting for a project lock which is not held anymore back into the ready state. This also handles project locks released outside of the execution plan.
+     */
+    public void unblockReleasedProjectLocks() {
+        if (blockedOnProjectLock.isEmpty()) {
+            return;
+        }
+        for (Iterator<Map.Entry<ResourceLock, List<Node>>> iterator = blockedOnProjectLock.entrySet().iterator(); iterator.hasNext();) {
+            Map.Entry<ResourceLock, List<Node>> entry = iterator.next();
+            if (!entry.getKey().isLocked()) {
+                entry.getValue().forEach(this::maybeReady);
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Moves nodes waiting for running nodes back into the ready state.
+     */
+    public void unblockNodesWaitingForRunningNodes() {
+        if (blockedOnRunningNodes.isEmpty()) {
+            return;
+        }
+        blockedOnRunningNodes.forEach(this::maybeReady);
+        blockedOnRunningNodes.clear();
+    }
+
+    public void clear() {
+        ready.clear();
+        positions.clear();
+        blockedOnProjectLock.clear();
+        blockedOnRunningNodes.clear();
+    }
+}
@@ -36,8 +36,10 @@
 import org.gradle.api.tasks.TaskState;
 import org.gradle.configuration.internal.ListenerBuildOperationDecorator;
 import org.gradle.execution.ProjectExecutionServiceRegistry;
+import org.gradle.execution.plan.CriticalPath;
 import org.gradle.execution.plan.DefaultExecutionPlan;
 import org.gradle.execution.plan.Node;
+import org.gradle.execution.plan.NodeDurationStore;
 import org.gradle.execution.plan.NodeExecutor;
 import org.gradle.execution.plan.PlanExecutor;
 import org.gradle.execution.plan.TaskDependencyResolver;
@@ -64,6 +66,7 @@
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.gradle.internal.Cast.uncheckedNonnullCast;
 
@@ -102,6 +105,7 @@ public DefaultTaskExecutionGraph(
         GradleInternal gradleInternal,
         TaskNodeFactory taskNodeFactory,
         TaskDependencyResolver dependencyResolver,
+        NodeDurationStore nodeDurationStore,
         ListenerBroadcast<TaskExecutionGraphListener> graphListeners,
         ListenerBroadcast<TaskExecutionListener> taskListeners,
         BuildScopeListenerRegistrationListener buildScopeListenerRegistrationListener,
@@ -119,7 +123,7 @@ public DefaultTaskExecutionGraph(
         this.buildScopeListenerRegistrationListener = buildScopeListenerRegistrationListener;
         this.projectStateRegistry = projectStateRegistry;
         this.globalServices = globalServices;
-        this.executionPlan = new DefaultExecutionPlan(gradleInternal, taskNodeFactory, dependencyResolver);
+        this.executionPlan = new DefaultExecutionPlan(gradleInternal, taskNodeFactory, dependencyResolver, nodeDurationStore);
     }
 
     @Override
@@ -192,6 +196,7 @@ private void executeWithServices(ProjectExecutionServiceRegistry projectExecutio
             );
             LOGGER.debug("Timing: Executing the DAG took " + clock.getElapsed());
         } finally {
+            recordNodeDurations();
             coordinationService.withStateLock(resourceLockState -> {
                 executionPlan.clear();
                 return ResourceLockState.Disposition.FINISHED;
@@ -199,6 +204,22 @@ private void executeWithServices(ProjectExecutionServiceRegistry projectExecutio
         }
     }
 
+    /**
+     * Reports the critical path and stores the durations of the executed nodes. Failures are only logged, so that they do not hide the outcome of the execution.
+     */
+    private void recordNodeDurations() {
+        try {
+            buildOperationExecutor.run(new ReportCriticalPath(executionPlan, gradleInternal));
+        } catch (Exception e) {
+            LOGGER.warn("Could not report the critical path of the execution.", e);
+        }
+        try {
+            executionPlan.storeNodeDurations();
+        } catch (Exception e) {
+            LOGGER.warn("Could not store the durations of the executed tasks.", e);
+        }
+    }
+
     @Override
     public void addTaskExecutionGraphListener(TaskExecutionGraphListener listener) {
         graphListeners.add(
@@ -432,6 +453,45 @@ private void fireWhenReady() {
         );
     }
 
+    private static class ReportCriticalPath implements RunnableBuildOperation {
+
+        private final DefaultExecutionPlan executionPlan;
+        private final GradleInternal gradleInternal;
+
+        private ReportCriticalPath(DefaultExecutionPlan executionPlan, GradleInternal gradleInternal) {
+            this.executionPlan = executionPlan;
+            this.gradleInternal = gradleInternal;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            CriticalPath actualCriticalPath = executionPlan.getActualCriticalPath();
+            context.setResult(new ReportCriticalPathBuildOperationType.ResultImpl(
+                describe(actualCriticalPath),
+                actualCriticalPath.getDurationMillis(),
+                executionPlan.getActualDurationMillis(executionPlan.getPredictedCriticalPath())
+            ));
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            CriticalPath predictedCriticalPath = executionPlan.getPredictedCriticalPath();
+            return BuildOperationDescriptor.displayName(
+                gradleInternal.contextualize("Report critical path"))
+                .details(
+                    new ReportCriticalPathBuildOperationType.DetailsImpl(
+                        gradleInternal.getIdentityPath().getPath(),
+                        describe(predictedCriticalPath),
+                        predictedCriticalPath.getDurationMillis()
+                    )
+                );
+        }
+
+        private static List<String> describe(CriticalPath criticalPath) {
+            return criticalPath.getNodes().stream().map(Node::toString).collect(Collectors.toList());
+        }
+    }
+
     private static class NotifyTaskGraphWhenReady implements RunnableBuildOperation {
 
         private final TaskExecutionGraph taskExecutionGraph;
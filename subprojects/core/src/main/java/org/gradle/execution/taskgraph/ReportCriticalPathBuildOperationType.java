@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import org.gradle.internal.operations.BuildOperationType;
+
+import java.util.List;
+
+/**
+ * Reports the critical path of a build's task graph as predicted from previous builds, along with the critical path of the actual execution.
+ *
+ * @since 6.8
+ */
+public class ReportCriticalPathBuildOperationType implements BuildOperationType<ReportCriticalPathBuildOperationType.Details, ReportCriticalPathBuildOperationType.Result> {
+
+    public interface Details {
+
+        String getBuildPath();
+
+        /**
+         * The nodes on the predicted critical path, in execution order. Empty when there were no durations of previous builds.
+         */
+        List<String> getPredictedCriticalPath();
+
+        long getPredictedDurationMillis();
+
+    }
+
+    public interface Result {
+
+        /**
+         * The nodes on the actual critical path, in execution order.
+         */
+        List<String> getActualCriticalPath();
+
+        long getActualDurationMillis();
+
+        /**
+         * The time the nodes on the predicted critical path actually took to execute.
+         */
+        long getPredictedCriticalPathActualDurationMillis();
+
+    }
+
+    static class DetailsImpl implements Details {
+
+        private final String buildPath;
+        private final List<String> predictedCriticalPath;
+        private final long predictedDurationMillis;
+
+        DetailsImpl(String buildPath, List<String> predictedCriticalPath, long predictedDurationMillis) {
+            this.buildPath = buildPath;
+            this.predictedCriticalPath = predictedCriticalPath;
+            this.predictedDurationMillis = predictedDurationMillis;
+        }
+
+        @Override
+        public String getBuildPath() {
+            return buildPath;
+        }
+
+        @Override
+        public List<String> getPredictedCriticalPath() {
+            return predictedCriticalPath;
+        }
+
+        @Override
+        public long getPredictedDurationMillis() {
+            return predictedDurationMillis;
+        }
+
+    }
+
+    static class ResultImpl implements Result {
+
+        private final List<String> actualCriticalPath;
+        private final long actualDurationMillis;
+        private final long predictedCriticalPathActualDurationMillis;
+
+        ResultImpl(List<String> actualCriticalPath, long actualDurationMillis, long predictedCriticalPathActualDurationMillis) {
+            this.actualCriticalPath = actualCriticalPath;
+            this.actualDurationMillis = actualDurationMillis;
+            this.predictedCriticalPathActualDurationMillis = predictedCriticalPathActualDurationMillis;
+        }
+
+        @Override
+        public List<String> getActualCriticalPath() {
+            return actualCriticalPath;
+        }
+
+        @Override
+        public long getActualDurationMillis() {
+            return actualDurationMillis;
+        }
+
+        @Override
+        public long getPredictedCriticalPathActualDurationMillis() {
+            return predictedCriticalPathActualDurationMillis;
+        }
+
+    }
+
+    private ReportCriticalPathBuildOperationType() {
+    }
+}
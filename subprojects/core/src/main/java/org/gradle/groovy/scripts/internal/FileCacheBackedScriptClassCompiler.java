@@ -22,6 +22,8 @@
 import org.gradle.api.internal.initialization.ClassLoaderScope;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.CacheScopeMapping;
+import org.gradle.cache.internal.VersionStrategy;
 import org.gradle.groovy.scripts.ScriptSource;
 import org.gradle.internal.Pair;
 import org.gradle.internal.classanalysis.AsmConstants;
@@ -38,6 +40,7 @@
 import org.gradle.internal.logging.progress.ProgressLogger;
 import org.gradle.internal.logging.progress.ProgressLoggerFactory;
 import org.gradle.model.dsl.internal.transform.RuleVisitor;
+import org.gradle.util.GFileUtils;
 import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
@@ -56,19 +59,25 @@
 
 /**
  * A {@link ScriptClassCompiler} which compiles scripts to a cache directory, and loads them from there.
+ *
+ * <p>The cache directory of a script is shared by all the daemons of the machine. Once the compilation of a script has
+ * been committed to its cache directory, the classes never change, so they are loaded without locking the cache directory.</p>
  */
 public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler, Closeable {
     private static final Object[] EMPTY_OBJECT_ARRAY = new Object[0];
+    private static final String COMPILED_MARKER = "compiled.bin";
     private final ScriptCompilationHandler scriptCompilationHandler;
     private final ProgressLoggerFactory progressLoggerFactory;
     private final CacheRepository cacheRepository;
+    private final CacheScopeMapping cacheScopeMapping;
     private final ClassLoaderHierarchyHasher classLoaderHierarchyHasher;
     private final CachedClasspathTransformer classpathTransformer;
 
-    public FileCacheBackedScriptClassCompiler(CacheRepository cacheRepository, ScriptCompilationHandler scriptCompilationHandler,
+    public FileCacheBackedScriptClassCompiler(CacheRepository cacheRepository, CacheScopeMapping cacheScopeMapping, ScriptCompilationHandler scriptCompilationHandler,
                                               ProgressLoggerFactory progressLoggerFactory, ClassLoaderHierarchyHasher classLoaderHierarchyHasher,
                                               CachedClasspathTransformer classpathTransformer) {
         this.cacheRepository = cacheRepository;
+        this.cacheScopeMapping = cacheScopeMapping;
         this.scriptCompilationHandler = scriptCompilationHandler;
         this.progressLoggerFactory = progressLoggerFactory;
         this.classLoaderHierarchyHasher = classLoaderHierarchyHasher;
@@ -100,6 +109,14 @@ public <T extends Script, M> CompiledScript<T, M> compile(final ScriptSource sou
         hasher.putHash(sourceHashCode);
         hasher.putHash(classLoaderHash);
         String key = HashUtil.compactStringFor(hasher.hash().toByteArray());
+        String cacheKey = "scripts/" + key;
+
+        // The lock of the cache only guards its initialization, so a script compiled by any daemon can be loaded directly.
+        // The marker is only written once the initialization of the cache has been committed, see below
+        File compiledDir = cacheScopeMapping.getBaseDirectory(null, cacheKey, VersionStrategy.CachePerVersion);
+        if (new File(compiledDir, COMPILED_MARKER).isFile()) {
+            return loadFromDir(compiledDir, source, sourceHashCode, targetScope, remapped, operation, scriptBaseClass);
+        }
 
         // Caching involves 2 distinct caches, so that 2 scripts with the same (hash, classpath) do not get compiled twice
         // 1. First, we look for a cache script which (path, hash) matches. This cache is invalidated when the compile classpath of the script changes
@@ -107,7 +124,7 @@ public <T extends Script, M> CompiledScript<T, M> compile(final ScriptSource sou
         // Both caches can be closed directly after use because:
         // For 1, if the script changes or its compile classpath changes, a different directory will be used
         // For 2, if the script changes, a different cache is used. If the classpath changes, the cache is invalidated, but classes are remapped to 1. anyway so never directly used
-        final PersistentCache cache = cacheRepository.cache("scripts/" + key)
+        final PersistentCache cache = cacheRepository.cache(cacheKey)
             .withDisplayName(dslId + " generic class cache for " + source.getDisplayName())
             .withInitializer(new ProgressReportingInitializer(
                 progressLoggerFactory,
@@ -115,15 +132,27 @@ public <T extends Script, M> CompiledScript<T, M> compile(final ScriptSource sou
                 "Compiling " + source.getShortDisplayName()))
             .open();
         try {
-            File genericClassesDir = classesDir(cache, operation);
-            File metadataDir = metadataDir(cache);
-            ClassPath remappedClasses = remapClasses(genericClassesDir, remapped);
-            return scriptCompilationHandler.loadFromDir(source, sourceHashCode, targetScope, remappedClasses, metadataDir, operation, scriptBaseClass);
+            // Opening the cache has committed its initialization, so the classes can now be loaded by other daemons without locking.
+            // Writing the marker from the initializer instead would leave it behind when the initialization does not complete,
+            // and the next daemon would then rebuild the cache directory while others load classes from it
+            File marker = new File(cache.getBaseDir(), COMPILED_MARKER);
+            if (!marker.isFile()) {
+                GFileUtils.touch(marker);
+            }
+            return loadFromDir(cache.getBaseDir(), source, sourceHashCode, targetScope, remapped, operation, scriptBaseClass);
         } finally {
             cache.close();
         }
     }
 
+    private <T extends Script, M> CompiledScript<T, M> loadFromDir(File cacheDir, ScriptSource source, HashCode sourceHashCode, ClassLoaderScope targetScope,
+                                                                   RemappingScriptSource remapped, CompileOperation<M> operation, Class<T> scriptBaseClass) {
+        File genericClassesDir = classesDir(cacheDir, operation);
+        File metadataDir = metadataDir(cacheDir);
+        ClassPath remappedClasses = remapClasses(genericClassesDir, remapped);
+        return scriptCompilationHandler.loadFromDir(source, sourceHashCode, targetScope, remappedClasses, metadataDir, operation, scriptBaseClass);
+    }
+
     private <T extends Script, M> CompiledScript<T, M> emptyCompiledScript(CompileOperation<M> operation) {
         return new EmptyCompiledScript<>(operation);
     }
@@ -159,12 +188,12 @@ public Pair<RelativePath, ClassVisitor> apply(ClasspathEntryVisitor.Entry entry,
     public void close() {
     }
 
-    private File classesDir(PersistentCache cache, CompileOperation<?> operation) {
-        return new File(cache.getBaseDir(), operation.getId());
+    private File classesDir(File cacheDir, CompileOperation<?> operation) {
+        return new File(cacheDir, operation.getId());
     }
 
-    private File metadataDir(PersistentCache cache) {
-        return new File(cache.getBaseDir(), "metadata");
+    private File metadataDir(File cacheDir) {
+        return new File(cacheDir, "metadata");
     }
 
     private class CompileToCrossBuildCacheAction implements Action<PersistentCache> {
@@ -185,8 +214,8 @@ public <T extends Script> CompileToCrossBuildCacheAction(ScriptSource source, Cl
 
         @Override
         public void execute(PersistentCache cache) {
-            File classesDir = classesDir(cache, operation);
-            File metadataDir = metadataDir(cache);
+            File classesDir = classesDir(cache.getBaseDir(), operation);
+            File metadataDir = metadataDir(cache.getBaseDir());
             scriptCompilationHandler.compileToDir(source, classLoader, classesDir, metadataDir, operation, scriptBaseClass, verifier);
         }
     }
@@ -24,4 +24,6 @@ public interface ProjectAccessHandler {
     void beforeRequestingTaskByPath(ProjectInternal targetProject);
 
     void beforeResolvingProjectDependency(ProjectInternal dependencyProject);
+
+    void beforeAccessingProject(ProjectInternal targetProject);
 }
@@ -24,4 +24,6 @@ public interface ProjectAccessListener {
     void beforeRequestingTaskByPath(ProjectInternal targetProject);
 
     void beforeResolvingProjectDependency(ProjectInternal dependencyProject);
+
+    void beforeAccessingProject(ProjectInternal targetProject);
 }
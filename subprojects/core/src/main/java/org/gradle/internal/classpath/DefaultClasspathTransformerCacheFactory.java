@@ -44,6 +44,8 @@ public class DefaultClasspathTransformerCacheFactory implements ClasspathTransfo
         .incrementedIn("3.2-rc-1")
         .incrementedIn("3.5-rc-1")
         .changedTo(8, "6.5-rc-1")
+        // Entries are keyed by file content hashes, which are no longer MD5 hashes
+        .changedTo(9, "6.8-rc-1")
         .build();
     @VisibleForTesting
     static final String CACHE_NAME = "jars";
@@ -82,6 +82,7 @@
 import org.gradle.api.provider.ProviderFactory;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.FileLockManager;
+import org.gradle.cache.internal.CacheScopeMapping;
 import org.gradle.caching.internal.BuildCacheServices;
 import org.gradle.configuration.BuildOperationFiringProjectsPreparer;
 import org.gradle.configuration.BuildTreePreparingProjectsPreparer;
@@ -226,6 +227,13 @@ public void beforeResolvingProjectDependency(ProjectInternal dependencyProject)
                     handler.beforeResolvingProjectDependency(dependencyProject);
                 }
             }
+
+            @Override
+            public void beforeAccessingProject(ProjectInternal targetProject) {
+                for (ProjectAccessHandler handler : handlers) {
+                    handler.beforeAccessingProject(targetProject);
+                }
+            }
         };
     }
 
@@ -383,6 +391,7 @@ protected ScriptCompilerFactory createScriptCompileFactory(FileCacheBackedScript
     protected FileCacheBackedScriptClassCompiler createFileCacheBackedScriptClassCompiler(
         BuildOperationExecutor buildOperationExecutor,
         CacheRepository cacheRepository,
+        CacheScopeMapping cacheScopeMapping,
         ClassLoaderHierarchyHasher classLoaderHierarchyHasher,
         DefaultScriptCompilationHandler scriptCompilationHandler,
         CachedClasspathTransformer classpathTransformer,
@@ -390,6 +399,7 @@ protected FileCacheBackedScriptClassCompiler createFileCacheBackedScriptClassCom
     ) {
         return new FileCacheBackedScriptClassCompiler(
             cacheRepository,
+            cacheScopeMapping,
             new BuildOperationBackedScriptCompilationHandler(scriptCompilationHandler, buildOperationExecutor),
             progressLoggerFactory,
             classLoaderHierarchyHasher,
@@ -27,6 +27,8 @@
 import org.gradle.caching.internal.controller.BuildCacheController;
 import org.gradle.concurrent.ParallelismConfiguration;
 import org.gradle.execution.plan.DefaultPlanExecutor;
+import org.gradle.execution.plan.ExecutionHistoryNodeDurationStore;
+import org.gradle.execution.plan.NodeDurationStore;
 import org.gradle.execution.plan.PlanExecutor;
 import org.gradle.initialization.BuildCancellationToken;
 import org.gradle.internal.concurrent.ExecutorFactory;
@@ -98,6 +100,13 @@ ExecutionHistoryStore createExecutionHistoryStore(
         );
     }
 
+    NodeDurationStore createNodeDurationStore(
+        ExecutionHistoryCacheAccess executionHistoryCacheAccess,
+        InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory
+    ) {
+        return new ExecutionHistoryNodeDurationStore(executionHistoryCacheAccess, inMemoryCacheDecoratorFactory);
+    }
+
     OutputFilesRepository createOutputFilesRepository(CacheRepository cacheRepository, Gradle gradle, InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory) {
         PersistentCache cacheAccess = cacheRepository
             .cache(gradle, "buildOutputCleanup")
@@ -150,6 +150,36 @@ class CachingFileHasherTest extends Specification {
         0 * _
     }
 
+    def "returns cached hash without hashing the file"() {
+        def stat = fileSystem.stat(file)
+
+        when:
+        def result = hasher.hashIfCached(file, stat.length, stat.lastModified)
+
+        then:
+        result == hash
+
+        and:
+        1 * timeStampInspector.timestampCanBeUsedToDetectFileChange(file.absolutePath, stat.lastModified) >> true
+        1 * cache.getIfPresent(file.absolutePath) >> new FileInfo(hash, stat.length, stat.lastModified)
+        0 * _
+    }
+
+    def "does not hash file when looking up hash of changed file"() {
+        def stat = fileSystem.stat(file)
+
+        when:
+        def result = hasher.hashIfCached(file, stat.length, stat.lastModified)
+
+        then:
+        result == null
+
+        and:
+        1 * timeStampInspector.timestampCanBeUsedToDetectFileChange(file.absolutePath, stat.lastModified) >> true
+        1 * cache.getIfPresent(file.absolutePath) >> new FileInfo(oldHash, stat.length + 1, stat.lastModified)
+        0 * _
+    }
+
     def "hashes given file length and last modified"() {
         long lastModified = 123l
         long length = 321l
@@ -26,7 +26,9 @@ import org.gradle.caching.internal.origin.OriginMetadata
 import org.gradle.caching.internal.origin.OriginMetadataFactory
 import org.gradle.caching.internal.origin.OriginReader
 import org.gradle.caching.internal.origin.OriginWriter
+import org.gradle.caching.internal.packaging.BuildCacheBlobStore
 import org.gradle.caching.internal.packaging.BuildCacheEntryPacker
+import org.gradle.caching.internal.packaging.MissingBlobException
 import org.gradle.internal.file.FileMetadata.AccessType
 import org.gradle.internal.file.TreeType
 import org.gradle.internal.file.impl.DefaultFileMetadata
@@ -131,6 +133,32 @@ class DefaultBuildCacheCommandFactoryTest extends Specification {
         0 * _
     }
 
+    def "removes partially unpacked output when blobs are missing"() {
+        def input = Mock(InputStream)
+        def blobStore = Mock(BuildCacheBlobStore)
+        def outputFile = temporaryFolder.file("output.txt")
+        def entity = this.entity(prop("output", FILE, outputFile))
+        def command = commandFactory.createLoad(key, entity)
+
+        when:
+        command.loadDeduplicated(input, blobStore)
+
+        then:
+        1 * originFactory.createReader(entity) >> originReader
+        1 * fileSystemAccess.write([outputFile.absolutePath], _)
+
+        then:
+        1 * packer.unpackDeduplicated(entity, input, originReader, blobStore) >> {
+            outputFile << "partially extracted output fil..."
+            throw new MissingBlobException("missing blob")
+        }
+
+        then:
+        thrown MissingBlobException
+        !outputFile.exists()
+        0 * _
+    }
+
     def "store invokes packer"() {
         def output = Mock(OutputStream)
         def entity = entity(prop("output"))
@@ -50,7 +50,7 @@ class DefaultExecutionPlanParallelTest extends AbstractExecutionPlanSpec {
         _ * lease.tryLock() >> true
         def taskNodeFactory = new TaskNodeFactory(project.gradle, Stub(IncludedBuildTaskGraph))
         def dependencyResolver = new TaskDependencyResolver([new TaskNodeDependencyResolver(taskNodeFactory)])
-        executionPlan = new DefaultExecutionPlan(thisBuild, taskNodeFactory, dependencyResolver)
+        executionPlan = new DefaultExecutionPlan(thisBuild, taskNodeFactory, dependencyResolver, NodeDurationStore.NONE)
     }
 
     TaskInternal task(Map<String, ?> options = [:], String name) {
@@ -739,6 +739,95 @@ class DefaultExecutionPlanParallelTest extends AbstractExecutionPlanSpec {
         executionPlan.getNode(finalizer).state == Node.ExecutionState.SKIPPED
     }
 
+    def "a task whose state is deferred is prepared while holding its project lock before it can be selected"() {
+        given:
+        def a = task("a")
+        addToGraphAndPopulate(a)
+        def loaded = []
+        def node = executionPlan.getNode(a) as LocalTaskNode
+        node.loadStateBeforeExecution { loaded << node }
+
+        expect:
+        selectNextTask() == null
+        loaded.empty
+
+        when:
+        def toPrepare = selectNextNodeToPrepare()
+
+        then:
+        toPrepare == node
+        lockedProjects == [project] as Set
+        selectNextNodeToPrepare() == null
+        selectNextTask() == null
+        loaded.empty
+
+        when:
+        toPrepare.prepare()
+        executionPlan.finishedPreparing(toPrepare)
+
+        then:
+        loaded == [node]
+        lockedProjects.empty
+        !node.requiresPreparation()
+        selectNextNodeToPrepare() == null
+        selectNextTask() == a
+        loaded == [node]
+    }
+
+    def "a task whose state is deferred is not prepared while another task holds its project lock"() {
+        given:
+        def a = task("a")
+        def b = task("b")
+        addToGraphAndPopulate(a, b)
+        def loaded = []
+        def nodeB = executionPlan.getNode(b) as LocalTaskNode
+        nodeB.loadStateBeforeExecution { loaded << nodeB }
+
+        when:
+        def nodeA = selectNextTaskNode()
+
+        then:
+        nodeA.task == a
+        selectNextNodeToPrepare() == null
+        loaded.empty
+
+        when:
+        executionPlan.finishedExecuting(nodeA)
+        def toPrepare = selectNextNodeToPrepare()
+
+        then:
+        toPrepare == nodeB
+        loaded.empty
+    }
+
+    def "the deferred state of a task which does not run is not loaded"() {
+        given:
+        def a = task("a")
+        def b = task("b", dependsOn: [a])
+        a.state.getFailure() >> new RuntimeException("failure")
+        addToGraphAndPopulate(b)
+        def loaded = []
+        def nodeB = executionPlan.getNode(b) as LocalTaskNode
+        nodeB.loadStateBeforeExecution { loaded << nodeB }
+
+        when:
+        def nodeA = selectNextTaskNode()
+
+        then:
+        nodeA.task == a
+        selectNextNodeToPrepare() == null
+
+        when:
+        executionPlan.finishedExecuting(nodeA)
+
+        then:
+        selectNextNodeToPrepare() == null
+        selectNextTask() == null
+        !executionPlan.hasNodesRemaining()
+        loaded.empty
+        nodeB.requiresPreparation()
+    }
+
     private void tasksAreNotExecutedInParallel(Task first, Task second) {
         addToGraphAndPopulate(first, second)
 
@@ -813,6 +902,14 @@ class DefaultExecutionPlanParallelTest extends AbstractExecutionPlanSpec {
         selectNextTaskNode()?.task
     }
 
+    private Node selectNextNodeToPrepare() {
+        def nextNode
+        recordLocks {
+            nextNode = executionPlan.selectNextToPrepare()
+        }
+        return nextNode
+    }
+
     private TaskNode selectNextTaskNode() {
         def nextTaskNode
         recordLocks {
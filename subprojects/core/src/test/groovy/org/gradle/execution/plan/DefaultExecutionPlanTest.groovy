@@ -40,7 +40,7 @@ class DefaultExecutionPlanTest extends AbstractExecutionPlanSpec {
     def setup() {
         def taskNodeFactory = new TaskNodeFactory(thisBuild, Stub(IncludedBuildTaskGraph))
         def dependencyResolver = new TaskDependencyResolver([new TaskNodeDependencyResolver(taskNodeFactory)])
-        executionPlan = new DefaultExecutionPlan(thisBuild, taskNodeFactory, dependencyResolver)
+        executionPlan = new DefaultExecutionPlan(thisBuild, taskNodeFactory, dependencyResolver, NodeDurationStore.NONE)
         _ * workerLease.tryLock() >> true
     }
 
@@ -101,6 +101,31 @@ class DefaultExecutionPlanTest extends AbstractExecutionPlanSpec {
         executes(b, c, a, d)
     }
 
+    def "schedules tasks on the longest estimated path first"() {
+        given:
+        def durations = [c: 10L, d: 100L]
+        def durationStore = Stub(NodeDurationStore) {
+            getEstimatedDurationsMillis(_) >> { Collection<Node> nodes ->
+                nodes.findAll { it instanceof LocalTaskNode && durations.containsKey(it.task.name) }.collectEntries { [it, durations[it.task.name]] }
+            }
+        }
+        def taskNodeFactory = new TaskNodeFactory(thisBuild, Stub(IncludedBuildTaskGraph))
+        executionPlan = new DefaultExecutionPlan(thisBuild, taskNodeFactory, new TaskDependencyResolver([new TaskNodeDependencyResolver(taskNodeFactory)]), durationStore)
+        Task a = task("a")
+        Task b = task("b")
+        Task c = task("c")
+        Task d = task("d", dependsOn: [c])
+
+        when:
+        addToGraphAndPopulate([a, b, d])
+
+        then:
+        executionPlan.tasks as List == [a, b, c, d]
+        executionPlan.predictedCriticalPath.nodes*.task == [c, d]
+        executionPlan.predictedCriticalPath.durationMillis == 110
+        executedTasks == [c, d, a, b]
+    }
+
     @Unroll
     def "schedules #orderingRule task dependencies in name order"() {
         given:
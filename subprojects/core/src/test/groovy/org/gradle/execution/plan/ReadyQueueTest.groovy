@@ -0,0 +1,200 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.execution.plan
+
+import org.gradle.internal.resources.ResourceLock
+import spock.lang.Specification
+
+import java.util.function.ToLongFunction
+
+class ReadyQueueTest extends Specification {
+    def queue = new ReadyQueue()
+    def states = new IdentityHashMap<Node, Map<String, Boolean>>()
+
+    def "ready nodes are returned by descending priority and in execution order for the same priority"() {
+        def a = node()
+        def b = node()
+        def c = node()
+        def d = node()
+
+        when:
+        schedule([a, b, c, d], [(a): 1L, (b): 0L, (c): 2L, (d): 1L])
+
+        then:
+        queue.hasReadyNodes()
+        readyNodes() == [c, a, d, b]
+    }
+
+    def "nodes which cannot start yet are not ready"() {
+        def a = node()
+        def notRequired = node(false, true)
+        def waiting = node(true, false)
+
+        when:
+        schedule([a, notRequired, waiting])
+
+        then:
+        readyNodes() == [a]
+    }
+
+    def "node becomes ready once its dependencies are complete"() {
+        def a = node()
+        def b = node(true, false)
+        schedule([a, b])
+
+        when:
+        queue.maybeReady(b)
+
+        then:
+        readyNodes() == [a]
+
+        when:
+        states[b].dependenciesComplete = true
+        queue.maybeReady(b)
+
+        then:
+        readyNodes() == [a, b]
+    }
+
+    def "nodes which are not part of the queue never become ready"() {
+        def a = node()
+        def other = node()
+        schedule([a])
+
+        when:
+        queue.maybeReady(other)
+
+        then:
+        readyNodes() == [a]
+    }
+
+    def "node blocked on a project lock becomes ready when the lock is released"() {
+        def a = node()
+        def b = node()
+        def lockState = [locked: true]
+        def lock = Stub(ResourceLock) {
+            isLocked() >> { lockState.locked }
+        }
+        schedule([a, b])
+
+        when:
+        removeReady(a)
+        queue.blockOnProjectLock(a, lock)
+        queue.unblockReleasedProjectLocks()
+
+        then:
+        readyNodes() == [b]
+
+        when:
+        lockState.locked = false
+        queue.unblockReleasedProjectLocks()
+
+        then:
+        readyNodes() == [a, b]
+    }
+
+    def "node blocked on running nodes becomes ready when running nodes are done"() {
+        def a = node()
+        def b = node()
+        schedule([a, b])
+
+        when:
+        removeReady(b)
+        queue.blockOnRunningNodes(b)
+
+        then:
+        readyNodes() == [a]
+
+        when:
+        queue.unblockNodesWaitingForRunningNodes()
+
+        then:
+        readyNodes() == [a, b]
+    }
+
+    def "blocked node which has completed in the meantime does not become ready again"() {
+        def a = node()
+        schedule([a])
+
+        when:
+        removeReady(a)
+        queue.blockOnRunningNodes(a)
+        states[a].ready = false
+        queue.unblockNodesWaitingForRunningNodes()
+
+        then:
+        !queue.hasReadyNodes()
+    }
+
+    def "scheduling again replaces the nodes of the queue"() {
+        def a = node()
+        def b = node()
+        schedule([a])
+        removeReady(a)
+        queue.blockOnRunningNodes(a)
+
+        when:
+        schedule([b])
+        queue.unblockNodesWaitingForRunningNodes()
+        queue.maybeReady(a)
+
+        then:
+        readyNodes() == [b]
+    }
+
+    def "clear removes all nodes"() {
+        def a = node()
+        schedule([a])
+
+        when:
+        queue.clear()
+        queue.maybeReady(a)
+
+        then:
+        !queue.hasReadyNodes()
+    }
+
+    private Node node(boolean ready = true, boolean dependenciesComplete = true) {
+        def state = [ready: ready, dependenciesComplete: dependenciesComplete]
+        def node = Stub(Node) {
+            isReady() >> { state.ready }
+            allDependenciesComplete() >> { state.dependenciesComplete }
+        }
+        states[node] = state
+        return node
+    }
+
+    private void schedule(List<Node> nodes, Map<Node, Long> priorities = [:]) {
+        queue.schedule(nodes, { node -> priorities.getOrDefault(node, 0L) } as ToLongFunction<Node>)
+    }
+
+    private List<Node> readyNodes() {
+        return queue.readyNodes().toList()
+    }
+
+    private void removeReady(Node node) {
+        def iterator = queue.readyNodes()
+        while (iterator.hasNext()) {
+            if (iterator.next().is(node)) {
+                iterator.remove()
+                return
+            }
+        }
+        throw new IllegalStateException("Node is not ready")
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.groovy.scripts.internal
+
+import org.gradle.api.Action
+import org.gradle.api.internal.initialization.ClassLoaderScope
+import org.gradle.cache.CacheBuilder
+import org.gradle.cache.CacheRepository
+import org.gradle.cache.PersistentCache
+import org.gradle.cache.internal.CacheScopeMapping
+import org.gradle.cache.internal.VersionStrategy
+import org.gradle.groovy.scripts.ScriptSource
+import org.gradle.internal.classpath.CachedClasspathTransformer
+import org.gradle.internal.classpath.ClassPath
+import org.gradle.internal.hash.ClassLoaderHierarchyHasher
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.logging.progress.ProgressLoggerFactory
+import org.gradle.internal.resource.TextResource
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class FileCacheBackedScriptClassCompilerTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+    def cacheRepository = Mock(CacheRepository)
+    def cacheBuilder = Mock(CacheBuilder)
+    def cache = Mock(PersistentCache)
+    def scriptCompilationHandler = Mock(ScriptCompilationHandler)
+    def cacheScopeMapping = Stub(CacheScopeMapping)
+    def classLoaderHierarchyHasher = Stub(ClassLoaderHierarchyHasher)
+    def classpathTransformer = Stub(CachedClasspathTransformer)
+    def compiler = new FileCacheBackedScriptClassCompiler(cacheRepository, cacheScopeMapping, scriptCompilationHandler, Stub(ProgressLoggerFactory), classLoaderHierarchyHasher, classpathTransformer)
+    def sourceHashCode = HashCode.fromInt(1)
+    def resource = Stub(TextResource) {
+        isContentCached() >> true
+        getHasEmptyContent() >> false
+        getContentHash() >> sourceHashCode
+    }
+    def source = Stub(ScriptSource) {
+        getResource() >> resource
+        getClassName() >> "build_script"
+        getDisplayName() >> "build script"
+        getShortDisplayName() >> "build script"
+    }
+    def targetScope = Stub(ClassLoaderScope)
+    def operation = Stub(CompileOperation) {
+        getId() >> "dsl"
+    }
+    def verifier = Mock(Action)
+    def remappedClasses = Stub(ClassPath)
+    def compiledScript = Stub(CompiledScript)
+    def compiledDir = tmpDir.file("scripts/key")
+    def marker = compiledDir.file("compiled.bin")
+
+    def setup() {
+        def classLoader = new URLClassLoader(new URL[0])
+        targetScope.exportClassLoader >> classLoader
+        classLoaderHierarchyHasher.getClassLoaderHash(classLoader) >> HashCode.fromInt(2)
+        cacheScopeMapping.getBaseDirectory(null, { it.startsWith("scripts/") }, VersionStrategy.CachePerVersion) >> compiledDir
+        classpathTransformer.transform(_, _, _) >> remappedClasses
+    }
+
+    def "compiles script in its cache and writes the marker once the cache is initialized"() {
+        given:
+        Action<PersistentCache> initializer = null
+
+        when:
+        def result = compiler.compile(source, targetScope, operation, Script, verifier)
+
+        then:
+        1 * cacheRepository.cache({ it.startsWith("scripts/") }) >> cacheBuilder
+        _ * cacheBuilder.withDisplayName(_) >> cacheBuilder
+        1 * cacheBuilder.withInitializer(_) >> { Action<PersistentCache> action ->
+            initializer = action
+            cacheBuilder
+        }
+        1 * cacheBuilder.open() >> {
+            initializer.execute(cache)
+            assert !marker.exists()
+            cache
+        }
+        _ * cache.baseDir >> compiledDir
+        1 * scriptCompilationHandler.compileToDir(_, _, compiledDir.file("dsl"), compiledDir.file("metadata"), operation, Script, verifier)
+
+        then:
+        1 * scriptCompilationHandler.loadFromDir(source, sourceHashCode, targetScope, remappedClasses, compiledDir.file("metadata"), operation, Script) >> compiledScript
+
+        then:
+        1 * cache.close()
+        0 * scriptCompilationHandler._
+
+        and:
+        result == compiledScript
+        marker.isFile()
+    }
+
+    def "loads compiled script without opening its cache"() {
+        given:
+        marker.createFile()
+
+        when:
+        def result = compiler.compile(source, targetScope, operation, Script, verifier)
+
+        then:
+        1 * scriptCompilationHandler.loadFromDir(source, sourceHashCode, targetScope, remappedClasses, compiledDir.file("metadata"), operation, Script) >> compiledScript
+        0 * scriptCompilationHandler._
+        0 * cacheRepository._
+        0 * cache._
+
+        and:
+        result == compiledScript
+    }
+
+    def "opens the cache of a script whose compiled marker is missing"() {
+        given:
+        compiledDir.file("dsl/_BuildScript_.class").createFile()
+
+        when:
+        def result = compiler.compile(source, targetScope, operation, Script, verifier)
+
+        then:
+        1 * cacheRepository.cache({ it.startsWith("scripts/") }) >> cacheBuilder
+        _ * cacheBuilder.withDisplayName(_) >> cacheBuilder
+        1 * cacheBuilder.withInitializer(_) >> cacheBuilder
+        1 * cacheBuilder.open() >> cache
+        _ * cache.baseDir >> compiledDir
+
+        then:
+        1 * scriptCompilationHandler.loadFromDir(source, sourceHashCode, targetScope, remappedClasses, compiledDir.file("metadata"), operation, Script) >> compiledScript
+
+        then:
+        1 * cache.close()
+        0 * scriptCompilationHandler._
+
+        and:
+        result == compiledScript
+        marker.isFile()
+    }
+
+    def "does not write the marker when the initialization of the cache fails"() {
+        given:
+        Action<PersistentCache> initializer = null
+        def failure = new RuntimeException("broken")
+
+        when:
+        compiler.compile(source, targetScope, operation, Script, verifier)
+
+        then:
+        1 * cacheRepository.cache({ it.startsWith("scripts/") }) >> cacheBuilder
+        _ * cacheBuilder.withDisplayName(_) >> cacheBuilder
+        1 * cacheBuilder.withInitializer(_) >> { Action<PersistentCache> action ->
+            initializer = action
+            cacheBuilder
+        }
+        1 * cacheBuilder.open() >> {
+            initializer.execute(cache)
+            cache
+        }
+        _ * cache.baseDir >> compiledDir
+        1 * scriptCompilationHandler.compileToDir(_, _, compiledDir.file("dsl"), compiledDir.file("metadata"), operation, Script, verifier) >> {
+            compiledDir.file("dsl/_BuildScript_.class").createFile()
+            throw failure
+        }
+        0 * scriptCompilationHandler._
+
+        and:
+        def e = thrown(RuntimeException)
+        e == failure
+        !marker.exists()
+    }
+}
@@ -18,6 +18,7 @@ import gradlebuild.cleanup.WhenNotEmpty
 
 plugins {
     id("gradlebuild.distribution.implementation-java")
+    id("gradlebuild.jmh")
 }
 
 dependencies {
@@ -108,6 +109,11 @@ dependencies {
     integTestDistributionRuntimeOnly(project(":distributions-basics"))
     crossVersionTestDistributionRuntimeOnly(project(":distributions-core"))
     crossVersionTestImplementation(libs.jettyWebApp)
+
+    jmhImplementation(testFixtures(project(":core")))
+    jmhImplementation(testFixtures(project(":dependency-management"))) {
+        because("Benchmarks create metadata factories the same way as the tests do")
+    }
 }
 
 classycle {
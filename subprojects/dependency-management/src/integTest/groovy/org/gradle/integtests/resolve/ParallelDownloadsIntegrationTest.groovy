@@ -131,6 +131,55 @@ class ParallelDownloadsIntegrationTest extends AbstractHttpDependencyResolutionT
         succeeds("resolve")
     }
 
+    def "lists versions of dynamic dependencies in parallel from a Maven repo"() {
+        def m1 = mavenRepo.module('test', 'test1', '1.0').publish()
+        def m2 = mavenRepo.module('test', 'test2', '1.0').publish()
+        def m3 = mavenRepo.module('test', 'test3', '1.0').publish()
+        def m4 = mavenRepo.module('test', 'test4', '1.0').publish()
+
+        buildFile << """
+            repositories {
+                maven {
+                    url = uri('$server.uri')
+                    $authConfig
+                }
+            }
+            configurations { compile }
+            dependencies {
+                compile 'test:test1:1.+'
+                compile 'test:test2:1.+'
+                compile 'test:test3:1.+'
+                compile 'test:test4:1.+'
+            }
+            task resolve {
+                inputs.files configurations.compile
+                doLast {
+                    println configurations.compile.files
+                }
+            }
+"""
+
+        given:
+        server.expectConcurrent(
+            server.get(m1.rootMetaData.path).sendFile(m1.rootMetaData.file),
+            server.get(m2.rootMetaData.path).sendFile(m2.rootMetaData.file),
+            server.get(m3.rootMetaData.path).sendFile(m3.rootMetaData.file),
+            server.get(m4.rootMetaData.path).sendFile(m4.rootMetaData.file))
+        server.expect(server.get(m1.pom.path).sendFile(m1.pom.file))
+        server.expect(server.get(m2.pom.path).sendFile(m2.pom.file))
+        server.expect(server.get(m3.pom.path).sendFile(m3.pom.file))
+        server.expect(server.get(m4.pom.path).sendFile(m4.pom.file))
+        server.expectConcurrent(
+            server.get(m1.artifact.path).sendFile(m1.artifact.file),
+            server.get(m2.artifact.path).sendFile(m2.artifact.file),
+            server.get(m3.artifact.path).sendFile(m3.artifact.file),
+            server.get(m4.artifact.path).sendFile(m4.artifact.file))
+
+        expect:
+        executer.withArguments('--max-workers', '4')
+        succeeds("resolve")
+    }
+
     def "parallel download honors max workers"() {
         def m1 = mavenRepo.module('test', 'test1', '1.0').publish()
         def m2 = mavenRepo.module('test', 'test2', '1.0').publish()
@@ -190,6 +239,45 @@ class ParallelDownloadsIntegrationTest extends AbstractHttpDependencyResolutionT
         build.waitForFinish()
     }
 
+    def "downloads metadata of each level of the graph in parallel"() {
+        def c = mavenRepo.module('test', 'c', '1.0').publish()
+        def d = mavenRepo.module('test', 'd', '1.0').publish()
+        def a = mavenRepo.module('test', 'a', '1.0').dependsOn(c).publish()
+        def b = mavenRepo.module('test', 'b', '1.0').dependsOn(d).publish()
+
+        buildFile << """
+            repositories {
+                maven {
+                    url = uri('$server.uri')
+                    $authConfig
+                }
+            }
+            configurations { compile }
+            dependencies {
+                compile 'test:a:1.0'
+                compile 'test:b:1.0'
+            }
+            task resolve {
+                doLast {
+                    println configurations.compile.incoming.resolutionResult.allComponents
+                }
+            }
+"""
+
+        given:
+        server.expectConcurrent(
+            server.get(a.pom.path).sendFile(a.pom.file),
+            server.get(b.pom.path).sendFile(b.pom.file))
+        // a and b each have a single dependency, which are fetched together
+        server.expectConcurrent(
+            server.get(c.pom.path).sendFile(c.pom.file),
+            server.get(d.pom.path).sendFile(d.pom.file))
+
+        expect:
+        executer.withArguments('--max-workers', '4')
+        succeeds("resolve")
+    }
+
     def "component metadata rules are executed synchronously"() {
         def m1 = ivyRepo.module('test', 'test1', '1.0').publish()
         def m2 = ivyRepo.module('test', 'test2', '1.0').publish()
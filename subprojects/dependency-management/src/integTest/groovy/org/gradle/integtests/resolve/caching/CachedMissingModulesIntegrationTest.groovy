@@ -287,7 +287,7 @@ Required by:
         repo1MetaData.expectGet()
         repo1Module.pom.expectGet()
         repo1Module.artifact.expectGet()
-        repo2MetaData.expectHead()
+        repo2MetaData.expectGetUnmodified()
 
         then:
         succeeds 'retrieve', '-PdepVersion=2.+'
@@ -345,7 +345,7 @@ Required by:
         when:
         server.resetExpectations()
         repo1Module.publish()
-        repo2MetaData.expectHead()
+        repo2MetaData.expectGetUnmodified()
 
         then:
         succeeds 'retrieve'
@@ -357,7 +357,7 @@ Required by:
         repo1MetaData.expectGet()
         repo1Module.pom.expectGet()
         repo1Module.artifact.expectGet()
-        repo2MetaData.expectHead()
+        repo2MetaData.expectGetUnmodified()
         repo2Module.pom.expectHead()
 
         then:
@@ -503,9 +503,9 @@ Required by:
 
         when:
         server.resetExpectations()
-        repo1Module.rootMetaData.expectHead()
+        repo1Module.rootMetaData.expectGetUnmodified()
         repo1Module.pom.expectGetMissing()
-        repo2Module.rootMetaData.expectHead()
+        repo2Module.rootMetaData.expectGetUnmodified()
         repo2Module.pom.expectGetMissing()
 
         then:
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.integtests.resolve.caching
+
+import org.gradle.integtests.fixtures.AbstractHttpDependencyResolutionTest
+
+class ResolvedGraphReuseIntegrationTest extends AbstractHttpDependencyResolutionTest {
+    private static final String REUSED = "Reusing the resolved dependency graph of configuration ':conf' from an earlier build."
+
+    def setup() {
+        executer.withArgument("--info")
+    }
+
+    def "reuses the resolved graph in a later build when only the resolution result is used"() {
+        def foo = mavenHttpRepo.module("org", "foo", "1.0").publish()
+        mavenHttpRepo.module("org", "bar", "1.0").dependsOn(foo).publish().allowAll()
+        foo.allowAll()
+        buildFile << buildWithDependency("org:bar:1.0")
+
+        when:
+        run "graph"
+
+        then:
+        outputContains("components: [org:bar:1.0, org:foo:1.0, project :]")
+        outputDoesNotContain(REUSED)
+
+        when:
+        run "graph"
+
+        then:
+        outputContains("components: [org:bar:1.0, org:foo:1.0, project :]")
+        outputContains(REUSED)
+    }
+
+    def "resolves the graph again when the declared dependencies change"() {
+        mavenHttpRepo.module("org", "foo", "1.0").publish().allowAll()
+        mavenHttpRepo.module("org", "foo", "1.1").publish().allowAll()
+        buildFile << buildWithDependency("org:foo:1.0")
+
+        when:
+        run "graph"
+        run "graph"
+
+        then:
+        outputContains("components: [org:foo:1.0, project :]")
+        outputContains(REUSED)
+
+        when:
+        buildFile.text = buildWithDependency("org:foo:1.1")
+        run "graph"
+
+        then:
+        outputContains("components: [org:foo:1.1, project :]")
+        outputDoesNotContain(REUSED)
+    }
+
+    def "resolves the graph again when the compatibility rules of the attributes schema change"() {
+        mavenHttpRepo.module("org", "foo", "1.0").publish().allowAll()
+        buildFile << buildWithDependency("org:foo:1.0")
+        buildFile << """
+            class FlavorRule implements AttributeCompatibilityRule<String> {
+                String flavor
+
+                @javax.inject.Inject
+                FlavorRule(String flavor) {
+                    this.flavor = flavor
+                }
+
+                void execute(CompatibilityCheckDetails<String> details) {
+                    if (details.producerValue == flavor) {
+                        details.compatible()
+                    }
+                }
+            }
+        """
+        def schema = { flavor ->
+            """
+            dependencies.attributesSchema {
+                attribute(Attribute.of("flavor", String)) {
+                    compatibilityRules.add(FlavorRule) { params("$flavor") }
+                }
+            }
+            """
+        }
+        def build = buildFile.text
+
+        when:
+        buildFile.text = build + schema("free")
+        run "graph"
+        run "graph"
+
+        then:
+        outputContains(REUSED)
+
+        when:
+        buildFile.text = build + schema("paid")
+        run "graph"
+
+        then:
+        outputContains("components: [org:foo:1.0, project :]")
+        outputDoesNotContain(REUSED)
+    }
+
+    def "does not use the resolved graph of an earlier build when the files are required"() {
+        mavenHttpRepo.module("org", "foo", "1.0").publish().allowAll()
+        buildFile << buildWithDependency("org:foo:1.0")
+        buildFile << """
+            task files {
+                doLast {
+                    println "files: " + configurations.conf.files.collect { it.name }
+                }
+            }
+        """
+
+        when:
+        run "graph"
+        run "files"
+
+        then:
+        outputContains("files: [foo-1.0.jar]")
+        outputDoesNotContain(REUSED)
+    }
+
+    def "does not store the resolved graph when the files are required"() {
+        mavenHttpRepo.module("org", "foo", "1.0").publish().allowAll()
+        buildFile << buildWithDependency("org:foo:1.0")
+        buildFile << """
+            task files {
+                doLast {
+                    println "files: " + configurations.conf.files.collect { it.name }
+                }
+            }
+        """
+
+        when:
+        run "files"
+        run "graph"
+
+        then:
+        outputContains("components: [org:foo:1.0, project :]")
+        outputDoesNotContain(REUSED)
+
+        when:
+        run "graph"
+
+        then:
+        outputContains(REUSED)
+    }
+
+    private String buildWithDependency(String notation) {
+        """
+            repositories {
+                maven { url "${mavenHttpRepo.uri}" }
+            }
+            configurations {
+                conf
+            }
+            dependencies {
+                conf "$notation"
+            }
+            task graph {
+                doLast {
+                    println "components: " + configurations.conf.incoming.resolutionResult.allComponents.collect { it.id.displayName }.sort()
+                }
+            }
+        """
+    }
+}
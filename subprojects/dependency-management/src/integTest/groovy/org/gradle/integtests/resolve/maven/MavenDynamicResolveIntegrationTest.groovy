@@ -307,7 +307,7 @@ Searched in the following locations:
 
         when:
         server.resetExpectations()
-        repo.getModuleMetaData("group", "projectA").expectHead()
+        repo.getModuleMetaData("group", "projectA").expectGetUnmodified()
         projectA.pom.expectHead()
         projectA.artifact.expectGet()
 
@@ -319,6 +319,52 @@ Searched in the following locations:
         file('libs').assertHasDescendants('projectA-1.1.jar')
     }
 
+    def "revalidates expired maven-metadata.xml with a conditional request"() {
+        given:
+        def repo = mavenHttpRepo("repo1")
+        def projectA1 = repo.module('group', 'projectA', '1.1').publish()
+        def metaData = repo.getModuleMetaData("group", "projectA")
+
+        buildFile << createBuildFile(repo.uri)
+        buildFile << """
+            configurations.compile.resolutionStrategy.cacheDynamicVersionsFor 0, 'seconds'
+        """
+
+        when:
+        metaData.expectGet()
+        projectA1.pom.expectGet()
+        projectA1.artifact.expectGet()
+
+        and:
+        run 'retrieve'
+
+        then:
+        file('libs').assertHasDescendants('projectA-1.1.jar')
+
+        when: "maven-metadata.xml is unchanged"
+        server.resetExpectations()
+        metaData.expectGetUnmodified()
+
+        and:
+        run 'retrieve'
+
+        then:
+        file('libs').assertHasDescendants('projectA-1.1.jar')
+
+        when: "maven-metadata.xml has changed"
+        server.resetExpectations()
+        def projectA2 = repo.module('group', 'projectA', '1.2').publish()
+        metaData.expectGet()
+        projectA2.pom.expectGet()
+        projectA2.artifact.expectGet()
+
+        and:
+        run 'retrieve'
+
+        then:
+        file('libs').assertHasDescendants('projectA-1.2.jar')
+    }
+
     def "dynamic version ignores missing module in one repository when available in another repository"() {
         given:
         def repo1 = mavenHttpRepo("repo1")
@@ -142,7 +142,7 @@ if (project.hasProperty('skipCache')) {
         // New artifact is detected
         when:
         server.resetExpectations()
-        snapshotA.metaData.expectHead()
+        snapshotA.metaData.expectGetUnmodified()
         snapshotA.pom.expectHead()
         snapshotA.artifact.expectHead()
         snapshotA.artifact.expectGet()
@@ -158,7 +158,7 @@ if (project.hasProperty('skipCache')) {
         // Jar artifact removal is detected
         when:
         server.resetExpectations()
-        snapshotA.metaData.expectHead()
+        snapshotA.metaData.expectGetUnmodified()
         snapshotA.pom.expectHead()
         snapshotA.artifact.expectHeadMissing()
 
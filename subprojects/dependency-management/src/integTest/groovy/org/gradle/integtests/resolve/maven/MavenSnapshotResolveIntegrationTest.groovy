@@ -656,7 +656,7 @@ task retrieve(type: Sync) {
         file('libs').assertHasDescendants('projectA-1.0-SNAPSHOT.jar', 'projectB-1.0.jar')
 
         when: "Resolve without cache"
-        projectA.metaData.expectHead()
+        projectA.metaData.expectGetUnmodified()
         projectA.pom.expectHead()
         projectA.pom.sha1.expectGet()
         projectA.pom.expectGet()
@@ -1088,9 +1088,6 @@ class CheckIsChangingRule implements ComponentMetadataRule {
     }
 
     private expectChangedModuleServed(MavenHttpModule module) {
-        if (module.uniqueSnapshots) {
-            module.metaData.expectHead()
-        }
         module.metaData.expectGet()
         module.pom.expectHead()
         module.pom.sha1.expectGet()
@@ -1107,7 +1104,7 @@ class CheckIsChangingRule implements ComponentMetadataRule {
 
     private expectChangedArtifactServed(MavenHttpModule module) {
         if (module.uniqueSnapshots) {
-            module.metaData.expectHead()
+            module.metaData.expectGetUnmodified()
         } else {
             module.metaData.expectGet()
         }
@@ -1123,7 +1120,7 @@ class CheckIsChangingRule implements ComponentMetadataRule {
 
     private expectChangedProbe(MavenHttpModule module) {
         if (module.uniqueSnapshots) {
-            module.metaData.expectHead()
+            module.metaData.expectGetUnmodified()
         } else {
             module.metaData.expectGet()
         }
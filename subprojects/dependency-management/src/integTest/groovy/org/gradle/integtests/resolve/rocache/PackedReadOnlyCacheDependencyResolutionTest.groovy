@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.integtests.resolve.rocache
+
+import org.gradle.api.internal.artifacts.ivyservice.PackedArtifactCache
+import org.gradle.api.internal.artifacts.ivyservice.PackedArtifactCacheWriter
+import org.gradle.integtests.fixtures.AbstractHttpDependencyResolutionTest
+import org.gradle.integtests.fixtures.cache.CachingIntegrationFixture
+import org.gradle.test.fixtures.file.TestFile
+
+class PackedReadOnlyCacheDependencyResolutionTest extends AbstractHttpDependencyResolutionTest implements CachingIntegrationFixture {
+    TestFile packFile
+
+    def setup() {
+        executer.requireIsolatedDaemons()
+        executer.requireOwnGradleUserHomeDir()
+        packFile = file("packed/dependencies.pack")
+
+        def module = mavenHttpRepo.module('org.readonly', 'core', '1.0').publish()
+        buildFile << """
+            configurations { compile }
+            repositories { maven { url "${mavenHttpRepo.uri}" } }
+            dependencies { compile 'org.readonly:core:1.0' }
+            task resolve {
+                doLast {
+                    configurations.compile.files.each { println "resolved: " + it.toURI() }
+                }
+            }
+        """
+
+        module.pom.expectGet()
+        module.artifact.expectGet()
+        run "resolve", "-D${PackedArtifactCacheWriter.PACK_TO_PROPERTY}=${packFile}"
+        executer.stop()
+
+        // Start from an empty writable cache, so that the dependencies can only come from the pack
+        metadataCacheDir.deleteDir()
+        mavenHttpRepo.server.resetExpectations()
+    }
+
+    def cleanup() {
+        outputContains("Shared read-only dependency cache is an incubating feature.")
+    }
+
+    def "packs the dependency cache when the build finishes and resolves from the pack"() {
+        expect:
+        PackedArtifactCache.isPacked(packFile)
+
+        when:
+        executer.withReadOnlyCacheDir(packFile)
+        run "resolve"
+
+        then:
+        def resolved = new File(new URI(output.readLines().find { it.startsWith("resolved: ") }.substring("resolved: ".length())))
+        resolved.name == "core-1.0.jar"
+        resolved.toPath().startsWith(packsDir.toPath())
+    }
+
+    def "cleans up extracted packs which are not used anymore"() {
+        given:
+        executer.withReadOnlyCacheDir(packFile)
+        run "resolve"
+        def extractedPacks = packsDir.listFiles().findAll { it.directory }
+        assert extractedPacks.size() == 1
+
+        when:
+        packFile.delete()
+        executer.withReadOnlyCacheDir(packFile)
+        executer.withArgument("-Dorg.gradle.internal.cleanup.external.max.age=-1")
+        def gcFile = packsDir.file("gc.properties")
+        gcFile.createFile()
+        assert gcFile.setLastModified(0)
+        mavenHttpRepo.module('org.readonly', 'core', '1.0').pom.expectGet()
+        mavenHttpRepo.module('org.readonly', 'core', '1.0').artifact.expectGet()
+        run "resolve"
+
+        then:
+        !extractedPacks[0].exists()
+    }
+
+    TestFile getPacksDir() {
+        userHomeCacheDir.file("packed-dependency-caches")
+    }
+}
@@ -375,7 +375,7 @@ $listing
         @Override
         void expectRefresh(String... modules) {
             modules.each {
-                server.expectHead("/repo/org/$it/versions.txt", files[it])
+                server.expectGetUnmodified("/repo/org/$it/versions.txt", files[it])
             }
         }
     }
@@ -709,7 +709,7 @@ group:projectB:2.2;integration
         outputDoesNotContain('Parsing status file call count: 2')
 
         when: "resolving the same dependencies"
-        server.expectHead("/repo/status.txt", statusFile)
+        server.expectGetUnmodified("/repo/status.txt", statusFile)
         checkResolve "group:projectA:1.+": ["group:projectA:1.2", "didn't match version 2.0"], "group:projectB:latest.release": ["group:projectB:1.1", "didn't match version 2.2"]
 
         then: "should get the result from cache"
@@ -723,8 +723,7 @@ group:projectB:1.1;release
 group:projectB:2.2;release
 '''
         resetExpectations()
-        // Similarly the HEAD request here is due to revalidating the cached resource
-        server.expectHead("/repo/status.txt", statusFile)
+        // The cached resource is revalidated with a conditional GET, which returns the changed content
         server.expectGet("/repo/status.txt", statusFile)
         repositoryInteractions {
             'group:projectA' {
@@ -1398,7 +1397,7 @@ group:projectB:2.2;release
         @Override
         void refresh(String... modules) {
             modules.each {
-                server.expectHead("/repo/${it.replace(':', '/')}/status.txt", statusFiles[it])
+                server.expectGetUnmodified("/repo/${it.replace(':', '/')}/status.txt", statusFiles[it])
             }
         }
     }
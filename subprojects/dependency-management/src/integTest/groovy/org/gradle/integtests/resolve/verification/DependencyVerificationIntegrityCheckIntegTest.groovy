@@ -18,6 +18,7 @@ package org.gradle.integtests.resolve.verification
 
 import org.gradle.api.internal.artifacts.ivyservice.CacheLayout
 import org.gradle.integtests.fixtures.ToBeFixedForConfigurationCache
+import org.gradle.integtests.fixtures.UnsupportedWithConfigurationCache
 import org.gradle.integtests.fixtures.cache.CachingIntegrationFixture
 import org.gradle.test.fixtures.file.TestFile
 import spock.lang.Issue
@@ -1055,4 +1056,46 @@ This can indicate that a dependency has been compromised. Please carefully verif
 """
     }
 
+    @UnsupportedWithConfigurationCache(because = "dependencies are not resolved when the configuration cache is reused")
+    def "skips verification of artifacts verified by a previous build until verification metadata changes"() {
+        createMetadataFile {
+            addChecksum("org:foo:1.0", "sha1", "16e066e005a935ac60f06216115436ab97c5da02")
+            addChecksum("org:foo:1.0", "sha1", "85a7b8a2eb6bb1c4cdbbfe5e6c8dc3757de22c02", "pom", "pom")
+        }
+
+        given:
+        javaLibrary()
+        uncheckedModule("org", "foo")
+        buildFile << """
+            dependencies {
+                implementation "org:foo:1.0"
+            }
+        """
+
+        when:
+        succeeds ":compileJava", "--info"
+
+        then:
+        outputDoesNotContain("Skipping verification of")
+
+        when:
+        succeeds ":compileJava", "--info"
+
+        then:
+        outputContains("Skipping verification of foo-1.0.jar (org:foo:1.0), which was verified by a previous build")
+        outputContains("Skipping verification of foo-1.0.pom (org:foo:1.0), which was verified by a previous build")
+
+        when:
+        replaceMetadataFile {
+            addChecksum("org:foo:1.0", "sha1", "invalid")
+            addChecksum("org:foo:1.0", "sha1", "85a7b8a2eb6bb1c4cdbbfe5e6c8dc3757de22c02", "pom", "pom")
+        }
+        fails ":compileJava", "--info"
+
+        then:
+        outputDoesNotContain("Skipping verification of")
+        failure.assertHasCause("""Dependency verification failed for configuration ':compileClasspath':
+  - On artifact foo-1.0.jar (org:foo:1.0) in repository 'maven': expected a 'sha1' checksum of 'invalid' but was '16e066e005a935ac60f06216115436ab97c5da02'""")
+    }
+
 }
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.artifacts.DefaultImmutableModuleIdentifierFactory;
+import org.gradle.api.internal.artifacts.DependencyManagementTestUtil;
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DesugaredAttributeContainerSerializer;
+import org.gradle.api.internal.artifacts.repositories.metadata.MavenMutableModuleMetadataFactory;
+import org.gradle.internal.component.external.descriptor.DefaultExclude;
+import org.gradle.internal.component.external.descriptor.MavenScope;
+import org.gradle.internal.component.external.model.CapabilityInternal;
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector;
+import org.gradle.internal.component.external.model.ExternalDependencyDescriptor;
+import org.gradle.internal.component.external.model.ModuleMetadataInterner;
+import org.gradle.internal.component.external.model.MutableModuleComponentResolveMetadata;
+import org.gradle.internal.component.external.model.maven.MavenDependencyDescriptor;
+import org.gradle.internal.component.external.model.maven.MavenDependencyType;
+import org.gradle.internal.component.model.ExcludeMetadata;
+import org.gradle.internal.serialize.InputStreamBackedDecoder;
+import org.gradle.internal.serialize.OutputStreamBackedEncoder;
+import org.gradle.util.AttributeTestUtil;
+import org.gradle.util.TestUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the cached metadata of a synthetic repository of Maven modules, which share most of their dependencies, and reports
+ * the heap retained by the metadata that has been read, with and without interning of the metadata values.
+ *
+ * The retained heap is printed at the end of each iteration.
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ModuleMetadataFootprintBenchmark {
+
+    @Param({"10000"})
+    int moduleCount;
+
+    @Param({"true", "false"})
+    boolean interning;
+
+    private final ImmutableModuleIdentifierFactory moduleIdentifierFactory = new DefaultImmutableModuleIdentifierFactory();
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private ModuleMetadataSerializer serializer;
+    private List<byte[]> serializedModules;
+    private List<MutableModuleComponentResolveMetadata> readModules;
+    private long heapBeforeRead;
+
+    @Setup(Level.Trial)
+    public void createRepository() throws IOException {
+        MavenMutableModuleMetadataFactory mavenMetadataFactory = DependencyManagementTestUtil.mavenMetadataFactory();
+        serializer = new ModuleMetadataSerializer(
+            new DesugaredAttributeContainerSerializer(AttributeTestUtil.attributesFactory(), TestUtil.objectInstantiator()),
+            mavenMetadataFactory,
+            DependencyManagementTestUtil.ivyMetadataFactory(),
+            new ModuleSourcesSerializer(new HashMap<>()),
+            interning ? new ModuleMetadataInterner() : new NonInterningMetadataInterner()
+        );
+
+        Random random = new Random(1234L);
+        serializedModules = new ArrayList<>(moduleCount);
+        for (int i = 0; i < moduleCount; i++) {
+            ModuleComponentIdentifier id = DefaultModuleComponentIdentifier.newId(module(i), "1." + (i % 10));
+            // Most modules depend on a few hundred popular libraries, like in a real repository
+            List<MavenDependencyDescriptor> dependencies = new ArrayList<>();
+            for (int j = 0; j < 20; j++) {
+                int target = random.nextInt(10) < 8 ? random.nextInt(300) : random.nextInt(moduleCount);
+                ModuleComponentSelector selector = DefaultModuleComponentSelector.newSelector(module(target), "1." + (target % 10));
+                List<ExcludeMetadata> excludes = j % 5 == 0 ? ImmutableList.of(new DefaultExclude(module(random.nextInt(300)))) : ImmutableList.of();
+                dependencies.add(new MavenDependencyDescriptor(MavenScope.Compile, MavenDependencyType.DEPENDENCY, selector, null, excludes));
+            }
+            MutableModuleComponentResolveMetadata metadata = mavenMetadataFactory.create(id, dependencies);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            serializer.write(new OutputStreamBackedEncoder(outputStream), metadata.asImmutable(), new HashMap<>());
+            serializedModules.add(outputStream.toByteArray());
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void measureHeapBeforeRead() {
+        readModules = new ArrayList<>(moduleCount);
+        heapBeforeRead = usedHeapAfterGc();
+    }
+
+    @Benchmark
+    public List<MutableModuleComponentResolveMetadata> readAllModules() throws IOException {
+        for (byte[] serializedModule : serializedModules) {
+            readModules.add(serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(serializedModule)), moduleIdentifierFactory, new HashMap<>()));
+        }
+        return readModules;
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportRetainedHeap() {
+        long retained = usedHeapAfterGc() - heapBeforeRead;
+        System.out.printf("%nRetained heap for %d modules (interning=%s): %d KB%n", readModules.size(), interning, retained / 1024);
+        readModules = null;
+    }
+
+    private long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private ModuleIdentifier module(int index) {
+        return moduleIdentifierFactory.module("org.example.group" + (index % 100), "module" + index);
+    }
+
+    private static class NonInterningMetadataInterner extends ModuleMetadataInterner {
+        @Override
+        public ModuleComponentIdentifier intern(ModuleComponentIdentifier componentIdentifier) {
+            return componentIdentifier;
+        }
+
+        @Override
+        public ModuleComponentSelector intern(ModuleComponentSelector selector) {
+            return selector;
+        }
+
+        @Override
+        public <T extends ExternalDependencyDescriptor> T intern(T dependency) {
+            return dependency;
+        }
+
+        @Override
+        public CapabilityInternal intern(CapabilityInternal capability) {
+            return capability;
+        }
+
+        @Override
+        public ExcludeMetadata intern(ExcludeMetadata exclude) {
+            return exclude;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes;
+
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.bitsets.BitSetExcludeFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories.ExcludeFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories.NormalizingExcludeFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories.OptimizingExcludeFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.simple.DefaultExcludeFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeSpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the exclude engines on the shape of excludes recorded from a real build with {@code ExcludeJsonLogToCode}:
+ * a union of 62 excludes, mostly of module ids, which is combined with a union reached through another path of the graph.
+ *
+ * The engines are measured without the caching factory, which would otherwise hide the cost of combining excludes.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ExcludeFactoryBenchmark {
+    // Excludes of module ids, written as group:name, where * stands for any group or any name
+    private static final String[] RECORDED_EXCLUDES = {
+        "shake:grain", "root:rain", "cover:cover", "crib:lunchroom", "root:sort", "crib:building",
+        "fact:grass", "crib:planes", "stove:pull", "calculator:suggestion", "beginner:plough", "insurance:hat",
+        "toys:plant", "trail:wing", "ring:desk", "yak:teaching", "street:cattle", "sun:*",
+        "crib:wealth", "cabbage:playground", "wren:flowers", "insurance:cobweb", "crib:shame", "plate:authority",
+        "stove:cave", "floor:shelf", "snakes:snakes", "crib:ants", "comparison:comparison", "quicksand:eyes",
+        "crib:thumb", "*:church", "needle:celery", "crib:competition", "metal:box", "root:industry",
+        "brother:*", "crib:deer", "root:waves", "advice:acoustics", "ring:nut", "store:finger",
+        "plate:null", "crib:word65", "stove:word66", "word67:word68", "word69:word70", "word69:word71",
+        "shake:finger", "word72:word73", "crib:word74", "word75:word76", "word77:word78", "word79:word80",
+        "stove:word81", "word82:word83", "word84:word85", "stove:word86", "root:word87", "root:word88",
+        "root:word89", "root:word90"
+    };
+
+    @Param({"normalizing", "bitset"})
+    String engine;
+
+    private ExcludeFactory factory;
+    private Set<ExcludeSpec> recordedOperands;
+    private ExcludeSpec recordedUnion;
+    private ExcludeSpec otherUnion;
+    private ExcludeSpec intersection;
+    private List<ModuleIdentifier> candidates;
+
+    @Setup
+    public void setUp() {
+        DefaultExcludeFactory leaves = new DefaultExcludeFactory();
+        factory = new OptimizingExcludeFactory("bitset".equals(engine) ? new BitSetExcludeFactory(leaves) : new NormalizingExcludeFactory(leaves));
+
+        recordedOperands = new LinkedHashSet<>();
+        Set<ExcludeSpec> otherOperands = new LinkedHashSet<>();
+        candidates = new ArrayList<>();
+        for (int i = 0; i < RECORDED_EXCLUDES.length; i++) {
+            String[] parts = RECORDED_EXCLUDES[i].split(":");
+            ExcludeSpec operand = toExclude(parts[0], parts[1]);
+            recordedOperands.add(operand);
+            // The other path of the graph shares half of the excludes
+            if (i % 2 == 0) {
+                otherOperands.add(operand);
+            }
+            candidates.add(DefaultModuleIdentifier.newId(parts[0].replace("*", "other"), parts[1].replace("*", "other")));
+            candidates.add(DefaultModuleIdentifier.newId(parts[0].replace("*", "other"), "not-excluded"));
+        }
+        otherOperands.add(factory.group("crib"));
+        otherOperands.add(factory.moduleSet(new LinkedHashSet<>(Arrays.asList("church", "finger", "grain"))));
+
+        recordedUnion = factory.anyOf(recordedOperands);
+        otherUnion = factory.anyOf(otherOperands);
+        intersection = factory.allOf(recordedUnion, otherUnion);
+    }
+
+    private ExcludeSpec toExclude(String group, String name) {
+        if (group.equals("*")) {
+            return factory.module(name);
+        }
+        if (name.equals("*")) {
+            return factory.group(group);
+        }
+        return factory.moduleId(DefaultModuleIdentifier.newId(group, name));
+    }
+
+    @Benchmark
+    public ExcludeSpec unionOfRecordedExcludes() {
+        return factory.anyOf(recordedOperands);
+    }
+
+    @Benchmark
+    public ExcludeSpec unionOneByOne() {
+        // Excludes are usually added one edge at a time while traversing the graph
+        ExcludeSpec result = factory.nothing();
+        for (ExcludeSpec operand : recordedOperands) {
+            result = factory.anyOf(result, operand);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public ExcludeSpec intersectionWithOtherPath() {
+        return factory.allOf(recordedUnion, otherUnion);
+    }
+
+    @Benchmark
+    public void evaluateUnion(Blackhole blackhole) {
+        for (ModuleIdentifier candidate : candidates) {
+            blackhole.consume(recordedUnion.excludes(candidate));
+        }
+    }
+
+    @Benchmark
+    public void evaluateIntersection(Blackhole blackhole) {
+        for (ModuleIdentifier candidate : candidates) {
+            blackhole.consume(intersection.excludes(candidate));
+        }
+    }
+}
@@ -34,4 +34,11 @@ public interface ComponentMetadataProcessorFactory {
      * @return a {@code ComponentMetadataProcessor}
      */
     ComponentMetadataProcessor createComponentMetadataProcessor(MetadataResolutionContext resolutionContext);
+
+    /**
+     * Returns whether the processors created by this factory may apply component metadata rules, in addition to the variant derivation strategy.
+     */
+    default boolean hasRules() {
+        return true;
+    }
 }
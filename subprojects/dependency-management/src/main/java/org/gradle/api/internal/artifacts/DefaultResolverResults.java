@@ -31,6 +31,20 @@ public class DefaultResolverResults implements ResolverResults {
     private ResolvedLocalComponentsResult resolvedLocalComponentsResult;
     private Object artifactResolveState;
     private VisitedArtifactSet visitedArtifacts;
+    private final boolean artifactsRequested;
+
+    public DefaultResolverResults() {
+        this(true);
+    }
+
+    public DefaultResolverResults(boolean artifactsRequested) {
+        this.artifactsRequested = artifactsRequested;
+    }
+
+    @Override
+    public boolean isArtifactsRequested() {
+        return artifactsRequested;
+    }
 
     @Override
     public boolean hasError() {
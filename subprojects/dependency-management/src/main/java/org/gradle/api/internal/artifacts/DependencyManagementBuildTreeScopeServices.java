@@ -18,6 +18,7 @@
 
 import org.gradle.StartParameter;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolutionResultsStoreFactory;
+import org.gradle.api.internal.attributes.AttributeMatchingDecisionCache;
 import org.gradle.api.internal.file.TemporaryFileProvider;
 import org.gradle.util.BuildCommencedTimeProvider;
 
@@ -32,4 +33,8 @@ BuildCommencedTimeProvider createBuildTimeProvider(StartParameter startParameter
     ResolutionResultsStoreFactory createResolutionResultsStoreFactory(TemporaryFileProvider temporaryFileProvider) {
         return new ResolutionResultsStoreFactory(temporaryFileProvider);
     }
+
+    AttributeMatchingDecisionCache createAttributeMatchingDecisionCache() {
+        return new AttributeMatchingDecisionCache();
+    }
 }
@@ -57,6 +57,7 @@
 import org.gradle.api.tasks.PathSensitive;
 import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory;
 import org.gradle.cache.internal.ProducerGuard;
+import org.gradle.internal.component.external.model.ModuleMetadataInterner;
 import org.gradle.internal.component.external.model.PreferJavaRuntimeVariant;
 import org.gradle.internal.instantiation.InstantiationScheme;
 import org.gradle.internal.instantiation.InstantiatorFactory;
@@ -80,6 +81,10 @@ ImmutableModuleIdentifierFactory createModuleIdentifierFactory() {
         return new DefaultImmutableModuleIdentifierFactory();
     }
 
+    ModuleMetadataInterner createModuleMetadataInterner() {
+        return new ModuleMetadataInterner();
+    }
+
     NotationParser<Object, ComponentSelector> createComponentSelectorFactory(ImmutableModuleIdentifierFactory moduleIdentifierFactory, CrossBuildInMemoryCacheFactory cacheFactory) {
         return NotationParserBuilder
             .toType(ComponentSelector.class)
@@ -16,11 +16,13 @@
 
 package org.gradle.api.internal.artifacts;
 
+import org.apache.commons.lang.StringUtils;
 import org.gradle.BuildAdapter;
 import org.gradle.BuildResult;
 import org.gradle.api.internal.DocumentationRegistry;
 import org.gradle.api.internal.artifacts.ivyservice.ArtifactCachesProvider;
 import org.gradle.api.internal.artifacts.ivyservice.DefaultArtifactCaches;
+import org.gradle.api.internal.artifacts.ivyservice.PackedArtifactCacheWriter;
 import org.gradle.api.internal.artifacts.transform.ImmutableTransformationWorkspaceServices;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.changedetection.state.DefaultExecutionHistoryCacheAccess;
@@ -37,6 +39,8 @@
 import org.gradle.internal.file.FileAccessTimeJournal;
 import org.gradle.internal.service.ServiceRegistry;
 
+import java.io.File;
+
 public class DependencyManagementGradleUserHomeScopeServices {
 
     DefaultArtifactCaches.WritableArtifactCacheLockingParameters createWritableArtifactCacheLockingParameters(FileAccessTimeJournal fileAccessTimeJournal, UsedGradleVersions usedGradleVersions) {
@@ -65,6 +69,14 @@ public void buildFinished(BuildResult result) {
                 artifactCachesProvider.getWritableCacheLockingManager().useCache(() -> {
                     // forces cleanup even if cache wasn't used
                 });
+                artifactCachesProvider.markPackedReadOnlyCacheAccessed();
+                String packFile = System.getProperty(PackedArtifactCacheWriter.PACK_TO_PROPERTY);
+                if (StringUtils.isNotEmpty(packFile)) {
+                    // Hold the lock so that other builds do not change the cache while it is packed
+                    artifactCachesProvider.getWritableCacheLockingManager().withFileLock(() -> {
+                        PackedArtifactCacheWriter.write(artifactCachesProvider.getWritableCacheMetadata().getCacheDir().getParentFile(), new File(packFile));
+                    });
+                }
             }
         });
         return artifactCachesProvider;
@@ -24,6 +24,11 @@
 import javax.annotation.Nullable;
 
 public interface ResolverResults {
+    /**
+     * Returns true when the artifacts are known to be required, in addition to the dependency graph resolve result.
+     */
+    boolean isArtifactsRequested();
+
     boolean hasError();
 
     /**
@@ -631,7 +631,7 @@ public ResolveState call(BuildOperationContext context) {
                 ResolvableDependenciesInternal incoming = (ResolvableDependenciesInternal) getIncoming();
                 performPreResolveActions(incoming);
                 maybeConfigureConsistentResolution();
-                DefaultResolverResults results = new DefaultResolverResults();
+                DefaultResolverResults results = new DefaultResolverResults(requestedState == ARTIFACTS_RESOLVED);
                 resolver.resolveGraph(DefaultConfiguration.this, results);
                 dependenciesModified = false;
 
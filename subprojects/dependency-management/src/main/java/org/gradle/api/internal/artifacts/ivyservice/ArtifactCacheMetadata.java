@@ -44,6 +44,11 @@ public interface ArtifactCacheMetadata {
      */
     File getMetaDataStoreDirectory();
 
+    /**
+     * Returns the root directory for the resolved dependency graphs store.
+     */
+    File getResolvedGraphStoreDirectory();
+
     /**
      * Returns the root directory for the transforms cache.
      */
@@ -30,6 +30,11 @@ public interface ArtifactCachesProvider extends Closeable, GlobalCache {
     ArtifactCacheLockingManager getWritableCacheLockingManager();
     Optional<ArtifactCacheLockingManager> getReadOnlyCacheLockingManager();
 
+    /**
+     * Returns the packed snapshot the read-only cache is extracted from, if the read-only cache is a packed snapshot.
+     */
+    Optional<PackedArtifactCache> getPackedReadOnlyCache();
+
     default <T> T withWritableCache(BiFunction<? super ArtifactCacheMetadata, ? super ArtifactCacheLockingManager, T> function) {
         return function.apply(getWritableCacheMetadata(), getWritableCacheLockingManager());
     }
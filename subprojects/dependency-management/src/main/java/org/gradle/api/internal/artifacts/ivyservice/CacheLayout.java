@@ -70,11 +70,13 @@ public enum CacheLayout {
         .changedTo(82, "6.0-rc-2")
         .changedTo(95, "6.1-rc-1")
         .changedTo(96, "6.4-rc-1")
-        .changedTo(97, "6.8-rc-1")
+        .changedTo(98, "6.8-rc-1")
     ),
 
     RESOURCES(ROOT, "resources", introducedIn("1.9-rc-1")),
 
+    RESOLVED_GRAPHS(ROOT, "resolved-graphs", introducedIn("6.8-rc-1")),
+
     TRANSFORMS(null, "transforms", introducedIn("3.5-rc-1")
         .changedTo(2, "5.1")
         .changedTo(3, "6.8-rc-1"));
@@ -66,6 +66,11 @@ public File getMetaDataStoreDirectory() {
         return new File(createCacheRelativeDir(CacheLayout.META_DATA), "descriptors");
     }
 
+    @Override
+    public File getResolvedGraphStoreDirectory() {
+        return createCacheRelativeDir(CacheLayout.RESOLVED_GRAPHS);
+    }
+
     private File createCacheRelativeDir(CacheLayout cacheLayout) {
         return cacheLayout.getPath(getCacheDir());
     }
@@ -20,12 +20,19 @@
 import org.gradle.api.internal.DocumentationRegistry;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.cache.CacheBuilder;
 import org.gradle.cache.CacheRepository;
+import org.gradle.cache.FileLockManager;
+import org.gradle.cache.PersistentCache;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.internal.CacheScopeMapping;
+import org.gradle.cache.internal.LeastRecentlyUsedCacheCleanup;
+import org.gradle.cache.internal.SingleDepthFilesFinder;
 import org.gradle.cache.internal.UsedGradleVersions;
+import org.gradle.cache.internal.VersionStrategy;
 import org.gradle.internal.Factory;
 import org.gradle.internal.file.FileAccessTimeJournal;
+import org.gradle.internal.hash.Hashing;
 import org.gradle.internal.serialize.Serializer;
 import org.gradle.util.IncubationLogger;
 
@@ -35,27 +42,49 @@
 import java.util.List;
 import java.util.Optional;
 
+import static org.gradle.cache.internal.LeastRecentlyUsedCacheCleanup.DEFAULT_MAX_AGE_IN_DAYS_FOR_EXTERNAL_CACHE_ENTRIES;
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
 public class DefaultArtifactCaches implements ArtifactCachesProvider {
     private final static Logger LOGGER = Logging.getLogger(DefaultArtifactCaches.class);
+    private static final String PACK_EXTRACTION_CACHE_KEY = "packed-dependency-caches";
 
     private final DefaultArtifactCacheMetadata writableCacheMetadata;
     private final DefaultArtifactCacheMetadata readOnlyCacheMetadata;
     private final LateInitWritableArtifactCacheLockingManager writableArtifactCacheLockingManager;
     private final ReadOnlyArtifactCacheLockingManager readOnlyArtifactCacheLockingManager;
+    private final PackedArtifactCache packedReadOnlyCache;
+    private final PersistentCache packExtractionCache;
+    private final Factory<WritableArtifactCacheLockingParameters> writableArtifactCacheLockingParametersFactory;
 
     public DefaultArtifactCaches(CacheScopeMapping cacheScopeMapping,
                                  CacheRepository cacheRepository,
                                  Factory<WritableArtifactCacheLockingParameters> writableArtifactCacheLockingParametersFactory,
                                  DocumentationRegistry documentationRegistry) {
+        this.writableArtifactCacheLockingParametersFactory = writableArtifactCacheLockingParametersFactory;
         writableCacheMetadata = new DefaultArtifactCacheMetadata(cacheScopeMapping);
         writableArtifactCacheLockingManager = new LateInitWritableArtifactCacheLockingManager(() -> {
             WritableArtifactCacheLockingParameters params = writableArtifactCacheLockingParametersFactory.create();
             return new WritableArtifactCacheLockingManager(cacheRepository, writableCacheMetadata, params.getFileAccessTimeJournal(), params.getUsedGradleVersions());
         });
         String roCache = System.getenv(READONLY_CACHE_ENV_VAR);
-        if (StringUtils.isNotEmpty(roCache)) {
+        File packsDir = cacheScopeMapping.getBaseDirectory(null, PACK_EXTRACTION_CACHE_KEY, VersionStrategy.SharedCache);
+        File roCacheFile = StringUtils.isNotEmpty(roCache) ? new File(roCache).getAbsoluteFile() : null;
+        boolean packed = roCacheFile != null && PackedArtifactCache.isPacked(roCacheFile);
+        // Also open the cache when no pack is used anymore, so that the extracted packs get cleaned up
+        packExtractionCache = packed || packsDir.isDirectory() ? openPackExtractionCache(cacheRepository, packsDir) : null;
+        if (roCacheFile != null) {
             IncubationLogger.incubatingFeatureUsed("Shared read-only dependency cache");
-            File baseDir = validateReadOnlyCache(documentationRegistry, new File(roCache).getAbsoluteFile());
+            if (packed) {
+                File packFile = roCacheFile;
+                File extractionDir = new File(packsDir, packKey(packFile));
+                // Builds using the same pack extract it to the same directory
+                packedReadOnlyCache = packExtractionCache.withFileLock(() -> PackedArtifactCache.open(packFile, extractionDir));
+                roCacheFile = extractionDir;
+            } else {
+                packedReadOnlyCache = null;
+            }
+            File baseDir = validateReadOnlyCache(documentationRegistry, roCacheFile);
             if (baseDir != null) {
                 readOnlyCacheMetadata = new DefaultArtifactCacheMetadata(cacheScopeMapping, baseDir);
                 readOnlyArtifactCacheLockingManager = new ReadOnlyArtifactCacheLockingManager(cacheRepository, readOnlyCacheMetadata);
@@ -66,6 +95,38 @@ public DefaultArtifactCaches(CacheScopeMapping cacheScopeMapping,
         } else {
             readOnlyCacheMetadata = null;
             readOnlyArtifactCacheLockingManager = null;
+            packedReadOnlyCache = null;
+        }
+    }
+
+    private PersistentCache openPackExtractionCache(CacheRepository cacheRepository, File packsDir) {
+        return cacheRepository
+            .cache(packsDir)
+            .withCrossVersionCache(CacheBuilder.LockTarget.DefaultTarget)
+            .withDisplayName("Extracted packed dependency caches")
+            .withCleanup((cleanableStore, progressMonitor) -> {
+                FileAccessTimeJournal journal = writableArtifactCacheLockingParametersFactory.create().getFileAccessTimeJournal();
+                long maxAgeInDays = Long.getLong("org.gradle.internal.cleanup.external.max.age", DEFAULT_MAX_AGE_IN_DAYS_FOR_EXTERNAL_CACHE_ENTRIES);
+                new LeastRecentlyUsedCacheCleanup(new SingleDepthFilesFinder(1), journal, maxAgeInDays).clean(cleanableStore, progressMonitor);
+            })
+            .withLockOptions(mode(FileLockManager.LockMode.OnDemand)) // Lock on demand
+            .open();
+    }
+
+    /**
+     * Each version of a packed cache is extracted to its own directory, shared by the builds using it.
+     */
+    private static String packKey(File packFile) {
+        return Hashing.hashString(packFile.getAbsolutePath() + ":" + packFile.length() + ":" + packFile.lastModified()).toString();
+    }
+
+    /**
+     * Records that the packed read-only cache has been used by a build, so that its extraction directory is not cleaned up.
+     */
+    public void markPackedReadOnlyCacheAccessed() {
+        if (packedReadOnlyCache != null) {
+            FileAccessTimeJournal journal = writableArtifactCacheLockingParametersFactory.create().getFileAccessTimeJournal();
+            journal.setLastAccessTime(packedReadOnlyCache.getExtractionDir(), System.currentTimeMillis());
         }
     }
 
@@ -97,6 +158,11 @@ public Optional<ArtifactCacheMetadata> getReadOnlyCacheMetadata() {
         return Optional.ofNullable(readOnlyCacheMetadata);
     }
 
+    @Override
+    public Optional<PackedArtifactCache> getPackedReadOnlyCache() {
+        return Optional.ofNullable(packedReadOnlyCache);
+    }
+
     @Override
     public ArtifactCacheLockingManager getWritableCacheLockingManager() {
         return writableArtifactCacheLockingManager;
@@ -120,6 +186,9 @@ public void close() {
         if (readOnlyArtifactCacheLockingManager != null) {
             readOnlyArtifactCacheLockingManager.close();
         }
+        if (packExtractionCache != null) {
+            packExtractionCache.close();
+        }
     }
 
     public interface WritableArtifactCacheLockingParameters {
@@ -17,13 +17,18 @@
 package org.gradle.api.internal.artifacts.ivyservice;
 
 import com.google.common.collect.ImmutableList;
+import org.gradle.api.artifacts.Dependency;
 import org.gradle.api.artifacts.ProjectDependency;
+import org.gradle.api.artifacts.ResolveException;
 import org.gradle.api.artifacts.UnresolvedDependency;
 import org.gradle.api.artifacts.component.BuildIdentifier;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.result.ResolutionResult;
 import org.gradle.api.artifacts.result.ResolvedComponentResult;
 import org.gradle.api.internal.artifacts.ArtifactDependencyResolver;
 import org.gradle.api.internal.artifacts.ComponentSelectorConverter;
 import org.gradle.api.internal.artifacts.ConfigurationResolver;
+import org.gradle.api.internal.artifacts.DefaultResolverResults;
 import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules;
 import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
 import org.gradle.api.internal.artifacts.RepositoriesSupplier;
@@ -35,6 +40,8 @@
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.BuildDependenciesOnlyVisitedArtifactSet;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultResolvedArtifactsBuilder;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.SelectedArtifactSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.VisitedArtifactSet;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.VisitedArtifactsResults;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.VisitedFileDependencyResults;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.CompositeDependencyArtifactsVisitor;
@@ -54,12 +61,16 @@
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.FileDependencyCollectingGraphVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.StreamingResolutionResultBuilder;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolutionResultsStoreFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolvedGraphCache;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.StoreSet;
 import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
 import org.gradle.api.internal.artifacts.transform.ArtifactTransforms;
 import org.gradle.api.internal.artifacts.type.ArtifactTypeRegistry;
+import org.gradle.api.internal.attributes.AttributeContainerInternal;
 import org.gradle.api.internal.attributes.AttributeDesugaring;
 import org.gradle.api.internal.attributes.AttributesSchemaInternal;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.specs.Specs;
 import org.gradle.cache.internal.BinaryStore;
@@ -67,14 +78,18 @@
 import org.gradle.internal.Cast;
 import org.gradle.internal.component.local.model.DslOriginDependencyMetadata;
 import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.lazy.Lazy;
 import org.gradle.internal.locking.DependencyLockingArtifactVisitor;
 import org.gradle.internal.operations.BuildOperationExecutor;
 
+import javax.annotation.Nullable;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
 public class DefaultConfigurationResolver implements ConfigurationResolver {
+    private static final Logger LOGGER = Logging.getLogger(DefaultConfigurationResolver.class);
     private static final Spec<DependencyMetadata> IS_LOCAL_EDGE = element -> element instanceof DslOriginDependencyMetadata && ((DslOriginDependencyMetadata) element).getSource() instanceof ProjectDependency;
     private final ArtifactDependencyResolver resolver;
     private final RepositoriesSupplier repositoriesSupplier;
@@ -92,6 +107,8 @@ public class DefaultConfigurationResolver implements ConfigurationResolver {
     private final AttributeDesugaring attributeDesugaring;
     private final DependencyVerificationOverride dependencyVerificationOverride;
     private final ComponentSelectionDescriptorFactory componentSelectionDescriptorFactory;
+    private final ResolvedGraphCache resolvedGraphCache;
+    private final ResolutionInputsFingerprinter inputsFingerprinter;
 
     public DefaultConfigurationResolver(ArtifactDependencyResolver resolver,
                                         RepositoriesSupplier repositoriesSupplier,
@@ -107,7 +124,9 @@ public DefaultConfigurationResolver(ArtifactDependencyResolver resolver,
                                         AttributeContainerSerializer attributeContainerSerializer,
                                         BuildIdentifier currentBuild, AttributeDesugaring attributeDesugaring,
                                         DependencyVerificationOverride dependencyVerificationOverride,
-                                        ComponentSelectionDescriptorFactory componentSelectionDescriptorFactory) {
+                                        ComponentSelectionDescriptorFactory componentSelectionDescriptorFactory,
+                                        ResolvedGraphCache resolvedGraphCache,
+                                        ResolutionInputsFingerprinter inputsFingerprinter) {
         this.resolver = resolver;
         this.repositoriesSupplier = repositoriesSupplier;
         this.metadataHandler = metadataHandler;
@@ -124,6 +143,8 @@ public DefaultConfigurationResolver(ArtifactDependencyResolver resolver,
         this.attributeDesugaring = attributeDesugaring;
         this.dependencyVerificationOverride = dependencyVerificationOverride;
         this.componentSelectionDescriptorFactory = componentSelectionDescriptorFactory;
+        this.resolvedGraphCache = resolvedGraphCache;
+        this.inputsFingerprinter = inputsFingerprinter;
     }
 
     @Override
@@ -140,6 +161,42 @@ public void resolveBuildDependencies(ConfigurationInternal configuration, Resolv
     @Override
     public void resolveGraph(ConfigurationInternal configuration, ResolverResults results) {
         List<ResolutionAwareRepository> resolutionAwareRepositories = getRepositories();
+        if (results.isArtifactsRequested()) {
+            // A loaded graph has no artifacts, so it cannot be used here. Don't bother storing the graph either, as it would only be used by a later
+            // resolution which does not require the artifacts, and that resolution stores the graph itself
+            resolveGraph(configuration, resolutionAwareRepositories, null, results);
+            return;
+        }
+        HashCode cacheKey = inputsFingerprinter.fingerprint(configuration, resolutionAwareRepositories);
+        if (cacheKey != null && loadGraph(configuration, cacheKey, results)) {
+            return;
+        }
+        resolveGraph(configuration, resolutionAwareRepositories, cacheKey, results);
+    }
+
+    /**
+     * Attempts to use a graph resolved by an earlier build. Should the artifacts of the graph be required later, the graph is resolved again.
+     */
+    private boolean loadGraph(ConfigurationInternal configuration, HashCode cacheKey, ResolverResults results) {
+        StoreSet stores = storeFactory.createStoreSet();
+        BinaryStore store = stores.nextBinaryStore();
+        BinaryStore.BinaryData data = resolvedGraphCache.load(cacheKey, store);
+        if (data == null) {
+            return false;
+        }
+        StreamingResolutionResultBuilder newModelBuilder = new StreamingResolutionResultBuilder(store, stores.newModelCache(), moduleIdentifierFactory, attributeContainerSerializer, attributeDesugaring, componentSelectionDescriptorFactory);
+        ResolutionResult resolutionResult = newModelBuilder.load(data, attributeDesugaring.desugar(configuration.getAttributes().asImmutable()));
+        if (!inputsFingerprinter.isReusable(resolutionResult)) {
+            return false;
+        }
+        LOGGER.info("Reusing the resolved dependency graph of {} from an earlier build.", configuration.getDisplayName());
+        DeferredResolution deferredResolution = new DeferredResolution(configuration);
+        results.graphResolved(resolutionResult, new ResolvedLocalComponentsResultGraphVisitor(currentBuild), deferredResolution);
+        results.retainState(deferredResolution);
+        return true;
+    }
+
+    private void resolveGraph(ConfigurationInternal configuration, List<ResolutionAwareRepository> resolutionAwareRepositories, @Nullable HashCode cacheKey, ResolverResults results) {
         StoreSet stores = storeFactory.createStoreSet();
 
         BinaryStore oldModelStore = stores.nextBinaryStore();
@@ -149,6 +206,11 @@ public void resolveGraph(ConfigurationInternal configuration, ResolverResults re
         ResolvedConfigurationDependencyGraphVisitor oldModelVisitor = new ResolvedConfigurationDependencyGraphVisitor(oldModelBuilder);
 
         BinaryStore newModelStore = stores.nextBinaryStore();
+        ResolvedGraphCache.PendingEntry cacheEntry = null;
+        if (cacheKey != null) {
+            cacheEntry = resolvedGraphCache.newEntry(cacheKey, newModelStore);
+            newModelStore = cacheEntry;
+        }
         Store<ResolvedComponentResult> newModelCache = stores.newModelCache();
         StreamingResolutionResultBuilder newModelBuilder = new StreamingResolutionResultBuilder(newModelStore, newModelCache, moduleIdentifierFactory, attributeContainerSerializer, attributeDesugaring, componentSelectionDescriptorFactory);
 
@@ -158,7 +220,8 @@ public void resolveGraph(ConfigurationInternal configuration, ResolverResults re
         DefaultResolvedArtifactsBuilder artifactsBuilder = new DefaultResolvedArtifactsBuilder(buildProjectDependencies, resolutionStrategy.getSortOrder());
         FileDependencyCollectingGraphVisitor fileDependencyVisitor = new FileDependencyCollectingGraphVisitor();
         ResolutionFailureCollector failureCollector = new ResolutionFailureCollector(componentSelectorConverter);
-        DependencyGraphVisitor graphVisitor = new CompositeDependencyGraphVisitor(newModelBuilder, localComponentsVisitor, failureCollector);
+        ResolutionInputsFingerprinter.GraphVisitor cacheabilityVisitor = inputsFingerprinter.newGraphVisitor();
+        DependencyGraphVisitor graphVisitor = new CompositeDependencyGraphVisitor(newModelBuilder, localComponentsVisitor, failureCollector, cacheabilityVisitor);
 
         ImmutableList.Builder<DependencyArtifactsVisitor> visitors = new ImmutableList.Builder<>();
         visitors.add(oldModelVisitor);
@@ -187,6 +250,9 @@ public void resolveGraph(ConfigurationInternal configuration, ResolverResults re
             : lockingVisitor.collectLockingFailures();
         Set<UnresolvedDependency> failures = failureCollector.complete(extraFailures);
         results.graphResolved(newModelBuilder.complete(extraFailures), localComponentsVisitor, new BuildDependenciesOnlyVisitedArtifactSet(failures, artifactsResults, artifactTransforms, configuration.getDependenciesResolver()));
+        if (cacheEntry != null && failures.isEmpty() && cacheabilityVisitor.isCacheable()) {
+            cacheEntry.commit();
+        }
 
         results.retainState(new ArtifactResolveState(graphResults, artifactsResults, fileDependencyResults, failures, oldTransientModelBuilder));
         if (!results.hasError() && failures.isEmpty()) {
@@ -201,6 +267,13 @@ public List<ResolutionAwareRepository> getRepositories() {
 
     @Override
     public void resolveArtifacts(ConfigurationInternal configuration, ResolverResults results) {
+        Object state = results.getArtifactResolveState();
+        if (state instanceof DeferredResolution) {
+            ResolverResults fullResults = ((DeferredResolution) state).getFullResults();
+            resolveArtifacts(configuration, fullResults);
+            results.artifactsResolved(fullResults.getResolvedConfiguration(), fullResults.getVisitedArtifacts());
+            return;
+        }
         ArtifactResolveState resolveState = (ArtifactResolveState) results.getArtifactResolveState();
         ResolvedGraphResults graphResults = resolveState.graphResults;
         VisitedArtifactsResults artifactResults = resolveState.artifactsResults;
@@ -212,6 +285,34 @@ public void resolveArtifacts(ConfigurationInternal configuration, ResolverResult
         results.artifactsResolved(new DefaultResolvedConfiguration(result), result);
     }
 
+    /**
+     * Resolves the graph of a configuration whose resolution result was loaded from the {@link ResolvedGraphCache}, when the artifacts of the graph are required.
+     */
+    private class DeferredResolution implements VisitedArtifactSet {
+        private final Lazy<ResolverResults> fullResults;
+
+        DeferredResolution(ConfigurationInternal configuration) {
+            this.fullResults = Lazy.locking().of(() -> {
+                DefaultResolverResults results = new DefaultResolverResults();
+                try {
+                    resolveGraph(configuration, getRepositories(), null, results);
+                } catch (Exception e) {
+                    throw new ResolveException(configuration.getDisplayName(), e);
+                }
+                return results;
+            });
+        }
+
+        ResolverResults getFullResults() {
+            return fullResults.get();
+        }
+
+        @Override
+        public SelectedArtifactSet select(Spec<? super Dependency> dependencySpec, AttributeContainerInternal requestedAttributes, Spec<? super ComponentIdentifier> componentSpec, boolean allowNoMatchingVariant) {
+            return getFullResults().getVisitedArtifacts().select(dependencySpec, requestedAttributes, componentSpec, allowNoMatchingVariant);
+        }
+    }
+
     private static class ArtifactResolveState {
         final ResolvedGraphResults graphResults;
         final VisitedArtifactsResults artifactsResults;
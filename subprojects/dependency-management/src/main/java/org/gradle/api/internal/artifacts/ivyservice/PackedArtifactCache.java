@@ -0,0 +1,280 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.gradle.api.UncheckedIOException;
+
+import javax.annotation.Nullable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A snapshot of a dependency cache, packed into a single file by {@link PackedArtifactCacheWriter}, which can be used as
+ * the read-only dependency cache without first copying the whole cache.
+ *
+ * <p>The snapshot is extracted into a directory which is then used as a regular read-only cache. The cache indexes and metadata are
+ * extracted when the snapshot is opened, but the artifact files, which are most of the snapshot, are only extracted from the
+ * memory-mapped snapshot when they are first looked up.</p>
+ *
+ * <p>The layout of a snapshot is:</p>
+ * <ul>
+ *     <li>a header: the magic number, the format version and the offset of the index</li>
+ *     <li>the contents of the files, each distinct content being stored once</li>
+ *     <li>the index: for each file, its path relative to the cache base directory, its last modification time and the offset and length of its content</li>
+ * </ul>
+ *
+ * <p>A snapshot with a path which does not point into the extraction directory, for example because it contains {@code ..}, is rejected.</p>
+ */
+public class PackedArtifactCache {
+    static final int MAGIC = 0x47504143;
+    static final int VERSION = 1;
+    static final int HEADER_LENGTH = 16;
+
+    private final File packFile;
+    private final File extractionDir;
+    private final Path canonicalExtractionDir;
+    private final Map<String, Entry> entries;
+
+    private PackedArtifactCache(File packFile, File extractionDir, Map<String, Entry> entries) {
+        this.packFile = packFile;
+        this.extractionDir = extractionDir;
+        this.canonicalExtractionDir = canonicalize(extractionDir);
+        this.entries = entries;
+        for (String path : entries.keySet()) {
+            if (resolve(path) == null) {
+                throw new IllegalArgumentException(String.format("Packed dependency cache %s contains the file '%s', which is outside of the cache.", packFile, path));
+            }
+        }
+    }
+
+    /**
+     * Returns true if the given file is a packed cache snapshot.
+     */
+    public static boolean isPacked(File file) {
+        if (!file.isFile() || file.length() < HEADER_LENGTH) {
+            return false;
+        }
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(file.toPath()))) {
+            return input.readInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Opens the given snapshot, and extracts the files which are not lazily extracted to the given directory.
+     * The caller must hold a lock preventing other processes from extracting to the same directory meanwhile.
+     */
+    public static PackedArtifactCache open(File packFile, File extractionDir) {
+        PackedArtifactCache cache = new PackedArtifactCache(packFile, extractionDir, readIndex(packFile));
+        cache.extractEagerly();
+        return cache;
+    }
+
+    private static Map<String, Entry> readIndex(File packFile) {
+        try (FileChannel channel = FileChannel.open(packFile.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_LENGTH);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IllegalArgumentException("Unexpected format of packed dependency cache " + packFile);
+            }
+            long indexOffset = header.getLong();
+            DataInputStream index = new DataInputStream(new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, channel.size() - indexOffset)));
+            int count = index.readInt();
+            Map<String, Entry> entries = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String path = index.readUTF();
+                entries.put(path, new Entry(index.readLong(), index.readLong(), index.readLong()));
+            }
+            return entries;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read packed dependency cache " + packFile, e);
+        }
+    }
+
+    private void extractEagerly() {
+        File marker = new File(extractionDir, ".extracted");
+        if (marker.exists()) {
+            return;
+        }
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            if (!isExtractedLazily(entry.getKey())) {
+                extract(entry.getKey(), entry.getValue(), resolve(entry.getKey()));
+            }
+        }
+        try {
+            Files.createDirectories(extractionDir.toPath());
+            Files.write(marker.toPath(), new byte[0]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Artifacts and external resources are extracted when first looked up, everything else when the snapshot is opened.
+     */
+    private static boolean isExtractedLazily(String path) {
+        String prefix = CacheLayout.ROOT.getKey() + "/";
+        return path.startsWith(prefix + CacheLayout.FILE_STORE.getKey() + "/") || path.startsWith(prefix + CacheLayout.RESOURCES.getKey() + "/");
+    }
+
+    /**
+     * Returns the directory the snapshot is extracted to, which contains the read-only cache.
+     */
+    public File getExtractionDir() {
+        return extractionDir;
+    }
+
+    /**
+     * Makes sure that the given file of the read-only cache is available, extracting it from the snapshot if needed.
+     *
+     * @return true if the file is available.
+     */
+    public boolean makeAvailable(File file) {
+        if (file.exists()) {
+            return true;
+        }
+        String path = relativePath(file);
+        Entry entry = path == null ? null : entries.get(path);
+        if (entry == null) {
+            return false;
+        }
+        extract(path, entry, resolve(path));
+        return true;
+    }
+
+    @Nullable
+    private String relativePath(File file) {
+        Path path = canonicalize(file);
+        if (!path.startsWith(canonicalExtractionDir) || path.equals(canonicalExtractionDir)) {
+            return null;
+        }
+        return canonicalExtractionDir.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Returns the file for the given path of the snapshot, or null when the path points outside of the extraction directory.
+     */
+    @Nullable
+    private File resolve(String path) {
+        Path file = canonicalExtractionDir.resolve(path).normalize();
+        if (!file.startsWith(canonicalExtractionDir) || file.equals(canonicalExtractionDir)) {
+            return null;
+        }
+        return file.toFile();
+    }
+
+    private static Path canonicalize(File file) {
+        try {
+            return file.getCanonicalFile().toPath();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void extract(String path, Entry entry, File target) {
+        if (target.exists()) {
+            return;
+        }
+        // Extract to a temporary file first, so that concurrent builds never see a partially extracted file
+        File temp = new File(target.getParentFile(), target.getName() + "." + UUID.randomUUID() + ".part");
+        try (FileChannel channel = FileChannel.open(packFile.toPath(), StandardOpenOption.READ)) {
+            Files.createDirectories(target.getParentFile().toPath());
+            try (OutputStream output = Files.newOutputStream(temp.toPath())) {
+                long offset = entry.offset;
+                long remaining = entry.length;
+                byte[] buffer = new byte[(int) Math.min(remaining, 64 * 1024)];
+                while (remaining > 0) {
+                    int chunk = (int) Math.min(remaining, Integer.MAX_VALUE);
+                    ByteBuffer content = channel.map(FileChannel.MapMode.READ_ONLY, offset, chunk);
+                    while (content.hasRemaining()) {
+                        int count = Math.min(buffer.length, content.remaining());
+                        content.get(buffer, 0, count);
+                        output.write(buffer, 0, count);
+                    }
+                    offset += chunk;
+                    remaining -= chunk;
+                }
+            }
+            if (!temp.setLastModified(entry.lastModified)) {
+                throw new IOException("Could not set the modification time of " + temp);
+            }
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            temp.delete();
+            throw new UncheckedIOException("Could not extract " + path + " from packed dependency cache " + packFile, e);
+        }
+    }
+
+    private static class Entry {
+        private final long lastModified;
+        private final long offset;
+        private final long length;
+
+        private Entry(long lastModified, long offset, long length) {
+            this.lastModified = lastModified;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long count) {
+            int skipped = (int) Math.min(count, buffer.remaining());
+            ((Buffer) buffer).position(buffer.position() + skipped);
+            return skipped;
+        }
+    }
+}
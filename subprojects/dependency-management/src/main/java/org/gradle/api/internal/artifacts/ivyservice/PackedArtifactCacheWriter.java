@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.hash.HashingOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Packs a warm dependency cache into a single file which can be used as a {@link PackedArtifactCache}.
+ *
+ * <p>A build packs the writable dependency cache when it finishes if the {@value #PACK_TO_PROPERTY} system property is set to the path of the pack to write.</p>
+ */
+public class PackedArtifactCacheWriter {
+    public static final String PACK_TO_PROPERTY = "org.gradle.internal.dependency-cache.pack-to";
+
+    /**
+     * Packs the dependency cache in the given base directory, which is the directory containing the {@code modules-2} directory.
+     * Only the dependency cache is packed, not the other caches in the directory.
+     */
+    public static void write(File cacheBaseDir, File packFile) {
+        // Write to a temporary file first, so that builds using the pack never see a partially written pack
+        File tempFile = new File(packFile.getAbsoluteFile().getParentFile(), packFile.getName() + ".part");
+        try {
+            Files.createDirectories(tempFile.getParentFile().toPath());
+            writePack(cacheBaseDir, tempFile);
+            Files.move(tempFile.toPath(), packFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not pack dependency cache " + cacheBaseDir + " to " + packFile, e);
+        } finally {
+            tempFile.delete();
+        }
+    }
+
+    private static void writePack(File cacheBaseDir, File packFile) throws IOException {
+        Path root = cacheBaseDir.toPath();
+        try (RandomAccessFile output = new RandomAccessFile(packFile, "rw")) {
+            output.setLength(0);
+            output.seek(PackedArtifactCache.HEADER_LENGTH);
+            OutputStream contents = Channels.newOutputStream(output.getChannel());
+
+            // Each distinct content is written once, so that files with the same content share it
+            Map<HashCode, long[]> writtenContents = new HashMap<>();
+            Map<String, long[]> entries = new LinkedHashMap<>();
+            for (Path file : listFiles(CacheLayout.ROOT.getPath(cacheBaseDir).toPath())) {
+                HashCode hash = hash(file);
+                long[] content = writtenContents.get(hash);
+                if (content == null) {
+                    long offset = output.getFilePointer();
+                    Files.copy(file, contents);
+                    content = new long[]{offset, output.getFilePointer() - offset};
+                    writtenContents.put(hash, content);
+                }
+                String path = root.relativize(file).toString().replace(File.separatorChar, '/');
+                entries.put(path, new long[]{Files.getLastModifiedTime(file).toMillis(), content[0], content[1]});
+            }
+
+            long indexOffset = output.getFilePointer();
+            DataOutputStream index = new DataOutputStream(new BufferedOutputStream(contents));
+            index.writeInt(entries.size());
+            for (Map.Entry<String, long[]> entry : entries.entrySet()) {
+                index.writeUTF(entry.getKey());
+                for (long value : entry.getValue()) {
+                    index.writeLong(value);
+                }
+            }
+            index.flush();
+
+            output.seek(0);
+            output.writeInt(PackedArtifactCache.MAGIC);
+            output.writeInt(PackedArtifactCache.VERSION);
+            output.writeLong(indexOffset);
+        }
+    }
+
+    private static List<Path> listFiles(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files
+                .filter(Files::isRegularFile)
+                .filter(file -> !file.getFileName().toString().endsWith(".lck"))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    private static HashCode hash(Path file) throws IOException {
+        HashingOutputStream hasher = Hashing.primitiveStreamHasher();
+        Files.copy(file, hasher);
+        return hasher.hash();
+    }
+}
@@ -0,0 +1,473 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import com.google.common.collect.Ordering;
+import org.gradle.api.Action;
+import org.gradle.api.artifacts.ClientModule;
+import org.gradle.api.artifacts.Dependency;
+import org.gradle.api.artifacts.DependencyArtifact;
+import org.gradle.api.artifacts.DependencyConstraint;
+import org.gradle.api.artifacts.ExcludeRule;
+import org.gradle.api.artifacts.ExternalModuleDependency;
+import org.gradle.api.artifacts.FileCollectionDependency;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.VersionConstraint;
+import org.gradle.api.artifacts.component.BuildIdentifier;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.artifacts.result.ResolutionResult;
+import org.gradle.api.artifacts.result.ResolvedComponentResult;
+import org.gradle.api.attributes.Attribute;
+import org.gradle.api.attributes.AttributeContainer;
+import org.gradle.api.capabilities.Capability;
+import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules;
+import org.gradle.api.internal.artifacts.Module;
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData;
+import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal;
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.dependencies.DefaultDependencyConstraint;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.verification.DependencyVerificationOverride;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphComponent;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphSelector;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.RootGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolvedGraphCache;
+import org.gradle.api.internal.artifacts.repositories.ContentFilteringRepository;
+import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
+import org.gradle.api.internal.artifacts.repositories.descriptor.RepositoryDescriptor;
+import org.gradle.api.internal.attributes.AttributesSchemaInternal;
+import org.gradle.api.internal.attributes.CompatibilityRule;
+import org.gradle.api.internal.attributes.DefaultOrderedCompatibilityRule;
+import org.gradle.api.internal.attributes.DefaultOrderedDisambiguationRule;
+import org.gradle.api.internal.attributes.DisambiguationRule;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.Actions;
+import org.gradle.internal.action.ConfigurableRule;
+import org.gradle.internal.component.model.ComponentResolveMetadata;
+import org.gradle.internal.hash.ClassLoaderHierarchyHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.util.GradleVersion;
+
+import javax.annotation.Nullable;
+import java.net.URI;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Calculates the key of the inputs of the dependency graph resolution of a configuration, so that a graph resolved by an earlier build can be reused from the {@link ResolvedGraphCache}.
+ *
+ * <p>A key is only calculated when all the inputs that can change the resolved graph are known. Rules implemented by build logic, such as dependency substitution rules
+ * or component metadata rules, cannot be hashed, so configurations which are affected by any such rule are always resolved. The compatibility and disambiguation rules
+ * of the attributes schema are hashed using the implementation of their class and their parameters. The graph itself is only cached when it
+ * does not contain project components, dynamic versions or changing modules, which is checked by the visitor returned from {@link #newGraphVisitor()}.</p>
+ */
+public class ResolutionInputsFingerprinter {
+    private static final Logger LOGGER = Logging.getLogger(ResolutionInputsFingerprinter.class);
+
+    private final GlobalDependencyResolutionRules metadataHandler;
+    private final DependencyVerificationOverride dependencyVerificationOverride;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final AttributesSchemaInternal attributesSchema;
+    private final ClassLoaderHierarchyHasher classLoaderHierarchyHasher;
+    private final BuildIdentifier currentBuild;
+    private final boolean refreshDependencies;
+
+    public ResolutionInputsFingerprinter(GlobalDependencyResolutionRules metadataHandler,
+                                         DependencyVerificationOverride dependencyVerificationOverride,
+                                         VersionSelectorScheme versionSelectorScheme,
+                                         AttributesSchemaInternal attributesSchema,
+                                         ClassLoaderHierarchyHasher classLoaderHierarchyHasher,
+                                         BuildIdentifier currentBuild,
+                                         boolean refreshDependencies) {
+        this.metadataHandler = metadataHandler;
+        this.dependencyVerificationOverride = dependencyVerificationOverride;
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.attributesSchema = attributesSchema;
+        this.classLoaderHierarchyHasher = classLoaderHierarchyHasher;
+        this.currentBuild = currentBuild;
+        this.refreshDependencies = refreshDependencies;
+    }
+
+    /**
+     * Returns the key of the resolution inputs of the given configuration, or null when the resolved graph of the configuration cannot be reused.
+     */
+    @Nullable
+    public HashCode fingerprint(ConfigurationInternal configuration, List<ResolutionAwareRepository> repositories) {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putString(GradleVersion.current().getVersion());
+        appendRules(configuration.getResolutionStrategy(), hasher);
+        if (hasher.isValid()) {
+            appendAttributesSchema(hasher);
+        }
+        if (hasher.isValid()) {
+            appendRepositories(repositories, hasher);
+        }
+        if (hasher.isValid()) {
+            appendConfiguration(configuration, hasher);
+        }
+        if (!hasher.isValid()) {
+            LOGGER.debug("Cannot reuse the resolved graph of {}: {}.", configuration.getDisplayName(), hasher.getInvalidReason());
+            return null;
+        }
+        return hasher.hash();
+    }
+
+    /**
+     * Returns a visitor which determines whether a resolved graph can be cached.
+     */
+    public GraphVisitor newGraphVisitor() {
+        return new GraphVisitor();
+    }
+
+    /**
+     * Checks that a graph loaded from the cache is not affected by rules that have been added since the graph was resolved.
+     */
+    public boolean isReusable(ResolutionResult result) {
+        ModuleReplacementsData moduleReplacements = metadataHandler.getModuleMetadataProcessor().getModuleReplacements();
+        for (ResolvedComponentResult component : result.getAllComponents()) {
+            if (component.getId() instanceof ModuleComponentIdentifier && moduleReplacements.participatesInReplacements(((ModuleComponentIdentifier) component.getId()).getModuleIdentifier())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void appendRules(ResolutionStrategyInternal resolutionStrategy, Hasher hasher) {
+        if (refreshDependencies) {
+            hasher.markAsInvalid("dependencies are refreshed");
+        } else if (dependencyVerificationOverride != DependencyVerificationOverride.NO_VERIFICATION) {
+            hasher.markAsInvalid("dependency verification is enabled");
+        } else if (resolutionStrategy.isDependencyLockingEnabled()) {
+            hasher.markAsInvalid("dependency locking is enabled");
+        } else if (resolutionStrategy.resolveGraphToDetermineTaskDependencies()) {
+            hasher.markAsInvalid("the graph may contain project dependencies");
+        } else if (!isNoOp(resolutionStrategy.getDependencySubstitution().getRuleAction()) || !isNoOp(metadataHandler.getDependencySubstitutionRules().getRuleAction())) {
+            hasher.markAsInvalid("dependency substitution rules are used");
+        } else if (!resolutionStrategy.getComponentSelection().getRules().isEmpty()) {
+            hasher.markAsInvalid("component selection rules are used");
+        } else if (resolutionStrategy.getCapabilitiesResolutionRules().hasRules()) {
+            hasher.markAsInvalid("capability resolution rules are used");
+        } else if (metadataHandler.getComponentMetadataProcessorFactory().hasRules()) {
+            hasher.markAsInvalid("component metadata rules are used");
+        } else {
+            hasher.putString(resolutionStrategy.getConflictResolution().name());
+            hasher.putInt(resolutionStrategy.getForcedModules().size());
+            resolutionStrategy.getForcedModules().stream()
+                .map(ModuleVersionSelector::toString)
+                .sorted()
+                .forEach(hasher::putString);
+        }
+    }
+
+    private void appendAttributesSchema(Hasher hasher) {
+        List<Attribute<?>> attributes = attributesSchema.getAttributes().stream()
+            .sorted(Comparator.comparing(Attribute::getName))
+            .collect(Collectors.toList());
+        hasher.putInt(attributes.size());
+        for (Attribute<?> attribute : attributes) {
+            hasher.putString(attribute.getName());
+            hasher.putString(attribute.getType().getName());
+            CompatibilityRule<Object> compatibilityRules = attributesSchema.compatibilityRules(attribute);
+            DisambiguationRule<Object> disambiguationRules = attributesSchema.disambiguationRules(attribute);
+            appendMatchingRules(attribute, "compatibility", compatibilityRules.doesSomething() ? compatibilityRules.getCacheKey() : Collections.emptyList(), hasher);
+            appendMatchingRules(attribute, "disambiguation", disambiguationRules.doesSomething() ? disambiguationRules.getCacheKey() : Collections.emptyList(), hasher);
+            if (!hasher.isValid()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Appends the rules of a compatibility or disambiguation rule chain, given the {@link CompatibilityRule#getCacheKey() cache key} of the chain,
+     * which lists the rules instantiated from a class and the ordering rules of the chain.
+     */
+    private void appendMatchingRules(Attribute<?> attribute, String kind, Object cacheKey, Hasher hasher) {
+        if (!(cacheKey instanceof List)) {
+            hasher.markAsInvalid("the " + kind + " rules of attribute " + attribute.getName() + " cannot be hashed");
+            return;
+        }
+        List<?> rules = (List<?>) cacheKey;
+        hasher.putInt(rules.size());
+        for (Object rule : rules) {
+            if (rule instanceof List) {
+                for (Object configurableRule : (List<?>) rule) {
+                    appendConfigurableRule((ConfigurableRule<?>) configurableRule, hasher);
+                }
+                hasher.putNull();
+            } else if (rule instanceof DefaultOrderedCompatibilityRule) {
+                DefaultOrderedCompatibilityRule<?> orderedRule = (DefaultOrderedCompatibilityRule<?>) rule;
+                appendComparator(attribute, orderedRule.getComparator(), hasher);
+                hasher.putBoolean(orderedRule.isReverse());
+            } else if (rule instanceof DefaultOrderedDisambiguationRule) {
+                DefaultOrderedDisambiguationRule<?> orderedRule = (DefaultOrderedDisambiguationRule<?>) rule;
+                appendComparator(attribute, orderedRule.getComparator(), hasher);
+                hasher.putBoolean(orderedRule.isPickFirst());
+            } else {
+                hasher.markAsInvalid("a " + kind + " rule of attribute " + attribute.getName() + " cannot be hashed");
+            }
+            if (!hasher.isValid()) {
+                return;
+            }
+        }
+    }
+
+    private void appendConfigurableRule(ConfigurableRule<?> rule, Hasher hasher) {
+        Class<?> ruleClass = rule.getRuleClass();
+        HashCode classLoaderHash = classLoaderHierarchyHasher.getClassLoaderHash(ruleClass.getClassLoader());
+        if (classLoaderHash == null) {
+            hasher.markAsInvalid("the implementation of rule " + ruleClass.getName() + " is unknown");
+            return;
+        }
+        hasher.putString(ruleClass.getName());
+        hasher.putHash(classLoaderHash);
+        rule.getRuleParams().appendToHasher(hasher);
+    }
+
+    /**
+     * Only the natural order can be hashed, as comparators have no state that can be hashed.
+     */
+    private static void appendComparator(Attribute<?> attribute, Comparator<?> comparator, Hasher hasher) {
+        if (comparator.equals(Ordering.natural()) || comparator.equals(Comparator.naturalOrder())) {
+            hasher.putString("natural");
+        } else if (comparator.equals(Ordering.natural().reverse()) || comparator.equals(Comparator.reverseOrder())) {
+            hasher.putString("reverse");
+        } else {
+            hasher.markAsInvalid("the values of attribute " + attribute.getName() + " are ordered by a custom comparator");
+        }
+    }
+
+    private static void appendRepositories(List<ResolutionAwareRepository> repositories, Hasher hasher) {
+        hasher.putInt(repositories.size());
+        for (ResolutionAwareRepository repository : repositories) {
+            RepositoryDescriptor descriptor = repository.getDescriptor();
+            if (descriptor.getType() == RepositoryDescriptor.Type.FLAT_DIR) {
+                hasher.markAsInvalid("a flat directory repository is used");
+                return;
+            }
+            if (repository instanceof ContentFilteringRepository && !isNoOp(((ContentFilteringRepository) repository).getContentFilter())) {
+                hasher.markAsInvalid("repository content filtering is used");
+                return;
+            }
+            hasher.putString(descriptor.getType().name());
+            hasher.putString(descriptor.name);
+            for (Map.Entry<String, ?> property : descriptor.getProperties().entrySet()) {
+                Object value = property.getValue();
+                if (value instanceof URI && "file".equals(((URI) value).getScheme())) {
+                    // The metadata of local repositories is not cached, so it may change without any change to the inputs
+                    hasher.markAsInvalid("a local repository is used");
+                    return;
+                }
+                hasher.putString(property.getKey());
+                hasher.putString(String.valueOf(value));
+            }
+        }
+    }
+
+    private void appendConfiguration(ConfigurationInternal configuration, Hasher hasher) {
+        Module module = configuration.getModule();
+        hasher.putString(currentBuild.getName());
+        hasher.putString(configuration.getIdentityPath().getPath());
+        putNullableString(module.getGroup(), hasher);
+        putNullableString(module.getName(), hasher);
+        putNullableString(module.getVersion(), hasher);
+        putNullableString(module.getStatus(), hasher);
+        hasher.putBoolean(configuration.isTransitive());
+        appendAttributes(configuration.getAttributes(), hasher);
+        appendCapabilities(configuration.getOutgoing().getCapabilities(), hasher);
+        appendExcludeRules(configuration.getAllExcludeRules(), hasher);
+
+        hasher.putInt(configuration.getAllDependencies().size());
+        for (Dependency dependency : configuration.getAllDependencies()) {
+            if (dependency instanceof FileCollectionDependency) {
+                // Files are not part of the graph
+                continue;
+            }
+            if (!(dependency instanceof ExternalModuleDependency) || dependency instanceof ClientModule) {
+                hasher.markAsInvalid("a " + dependency.getClass().getSimpleName() + " dependency is declared");
+                return;
+            }
+            ExternalModuleDependency moduleDependency = (ExternalModuleDependency) dependency;
+            if (moduleDependency.isChanging()) {
+                hasher.markAsInvalid("a changing dependency is declared");
+                return;
+            }
+            putNullableString(moduleDependency.getGroup(), hasher);
+            hasher.putString(moduleDependency.getName());
+            appendVersionConstraint(moduleDependency.getVersionConstraint(), hasher);
+            hasher.putBoolean(moduleDependency.isForce());
+            hasher.putBoolean(moduleDependency.isTransitive());
+            hasher.putBoolean(moduleDependency.isEndorsingStrictVersions());
+            putNullableString(moduleDependency.getTargetConfiguration(), hasher);
+            putNullableString(moduleDependency.getReason(), hasher);
+            appendAttributes(moduleDependency.getAttributes(), hasher);
+            appendCapabilities(moduleDependency.getRequestedCapabilities(), hasher);
+            appendExcludeRules(moduleDependency.getExcludeRules(), hasher);
+            hasher.putInt(moduleDependency.getArtifacts().size());
+            for (DependencyArtifact artifact : moduleDependency.getArtifacts()) {
+                hasher.putString(artifact.getName());
+                putNullableString(artifact.getType(), hasher);
+                putNullableString(artifact.getExtension(), hasher);
+                putNullableString(artifact.getClassifier(), hasher);
+                putNullableString(artifact.getUrl(), hasher);
+            }
+        }
+
+        hasher.putInt(configuration.getAllDependencyConstraints().size());
+        for (DependencyConstraint constraint : configuration.getAllDependencyConstraints()) {
+            if (!(constraint instanceof DefaultDependencyConstraint)) {
+                hasher.markAsInvalid("a " + constraint.getClass().getSimpleName() + " constraint is declared");
+                return;
+            }
+            putNullableString(constraint.getGroup(), hasher);
+            hasher.putString(constraint.getName());
+            appendVersionConstraint(constraint.getVersionConstraint(), hasher);
+            hasher.putBoolean(((DefaultDependencyConstraint) constraint).isForce());
+            putNullableString(constraint.getReason(), hasher);
+            appendAttributes(constraint.getAttributes(), hasher);
+        }
+    }
+
+    private static void appendVersionConstraint(VersionConstraint versionConstraint, Hasher hasher) {
+        putNullableString(versionConstraint.getRequiredVersion(), hasher);
+        putNullableString(versionConstraint.getPreferredVersion(), hasher);
+        putNullableString(versionConstraint.getStrictVersion(), hasher);
+        putNullableString(versionConstraint.getBranch(), hasher);
+        hasher.putInt(versionConstraint.getRejectedVersions().size());
+        versionConstraint.getRejectedVersions().forEach(hasher::putString);
+    }
+
+    private static void appendAttributes(AttributeContainer attributes, Hasher hasher) {
+        hasher.putInt(attributes.keySet().size());
+        attributes.keySet().stream()
+            .sorted(Comparator.comparing(Attribute::getName))
+            .forEach(attribute -> {
+                hasher.putString(attribute.getName());
+                hasher.putString(attribute.getType().getName());
+                hasher.putString(String.valueOf(attributes.getAttribute(attribute)));
+            });
+    }
+
+    private static void appendCapabilities(Iterable<? extends Capability> capabilities, Hasher hasher) {
+        for (Capability capability : capabilities) {
+            hasher.putString(capability.getGroup());
+            hasher.putString(capability.getName());
+            putNullableString(capability.getVersion(), hasher);
+        }
+        hasher.putNull();
+    }
+
+    private static void appendExcludeRules(Iterable<ExcludeRule> excludeRules, Hasher hasher) {
+        for (ExcludeRule excludeRule : excludeRules) {
+            putNullableString(excludeRule.getGroup(), hasher);
+            putNullableString(excludeRule.getModule(), hasher);
+        }
+        hasher.putNull();
+    }
+
+    private static boolean isNoOp(Action<?> action) {
+        return action == Actions.doNothing();
+    }
+
+    private static void putNullableString(@Nullable String value, Hasher hasher) {
+        if (value == null) {
+            hasher.putNull();
+        } else {
+            hasher.putString(value);
+        }
+    }
+
+    /**
+     * Determines whether a resolved graph can be cached: all components other than the root must be external modules that are not changing,
+     * selected without dynamic versions.
+     */
+    public class GraphVisitor implements DependencyGraphVisitor {
+        private ComponentIdentifier rootId;
+        private String notCacheableReason;
+
+        public boolean isCacheable() {
+            return notCacheableReason == null;
+        }
+
+        @Override
+        public void start(RootGraphNode root) {
+            rootId = root.getOwner().getComponentId();
+        }
+
+        @Override
+        public void visitNode(DependencyGraphNode node) {
+            DependencyGraphComponent component = node.getOwner();
+            ComponentIdentifier componentId = component.getComponentId();
+            if (!isCacheable() || componentId.equals(rootId)) {
+                return;
+            }
+            if (!(componentId instanceof ModuleComponentIdentifier)) {
+                notCacheable(componentId.getDisplayName() + " is not an external module");
+                return;
+            }
+            ComponentResolveMetadata metadata = component.getMetadata();
+            if (metadata == null || metadata.isChanging()) {
+                notCacheable(componentId.getDisplayName() + " is changing");
+            } else if (metadataHandler.getModuleMetadataProcessor().getModuleReplacements().participatesInReplacements(((ModuleComponentIdentifier) componentId).getModuleIdentifier())) {
+                notCacheable(componentId.getDisplayName() + " participates in module replacements");
+            }
+        }
+
+        @Override
+        public void visitSelector(DependencyGraphSelector selector) {
+            ComponentSelector requested = selector.getRequested();
+            if (!isCacheable() || !(requested instanceof ModuleComponentSelector)) {
+                return;
+            }
+            VersionConstraint versionConstraint = ((ModuleComponentSelector) requested).getVersionConstraint();
+            if (versionConstraint.getBranch() != null
+                || isDynamic(versionConstraint.getRequiredVersion())
+                || isDynamic(versionConstraint.getPreferredVersion())
+                || isDynamic(versionConstraint.getStrictVersion())) {
+                notCacheable(requested.getDisplayName() + " uses a dynamic version");
+            }
+        }
+
+        private boolean isDynamic(String version) {
+            return !version.isEmpty() && versionSelectorScheme.parseSelector(version).isDynamic();
+        }
+
+        private void notCacheable(String reason) {
+            LOGGER.debug("Not caching the resolved graph: {}.", reason);
+            notCacheableReason = reason;
+        }
+
+        @Override
+        public void visitEdges(DependencyGraphNode node) {
+        }
+
+        @Override
+        public void finish(DependencyGraphNode root) {
+        }
+    }
+}
@@ -21,6 +21,7 @@
 import org.gradle.api.Action;
 import org.gradle.api.Transformer;
 import org.gradle.api.artifacts.ComponentMetadataSupplierDetails;
+import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.artifacts.component.ModuleComponentSelector;
 import org.gradle.api.attributes.AttributeContainer;
@@ -50,6 +51,7 @@
 import org.gradle.internal.resolve.RejectedVersion;
 import org.gradle.internal.resolve.caching.ComponentMetadataSupplierRuleExecutor;
 import org.gradle.internal.resolve.result.BuildableComponentIdResolveResult;
+import org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveResult;
 import org.gradle.internal.resolve.result.BuildableModuleComponentMetaDataResolveResult;
 import org.gradle.internal.resolve.result.ComponentSelectionContext;
 import org.gradle.internal.resolve.result.DefaultBuildableModuleComponentMetaDataResolveResult;
@@ -66,6 +68,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.gradle.internal.resolve.ResolveExceptionAnalyzer.hasCriticalFailure;
 import static org.gradle.internal.resolve.ResolveExceptionAnalyzer.isCriticalFailure;
@@ -77,6 +80,8 @@ public class DynamicVersionResolver {
 
     private final List<ModuleComponentRepository> repositories = new ArrayList<>();
     private final List<String> repositoryNames = new ArrayList<>();
+    // The remote version listings fetched ahead of resolution, for each repository
+    private final List<Map<ModuleIdentifier, DefaultBuildableModuleVersionListingResolveResult>> prefetchedListings = new ArrayList<>();
     private final VersionedComponentChooser versionedComponentChooser;
     private final VersionParser versionParser;
     private final Transformer<ModuleComponentResolveMetadata, RepositoryChainModuleResolution> metaDataFactory;
@@ -100,6 +105,53 @@ public DynamicVersionResolver(VersionedComponentChooser versionedComponentChoose
     public void add(ModuleComponentRepository repository) {
         repositories.add(repository);
         repositoryNames.add(repository.getName());
+        prefetchedListings.add(new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Lists the versions of the module of the given dependency in the remote repositories which resolving the dependency will list,
+     * so that the listings of many modules can be fetched, or revalidated, concurrently. Nothing is listed when a repository has a usable cached listing,
+     * as resolution may then not list any remote repository. The listings are kept until the dependency is resolved.
+     *
+     * <p>Repositories are listed in order, up to the first one which fails or lists some versions: resolution may stop there, for example
+     * when the metadata of a matching version cannot be fetched.</p>
+     *
+     * <p>May be called concurrently for dependencies on different modules.</p>
+     */
+    public void prefetchVersionListings(ModuleDependencyMetadata dependency) {
+        if (!dependency.getArtifacts().isEmpty()) {
+            // The listing may depend on the requested artifacts
+            return;
+        }
+        List<Integer> remoteListings = new ArrayList<>(repositories.size());
+        for (int i = 0; i < repositories.size(); i++) {
+            DefaultBuildableModuleVersionListingResolveResult cached = new DefaultBuildableModuleVersionListingResolveResult();
+            repositories.get(i).getLocalAccess().listModuleVersions(dependency, cached);
+            if (!cached.hasResult()) {
+                remoteListings.add(i);
+            } else if (!isAuthoritativeEmptyListing(cached)) {
+                return;
+            }
+        }
+        ModuleIdentifier moduleId = dependency.getSelector().getModuleIdentifier();
+        for (int i : remoteListings) {
+            DefaultBuildableModuleVersionListingResolveResult listing = new DefaultBuildableModuleVersionListingResolveResult();
+            try {
+                repositories.get(i).getRemoteAccess().listModuleVersions(dependency, listing);
+            } catch (Exception e) {
+                // Leave it to resolution to list the versions again and report the failure
+                return;
+            }
+            prefetchedListings.get(i).put(moduleId, listing);
+            if (listing.getState() != BuildableModuleVersionListingResolveResult.State.Listed || !listing.getVersions().isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    private static boolean isAuthoritativeEmptyListing(DefaultBuildableModuleVersionListingResolveResult result) {
+        // An empty authoritative listing does not prevent the other repositories from being listed remotely
+        return result.getState() == BuildableModuleVersionListingResolveResult.State.Listed && result.isAuthoritative() && result.getVersions().isEmpty();
     }
 
     public void resolve(ModuleDependencyMetadata dependency, VersionSelector versionSelector, @Nullable VersionSelector rejectedVersionSelector, AttributeContainer consumerAttributes, BuildableComponentIdResolveResult result) {
@@ -108,8 +160,8 @@ public void resolve(ModuleDependencyMetadata dependency, VersionSelector version
         List<Throwable> errors = new ArrayList<>();
 
         List<RepositoryResolveState> resolveStates = Lists.newArrayListWithCapacity(repositories.size());
-        for (ModuleComponentRepository repository : repositories) {
-            resolveStates.add(new RepositoryResolveState(versionedComponentChooser, dependency, repository, versionSelector, rejectedVersionSelector, versionParser, consumerAttributes, attributesFactory, componentMetadataProcessor, componentMetadataSupplierRuleExecutor, cachePolicy));
+        for (int i = 0; i < repositories.size(); i++) {
+            resolveStates.add(new RepositoryResolveState(versionedComponentChooser, dependency, repositories.get(i), prefetchedListings.get(i), versionSelector, rejectedVersionSelector, versionParser, consumerAttributes, attributesFactory, componentMetadataProcessor, componentMetadataSupplierRuleExecutor, cachePolicy));
         }
 
         final RepositoryChainModuleResolution latestResolved = findLatestModule(resolveStates, errors);
@@ -262,7 +314,7 @@ private static class RepositoryResolveState implements ComponentSelectionContext
         private ModuleComponentIdentifier firstRejected = null;
 
 
-        public RepositoryResolveState(VersionedComponentChooser versionedComponentChooser, ModuleDependencyMetadata dependency, ModuleComponentRepository repository, VersionSelector versionSelector, VersionSelector rejectedVersionSelector, VersionParser versionParser, AttributeContainer consumerAttributes, ImmutableAttributesFactory attributesFactory, ComponentMetadataProcessorFactory componentMetadataProcessorFactory, ComponentMetadataSupplierRuleExecutor metadataSupplierRuleExecutor, CachePolicy cachePolicy) {
+        public RepositoryResolveState(VersionedComponentChooser versionedComponentChooser, ModuleDependencyMetadata dependency, ModuleComponentRepository repository, Map<ModuleIdentifier, DefaultBuildableModuleVersionListingResolveResult> prefetchedListings, VersionSelector versionSelector, VersionSelector rejectedVersionSelector, VersionParser versionParser, AttributeContainer consumerAttributes, ImmutableAttributesFactory attributesFactory, ComponentMetadataProcessorFactory componentMetadataProcessorFactory, ComponentMetadataSupplierRuleExecutor metadataSupplierRuleExecutor, CachePolicy cachePolicy) {
             this.versionedComponentChooser = versionedComponentChooser;
             this.dependency = dependency;
             this.versionSelector = versionSelector;
@@ -275,7 +327,7 @@ public RepositoryResolveState(VersionedComponentChooser versionedComponentChoose
             this.cachePolicy = cachePolicy;
             this.attemptCollector = new AttemptCollector();
             this.consumerAttributes = buildAttributes(consumerAttributes, attributesFactory);
-            versionListingResult = new VersionListResult(dependency, repository);
+            versionListingResult = new VersionListResult(dependency, repository, prefetchedListings);
         }
 
         private ImmutableAttributes buildAttributes(AttributeContainer consumerAttributes, ImmutableAttributesFactory attributesFactory) {
@@ -516,16 +568,18 @@ private void tryResolveMetadata(BuildableModuleComponentMetaDataResolveResult ta
     }
 
     private static class VersionListResult {
-        private final DefaultBuildableModuleVersionListingResolveResult result = new DefaultBuildableModuleVersionListingResolveResult();
+        private DefaultBuildableModuleVersionListingResolveResult result = new DefaultBuildableModuleVersionListingResolveResult();
         private final ModuleComponentRepository repository;
         private final ModuleDependencyMetadata dependency;
+        private final Map<ModuleIdentifier, DefaultBuildableModuleVersionListingResolveResult> prefetchedListings;
 
         private boolean searchedLocally;
         private boolean searchedRemotely;
 
-        public VersionListResult(ModuleDependencyMetadata dependency, ModuleComponentRepository repository) {
+        public VersionListResult(ModuleDependencyMetadata dependency, ModuleComponentRepository repository, Map<ModuleIdentifier, DefaultBuildableModuleVersionListingResolveResult> prefetchedListings) {
             this.dependency = dependency;
             this.repository = repository;
+            this.prefetchedListings = prefetchedListings;
         }
 
         void resolve() {
@@ -543,7 +597,12 @@ void resolve() {
             }
             if (!searchedRemotely) {
                 searchedRemotely = true;
-                process(dependency, repository.getRemoteAccess());
+                DefaultBuildableModuleVersionListingResolveResult prefetched = dependency.getArtifacts().isEmpty() ? prefetchedListings.remove(dependency.getSelector().getModuleIdentifier()) : null;
+                if (prefetched != null) {
+                    result = prefetched;
+                } else {
+                    process(dependency, repository.getRemoteAccess());
+                }
             }
 
             // Otherwise, just reuse previous result
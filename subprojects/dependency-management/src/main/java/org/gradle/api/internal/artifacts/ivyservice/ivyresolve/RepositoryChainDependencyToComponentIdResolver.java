@@ -74,6 +74,13 @@ public void resolve(DependencyMetadata dependency, VersionSelector acceptor, @Nu
         }
     }
 
+    @Override
+    public void prefetch(DependencyMetadata dependency, VersionSelector acceptor) {
+        if (dependency.getSelector() instanceof ModuleComponentSelector && acceptor.isDynamic()) {
+            dynamicRevisionResolver.prefetchVersionListings(toModuleDependencyMetadata(dependency));
+        }
+    }
+
     private ModuleDependencyMetadata toModuleDependencyMetadata(DependencyMetadata dependency) {
         if (dependency instanceof ModuleDependencyMetadata) {
             return (ModuleDependencyMetadata) dependency;
@@ -25,6 +25,7 @@
 import org.gradle.api.internal.artifacts.configurations.dynamicversion.CachePolicy;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.verification.ChecksumAndSignatureVerificationOverride;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.verification.DependencyVerificationOverride;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.verification.VerificationResultCacheFactory;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.verification.writer.WriteDependencyVerificationFile;
 import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.ExternalResourceCachePolicy;
 import org.gradle.api.internal.artifacts.repositories.resolver.MetadataFetchingCost;
@@ -94,6 +95,7 @@ public ModuleComponentRepository overrideModuleVersionRepository(ModuleComponent
     public DependencyVerificationOverride dependencyVerificationOverride(BuildOperationExecutor buildOperationExecutor,
                                                                          ChecksumService checksumService,
                                                                          SignatureVerificationServiceFactory signatureVerificationServiceFactory,
+                                                                         VerificationResultCacheFactory verificationResultCacheFactory,
                                                                          DocumentationRegistry documentationRegistry,
                                                                          BuildCommencedTimeProvider timeProvider,
                                                                          Factory<GradleProperties> gradlePropertiesFactory) {
@@ -114,7 +116,7 @@ public DependencyVerificationOverride dependencyVerificationOverride(BuildOperat
                 try {
                     File sessionReportDir = computeReportDirectory(timeProvider);
                     return DisablingVerificationOverride.of(
-                        new ChecksumAndSignatureVerificationOverride(buildOperationExecutor, startParameter.getGradleUserHomeDir(), verificationsFile, keyringsFile, checksumService, signatureVerificationServiceFactory, startParameter.getDependencyVerificationMode(), documentationRegistry, sessionReportDir, gradlePropertiesFactory)
+                        new ChecksumAndSignatureVerificationOverride(buildOperationExecutor, startParameter.getGradleUserHomeDir(), verificationsFile, keyringsFile, checksumService, signatureVerificationServiceFactory, verificationResultCacheFactory, startParameter.getDependencyVerificationMode(), documentationRegistry, sessionReportDir, gradlePropertiesFactory)
                     );
                 } catch (Exception e) {
                     return new FailureVerificationOverride(e);
@@ -67,6 +67,7 @@ public class ChecksumAndSignatureVerificationOverride implements DependencyVerif
     private final BuildOperationExecutor buildOperationExecutor;
     private final ChecksumService checksumService;
     private final SignatureVerificationService signatureVerificationService;
+    private final CrossBuildVerificationResultCache verificationResultCache;
     private final DependencyVerificationMode verificationMode;
     private final Set<VerificationQuery> verificationQueries = Sets.newConcurrentHashSet();
     private final Deque<VerificationEvent> verificationEvents = Queues.newArrayDeque();
@@ -80,6 +81,7 @@ public ChecksumAndSignatureVerificationOverride(BuildOperationExecutor buildOper
                                                     File keyRingsFile,
                                                     ChecksumService checksumService,
                                                     SignatureVerificationServiceFactory signatureVerificationServiceFactory,
+                                                    VerificationResultCacheFactory verificationResultCacheFactory,
                                                     DependencyVerificationMode verificationMode,
                                                     DocumentationRegistry documentationRegistry,
                                                     File reportsDirectory,
@@ -98,6 +100,7 @@ public ChecksumAndSignatureVerificationOverride(BuildOperationExecutor buildOper
             throw new InvalidUserDataException("Unable to read dependency verification metadata from " + verificationsFile, e.getCause());
         }
         this.signatureVerificationService = signatureVerificationServiceFactory.create(keyRingsFile, keyServers());
+        this.verificationResultCache = verificationResultCacheFactory.create(verificationsFile, keyRingsFile);
     }
 
     private List<URI> keyServers() {
@@ -133,7 +136,14 @@ private void verifyConcurrently() {
                     queue.add(new RunnableBuildOperation() {
                         @Override
                         public void run(BuildOperationContext context) {
-                            verifier.verify(checksumService, signatureVerificationService, ve.kind, ve.artifact, ve.mainFile, ve.signatureFile.create(), f -> {
+                            File signatureFile = ve.signatureFile.create();
+                            if (verificationResultCache.isVerified(ve.artifact, ve.mainFile, signatureFile)) {
+                                LOGGER.info("Skipping verification of {}, which was verified by a previous build", ve.artifact);
+                                return;
+                            }
+                            AtomicBoolean failed = new AtomicBoolean();
+                            verifier.verify(checksumService, signatureVerificationService, ve.kind, ve.artifact, ve.mainFile, signatureFile, f -> {
+                                failed.set(true);
                                 synchronized (failures) {
                                     failures.put(ve.artifact, new RepositoryAwareVerificationFailure(f, ve.repositoryName));
                                 }
@@ -141,6 +151,9 @@ public void run(BuildOperationContext context) {
                                     hasFatalFailure.set(true);
                                 }
                             });
+                            if (!failed.get() && ve.mainFile.exists()) {
+                                verificationResultCache.verified(ve.artifact, ve.mainFile, signatureFile);
+                            }
                         }
 
                         @Override
@@ -221,6 +234,7 @@ public Class<? extends Artifact> getType() {
     public void stop() {
         closed.set(true);
         signatureVerificationService.stop();
+        verificationResultCache.stop();
     }
 
     private static class VerificationQuery {
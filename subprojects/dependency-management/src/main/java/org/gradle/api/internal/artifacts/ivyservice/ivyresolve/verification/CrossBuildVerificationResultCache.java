@@ -0,0 +1,180 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.verification;
+
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.FileLockManager;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.PersistentIndexedCacheParameters;
+import org.gradle.cache.internal.CacheScopeMapping;
+import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
+import org.gradle.cache.internal.VersionStrategy;
+import org.gradle.initialization.layout.ProjectCacheDir;
+import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.serialize.AbstractSerializer;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.InterningStringSerializer;
+
+import javax.annotation.Nullable;
+import java.io.File;
+
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * Remembers, across builds, the artifacts which passed verification, so that they are not hashed and their signatures
+ * are not checked again as long as neither they nor the verification configuration changed.
+ *
+ * <p>An artifact is identified by the path of its file, and is considered unchanged when its file and its signature file
+ * have the same length and modification time as when it was verified. Only successful verifications are remembered,
+ * so that failures are always reported with all their details.</p>
+ */
+public class CrossBuildVerificationResultCache {
+    private final HashCode configurationHash;
+    private final PersistentCache store;
+    private final PersistentIndexedCache<String, VerifiedArtifact> cache;
+
+    public CrossBuildVerificationResultCache(HashCode configurationHash,
+                                             CacheScopeMapping cacheScopeMapping,
+                                             ProjectCacheDir projectCacheDir,
+                                             CacheRepository repository,
+                                             InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory) {
+        this.configurationHash = configurationHash;
+        File cacheDir = cacheScopeMapping.getBaseDirectory(projectCacheDir.getDir(), "dependency-verification", VersionStrategy.CachePerVersion);
+        store = repository.cache(cacheDir)
+            .withDisplayName("Dependency verification results cache")
+            .withLockOptions(mode(FileLockManager.LockMode.OnDemand)) // Lock on demand
+            .open();
+        InterningStringSerializer stringSerializer = new InterningStringSerializer(new StringInterner());
+        cache = store.createCache(
+            PersistentIndexedCacheParameters.of(
+                "verified-artifacts",
+                stringSerializer,
+                new VerifiedArtifactSerializer(stringSerializer)
+            ).withCacheDecorator(inMemoryCacheDecoratorFactory.decorator(2000, true)));
+    }
+
+    /**
+     * Returns true if the given artifact passed verification with the current configuration, and did not change since then.
+     */
+    public boolean isVerified(ModuleComponentArtifactIdentifier artifact, File file, @Nullable File signature) {
+        VerifiedArtifact entry = cache.getIfPresent(file.getAbsolutePath());
+        return entry != null && entry.equals(verifiedArtifact(artifact, file, signature));
+    }
+
+    public void verified(ModuleComponentArtifactIdentifier artifact, File file, @Nullable File signature) {
+        cache.put(file.getAbsolutePath(), verifiedArtifact(artifact, file, signature));
+    }
+
+    private VerifiedArtifact verifiedArtifact(ModuleComponentArtifactIdentifier artifact, File file, @Nullable File signature) {
+        return new VerifiedArtifact(
+            artifact.getDisplayName(),
+            configurationHash,
+            file.length(),
+            file.lastModified(),
+            signature == null ? "" : signature.getAbsolutePath(),
+            signature == null ? 0 : signature.length(),
+            signature == null ? 0 : signature.lastModified()
+        );
+    }
+
+    public void stop() {
+        store.close();
+    }
+
+    private static class VerifiedArtifact {
+        private final String artifact;
+        private final HashCode configurationHash;
+        private final long length;
+        private final long lastModified;
+        private final String signaturePath;
+        private final long signatureLength;
+        private final long signatureLastModified;
+
+        private VerifiedArtifact(String artifact, HashCode configurationHash, long length, long lastModified, String signaturePath, long signatureLength, long signatureLastModified) {
+            this.artifact = artifact;
+            this.configurationHash = configurationHash;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.signaturePath = signaturePath;
+            this.signatureLength = signatureLength;
+            this.signatureLastModified = signatureLastModified;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            VerifiedArtifact that = (VerifiedArtifact) o;
+            return length == that.length
+                && lastModified == that.lastModified
+                && signatureLength == that.signatureLength
+                && signatureLastModified == that.signatureLastModified
+                && artifact.equals(that.artifact)
+                && configurationHash.equals(that.configurationHash)
+                && signaturePath.equals(that.signaturePath);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = artifact.hashCode();
+            result = 31 * result + configurationHash.hashCode();
+            result = 31 * result + Long.hashCode(length);
+            result = 31 * result + Long.hashCode(lastModified);
+            return result;
+        }
+    }
+
+    private static class VerifiedArtifactSerializer extends AbstractSerializer<VerifiedArtifact> {
+        private final InterningStringSerializer stringSerializer;
+
+        private VerifiedArtifactSerializer(InterningStringSerializer stringSerializer) {
+            this.stringSerializer = stringSerializer;
+        }
+
+        @Override
+        public VerifiedArtifact read(Decoder decoder) throws Exception {
+            String artifact = stringSerializer.read(decoder);
+            HashCode configurationHash = HashCode.fromBytes(decoder.readBinary());
+            long length = decoder.readLong();
+            long lastModified = decoder.readLong();
+            String signaturePath = stringSerializer.read(decoder);
+            long signatureLength = decoder.readLong();
+            long signatureLastModified = decoder.readLong();
+            return new VerifiedArtifact(artifact, configurationHash, length, lastModified, signaturePath, signatureLength, signatureLastModified);
+        }
+
+        @Override
+        public void write(Encoder encoder, VerifiedArtifact value) throws Exception {
+            stringSerializer.write(encoder, value.artifact);
+            encoder.writeBinary(value.configurationHash.toByteArray());
+            encoder.writeLong(value.length);
+            encoder.writeLong(value.lastModified);
+            stringSerializer.write(encoder, value.signaturePath);
+            encoder.writeLong(value.signatureLength);
+            encoder.writeLong(value.signatureLastModified);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.verification;
+
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.internal.CacheScopeMapping;
+import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
+import org.gradle.initialization.layout.ProjectCacheDir;
+import org.gradle.internal.hash.FileHasher;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+
+import java.io.File;
+
+public class VerificationResultCacheFactory {
+    private final CacheScopeMapping cacheScopeMapping;
+    private final ProjectCacheDir projectCacheDir;
+    private final CacheRepository cacheRepository;
+    private final InMemoryCacheDecoratorFactory decoratorFactory;
+    private final FileHasher fileHasher;
+
+    public VerificationResultCacheFactory(CacheScopeMapping cacheScopeMapping,
+                                          ProjectCacheDir projectCacheDir,
+                                          CacheRepository cacheRepository,
+                                          InMemoryCacheDecoratorFactory decoratorFactory,
+                                          FileHasher fileHasher) {
+        this.cacheScopeMapping = cacheScopeMapping;
+        this.projectCacheDir = projectCacheDir;
+        this.cacheRepository = cacheRepository;
+        this.decoratorFactory = decoratorFactory;
+        this.fileHasher = fileHasher;
+    }
+
+    /**
+     * Creates a cache of the verification results obtained with the given verification metadata and keyring files.
+     */
+    public CrossBuildVerificationResultCache create(File verificationsFile, File keyringsFile) {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putHash(fileHasher.hash(verificationsFile));
+        if (keyringsFile.exists()) {
+            hasher.putHash(fileHasher.hash(keyringsFile));
+        } else {
+            hasher.putNull();
+        }
+        return new CrossBuildVerificationResultCache(hasher.hash(), cacheScopeMapping, projectCacheDir, cacheRepository, decoratorFactory);
+    }
+}
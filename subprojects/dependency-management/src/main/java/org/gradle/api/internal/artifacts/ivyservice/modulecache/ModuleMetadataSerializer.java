@@ -17,6 +17,7 @@
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Interner;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.SetMultimap;
@@ -24,7 +25,6 @@
 import org.gradle.api.artifacts.component.ModuleComponentSelector;
 import org.gradle.api.attributes.AttributeContainer;
 import org.gradle.api.capabilities.Capability;
-import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
 import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
 import org.gradle.api.internal.artifacts.ModuleComponentSelectorSerializer;
 import org.gradle.api.internal.artifacts.ivyservice.NamespaceId;
@@ -35,6 +35,7 @@
 import org.gradle.api.internal.artifacts.repositories.metadata.MavenMutableModuleMetadataFactory;
 import org.gradle.api.internal.artifacts.repositories.resolver.MavenUniqueSnapshotComponentIdentifier;
 import org.gradle.api.internal.attributes.ImmutableAttributes;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.component.external.descriptor.Artifact;
 import org.gradle.internal.component.external.descriptor.Configuration;
 import org.gradle.internal.component.external.descriptor.DefaultExclude;
@@ -46,6 +47,7 @@
 import org.gradle.internal.component.external.model.ExternalDependencyDescriptor;
 import org.gradle.internal.component.external.model.ImmutableCapability;
 import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata;
+import org.gradle.internal.component.external.model.ModuleMetadataInterner;
 import org.gradle.internal.component.external.model.MutableComponentVariant;
 import org.gradle.internal.component.external.model.MutableModuleComponentResolveMetadata;
 import org.gradle.internal.component.external.model.ShadowedCapability;
@@ -62,7 +64,12 @@
 import org.gradle.internal.component.model.IvyArtifactName;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -81,17 +88,28 @@ public class ModuleMetadataSerializer {
     private final IvyMutableModuleMetadataFactory ivyMetadataFactory;
     private final AttributeContainerSerializer attributeContainerSerializer;
     private final ModuleSourcesSerializer moduleSourcesSerializer;
+    private final ModuleMetadataInterner interner;
 
-    public ModuleMetadataSerializer(AttributeContainerSerializer attributeContainerSerializer, MavenMutableModuleMetadataFactory mavenMetadataFactory, IvyMutableModuleMetadataFactory ivyMetadataFactory, ModuleSourcesSerializer moduleSourcesSerializer) {
+    public ModuleMetadataSerializer(AttributeContainerSerializer attributeContainerSerializer, MavenMutableModuleMetadataFactory mavenMetadataFactory, IvyMutableModuleMetadataFactory ivyMetadataFactory, ModuleSourcesSerializer moduleSourcesSerializer, ModuleMetadataInterner interner) {
         this.mavenMetadataFactory = mavenMetadataFactory;
         this.ivyMetadataFactory = ivyMetadataFactory;
         this.attributeContainerSerializer = attributeContainerSerializer;
         this.componentSelectorSerializer = new ModuleComponentSelectorSerializer(attributeContainerSerializer);
         this.moduleSourcesSerializer = moduleSourcesSerializer;
+        this.interner = interner;
     }
 
     public MutableModuleComponentResolveMetadata read(Decoder decoder, ImmutableModuleIdentifierFactory moduleIdentifierFactory, Map<Integer, MavenDependencyDescriptor> deduplicationDependencyCache) throws IOException {
-        return new Reader(decoder, moduleIdentifierFactory, attributeContainerSerializer, componentSelectorSerializer, mavenMetadataFactory, ivyMetadataFactory, moduleSourcesSerializer).read(deduplicationDependencyCache);
+        return read(decoder, moduleIdentifierFactory, deduplicationDependencyCache, null);
+    }
+
+    /**
+     * Reads module metadata. The dependencies, dependency constraints and files of each variant are only decoded when they are first used,
+     * with strings interned by the given interner, if any.
+     */
+    public MutableModuleComponentResolveMetadata read(Decoder decoder, ImmutableModuleIdentifierFactory moduleIdentifierFactory, Map<Integer, MavenDependencyDescriptor> deduplicationDependencyCache, @Nullable Interner<String> stringInterner) throws IOException {
+        VariantContentsReader variantContentsReader = new VariantContentsReader(moduleIdentifierFactory, stringInterner);
+        return new Reader(decoder, moduleIdentifierFactory, attributeContainerSerializer, componentSelectorSerializer, mavenMetadataFactory, ivyMetadataFactory, moduleSourcesSerializer, interner, variantContentsReader).read(deduplicationDependencyCache);
     }
 
     public void write(Encoder encoder, ModuleComponentResolveMetadata metadata, Map<ExternalDependencyDescriptor, Integer> deduplicationDependencyCache) throws IOException {
@@ -137,14 +155,24 @@ private void writeVariants(ModuleComponentResolveMetadata metadata) throws IOExc
             for (ComponentVariant variant : metadata.getVariants()) {
                 encoder.writeString(variant.getName());
                 writeAttributes(variant.getAttributes());
-                writeVariantDependencies(variant.getDependencies());
-                writeVariantConstraints(variant.getDependencyConstraints());
-                writeVariantFiles(variant.getFiles());
+                writeVariantContents(variant);
                 writeVariantCapabilities(variant.getCapabilities().getCapabilities());
                 encoder.writeBoolean(variant.isExternalVariant());
             }
         }
 
+        private void writeVariantContents(ComponentVariant variant) throws IOException {
+            // Written as a separate block, so that reading the metadata can skip it until the variant is used
+            ByteArrayOutputStream contents = new ByteArrayOutputStream();
+            try (KryoBackedEncoder contentsEncoder = new KryoBackedEncoder(contents)) {
+                Writer contentsWriter = new Writer(contentsEncoder, attributeContainerSerializer, componentSelectorSerializer, moduleSourcesSerializer);
+                contentsWriter.writeVariantDependencies(variant.getDependencies());
+                contentsWriter.writeVariantConstraints(variant.getDependencyConstraints());
+                contentsWriter.writeVariantFiles(variant.getFiles());
+            }
+            encoder.writeBinary(contents.toByteArray());
+        }
+
         private void writeVariantConstraints(ImmutableList<? extends ComponentVariant.DependencyConstraint> constraints) throws IOException {
             encoder.writeSmallInt(constraints.size());
             for (ComponentVariant.DependencyConstraint constraint : constraints) {
@@ -400,6 +428,8 @@ private static class Reader {
         private final MavenMutableModuleMetadataFactory mavenMetadataFactory;
         private final IvyMutableModuleMetadataFactory ivyMetadataFactory;
         private final ModuleSourcesSerializer moduleSourcesSerializer;
+        private final ModuleMetadataInterner interner;
+        private final VariantContentsReader variantContentsReader;
         private ModuleComponentIdentifier id;
         private ImmutableAttributes attributes;
 
@@ -408,7 +438,9 @@ private Reader(Decoder decoder,
                        AttributeContainerSerializer attributeContainerSerializer,
                        ModuleComponentSelectorSerializer componentSelectorSerializer, MavenMutableModuleMetadataFactory mavenMutableModuleMetadataFactory,
                        IvyMutableModuleMetadataFactory ivyMetadataFactory,
-                       ModuleSourcesSerializer moduleSourcesSerializer) {
+                       ModuleSourcesSerializer moduleSourcesSerializer,
+                       ModuleMetadataInterner interner,
+                       VariantContentsReader variantContentsReader) {
             this.decoder = decoder;
             this.moduleIdentifierFactory = moduleIdentifierFactory;
             this.excludeRuleConverter = new DefaultExcludeRuleConverter(moduleIdentifierFactory);
@@ -417,6 +449,8 @@ private Reader(Decoder decoder,
             this.mavenMetadataFactory = mavenMutableModuleMetadataFactory;
             this.ivyMetadataFactory = ivyMetadataFactory;
             this.moduleSourcesSerializer = moduleSourcesSerializer;
+            this.interner = interner;
+            this.variantContentsReader = variantContentsReader;
         }
 
         public MutableModuleComponentResolveMetadata read(Map<Integer, MavenDependencyDescriptor> deduplicationDependencyCache) throws IOException {
@@ -463,10 +497,8 @@ private void readVariants(MutableModuleComponentResolveMetadata metadata) throws
             for (int i = 0; i < count; i++) {
                 String name = decoder.readString();
                 ImmutableAttributes attributes = readAttributes();
-                MutableComponentVariant variant = metadata.addVariant(name, attributes);
-                readVariantDependencies(variant);
-                readVariantConstraints(variant);
-                readVariantFiles(variant);
+                byte[] contents = decoder.readBinary();
+                MutableComponentVariant variant = metadata.addVariant(name, attributes, mutableVariant -> variantContentsReader.read(contents, mutableVariant));
                 readVariantCapabilities(variant);
                 boolean externalVariant = decoder.readBoolean();
                 variant.setAvailableExternally(externalVariant);
@@ -504,7 +536,7 @@ private ImmutableList<ExcludeMetadata> readVariantDependencyExcludes() throws IO
             for (int i = 0; i < len; i++) {
                 String group = readString();
                 String module = readString();
-                builder.add(excludeRuleConverter.createExcludeRule(group, module));
+                builder.add(interner.intern(excludeRuleConverter.createExcludeRule(group, module)));
             }
             return builder.build();
         }
@@ -524,7 +556,7 @@ private void readVariantCapabilities(MutableComponentVariant variant) throws IOE
                 if (appendix != null) {
                     capability = new DefaultShadowedCapability(capability, appendix);
                 }
-                variant.addCapability(capability);
+                variant.addCapability(interner.intern(capability));
             }
         }
 
@@ -551,7 +583,7 @@ private void readInfoSection() throws IOException {
         }
 
         private ModuleComponentIdentifier readId() throws IOException {
-            return DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId(readString(), readString()), readString());
+            return interner.intern(DefaultModuleComponentIdentifier.newId(moduleIdentifierFactory.module(readString(), readString()), readString()));
         }
 
         private Map<NamespaceId, String> readExtraInfo() throws IOException {
@@ -603,7 +635,7 @@ private List<IvyDependencyDescriptor> readIvyDependencies() throws IOException {
         }
 
         private IvyDependencyDescriptor readIvyDependency() throws IOException {
-            ModuleComponentSelector requested = componentSelectorSerializer.read(decoder);
+            ModuleComponentSelector requested = interner.intern(componentSelectorSerializer.read(decoder));
             SetMultimap<String, String> configMappings = readDependencyConfigurationMapping();
             List<Artifact> artifacts = readDependencyArtifactDescriptors();
             List<Exclude> excludes = readDependencyExcludes();
@@ -611,7 +643,7 @@ private IvyDependencyDescriptor readIvyDependency() throws IOException {
             boolean changing = readBoolean();
             boolean transitive = readBoolean();
             boolean optional = readBoolean();
-            return new IvyDependencyDescriptor(requested, dynamicConstraintVersion, changing, transitive,  optional, configMappings, artifacts, excludes);
+            return interner.intern(new IvyDependencyDescriptor(requested, dynamicConstraintVersion, changing, transitive,  optional, configMappings, artifacts, excludes));
         }
 
         private SetMultimap<String, String> readDependencyConfigurationMapping() throws IOException {
@@ -660,7 +692,7 @@ private DefaultExclude readExcludeRule() throws IOException {
             IvyArtifactName artifactName = readNullableArtifact();
             String[] confs = readStringArray();
             String matcher = readNullableString();
-            return new DefaultExclude(moduleIdentifierFactory.module(moduleOrg, moduleName), artifactName, confs, matcher);
+            return (DefaultExclude) interner.intern(new DefaultExclude(moduleIdentifierFactory.module(moduleOrg, moduleName), artifactName, confs, matcher));
         }
 
         private IvyArtifactName readNullableArtifact() throws IOException {
@@ -688,12 +720,12 @@ private List<MavenDependencyDescriptor> readMavenDependencies(Map<Integer, Maven
         private MavenDependencyDescriptor readMavenDependency(Map<Integer, MavenDependencyDescriptor> deduplicationDependencyCache) throws IOException {
             int mapping = decoder.readSmallInt();
             if (mapping == deduplicationDependencyCache.size()) {
-                ModuleComponentSelector requested = componentSelectorSerializer.read(decoder);
+                ModuleComponentSelector requested = interner.intern(componentSelectorSerializer.read(decoder));
                 IvyArtifactName artifactName = readNullableArtifact();
                 List<ExcludeMetadata> mavenExcludes = readMavenDependencyExcludes();
                 MavenScope scope = MavenScope.values()[decoder.readSmallInt()];
                 MavenDependencyType type = MavenDependencyType.values()[decoder.readSmallInt()];
-                MavenDependencyDescriptor mavenDependencyDescriptor = new MavenDependencyDescriptor(scope, type, requested, artifactName, mavenExcludes);
+                MavenDependencyDescriptor mavenDependencyDescriptor = interner.intern(new MavenDependencyDescriptor(scope, type, requested, artifactName, mavenExcludes));
                 deduplicationDependencyCache.put(mapping, mavenDependencyDescriptor);
                 return mavenDependencyDescriptor;
             } else {
@@ -709,8 +741,7 @@ private List<ExcludeMetadata> readMavenDependencyExcludes() throws IOException {
             for (int i = 0; i < len; i++) {
                 String moduleOrg = readString();
                 String moduleName = readString();
-                DefaultExclude rule = new DefaultExclude(moduleIdentifierFactory.module(moduleOrg, moduleName));
-                result.add(rule);
+                result.add(interner.intern(new DefaultExclude(moduleIdentifierFactory.module(moduleOrg, moduleName))));
             }
             return result;
         }
@@ -759,4 +790,27 @@ private Set<String> readStringSet() throws IOException {
         }
     }
 
+
+    private class VariantContentsReader {
+        private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
+        @Nullable
+        private final Interner<String> stringInterner;
+
+        private VariantContentsReader(ImmutableModuleIdentifierFactory moduleIdentifierFactory, @Nullable Interner<String> stringInterner) {
+            this.moduleIdentifierFactory = moduleIdentifierFactory;
+            this.stringInterner = stringInterner;
+        }
+
+        void read(byte[] contents, MutableComponentVariant variant) {
+            try (KryoBackedDecoder contentsDecoder = new KryoBackedDecoder(new ByteArrayInputStream(contents))) {
+                Decoder decoder = stringInterner == null ? contentsDecoder : new StringDeduplicatingDecoder(contentsDecoder, stringInterner);
+                Reader reader = new Reader(decoder, moduleIdentifierFactory, attributeContainerSerializer, componentSelectorSerializer, mavenMetadataFactory, ivyMetadataFactory, moduleSourcesSerializer, interner, this);
+                reader.readVariantDependencies(variant);
+                reader.readVariantConstraints(variant);
+                reader.readVariantFiles(variant);
+            } catch (IOException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+    }
 }
@@ -55,7 +55,7 @@ public MutableModuleComponentResolveMetadata getModuleDescriptor(ModuleComponent
         if (resource != null) {
             try {
                 try (StringDeduplicatingDecoder decoder = new StringDeduplicatingDecoder(new KryoBackedDecoder(new FileInputStream(resource.getFile())), stringInterner)) {
-                    return moduleMetadataSerializer.read(decoder, moduleIdentifierFactory, Maps.newHashMap());
+                    return moduleMetadataSerializer.read(decoder, moduleIdentifierFactory, Maps.newHashMap(), stringInterner);
                 }
             } catch (Exception e) {
                 throw new RuntimeException("Could not load module metadata from " + resource.getDisplayName(), e);
@@ -16,17 +16,31 @@
 package org.gradle.api.internal.artifacts.ivyservice.modulecache.artifacts;
 
 import org.gradle.api.internal.artifacts.ivyservice.ArtifactCacheLockingManager;
+import org.gradle.api.internal.artifacts.ivyservice.PackedArtifactCache;
 import org.gradle.internal.file.FileAccessTracker;
 import org.gradle.internal.hash.HashCode;
 import org.gradle.util.BuildCommencedTimeProvider;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.nio.file.Path;
 import java.util.List;
 
 public class ReadOnlyModuleArtifactCache extends DefaultModuleArtifactCache {
-    public ReadOnlyModuleArtifactCache(String persistentCacheFile, BuildCommencedTimeProvider timeProvider, ArtifactCacheLockingManager artifactCacheLockingManager, FileAccessTracker fileAccessTracker, Path commonRootPath) {
+    private final PackedArtifactCache packedCache;
+
+    public ReadOnlyModuleArtifactCache(String persistentCacheFile, BuildCommencedTimeProvider timeProvider, ArtifactCacheLockingManager artifactCacheLockingManager, FileAccessTracker fileAccessTracker, Path commonRootPath, @Nullable PackedArtifactCache packedCache) {
         super(persistentCacheFile, timeProvider, artifactCacheLockingManager, fileAccessTracker, commonRootPath);
+        this.packedCache = packedCache;
+    }
+
+    @Override
+    protected boolean isCachedFileAvailable(File cachedFile) {
+        if (packedCache != null) {
+            // The artifacts of a packed cache are extracted when first looked up
+            return packedCache.makeAvailable(cachedFile);
+        }
+        return super.isCachedFileAvailable(cachedFile);
     }
 
     @Override
@@ -19,6 +19,7 @@
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ComponentResolvers;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ErrorHandlingArtifactResolver;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelector;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactStageLimit;
 import org.gradle.api.internal.artifacts.type.ArtifactTypeRegistry;
 import org.gradle.api.internal.component.ArtifactType;
 import org.gradle.internal.component.model.ComponentArtifactMetadata;
@@ -51,7 +52,7 @@ public class ComponentResolversChain {
     private final ArtifactResolver artifactResolverChain;
     private final DefaultArtifactSelector artifactSelector;
 
-    public ComponentResolversChain(List<ComponentResolvers> providers, ArtifactTypeRegistry artifactTypeRegistry, CalculatedValueContainerFactory calculatedValueContainerFactory) {
+    public ComponentResolversChain(List<ComponentResolvers> providers, ArtifactTypeRegistry artifactTypeRegistry, CalculatedValueContainerFactory calculatedValueContainerFactory, ArtifactStageLimit downloadLimit) {
         List<DependencyToComponentIdResolver> depToComponentIdResolvers = new ArrayList<>(providers.size());
         List<ComponentMetaDataResolver> componentMetaDataResolvers = new ArrayList<>(1 + providers.size());
         componentMetaDataResolvers.add(VirtualComponentMetadataResolver.INSTANCE);
@@ -65,7 +66,7 @@ public ComponentResolversChain(List<ComponentResolvers> providers, ArtifactTypeR
         }
         dependencyToComponentIdResolver = new DependencyToComponentIdResolverChain(depToComponentIdResolvers);
         componentMetaDataResolver = new ComponentMetaDataResolverChain(componentMetaDataResolvers);
-        artifactResolverChain = new ErrorHandlingArtifactResolver(new ArtifactResolverChain(artifactResolvers));
+        artifactResolverChain = new ErrorHandlingArtifactResolver(new ArtifactResolverChain(artifactResolvers, downloadLimit));
         artifactSelector = new DefaultArtifactSelector(artifactSelectors, artifactResolverChain, artifactTypeRegistry, calculatedValueContainerFactory);
     }
 
@@ -115,19 +116,24 @@ public boolean isFetchingMetadataCheap(ComponentIdentifier identifier) {
 
     private static class ArtifactResolverChain implements ArtifactResolver {
         private final List<ArtifactResolver> resolvers;
+        private final ArtifactStageLimit downloadLimit;
 
-        private ArtifactResolverChain(List<ArtifactResolver> resolvers) {
+        private ArtifactResolverChain(List<ArtifactResolver> resolvers, ArtifactStageLimit downloadLimit) {
             this.resolvers = resolvers;
+            this.downloadLimit = downloadLimit;
         }
 
         @Override
         public void resolveArtifact(ComponentArtifactMetadata artifact, ModuleSources moduleSources, BuildableArtifactResolveResult result) {
-            for (ArtifactResolver resolver : resolvers) {
-                if (result.hasResult()) {
-                    return;
+            // Workers waiting for another worker to resolve the same artifact do so before getting here, so they don't hold a permit while waiting
+            downloadLimit.run(() -> {
+                for (ArtifactResolver resolver : resolvers) {
+                    if (result.hasResult()) {
+                        return;
+                    }
+                    resolver.resolveArtifact(artifact, moduleSources, result);
                 }
-                resolver.resolveArtifact(artifact, moduleSources, result);
-            }
+            });
         }
 
         @Override
@@ -159,6 +165,13 @@ public void resolve(DependencyMetadata dependency, VersionSelector acceptor, @Nu
                 resolver.resolve(dependency, acceptor, rejector, result);
             }
         }
+
+        @Override
+        public void prefetch(DependencyMetadata dependency, VersionSelector acceptor) {
+            for (DependencyToComponentIdResolver resolver : resolvers) {
+                resolver.prefetch(dependency, acceptor);
+            }
+        }
     }
 
 }
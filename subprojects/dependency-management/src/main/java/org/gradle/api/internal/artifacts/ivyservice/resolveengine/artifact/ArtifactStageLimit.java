@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact;
+
+import org.gradle.internal.UncheckedException;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of artifacts which are concurrently in a stage of the artifact pipeline. The limits of a build are provided by {@link ArtifactStageLimits}.
+ *
+ * <p>An artifact is downloaded and then transformed by the same worker, so limiting the transform stage also applies backpressure
+ * to the downloads: a worker waiting to transform an artifact does not download another one. The artifacts which have been downloaded
+ * but not transformed yet are thus bounded by the number of workers.</p>
+ *
+ * <p>A permit must only be held while running the work of the stage itself, and not while waiting for work done by other workers,
+ * as those may need a permit of the same stage.</p>
+ */
+public class ArtifactStageLimit {
+    @Nullable
+    private final Semaphore permits;
+    // An artifact may need another one while in a stage, which must not wait for a permit held by the same thread
+    private final ThreadLocal<Boolean> holdsPermit = new ThreadLocal<>();
+
+    /**
+     * Creates a limit of the given number of concurrent artifacts, or no limit when it is not positive.
+     */
+    public ArtifactStageLimit(int maxConcurrentArtifacts) {
+        this.permits = maxConcurrentArtifacts > 0 ? new Semaphore(maxConcurrentArtifacts, true) : null;
+    }
+
+    public void run(Runnable action) {
+        call(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public <T> T call(Supplier<T> action) {
+        if (permits == null || holdsPermit.get() != null) {
+            return action.get();
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        holdsPermit.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            holdsPermit.remove();
+            permits.release();
+        }
+    }
+}
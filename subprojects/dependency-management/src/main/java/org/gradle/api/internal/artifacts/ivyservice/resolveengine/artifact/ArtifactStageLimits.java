@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact;
+
+import org.gradle.StartParameter;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+
+/**
+ * The limits of the stages of the artifact pipeline of a build. The stages are not limited by default, other than by the number of workers.
+ */
+public class ArtifactStageLimits {
+    public static final String MAX_CONCURRENT_DOWNLOADS_PROPERTY = "org.gradle.internal.dm.artifacts.max-concurrent-downloads";
+    public static final String MAX_CONCURRENT_TRANSFORMS_PROPERTY = "org.gradle.internal.dm.artifacts.max-concurrent-transforms";
+
+    private final ArtifactStageLimit downloads;
+    private final ArtifactStageLimit transforms;
+
+    public ArtifactStageLimits(int maxConcurrentDownloads, int maxConcurrentTransforms) {
+        this.downloads = new ArtifactStageLimit(maxConcurrentDownloads);
+        this.transforms = new ArtifactStageLimit(maxConcurrentTransforms);
+    }
+
+    /**
+     * Creates the limits requested by the system properties of the build.
+     */
+    public static ArtifactStageLimits fromStartParameter(StartParameter startParameter) {
+        Map<String, String> systemPropertiesArgs = startParameter.getSystemPropertiesArgs();
+        return new ArtifactStageLimits(getLimit(MAX_CONCURRENT_DOWNLOADS_PROPERTY, systemPropertiesArgs), getLimit(MAX_CONCURRENT_TRANSFORMS_PROPERTY, systemPropertiesArgs));
+    }
+
+    private static int getLimit(String systemProperty, Map<String, String> systemPropertiesArgs) {
+        String value = getSystemProperty(systemProperty, systemPropertiesArgs);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    @Nullable
+    private static String getSystemProperty(String systemProperty, Map<String, String> systemPropertiesArgs) {
+        return systemPropertiesArgs.getOrDefault(systemProperty, System.getProperty(systemProperty));
+    }
+
+    /**
+     * The limit of artifacts which are concurrently downloaded.
+     */
+    public ArtifactStageLimit getDownloads() {
+        return downloads;
+    }
+
+    /**
+     * The limit of artifacts which are concurrently transformed.
+     */
+    public ArtifactStageLimit getTransforms() {
+        return transforms;
+    }
+}
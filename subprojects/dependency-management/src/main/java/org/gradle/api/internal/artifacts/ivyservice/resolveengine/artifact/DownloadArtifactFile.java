@@ -0,0 +1,45 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact;
+
+import org.gradle.api.internal.artifacts.DownloadArtifactBuildOperationType;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.RunnableBuildOperation;
+
+/**
+ * Downloads the file of an artifact, as the download stage of the artifact pipeline.
+ */
+public class DownloadArtifactFile implements RunnableBuildOperation {
+    private final ResolvableArtifact artifact;
+
+    public DownloadArtifactFile(ResolvableArtifact artifact) {
+        this.artifact = artifact;
+    }
+
+    @Override
+    public void run(BuildOperationContext context) {
+        artifact.getFileSource().finalizeIfNotAlready();
+        context.setResult(DownloadArtifactBuildOperationType.RESULT);
+    }
+
+    @Override
+    public BuildOperationDescriptor.Builder description() {
+        return BuildOperationDescriptor.displayName("Resolve " + artifact)
+            .details(new DownloadArtifactBuildOperationType.DetailsImpl(artifact.getId().getDisplayName()));
+    }
+}
@@ -17,6 +17,7 @@
 
 import com.google.common.collect.Maps;
 import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.bitsets.BitSetExcludeFactory;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories.CachingExcludeFactory;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories.ExcludeFactory;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories.LoggingExcludeFactory;
@@ -33,19 +34,31 @@
 import java.util.stream.Collectors;
 
 public class ModuleExclusions {
+    // Selects the exclude engine which combines excludes as bit sets instead of normalizing trees of excludes
+    private static final boolean USE_BIT_SETS = Boolean.getBoolean("org.gradle.internal.dm.excludes.bitsets");
+
     private final CachingExcludeFactory.MergeCaches mergeCaches = new CachingExcludeFactory.MergeCaches();
     // please keep the formatting below as it helps enabling or disabling stages
-    private final ExcludeFactory factory = new OptimizingExcludeFactory(// optimizes for nulls, 2-params, ... mandatory
-        new CachingExcludeFactory(// caches the result of TL operations
-            LoggingExcludeFactory.maybeLog(new NormalizingExcludeFactory(// performs algebra
-                new CachingExcludeFactory(// caches the result of optimization operations
-                    new DefaultExcludeFactory(), // the end of the chain, mandatory
-                    mergeCaches // shares the same caches as the top level one as after reducing we can find already cached merge operations
-                )
-            )),
-            mergeCaches
+    private final ExcludeFactory factory = USE_BIT_SETS
+        ? new OptimizingExcludeFactory(// optimizes for nulls, 2-params, ... mandatory
+            new CachingExcludeFactory(// caches the result of TL operations
+                LoggingExcludeFactory.maybeLog(new BitSetExcludeFactory(// combines excludes as bit sets
+                    new DefaultExcludeFactory() // the end of the chain, mandatory
+                )),
+                mergeCaches
+            )
         )
-    );
+        : new OptimizingExcludeFactory(// optimizes for nulls, 2-params, ... mandatory
+            new CachingExcludeFactory(// caches the result of TL operations
+                LoggingExcludeFactory.maybeLog(new NormalizingExcludeFactory(// performs algebra
+                    new CachingExcludeFactory(// caches the result of optimization operations
+                        new DefaultExcludeFactory(), // the end of the chain, mandatory
+                        mergeCaches // shares the same caches as the top level one as after reducing we can find already cached merge operations
+                    )
+                )),
+                mergeCaches
+            )
+        );
     private final Map<ExcludeMetadata, ExcludeSpec> metadataToExcludeCache = Maps.newConcurrentMap();
     private final ExcludeSpec nothing;
 
@@ -0,0 +1,330 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.bitsets;
+
+import com.google.common.collect.ImmutableSet;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeSpec;
+import org.gradle.internal.component.model.IvyArtifactName;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * An exclude of modules, represented as a union of:
+ * <ul>
+ *     <li>a set of excluded groups</li>
+ *     <li>a set of excluded module names</li>
+ *     <li>a set of excluded module ids</li>
+ *     <li>products of a set of groups and a set of module names, which exclude every module of one of the groups with one of the names.
+ *     Products are the result of intersecting a group exclude with a module name exclude.</li>
+ * </ul>
+ *
+ * Every set is a bit set over the identifiers of the {@link Identifiers}, which makes both union and intersection closed and cheap.
+ * Instances are immutable. They are normalized when created, so that equivalent excludes are equal in the common cases.
+ */
+final class BitSetExclude implements ExcludeSpec {
+    private final Identifiers identifiers;
+    private final BitSet groups;
+    private final BitSet modules;
+    private final BitSet moduleIds;
+    private final ImmutableSet<Product> products;
+    private final int hashCode;
+
+    private BitSetExclude(Identifiers identifiers, BitSet groups, BitSet modules, BitSet moduleIds, ImmutableSet<Product> products) {
+        this.identifiers = identifiers;
+        this.groups = groups;
+        this.modules = modules;
+        this.moduleIds = moduleIds;
+        this.products = products;
+        this.hashCode = Objects.hash(groups, modules, moduleIds, products);
+    }
+
+    static BitSetExclude groups(Identifiers identifiers, Iterable<String> groups) {
+        BitSet bits = new BitSet();
+        for (String group : groups) {
+            bits.set(identifiers.groups.allocate(group));
+        }
+        return new BitSetExclude(identifiers, bits, new BitSet(), new BitSet(), ImmutableSet.of());
+    }
+
+    static BitSetExclude modules(Identifiers identifiers, Iterable<String> modules) {
+        BitSet bits = new BitSet();
+        for (String module : modules) {
+            bits.set(identifiers.modules.allocate(module));
+        }
+        return new BitSetExclude(identifiers, new BitSet(), bits, new BitSet(), ImmutableSet.of());
+    }
+
+    static BitSetExclude moduleIds(Identifiers identifiers, Iterable<ModuleIdentifier> moduleIds) {
+        BitSet bits = new BitSet();
+        for (ModuleIdentifier moduleId : moduleIds) {
+            // Allocate group and module identifiers too, so that intersections with products can check them
+            identifiers.groups.allocate(moduleId.getGroup());
+            identifiers.modules.allocate(moduleId.getName());
+            bits.set(identifiers.moduleIds.allocate(moduleId));
+        }
+        return new BitSetExclude(identifiers, new BitSet(), new BitSet(), bits, ImmutableSet.of());
+    }
+
+    boolean isEmpty() {
+        return groups.isEmpty() && modules.isEmpty() && moduleIds.isEmpty() && products.isEmpty();
+    }
+
+    /**
+     * Returns the union of the given excludes, which is normalized once rather than after each operand.
+     */
+    static BitSetExclude union(Identifiers identifiers, List<BitSetExclude> excludes) {
+        if (excludes.size() == 1) {
+            return excludes.get(0);
+        }
+        BitSet groups = new BitSet();
+        BitSet modules = new BitSet();
+        BitSet moduleIds = new BitSet();
+        List<Product> products = new ArrayList<>();
+        for (BitSetExclude exclude : excludes) {
+            groups.or(exclude.groups);
+            modules.or(exclude.modules);
+            moduleIds.or(exclude.moduleIds);
+            products.addAll(exclude.products);
+        }
+        return normalize(identifiers, groups, modules, moduleIds, products);
+    }
+
+    BitSetExclude intersect(BitSetExclude other) {
+        // Intersection distributes over the union: intersect each part of this exclude with each part of the other one
+        List<Product> products = new ArrayList<>();
+        products.add(new Product(groups, other.modules));
+        products.add(new Product(other.groups, modules));
+        for (Product product : this.products) {
+            products.add(new Product(and(product.groups, other.groups), product.modules));
+            products.add(new Product(product.groups, and(product.modules, other.modules)));
+            for (Product otherProduct : other.products) {
+                products.add(new Product(and(product.groups, otherProduct.groups), and(product.modules, otherProduct.modules)));
+            }
+        }
+        for (Product otherProduct : other.products) {
+            products.add(new Product(and(otherProduct.groups, groups), otherProduct.modules));
+            products.add(new Product(otherProduct.groups, and(otherProduct.modules, modules)));
+        }
+        // A module id is excluded by both when it is excluded by this exclude and by the other one
+        BitSet moduleIds = new BitSet();
+        retainExcluded(this.moduleIds, other, moduleIds);
+        retainExcluded(other.moduleIds, this, moduleIds);
+        return normalize(identifiers, and(groups, other.groups), and(modules, other.modules), moduleIds, products);
+    }
+
+    private void retainExcluded(BitSet candidates, BitSetExclude exclude, BitSet result) {
+        for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+            if (exclude.excludes(identifiers.moduleIds.get(id))) {
+                result.set(id);
+            }
+        }
+    }
+
+    private static BitSetExclude normalize(Identifiers identifiers, BitSet groups, BitSet modules, BitSet moduleIds, List<Product> candidates) {
+        // Remove the parts of the products which are already excluded by the group and module sets
+        List<Product> products = new ArrayList<>(candidates.size());
+        for (Product candidate : candidates) {
+            BitSet productGroups = andNot(candidate.groups, groups);
+            BitSet productModules = andNot(candidate.modules, modules);
+            if (!productGroups.isEmpty() && !productModules.isEmpty()) {
+                products.add(new Product(productGroups, productModules));
+            }
+        }
+        products = mergeProducts(products);
+
+        // Remove the module ids which are already excluded by the other parts
+        BitSetExclude withoutModuleIds = new BitSetExclude(identifiers, groups, modules, new BitSet(), ImmutableSet.copyOf(products));
+        if (moduleIds.isEmpty() || withoutModuleIds.isEmpty()) {
+            return new BitSetExclude(identifiers, groups, modules, moduleIds, withoutModuleIds.products);
+        }
+        BitSet remainingModuleIds = (BitSet) moduleIds.clone();
+        for (int id = moduleIds.nextSetBit(0); id >= 0; id = moduleIds.nextSetBit(id + 1)) {
+            if (withoutModuleIds.excludes(identifiers.moduleIds.get(id))) {
+                remainingModuleIds.clear(id);
+            }
+        }
+        return new BitSetExclude(identifiers, groups, modules, remainingModuleIds, withoutModuleIds.products);
+    }
+
+    private static List<Product> mergeProducts(List<Product> products) {
+        if (products.size() < 2) {
+            return products;
+        }
+        // Products with the same module names are merged into one, then products contained in another one are removed
+        List<Product> merged = new ArrayList<>(products.size());
+        for (Product product : products) {
+            boolean added = false;
+            for (int i = 0; i < merged.size() && !added; i++) {
+                Product existing = merged.get(i);
+                if (existing.modules.equals(product.modules)) {
+                    merged.set(i, new Product(or(existing.groups, product.groups), existing.modules));
+                    added = true;
+                } else if (existing.groups.equals(product.groups)) {
+                    merged.set(i, new Product(existing.groups, or(existing.modules, product.modules)));
+                    added = true;
+                }
+            }
+            if (!added) {
+                merged.add(product);
+            }
+        }
+        List<Product> result = new ArrayList<>(merged.size());
+        for (int i = 0; i < merged.size(); i++) {
+            Product product = merged.get(i);
+            boolean contained = false;
+            for (int j = 0; j < merged.size() && !contained; j++) {
+                // Of two equal products, only the first one is kept
+                contained = i != j && merged.get(j).contains(product) && (j < i || !product.contains(merged.get(j)));
+            }
+            if (!contained) {
+                result.add(product);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean excludes(ModuleIdentifier module) {
+        int group = identifiers.groups.find(module.getGroup());
+        if (group >= 0 && groups.get(group)) {
+            return true;
+        }
+        int name = identifiers.modules.find(module.getName());
+        if (name >= 0 && modules.get(name)) {
+            return true;
+        }
+        if (group >= 0 && name >= 0) {
+            for (Product product : products) {
+                if (product.groups.get(group) && product.modules.get(name)) {
+                    return true;
+                }
+            }
+        }
+        if (moduleIds.isEmpty()) {
+            return false;
+        }
+        int moduleId = identifiers.moduleIds.find(module);
+        return moduleId >= 0 && moduleIds.get(moduleId);
+    }
+
+    @Override
+    public boolean excludesArtifact(ModuleIdentifier module, IvyArtifactName artifactName) {
+        return false;
+    }
+
+    @Override
+    public boolean mayExcludeArtifacts() {
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        BitSetExclude that = (BitSetExclude) o;
+        return hashCode == that.hashCode
+            && groups.equals(that.groups)
+            && modules.equals(that.modules)
+            && moduleIds.equals(that.moduleIds)
+            && products.equals(that.products);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "{\"bit set exclude\" : {"
+            + "\"groups\" : " + toJson(groups, identifiers.groups)
+            + ", \"modules\" : " + toJson(modules, identifiers.modules)
+            + ", \"module ids\" : " + toJson(moduleIds, identifiers.moduleIds)
+            + ", \"products\" : [" + products.stream().map(product -> "{\"groups\" : " + toJson(product.groups, identifiers.groups) + ", \"modules\" : " + toJson(product.modules, identifiers.modules) + "}").collect(Collectors.joining(", "))
+            + "]}}";
+    }
+
+    private static String toJson(BitSet bits, IdentifierIndex<?> index) {
+        return bits.stream().mapToObj(id -> "\"" + index.get(id) + "\"").collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    private static BitSet or(BitSet one, BitSet two) {
+        BitSet result = (BitSet) one.clone();
+        result.or(two);
+        return result;
+    }
+
+    private static BitSet and(BitSet one, BitSet two) {
+        BitSet result = (BitSet) one.clone();
+        result.and(two);
+        return result;
+    }
+
+    private static BitSet andNot(BitSet one, BitSet two) {
+        BitSet result = (BitSet) one.clone();
+        result.andNot(two);
+        return result;
+    }
+
+    /**
+     * The identifiers shared by all the excludes created by a factory.
+     */
+    static final class Identifiers {
+        private final IdentifierIndex<String> groups = new IdentifierIndex<>();
+        private final IdentifierIndex<String> modules = new IdentifierIndex<>();
+        private final IdentifierIndex<ModuleIdentifier> moduleIds = new IdentifierIndex<>();
+    }
+
+    private static final class Product {
+        private final BitSet groups;
+        private final BitSet modules;
+
+        private Product(BitSet groups, BitSet modules) {
+            this.groups = groups;
+            this.modules = modules;
+        }
+
+        boolean contains(Product other) {
+            return andNot(other.groups, groups).isEmpty() && andNot(other.modules, modules).isEmpty();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Product product = (Product) o;
+            return groups.equals(product.groups) && modules.equals(product.modules);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * groups.hashCode() + modules.hashCode();
+        }
+    }
+}
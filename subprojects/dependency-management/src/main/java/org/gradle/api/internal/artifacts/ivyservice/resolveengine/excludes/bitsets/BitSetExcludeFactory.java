@@ -0,0 +1,172 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.bitsets;
+
+import com.google.common.collect.ImmutableSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories.DelegatingExcludeFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories.ExcludeFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.CompositeExclude;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeAllOf;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeAnyOf;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeEverything;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeNothing;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeSpec;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.GroupExclude;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.GroupSetExclude;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ModuleExclude;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ModuleIdExclude;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ModuleIdSetExclude;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ModuleSetExclude;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An exclude factory which combines excludes of groups, module names and module ids as {@link BitSetExclude bit sets},
+ * instead of building trees of excludes which have to be normalized.
+ *
+ * The leaf excludes are created by the delegate. Excludes which cannot be represented as bit sets, like artifact excludes,
+ * are combined by the delegate with the bit set representing the other excludes.
+ */
+public class BitSetExcludeFactory extends DelegatingExcludeFactory {
+    private final BitSetExclude.Identifiers identifiers = new BitSetExclude.Identifiers();
+
+    public BitSetExcludeFactory(ExcludeFactory delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public ExcludeSpec anyOf(ExcludeSpec one, ExcludeSpec two) {
+        return anyOf(ImmutableSet.of(one, two));
+    }
+
+    @Override
+    public ExcludeSpec allOf(ExcludeSpec one, ExcludeSpec two) {
+        return allOf(ImmutableSet.of(one, two));
+    }
+
+    @Override
+    public ExcludeSpec anyOf(Set<ExcludeSpec> specs) {
+        List<BitSetExclude> bitSets = new ArrayList<>(specs.size());
+        Set<ExcludeSpec> others = null;
+        for (ExcludeSpec spec : flatten(specs, ExcludeAnyOf.class)) {
+            if (spec instanceof ExcludeEverything) {
+                return spec;
+            }
+            BitSetExclude bits = toBitSet(spec);
+            if (bits != null) {
+                bitSets.add(bits);
+            } else {
+                others = add(others, spec);
+            }
+        }
+        return combine(bitSets.isEmpty() ? null : BitSetExclude.union(identifiers, bitSets), others, true);
+    }
+
+    @Override
+    public ExcludeSpec allOf(Set<ExcludeSpec> specs) {
+        BitSetExclude intersection = null;
+        Set<ExcludeSpec> others = null;
+        for (ExcludeSpec spec : flatten(specs, ExcludeAllOf.class)) {
+            if (spec instanceof ExcludeEverything) {
+                continue;
+            }
+            BitSetExclude bits = toBitSet(spec);
+            if (bits != null) {
+                intersection = intersection == null ? bits : intersection.intersect(bits);
+                if (intersection.isEmpty()) {
+                    return nothing();
+                }
+            } else {
+                others = add(others, spec);
+            }
+        }
+        if (intersection == null && others == null) {
+            return everything();
+        }
+        return combine(intersection, others, false);
+    }
+
+    private ExcludeSpec combine(@Nullable BitSetExclude bits, @Nullable Set<ExcludeSpec> others, boolean union) {
+        ExcludeSpec result = bits == null || (union && bits.isEmpty()) ? null : bits;
+        if (others == null) {
+            return result == null ? nothing() : result;
+        }
+        if (result != null) {
+            others.add(result);
+        }
+        if (others.size() == 1) {
+            return others.iterator().next();
+        }
+        return union ? delegate.anyOf(others) : delegate.allOf(others);
+    }
+
+    private static Set<ExcludeSpec> add(@Nullable Set<ExcludeSpec> specs, ExcludeSpec spec) {
+        Set<ExcludeSpec> result = specs == null ? new LinkedHashSet<>() : specs;
+        result.add(spec);
+        return result;
+    }
+
+    /**
+     * Replaces the composites of the given type by their components, so that their components can be merged into the bit set.
+     */
+    private static Iterable<ExcludeSpec> flatten(Set<ExcludeSpec> specs, Class<? extends ExcludeSpec> compositeType) {
+        Set<ExcludeSpec> result = null;
+        for (ExcludeSpec spec : specs) {
+            if (compositeType.isInstance(spec)) {
+                if (result == null) {
+                    result = new LinkedHashSet<>(specs);
+                }
+                result.remove(spec);
+                result.addAll(((CompositeExclude) spec).getComponents());
+            }
+        }
+        return result == null ? specs : result;
+    }
+
+    @Nullable
+    private BitSetExclude toBitSet(ExcludeSpec spec) {
+        if (spec instanceof BitSetExclude) {
+            return (BitSetExclude) spec;
+        }
+        if (spec instanceof ExcludeNothing) {
+            return BitSetExclude.groups(identifiers, Collections.emptySet());
+        }
+        if (spec instanceof GroupExclude) {
+            return BitSetExclude.groups(identifiers, Collections.singleton(((GroupExclude) spec).getGroup()));
+        }
+        if (spec instanceof GroupSetExclude) {
+            return BitSetExclude.groups(identifiers, ((GroupSetExclude) spec).getGroups());
+        }
+        if (spec instanceof ModuleExclude) {
+            return BitSetExclude.modules(identifiers, Collections.singleton(((ModuleExclude) spec).getModule()));
+        }
+        if (spec instanceof ModuleSetExclude) {
+            return BitSetExclude.modules(identifiers, ((ModuleSetExclude) spec).getModules());
+        }
+        if (spec instanceof ModuleIdExclude) {
+            return BitSetExclude.moduleIds(identifiers, Collections.singleton(((ModuleIdExclude) spec).getModuleId()));
+        }
+        if (spec instanceof ModuleIdSetExclude) {
+            return BitSetExclude.moduleIds(identifiers, ((ModuleIdSetExclude) spec).getModuleIds());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.bitsets;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns dense identifiers to values, in the order values are first seen.
+ *
+ * Looking up the identifier of a value does not allocate one, so that checking whether a module is excluded does not grow the index.
+ */
+final class IdentifierIndex<T> {
+    private final Map<T, Integer> identifiers = new ConcurrentHashMap<>();
+    private final List<T> values = new ArrayList<>();
+
+    /**
+     * Returns the identifier of the given value, or -1 if the value has no identifier.
+     */
+    int find(T value) {
+        Integer identifier = identifiers.get(value);
+        return identifier == null ? -1 : identifier;
+    }
+
+    synchronized int allocate(T value) {
+        Integer identifier = identifiers.get(value);
+        if (identifier == null) {
+            identifier = values.size();
+            values.add(value);
+            identifiers.put(value, identifier);
+        }
+        return identifier;
+    }
+
+    synchronized T get(int identifier) {
+        return values.get(identifier);
+    }
+}
@@ -32,7 +32,7 @@
 public abstract class DelegatingExcludeFactory implements ExcludeFactory {
     protected final ExcludeFactory delegate;
 
-    DelegatingExcludeFactory(ExcludeFactory delegate) {
+    protected DelegatingExcludeFactory(ExcludeFactory delegate) {
         this.delegate = delegate;
     }
 
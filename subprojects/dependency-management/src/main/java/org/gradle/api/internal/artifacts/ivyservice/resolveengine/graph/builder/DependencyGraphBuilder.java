@@ -17,12 +17,14 @@
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.gradle.api.Action;
 import org.gradle.api.GradleException;
 import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.artifacts.ModuleVersionIdentifier;
 import org.gradle.api.artifacts.component.ComponentIdentifier;
 import org.gradle.api.artifacts.component.ComponentSelector;
@@ -169,11 +171,15 @@ private static int estimateSize(ResolveContext resolveContext) {
     private void traverseGraph(final ResolveState resolveState, final Map<ModuleVersionIdentifier, ComponentIdentifier> componentIdentifierCache) {
         resolveState.onMoreSelected(resolveState.getRoot());
         final List<EdgeState> dependencies = Lists.newArrayList();
+        final TraversalWave wave = new TraversalWave();
 
-        while (resolveState.peek() != null || moduleConflictHandler.hasConflicts() || capabilitiesConflictHandler.hasConflicts()) {
+        while (resolveState.peek() != null || !wave.isEmpty() || moduleConflictHandler.hasConflicts() || capabilitiesConflictHandler.hasConflicts()) {
             if (resolveState.peek() != null) {
                 final NodeState node = resolveState.pop();
                 LOGGER.debug("Visiting configuration {}.", node);
+                if (wave.mustCompleteBefore(node)) {
+                    completeWave(wave, componentIdentifierCache);
+                }
 
                 // Register capabilities for this node
                 registerCapabilities(resolveState, node);
@@ -181,9 +187,21 @@ private void traverseGraph(final ResolveState resolveState, final Map<ModuleVers
                 // Initialize and collect any new outgoing edges of this node
                 dependencies.clear();
                 node.visitOutgoingDependencies(dependencies);
-                boolean edgeWasProcessed = resolveEdges(node, dependencies, ENDORSE_STRICT_VERSIONS_DEPENDENCY_SPEC, false, resolveState, componentIdentifierCache);
-                node.collectEndorsedStrictVersions(dependencies);
-                resolveEdges(node, dependencies, NOT_ENDORSE_STRICT_VERSIONS_DEPENDENCY_SPEC, edgeWasProcessed, resolveState, componentIdentifierCache);
+                if (hasEndorsingEdge(dependencies)) {
+                    // The edges endorsing strict versions have to be attached before the other edges are selected
+                    completeWave(wave, componentIdentifierCache);
+                    boolean edgeWasProcessed = resolveEdges(node, dependencies, ENDORSE_STRICT_VERSIONS_DEPENDENCY_SPEC, false, resolveState, componentIdentifierCache);
+                    node.collectEndorsedStrictVersions(dependencies);
+                    resolveEdges(node, dependencies, NOT_ENDORSE_STRICT_VERSIONS_DEPENDENCY_SPEC, edgeWasProcessed, resolveState, componentIdentifierCache);
+                } else {
+                    node.collectEndorsedStrictVersions(dependencies);
+                    if (performSelectionSerially(dependencies, NOT_ENDORSE_STRICT_VERSIONS_DEPENDENCY_SPEC, resolveState, false)) {
+                        wave.add(node, dependencies);
+                    }
+                }
+            } else if (!wave.isEmpty()) {
+                // The current level of the graph has been visited. Fetch the metadata of the next level and attach it, which queues up its nodes
+                completeWave(wave, componentIdentifierCache);
             } else {
                 // We have some batched up conflicts. Resolve the first, and continue traversing the graph
                 if (moduleConflictHandler.hasConflicts()) {
@@ -196,6 +214,31 @@ private void traverseGraph(final ResolveState resolveState, final Map<ModuleVers
         }
     }
 
+    private static boolean hasEndorsingEdge(List<EdgeState> dependencies) {
+        for (EdgeState dependency : dependencies) {
+            if (ENDORSE_STRICT_VERSIONS_DEPENDENCY_SPEC.isSatisfiedBy(dependency)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fetches the metadata of the targets of all the edges of the wave in parallel, then attaches the edges in the order they were visited.
+     */
+    private void completeWave(TraversalWave wave, Map<ModuleVersionIdentifier, ComponentIdentifier> componentIdentifierCache) {
+        if (wave.isEmpty()) {
+            return;
+        }
+        List<List<EdgeState>> edges = wave.getEdges();
+        maybeDownloadMetadataInParallel("the visited nodes", componentIdentifierCache, Iterables.concat(edges), EdgeState::isUsed);
+        for (List<EdgeState> nodeEdges : edges) {
+            // Edges that are not used anymore have been removed from the graph while the wave was visited
+            attachToTargetRevisionsSerially(nodeEdges, EdgeState::isUsed);
+        }
+        wave.clear();
+    }
+
     private void registerCapabilities(final ResolveState resolveState, final NodeState node) {
         node.forEachCapability(capabilitiesConflictHandler, new Action<Capability>() {
             @Override
@@ -255,6 +298,9 @@ private boolean resolveEdges(final NodeState node,
     }
 
     private boolean performSelectionSerially(List<EdgeState> dependencies, Spec<EdgeState> dependencyFilter, ResolveState resolveState, boolean recomputeSelectors) {
+        if (!recomputeSelectors) {
+            maybeListVersionsInParallel(dependencies, dependencyFilter);
+        }
         boolean processed = false;
         for (EdgeState dependency : dependencies) {
             if (!dependencyFilter.isSatisfiedBy(dependency)) {
@@ -313,12 +359,41 @@ private void checkForModuleConflicts(ResolveState resolveState, ModuleResolveSta
         }
     }
 
+    /**
+     * Lists the versions of the modules targeted by dynamic selectors concurrently, when there is more than one of them, before they are resolved serially.
+     */
+    private void maybeListVersionsInParallel(List<EdgeState> dependencies, Spec<EdgeState> dependencyFilter) {
+        Map<ModuleIdentifier, SelectorState> requiringListing = null;
+        for (EdgeState dependency : dependencies) {
+            if (!dependencyFilter.isSatisfiedBy(dependency)) {
+                continue;
+            }
+            SelectorState selector = dependency.getSelector();
+            if (selector.canResolve() && selector.requiresVersionListing()) {
+                if (requiringListing == null) {
+                    requiringListing = Maps.newLinkedHashMap();
+                }
+                requiringListing.putIfAbsent(selector.getTargetModule().getId(), selector);
+            }
+        }
+        // Only list in parallel if there is more than 1 module to list
+        if (requiringListing != null && requiringListing.size() > 1) {
+            final ImmutableList<SelectorState> toListInParallel = ImmutableList.copyOf(requiringListing.values());
+            LOGGER.debug("Submitting {} version listings to fetch in parallel", toListInParallel.size());
+            buildOperationExecutor.runAll(buildOperationQueue -> {
+                for (final SelectorState selector : toListInParallel) {
+                    buildOperationQueue.add(new ListVersionsOperation(selector));
+                }
+            });
+        }
+    }
+
     /**
      * Prepares the resolution of edges, either serially or concurrently.
      * It uses a simple heuristic to determine if we should perform concurrent resolution, based on the the number of edges, and whether they have unresolved metadata.
      */
-    private void maybeDownloadMetadataInParallel(NodeState node, Map<ModuleVersionIdentifier, ComponentIdentifier> componentIdentifierCache, List<EdgeState> dependencies, Spec<EdgeState> dependencyFilter) {
-        List<ComponentState> requiringDownload = null;
+    private void maybeDownloadMetadataInParallel(Object owner, Map<ModuleVersionIdentifier, ComponentIdentifier> componentIdentifierCache, Iterable<EdgeState> dependencies, Spec<EdgeState> dependencyFilter) {
+        Set<ComponentState> requiringDownload = null;
         for (EdgeState dependency : dependencies) {
             if (!dependencyFilter.isSatisfiedBy(dependency)) {
                 continue;
@@ -328,7 +403,7 @@ private void maybeDownloadMetadataInParallel(NodeState node, Map<ModuleVersionId
                 if (!metaDataResolver.isFetchingMetadataCheap(toComponentId(targetComponent.getId(), componentIdentifierCache))) {
                     // Avoid initializing the list if there are no components requiring download (a common case)
                     if (requiringDownload == null) {
-                        requiringDownload = Lists.newArrayList();
+                        requiringDownload = Sets.newLinkedHashSet();
                     }
                     requiringDownload.add(targetComponent);
                 }
@@ -337,7 +412,7 @@ private void maybeDownloadMetadataInParallel(NodeState node, Map<ModuleVersionId
         // Only download in parallel if there is more than 1 component to download
         if (requiringDownload != null && requiringDownload.size() > 1) {
             final ImmutableList<ComponentState> toDownloadInParallel = ImmutableList.copyOf(requiringDownload);
-            LOGGER.debug("Submitting {} metadata files to resolve in parallel for {}", toDownloadInParallel.size(), node);
+            LOGGER.debug("Submitting {} metadata files to resolve in parallel for {}", toDownloadInParallel.size(), owner);
             buildOperationExecutor.runAll(buildOperationQueue -> {
                 for (final ComponentState componentState : toDownloadInParallel) {
                     buildOperationQueue.add(new DownloadMetadataOperation(componentState));
@@ -23,6 +23,7 @@
 import org.gradle.api.artifacts.ClientModule;
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
 import org.gradle.api.artifacts.component.ProjectComponentSelector;
 import org.gradle.api.artifacts.result.ComponentSelectionCause;
 import org.gradle.api.internal.artifacts.ResolvedVersionConstraint;
@@ -180,6 +181,24 @@ public ComponentIdResolveResult resolvePrefer(VersionSelector allRejects) {
         return preferResult;
     }
 
+    /**
+     * Is this selector yet to be resolved, and will resolving it list the versions of a module?
+     */
+    boolean requiresVersionListing() {
+        if (resolved || dependencyState.failure != null || !(getSelector() instanceof ModuleComponentSelector)) {
+            return false;
+        }
+        VersionSelector requiredSelector = versionConstraint == null ? null : versionConstraint.getRequiredSelector();
+        return requiredSelector != null && requiredSelector.isDynamic();
+    }
+
+    /**
+     * Fetches ahead of time what resolving this selector will need from remote repositories. May be called concurrently for different selectors.
+     */
+    void prefetch() {
+        resolver.prefetch(dependencyState.getDependency(), versionConstraint.getRequiredSelector());
+    }
+
     private ComponentIdResolveResult resolve(@Nullable VersionSelector selector, VersionSelector rejector, ComponentIdResolveResult previousResult) {
         try {
             if (!requiresResolve(previousResult, rejector)) {
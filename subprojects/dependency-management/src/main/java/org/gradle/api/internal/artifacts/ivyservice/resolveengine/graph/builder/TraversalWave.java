@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The nodes visited by the graph traversal whose outgoing edges have been selected, but not yet attached to their target nodes.
+ *
+ * <p>Attaching an edge requires the metadata of its target component. Deferring the attachment of the edges of consecutive nodes allows
+ * the metadata of all the components on the frontier of the graph to be fetched in parallel, instead of fetching the targets of one node at a time.
+ * Because the traversal is breadth-first, a wave usually contains a whole level of the graph.</p>
+ *
+ * <p>A node can only join the wave when the wave cannot affect how the node is visited. Otherwise, the wave has to be completed first.</p>
+ */
+class TraversalWave {
+    private final List<List<EdgeState>> edges = Lists.newArrayList();
+    private final Set<NodeState> visited = Sets.newIdentityHashSet();
+    private final Set<ModuleResolveState> targetModules = Sets.newIdentityHashSet();
+
+    boolean isEmpty() {
+        return edges.isEmpty();
+    }
+
+    /**
+     * Returns true when the edges of this wave have to be attached before the given node is visited:
+     * <ul>
+     *     <li>The node is visited again, so its edges may be replaced.</li>
+     *     <li>Some edge of this wave may target the node, which would change its incoming edges.</li>
+     *     <li>The node declares capabilities, which are checked against the nodes that are already attached.</li>
+     * </ul>
+     */
+    boolean mustCompleteBefore(NodeState node) {
+        if (edges.isEmpty()) {
+            return false;
+        }
+        return visited.contains(node)
+            || targetModules.contains(node.getComponent().getModule())
+            || !node.getMetadata().getCapabilities().getCapabilities().isEmpty();
+    }
+
+    void add(NodeState node, List<EdgeState> outgoingEdges) {
+        List<EdgeState> copy = Lists.newArrayList(outgoingEdges);
+        edges.add(copy);
+        visited.add(node);
+        for (EdgeState edge : copy) {
+            targetModules.add(edge.getSelector().getTargetModule());
+        }
+    }
+
+    /**
+     * Returns the edges of this wave, in the order the nodes were visited.
+     */
+    List<List<EdgeState>> getEdges() {
+        return edges;
+    }
+
+    void clear() {
+        edges.clear();
+        visited.clear();
+        targetModules.clear();
+    }
+}
@@ -23,10 +23,14 @@
 import org.gradle.internal.serialize.kryo.StringDeduplicatingKryoBackedEncoder;
 
 import java.io.Closeable;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 import static org.gradle.internal.UncheckedException.throwAsUncheckedException;
 
@@ -73,11 +77,13 @@ public String toString() {
     @Override
     public BinaryData done() {
         try {
+            long length = 0;
             if (encoder != null) {
                 encoder.done();
                 encoder.flush();
+                length = encoder.getWritePosition() - offset;
             }
-            return new SimpleBinaryData(file, offset);
+            return new SimpleBinaryData(file, offset, length);
         } finally {
             offset = -1;
         }
@@ -106,16 +112,35 @@ long getSize() {
         return file.length();
     }
 
-    private static class SimpleBinaryData implements BinaryStore.BinaryData {
+    static class SimpleBinaryData implements BinaryStore.BinaryData {
         private final long offset;
+        private final long length;
         private final File inputFile;
 
         private Decoder decoder;
         private CompositeStoppable resources;
 
-        public SimpleBinaryData(File inputFile, long offset) {
+        SimpleBinaryData(File inputFile, long offset, long length) {
             this.inputFile = inputFile;
             this.offset = offset;
+            this.length = length;
+        }
+
+        /**
+         * Copies the bytes of this data to the given file, so that they can later be read back from offset 0.
+         */
+        void copyTo(File target) throws IOException {
+            try (FileChannel source = FileChannel.open(inputFile.toPath(), StandardOpenOption.READ);
+                 FileChannel destination = FileChannel.open(target.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long position = 0;
+                while (position < length) {
+                    long transferred = source.transferTo(offset + position, length - position, destination);
+                    if (transferred <= 0) {
+                        throw new EOFException("Unexpected end of " + inputFile + " at offset " + (offset + position));
+                    }
+                    position += transferred;
+                }
+            }
         }
 
         @Override
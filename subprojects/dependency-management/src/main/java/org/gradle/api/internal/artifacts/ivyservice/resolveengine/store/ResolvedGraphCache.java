@@ -0,0 +1,148 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store;
+
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.StreamingResolutionResultBuilder;
+import org.gradle.cache.CacheAccess;
+import org.gradle.cache.internal.BinaryStore;
+import org.gradle.internal.file.FileAccessTimeJournal;
+import org.gradle.internal.file.FileAccessTracker;
+import org.gradle.internal.file.impl.SingleDepthFileAccessTracker;
+import org.gradle.internal.hash.HashCode;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import static org.gradle.internal.UncheckedException.throwAsUncheckedException;
+
+/**
+ * Stores resolved dependency graphs in the Gradle user home, so that later builds can reuse a graph instead of resolving it again.
+ *
+ * Each graph is stored in its own file, named after the hash of the inputs of the resolution, using the format written by {@link StreamingResolutionResultBuilder}.
+ * Entries are never updated, as a change to the inputs results in a different key. Unused entries are removed by the cleanup of the artifact cache.
+ * Entries are only read and written while holding the lock of the artifact cache, and a loaded graph is copied to a store of the build, so that the cleanup cannot remove it while it is used.
+ */
+public class ResolvedGraphCache {
+    public static final int FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP = 1;
+
+    private final File baseDir;
+    private final CacheAccess cacheAccess;
+    private final FileAccessTracker fileAccessTracker;
+
+    public ResolvedGraphCache(File baseDir, CacheAccess cacheAccess, FileAccessTimeJournal fileAccessTimeJournal) {
+        this.baseDir = baseDir;
+        this.cacheAccess = cacheAccess;
+        this.fileAccessTracker = new SingleDepthFileAccessTracker(fileAccessTimeJournal, baseDir, FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP);
+    }
+
+    /**
+     * Copies the graph stored for the given key to the given binary store, and returns the copy. Returns null when there is no such graph.
+     */
+    @Nullable
+    public BinaryStore.BinaryData load(HashCode key, BinaryStore target) {
+        return cacheAccess.useCache(() -> {
+            File file = fileFor(key);
+            if (!file.isFile()) {
+                return null;
+            }
+            target.write(encoder -> {
+                try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+                    byte[] buffer = new byte[8192];
+                    int count;
+                    while ((count = inputStream.read(buffer)) >= 0) {
+                        encoder.writeBytes(buffer, 0, count);
+                    }
+                }
+            });
+            fileAccessTracker.markAccessed(file);
+            return target.done();
+        });
+    }
+
+    /**
+     * Creates an entry for the given key, which records the graph written to the given binary store.
+     * The graph is only stored when {@link PendingEntry#commit()} is called.
+     */
+    public PendingEntry newEntry(HashCode key, BinaryStore store) {
+        return new PendingEntry(key, store);
+    }
+
+    private File fileFor(HashCode key) {
+        return new File(baseDir, key.toString() + ".bin");
+    }
+
+    public class PendingEntry implements BinaryStore {
+        private final HashCode key;
+        private final BinaryStore delegate;
+        private BinaryData data;
+
+        private PendingEntry(HashCode key, BinaryStore delegate) {
+            this.key = key;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(WriteAction write) {
+            delegate.write(write);
+        }
+
+        @Override
+        public BinaryData done() {
+            data = delegate.done();
+            return data;
+        }
+
+        /**
+         * Stores the recorded graph, unless some other build has already stored a graph for the same key.
+         */
+        public void commit() {
+            if (!(data instanceof DefaultBinaryStore.SimpleBinaryData)) {
+                throw new IllegalStateException("Cannot store a graph that has not been written to a binary store.");
+            }
+            cacheAccess.useCache(this::store);
+        }
+
+        private void store() {
+            File target = fileFor(key);
+            if (target.isFile()) {
+                return;
+            }
+            try {
+                Files.createDirectories(baseDir.toPath());
+                File temp = File.createTempFile(key.toString(), ".tmp", baseDir);
+                try {
+                    ((DefaultBinaryStore.SimpleBinaryData) data).copyTo(temp);
+                    Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(temp.toPath());
+                }
+            } catch (IOException e) {
+                if (target.isFile()) {
+                    // Stored concurrently by some other build
+                    return;
+                }
+                throw throwAsUncheckedException(e);
+            }
+            fileAccessTracker.markAccessed(target);
+        }
+    }
+}
@@ -20,6 +20,7 @@
 import org.gradle.api.Action;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactStageLimits;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.EndCollection;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvableArtifact;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedArtifactSet;
@@ -32,6 +33,7 @@
 import org.gradle.internal.model.CalculatedValueContainer;
 import org.gradle.internal.model.CalculatedValueContainerFactory;
 import org.gradle.internal.model.ValueCalculator;
+import org.gradle.internal.operations.BuildOperationExecutor;
 
 /**
  * Transformed artifact set that performs the transformation itself when visited.
@@ -151,7 +153,7 @@ public ImmutableList<Artifacts> calculateValue(NodeExecutionContext context) {
             }
 
             ImmutableList.Builder<Artifacts> builder = ImmutableList.builderWithExpectedSize(1);
-            delegate.visit(new TransformingAsyncArtifactListener(steps, targetVariantAttributes, builder));
+            delegate.visit(new TransformingAsyncArtifactListener(steps, targetVariantAttributes, builder, context.getService(BuildOperationExecutor.class), context.getService(ArtifactStageLimits.class).getTransforms()));
             return builder.build();
         }
     }
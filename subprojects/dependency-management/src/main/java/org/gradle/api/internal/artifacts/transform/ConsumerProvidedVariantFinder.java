@@ -96,12 +96,7 @@ private AttributeContainerInternal computeRequestedAttributes(AttributeContainer
     }
 
     private AttributeSpecificCache getCache(AttributeContainer attributes) {
-        AttributeSpecificCache cache = attributeSpecificCache.get(attributes);
-        if (cache == null) {
-            cache = new AttributeSpecificCache();
-            attributeSpecificCache.put(attributes, cache);
-        }
-        return cache;
+        return attributeSpecificCache.computeIfAbsent(attributes, key -> new AttributeSpecificCache());
     }
 
     private boolean matchAttributes(AttributeContainerInternal actual, AttributeContainerInternal requested) {
@@ -18,8 +18,10 @@
 
 import com.google.common.collect.ImmutableList;
 import org.gradle.api.attributes.AttributeContainer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactStageLimit;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.BrokenArtifacts;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DownloadArtifactFile;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvableArtifact;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedArtifactSet;
 import org.gradle.api.internal.attributes.ImmutableAttributes;
@@ -29,6 +31,7 @@
 import org.gradle.internal.Try;
 import org.gradle.internal.operations.BuildOperationContext;
 import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.operations.BuildOperationQueue;
 import org.gradle.internal.operations.RunnableBuildOperation;
 
@@ -40,14 +43,20 @@ public class TransformingAsyncArtifactListener implements ResolvedArtifactSet.Vi
     private final List<BoundTransformationStep> transformationSteps;
     private final ImmutableAttributes target;
     private final ImmutableList.Builder<ResolvedArtifactSet.Artifacts> result;
+    private final BuildOperationExecutor buildOperationExecutor;
+    private final ArtifactStageLimit transformLimit;
 
     public TransformingAsyncArtifactListener(
         List<BoundTransformationStep> transformationSteps,
         ImmutableAttributes target,
-        ImmutableList.Builder<ResolvedArtifactSet.Artifacts> result) {
+        ImmutableList.Builder<ResolvedArtifactSet.Artifacts> result,
+        BuildOperationExecutor buildOperationExecutor,
+        ArtifactStageLimit transformLimit) {
         this.transformationSteps = transformationSteps;
         this.target = target;
         this.result = result;
+        this.buildOperationExecutor = buildOperationExecutor;
+        this.transformLimit = transformLimit;
     }
 
     @Override
@@ -55,7 +64,7 @@ public void visitArtifacts(ResolvedArtifactSet.Artifacts artifacts) {
         artifacts.visit(new ArtifactVisitor() {
             @Override
             public void visitArtifact(DisplayName variantName, AttributeContainer variantAttributes, ResolvableArtifact artifact) {
-                TransformedArtifact transformedArtifact = new TransformedArtifact(variantName, target, artifact, transformationSteps);
+                TransformedArtifact transformedArtifact = new TransformedArtifact(variantName, target, artifact, transformationSteps, buildOperationExecutor, transformLimit);
                 result.add(transformedArtifact);
             }
 
@@ -82,14 +91,18 @@ public static class TransformedArtifact implements ResolvedArtifactSet.Artifacts
         private final ResolvableArtifact artifact;
         private final ImmutableAttributes target;
         private final List<BoundTransformationStep> transformationSteps;
+        private final BuildOperationExecutor buildOperationExecutor;
+        private final ArtifactStageLimit transformLimit;
         private Try<TransformationSubject> transformedSubject;
         private CacheableInvocation<TransformationSubject> invocation;
 
-        public TransformedArtifact(DisplayName variantName, ImmutableAttributes target, ResolvableArtifact artifact, List<BoundTransformationStep> transformationSteps) {
+        public TransformedArtifact(DisplayName variantName, ImmutableAttributes target, ResolvableArtifact artifact, List<BoundTransformationStep> transformationSteps, BuildOperationExecutor buildOperationExecutor, ArtifactStageLimit transformLimit) {
             this.variantName = variantName;
             this.artifact = artifact;
             this.target = target;
             this.transformationSteps = transformationSteps;
+            this.buildOperationExecutor = buildOperationExecutor;
+            this.transformLimit = transformLimit;
         }
 
         public DisplayName getVariantName() {
@@ -173,6 +186,11 @@ private Try<TransformationSubject> finalizeValue() {
                 }
             }
 
+            if (!artifact.isResolveSynchronously()) {
+                // Download the input artifact in its own operation, so that the download and the transform are timed separately.
+                // The same worker then transforms it, so that there are never more downloaded but not yet transformed artifacts than workers
+                buildOperationExecutor.run(new DownloadArtifactFile(artifact));
+            }
             artifact.getFileSource().finalizeIfNotAlready();
             if (!artifact.getFileSource().getValue().isSuccessful()) {
                 synchronized (this) {
@@ -189,7 +207,9 @@ private Try<TransformationSubject> finalizeValue() {
             if (invocation == null) {
                 invocation = createInvocation();
             }
-            Try<TransformationSubject> result = invocation.invoke();
+            // The input artifact has been downloaded and the dependencies of the transformation steps have been resolved by now,
+            // so the transform does not wait for other workers while holding a permit
+            Try<TransformationSubject> result = transformLimit.call(invocation::invoke);
             synchronized (this) {
                 transformedSubject = result;
                 return result;
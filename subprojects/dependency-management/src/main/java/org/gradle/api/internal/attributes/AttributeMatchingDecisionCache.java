@@ -0,0 +1,191 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.attributes;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import org.gradle.api.attributes.Attribute;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.Stoppable;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches the decisions of compatibility and disambiguation rules for the whole build tree.
+ *
+ * Every project and configuration has its own attributes schema, but most of them use the same rules, so the same
+ * decisions are otherwise made again for each of them. Decisions are keyed on the {@link CompatibilityRule#getCacheKey() cache keys}
+ * of the consumer and producer rules, so they are only shared between schemas with equivalent rules.
+ */
+public class AttributeMatchingDecisionCache implements Stoppable {
+    private static final Logger LOGGER = Logging.getLogger(AttributeMatchingDecisionCache.class);
+
+    private final Map<CompatibilityKey, Boolean> compatibilityDecisions = Maps.newConcurrentMap();
+    private final Map<DisambiguationKey, Set<Object>> disambiguationDecisions = Maps.newConcurrentMap();
+    private final Statistics compatibilityStatistics = new Statistics();
+    private final Statistics disambiguationStatistics = new Statistics();
+
+    public boolean isCompatible(Attribute<?> attribute, CompatibilityRule<Object> consumerRules, CompatibilityRule<Object> producerRules, Object requested, Object candidate, Supplier<Boolean> decision) {
+        CompatibilityKey key = new CompatibilityKey(attribute, consumerRules.getCacheKey(), producerRules.getCacheKey(), requested, candidate);
+        Boolean compatible = compatibilityDecisions.get(key);
+        if (compatible != null) {
+            compatibilityStatistics.hit();
+            return compatible;
+        }
+        compatibilityStatistics.miss();
+        compatible = decision.get();
+        compatibilityDecisions.put(key, compatible);
+        return compatible;
+    }
+
+    public Set<Object> disambiguate(Attribute<?> attribute, DisambiguationRule<Object> consumerRules, DisambiguationRule<Object> producerRules, @Nullable Object requested, Set<Object> candidates, Supplier<Set<Object>> decision) {
+        DisambiguationKey key = new DisambiguationKey(attribute, consumerRules.getCacheKey(), producerRules.getCacheKey(), requested, ImmutableSet.copyOf(candidates));
+        Set<Object> matches = disambiguationDecisions.get(key);
+        if (matches != null) {
+            disambiguationStatistics.hit();
+            return matches;
+        }
+        disambiguationStatistics.miss();
+        matches = ImmutableSet.copyOf(decision.get());
+        disambiguationDecisions.put(key, matches);
+        return matches;
+    }
+
+    @Override
+    public String toString() {
+        return "compatibility checks: " + compatibilityStatistics + ", disambiguations: " + disambiguationStatistics;
+    }
+
+    @Override
+    public void stop() {
+        if (compatibilityStatistics.lookups() > 0 || disambiguationStatistics.lookups() > 0) {
+            LOGGER.debug("Attribute matching decisions - {}", this);
+        }
+        compatibilityDecisions.clear();
+        disambiguationDecisions.clear();
+    }
+
+    private static class Statistics {
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+
+        void hit() {
+            hits.incrementAndGet();
+        }
+
+        void miss() {
+            misses.incrementAndGet();
+        }
+
+        long lookups() {
+            return hits.get() + misses.get();
+        }
+
+        @Override
+        public String toString() {
+            long hits = this.hits.get();
+            long lookups = lookups();
+            return lookups + " lookups, " + hits + " hits (" + (lookups == 0 ? 0 : hits * 100 / lookups) + "%)";
+        }
+    }
+
+    private static class CompatibilityKey {
+        private final Attribute<?> attribute;
+        private final Object consumerRules;
+        private final Object producerRules;
+        private final Object requested;
+        private final Object candidate;
+        private final int hashCode;
+
+        CompatibilityKey(Attribute<?> attribute, Object consumerRules, Object producerRules, Object requested, Object candidate) {
+            this.attribute = attribute;
+            this.consumerRules = consumerRules;
+            this.producerRules = producerRules;
+            this.requested = requested;
+            this.candidate = candidate;
+            this.hashCode = Objects.hashCode(attribute, consumerRules, producerRules, requested, candidate);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CompatibilityKey that = (CompatibilityKey) o;
+            return hashCode == that.hashCode
+                && attribute.equals(that.attribute)
+                && consumerRules.equals(that.consumerRules)
+                && producerRules.equals(that.producerRules)
+                && requested.equals(that.requested)
+                && Objects.equal(candidate, that.candidate);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static class DisambiguationKey {
+        private final Attribute<?> attribute;
+        private final Object consumerRules;
+        private final Object producerRules;
+        private final Object requested;
+        private final ImmutableSet<Object> candidates;
+        private final int hashCode;
+
+        DisambiguationKey(Attribute<?> attribute, Object consumerRules, Object producerRules, @Nullable Object requested, ImmutableSet<Object> candidates) {
+            this.attribute = attribute;
+            this.consumerRules = consumerRules;
+            this.producerRules = producerRules;
+            this.requested = requested;
+            this.candidates = candidates;
+            this.hashCode = Objects.hashCode(attribute, consumerRules, producerRules, requested, candidates);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            DisambiguationKey that = (DisambiguationKey) o;
+            return hashCode == that.hashCode
+                && attribute.equals(that.attribute)
+                && consumerRules.equals(that.consumerRules)
+                && producerRules.equals(that.producerRules)
+                && Objects.equal(requested, that.requested)
+                && candidates.equals(that.candidates);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
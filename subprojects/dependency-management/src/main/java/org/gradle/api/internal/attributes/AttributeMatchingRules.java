@@ -19,6 +19,7 @@
 import org.gradle.api.Action;
 import org.gradle.api.attributes.CompatibilityCheckDetails;
 import org.gradle.api.attributes.MultipleCandidatesDetails;
+import org.gradle.internal.action.InstantiatingAction;
 
 import java.util.Comparator;
 
@@ -30,4 +31,14 @@ public static <T> Action<? super CompatibilityCheckDetails<T>> orderedCompatibil
     public static <T> Action<? super MultipleCandidatesDetails<T>> orderedDisambiguation(Comparator<? super T> comparator, boolean pickFirst) {
         return new DefaultOrderedDisambiguationRule<>(comparator, pickFirst);
     }
+
+    /**
+     * Returns a key which is equal for rules that make the same decisions: rules instantiated from the same rule class with the same parameters, or equal rules.
+     */
+    static Object cacheKeyOf(Action<?> rule) {
+        if (rule instanceof InstantiatingAction) {
+            return ((InstantiatingAction<?>) rule).getRules().getConfigurableRules();
+        }
+        return rule;
+    }
 }
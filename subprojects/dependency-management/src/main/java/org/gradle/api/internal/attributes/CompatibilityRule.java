@@ -19,4 +19,11 @@
 
 public interface CompatibilityRule<T> extends Action<CompatibilityCheckResult<T>> {
     boolean doesSomething();
+
+    /**
+     * Returns a key which is equal for rules that make the same decisions, so that the decisions of these rules can be cached and shared.
+     */
+    default Object getCacheKey() {
+        return this;
+    }
 }
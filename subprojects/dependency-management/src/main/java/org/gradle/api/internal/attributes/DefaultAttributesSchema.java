@@ -53,10 +53,16 @@ public class DefaultAttributesSchema implements AttributesSchemaInternal, Attrib
     private final IsolatableFactory isolatableFactory;
     private final Map<ExtraAttributesEntry, Attribute<?>[]> extraAttributesCache = Maps.newHashMap();
     private final List<AttributeDescriber> consumerAttributeDescribers = Lists.newArrayList();
+    private final AttributeMatchingDecisionCache decisionCache;
 
     public DefaultAttributesSchema(ComponentAttributeMatcher componentAttributeMatcher, InstantiatorFactory instantiatorFactory, IsolatableFactory isolatableFactory) {
+        this(componentAttributeMatcher, instantiatorFactory, isolatableFactory, new AttributeMatchingDecisionCache());
+    }
+
+    public DefaultAttributesSchema(ComponentAttributeMatcher componentAttributeMatcher, InstantiatorFactory instantiatorFactory, IsolatableFactory isolatableFactory, AttributeMatchingDecisionCache decisionCache) {
         this.componentAttributeMatcher = componentAttributeMatcher;
         this.instantiatorFactory = instantiatorFactory;
+        this.decisionCache = decisionCache;
         matcher = new DefaultAttributeMatcher(componentAttributeMatcher, mergeWith(EmptySchema.INSTANCE));
         this.isolatableFactory = isolatableFactory;
     }
@@ -190,9 +196,18 @@ public boolean hasAttribute(Attribute<?> attribute) {
 
         @Override
         public Set<Object> disambiguate(Attribute<?> attribute, @Nullable Object requested, Set<Object> candidates) {
+            DisambiguationRule<Object> consumerRules = disambiguationRules(attribute);
+            DisambiguationRule<Object> producerRules = producerSchema.disambiguationRules(attribute);
+            if (!consumerRules.doesSomething() && !producerRules.doesSomething()) {
+                return disambiguate(consumerRules, producerRules, requested, candidates);
+            }
+            return decisionCache.disambiguate(attribute, consumerRules, producerRules, requested, candidates, () -> disambiguate(consumerRules, producerRules, requested, candidates));
+        }
+
+        private Set<Object> disambiguate(DisambiguationRule<Object> consumerRules, DisambiguationRule<Object> producerRules, @Nullable Object requested, Set<Object> candidates) {
             DefaultMultipleCandidateResult<Object> result = null;
 
-            DisambiguationRule<Object> rules = disambiguationRules(attribute);
+            DisambiguationRule<Object> rules = consumerRules;
             if (rules.doesSomething()) {
                 result = new DefaultMultipleCandidateResult<>(requested, candidates);
                 rules.execute(result);
@@ -201,7 +216,7 @@ public Set<Object> disambiguate(Attribute<?> attribute, @Nullable Object request
                 }
             }
 
-            rules = producerSchema.disambiguationRules(attribute);
+            rules = producerRules;
             if (rules.doesSomething()) {
                 if (result == null) {
                     result = new DefaultMultipleCandidateResult<>(requested, candidates);
@@ -225,9 +240,18 @@ public boolean matchValue(Attribute<?> attribute, Object requested, Object candi
                 return true;
             }
 
+            CompatibilityRule<Object> consumerRules = compatibilityRules(attribute);
+            CompatibilityRule<Object> producerRules = producerSchema.compatibilityRules(attribute);
+            if (!consumerRules.doesSomething() && !producerRules.doesSomething()) {
+                return false;
+            }
+            return decisionCache.isCompatible(attribute, consumerRules, producerRules, requested, candidate, () -> matchValue(consumerRules, producerRules, requested, candidate));
+        }
+
+        private boolean matchValue(CompatibilityRule<Object> consumerRules, CompatibilityRule<Object> producerRules, Object requested, Object candidate) {
             CompatibilityCheckResult<Object> result = null;
 
-            CompatibilityRule<Object> rules = compatibilityRules(attribute);
+            CompatibilityRule<Object> rules = consumerRules;
             if (rules.doesSomething()) {
                 result = new DefaultCompatibilityCheckResult<>(requested, candidate);
                 rules.execute(result);
@@ -236,7 +260,7 @@ public boolean matchValue(Attribute<?> attribute, Object requested, Object candi
                 }
             }
 
-            rules = producerSchema.compatibilityRules(attribute);
+            rules = producerRules;
             if (rules.doesSomething()) {
                 if (result == null) {
                     result = new DefaultCompatibilityCheckResult<>(requested, candidate);
@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.attributes;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import org.gradle.api.Action;
 import org.gradle.api.ActionConfiguration;
@@ -35,6 +36,7 @@
     private final List<Action<? super CompatibilityCheckDetails<T>>> rules = Lists.newArrayList();
     private final Instantiator instantiator;
     private final IsolatableFactory isolatableFactory;
+    private ImmutableList<Object> cacheKey;
 
     public DefaultCompatibilityRuleChain(Instantiator instantiator, IsolatableFactory isolatableFactory) {
         this.instantiator = instantiator;
@@ -80,6 +82,21 @@ public boolean doesSomething() {
         return !rules.isEmpty();
     }
 
+    @Override
+    public Object getCacheKey() {
+        // Rules are only ever added, so the key is out of date when it has fewer elements than there are rules
+        ImmutableList<Object> cacheKey = this.cacheKey;
+        if (cacheKey == null || cacheKey.size() != rules.size()) {
+            ImmutableList.Builder<Object> builder = ImmutableList.builderWithExpectedSize(rules.size());
+            for (Action<? super CompatibilityCheckDetails<T>> rule : rules) {
+                builder.add(AttributeMatchingRules.cacheKeyOf(rule));
+            }
+            cacheKey = builder.build();
+            this.cacheKey = cacheKey;
+        }
+        return cacheKey;
+    }
+
     private static class ExceptionHandler<T> implements InstantiatingAction.ExceptionHandler<CompatibilityCheckDetails<T>> {
 
         private final Class<? extends AttributeCompatibilityRule<T>> rule;
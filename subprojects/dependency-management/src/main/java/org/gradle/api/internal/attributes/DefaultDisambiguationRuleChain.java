@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.attributes;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
@@ -39,6 +40,7 @@
     private final List<Action<? super MultipleCandidatesDetails<T>>> rules = Lists.newArrayList();
     private final Instantiator instantiator;
     private final IsolatableFactory isolatableFactory;
+    private ImmutableList<Object> cacheKey;
 
     public DefaultDisambiguationRuleChain(Instantiator instantiator, IsolatableFactory isolatableFactory) {
         this.instantiator = instantiator;
@@ -84,6 +86,21 @@ public boolean doesSomething() {
         return !rules.isEmpty();
     }
 
+    @Override
+    public Object getCacheKey() {
+        // Rules are only ever added, so the key is out of date when it has fewer elements than there are rules
+        ImmutableList<Object> cacheKey = this.cacheKey;
+        if (cacheKey == null || cacheKey.size() != rules.size()) {
+            ImmutableList.Builder<Object> builder = ImmutableList.builderWithExpectedSize(rules.size());
+            for (Action<? super MultipleCandidatesDetails<T>> rule : rules) {
+                builder.add(AttributeMatchingRules.cacheKeyOf(rule));
+            }
+            cacheKey = builder.build();
+            this.cacheKey = cacheKey;
+        }
+        return cacheKey;
+    }
+
     private static class ExceptionHandler<T> implements InstantiatingAction.ExceptionHandler<MultipleCandidatesDetails<T>> {
 
         private final Class<? extends AttributeDisambiguationRule<T>> rule;
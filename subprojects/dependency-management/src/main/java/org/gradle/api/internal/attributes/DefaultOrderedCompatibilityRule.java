@@ -29,6 +29,14 @@ public DefaultOrderedCompatibilityRule(Comparator<? super T> comparator, boolean
         this.reverse = reverse;
     }
 
+    public Comparator<? super T> getComparator() {
+        return comparator;
+    }
+
+    public boolean isReverse() {
+        return reverse;
+    }
+
     @Override
     public void execute(CompatibilityCheckDetails<T> details) {
         T consumerValue = details.getConsumerValue();
@@ -44,4 +52,20 @@ public void execute(CompatibilityCheckDetails<T> details) {
         }
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        DefaultOrderedCompatibilityRule<?> that = (DefaultOrderedCompatibilityRule<?>) o;
+        return reverse == that.reverse && comparator.equals(that.comparator);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * comparator.hashCode() + (reverse ? 1 : 0);
+    }
 }
@@ -17,6 +17,8 @@
 package org.gradle.internal.component.external.model;
 
 import com.google.common.base.Objects;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
@@ -220,7 +222,12 @@ public VariantMetadataRules getVariantMetadataRules() {
 
     @Override
     public MutableComponentVariant addVariant(String variantName, ImmutableAttributes attributes) {
-        return addVariant(new MutableVariantImpl(variantName, attributes));
+        return addVariant(new MutableVariantImpl(variantName, attributes, null));
+    }
+
+    @Override
+    public MutableComponentVariant addVariant(String variantName, ImmutableAttributes attributes, MutableComponentVariant.DeferredContents contents) {
+        return addVariant(new MutableVariantImpl(variantName, attributes, contents));
     }
 
     @Override
@@ -244,6 +251,10 @@ public ImmutableList<? extends ComponentVariant> getVariants() {
             builder.addAll(variants);
         }
         for (MutableComponentVariant variant : newVariants) {
+            if (variant instanceof MutableVariantImpl) {
+                builder.add(((MutableVariantImpl) variant).asImmutable(getId()));
+                continue;
+            }
             builder.add(new ImmutableVariantImpl(getId(), variant.getName(), variant.getAttributes(), ImmutableList.copyOf(variant.getDependencies()), ImmutableList.copyOf(variant.getDependencyConstraints()), ImmutableList.copyOf(variant.getFiles()), ImmutableCapabilities.of(variant.getCapabilities()), variant.isAvailableExternally()));
         }
         return builder.build();
@@ -285,19 +296,48 @@ protected static class MutableVariantImpl implements MutableComponentVariant {
         private boolean availableExternally;
 
         private ImmutableAttributes attributes;
+        @Nullable
+        private DeferredContents deferredContents;
 
-        MutableVariantImpl(String name, ImmutableAttributes attributes) {
+        MutableVariantImpl(String name, ImmutableAttributes attributes, @Nullable DeferredContents deferredContents) {
             this.name = name;
             this.attributes = attributes;
+            this.deferredContents = deferredContents;
+        }
+
+        private void populateDeferredContents() {
+            if (deferredContents != null) {
+                DeferredContents contents = deferredContents;
+                deferredContents = null;
+                contents.populate(this);
+            }
+        }
+
+        /**
+         * Creates the immutable form of this variant. Contents which have not been populated yet are only populated when the immutable variant first uses them.
+         */
+        ImmutableVariantImpl asImmutable(ModuleComponentIdentifier componentId) {
+            ImmutableCapabilities immutableCapabilities = ImmutableCapabilities.of(capabilities);
+            if (deferredContents == null) {
+                return new ImmutableVariantImpl(componentId, name, attributes, ImmutableList.copyOf(dependencies), ImmutableList.copyOf(dependencyConstraints), ImmutableList.copyOf(files), immutableCapabilities, availableExternally);
+            }
+            DeferredContents contents = deferredContents;
+            return new ImmutableVariantImpl(componentId, name, attributes, Suppliers.memoize(() -> {
+                MutableVariantImpl populated = new MutableVariantImpl(name, attributes, contents);
+                populated.populateDeferredContents();
+                return new ImmutableVariantContents(ImmutableList.copyOf(populated.dependencies), ImmutableList.copyOf(populated.dependencyConstraints), ImmutableList.copyOf(populated.files));
+            }), immutableCapabilities, availableExternally);
         }
 
         @Override
         public List<ComponentVariant.Dependency> getDependencies() {
+            populateDeferredContents();
             return dependencies;
         }
 
         @Override
         public List<ComponentVariant.DependencyConstraint> getDependencyConstraints() {
+            populateDeferredContents();
             return dependencyConstraints;
         }
 
@@ -308,11 +348,13 @@ public List<Capability> getCapabilities() {
 
         @Override
         public void addDependency(String group, String module, VersionConstraint versionConstraint, List<ExcludeMetadata> excludes, String reason, ImmutableAttributes attributes, List<? extends Capability> requestedCapabilities, boolean endorsing, @Nullable IvyArtifactName artifact) {
+            populateDeferredContents();
             dependencies.add(new DependencyImpl(group, module, versionConstraint, excludes, reason, attributes, requestedCapabilities, endorsing, artifact));
         }
 
         @Override
         public void addDependencyConstraint(String group, String module, VersionConstraint versionConstraint, String reason, ImmutableAttributes attributes) {
+            populateDeferredContents();
             dependencyConstraints.add(new DependencyConstraintImpl(group, module, versionConstraint, reason, attributes));
         }
 
@@ -328,16 +370,19 @@ public void addCapability(Capability capability) {
 
         @Override
         public List<? extends ComponentVariant.File> getFiles() {
+            populateDeferredContents();
             return files;
         }
 
         @Override
         public boolean removeFile(ComponentVariant.File file) {
+            populateDeferredContents();
             return files.remove(file);
         }
 
         @Override
         public void addFile(String name, String uri) {
+            populateDeferredContents();
             files.add(new FileImpl(name, uri));
         }
 
@@ -358,7 +403,8 @@ public void setAttributes(ImmutableAttributes updatedAttributes) {
 
         @Override
         public MutableComponentVariant copy(String variantName, ImmutableAttributes attributes, Capability capability) {
-            MutableVariantImpl copy = new MutableVariantImpl(variantName, attributes);
+            populateDeferredContents();
+            MutableVariantImpl copy = new MutableVariantImpl(variantName, attributes, null);
             copy.dependencies.addAll(this.dependencies);
             copy.dependencyConstraints.addAll(this.dependencyConstraints);
             copy.files.addAll(this.files);
@@ -589,9 +635,7 @@ protected static class ImmutableVariantImpl implements ComponentVariant, Variant
         private final ModuleComponentIdentifier componentId;
         private final String name;
         private final ImmutableAttributes attributes;
-        private final ImmutableList<? extends Dependency> dependencies;
-        private final ImmutableList<? extends DependencyConstraint> dependencyConstraints;
-        private final ImmutableList<? extends File> files;
+        private final Supplier<ImmutableVariantContents> contents;
         private final ImmutableCapabilities capabilities;
         private final boolean externalVariant;
 
@@ -603,12 +647,19 @@ protected static class ImmutableVariantImpl implements ComponentVariant, Variant
                              ImmutableList<? extends File> files,
                              ImmutableCapabilities capabilities,
                              boolean externalVariant) {
+            this(componentId, name, attributes, Suppliers.ofInstance(new ImmutableVariantContents(dependencies, dependencyConstraints, files)), capabilities, externalVariant);
+        }
+
+        ImmutableVariantImpl(ModuleComponentIdentifier componentId,
+                             String name,
+                             ImmutableAttributes attributes,
+                             Supplier<ImmutableVariantContents> contents,
+                             ImmutableCapabilities capabilities,
+                             boolean externalVariant) {
             this.componentId = componentId;
             this.name = name;
             this.attributes = attributes;
-            this.dependencies = dependencies;
-            this.dependencyConstraints = dependencyConstraints;
-            this.files = files;
+            this.contents = contents;
             this.capabilities = capabilities;
             this.externalVariant = externalVariant;
         }
@@ -635,17 +686,17 @@ public ImmutableAttributes getAttributes() {
 
         @Override
         public ImmutableList<? extends Dependency> getDependencies() {
-            return dependencies;
+            return contents.get().dependencies;
         }
 
         @Override
         public ImmutableList<? extends DependencyConstraint> getDependencyConstraints() {
-            return dependencyConstraints;
+            return contents.get().dependencyConstraints;
         }
 
         @Override
         public ImmutableList<? extends File> getFiles() {
-            return files;
+            return contents.get().files;
         }
 
         @Override
@@ -656,7 +707,7 @@ public CapabilitiesMetadata getCapabilities() {
         @Override
         public ImmutableList<? extends ComponentArtifactMetadata> getArtifacts() {
             ImmutableList.Builder<ComponentArtifactMetadata> artifacts = new ImmutableList.Builder<>();
-            for (ComponentVariant.File file : files) {
+            for (ComponentVariant.File file : getFiles()) {
                 artifacts.add(new UrlBackedArtifactMetadata(componentId, file.getName(), file.getUri()));
             }
             return artifacts.build();
@@ -680,9 +731,9 @@ public boolean equals(Object o) {
             return Objects.equal(componentId, that.componentId)
                 && Objects.equal(name, that.name)
                 && Objects.equal(attributes, that.attributes)
-                && Objects.equal(dependencies, that.dependencies)
-                && Objects.equal(dependencyConstraints, that.dependencyConstraints)
-                && Objects.equal(files, that.files)
+                && Objects.equal(getDependencies(), that.getDependencies())
+                && Objects.equal(getDependencyConstraints(), that.getDependencyConstraints())
+                && Objects.equal(getFiles(), that.getFiles())
                 && externalVariant == that.externalVariant;
         }
 
@@ -691,11 +742,23 @@ public int hashCode() {
             return Objects.hashCode(componentId,
                 name,
                 attributes,
-                dependencies,
-                dependencyConstraints,
-                files,
+                getDependencies(),
+                getDependencyConstraints(),
+                getFiles(),
                 externalVariant);
         }
     }
 
+    private static class ImmutableVariantContents {
+        private final ImmutableList<? extends ComponentVariant.Dependency> dependencies;
+        private final ImmutableList<? extends ComponentVariant.DependencyConstraint> dependencyConstraints;
+        private final ImmutableList<? extends ComponentVariant.File> files;
+
+        ImmutableVariantContents(ImmutableList<? extends ComponentVariant.Dependency> dependencies, ImmutableList<? extends ComponentVariant.DependencyConstraint> dependencyConstraints, ImmutableList<? extends ComponentVariant.File> files) {
+            this.dependencies = dependencies;
+            this.dependencyConstraints = dependencyConstraints;
+            this.files = files;
+        }
+    }
+
 }
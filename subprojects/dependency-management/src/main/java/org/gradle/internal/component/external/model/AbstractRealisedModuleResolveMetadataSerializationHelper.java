@@ -55,12 +55,14 @@ public abstract class AbstractRealisedModuleResolveMetadataSerializationHelper {
     private final ModuleComponentSelectorSerializer componentSelectorSerializer;
     private final ExcludeRuleConverter excludeRuleConverter;
     private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
+    private final ModuleMetadataInterner metadataInterner;
 
-    public AbstractRealisedModuleResolveMetadataSerializationHelper(AttributeContainerSerializer attributeContainerSerializer, ImmutableModuleIdentifierFactory moduleIdentifierFactory) {
+    public AbstractRealisedModuleResolveMetadataSerializationHelper(AttributeContainerSerializer attributeContainerSerializer, ImmutableModuleIdentifierFactory moduleIdentifierFactory, ModuleMetadataInterner metadataInterner) {
         this.attributeContainerSerializer = attributeContainerSerializer;
         this.componentSelectorSerializer = new ModuleComponentSelectorSerializer(attributeContainerSerializer);
         this.excludeRuleConverter = new DefaultExcludeRuleConverter(moduleIdentifierFactory);
         this.moduleIdentifierFactory = moduleIdentifierFactory;
+        this.metadataInterner = metadataInterner;
     }
 
 
@@ -72,6 +74,10 @@ protected ModuleComponentSelectorSerializer getComponentSelectorSerializer() {
         return componentSelectorSerializer;
     }
 
+    protected ModuleMetadataInterner getMetadataInterner() {
+        return metadataInterner;
+    }
+
     public void writeRealisedVariantsData(Encoder encoder, AbstractRealisedModuleComponentResolveMetadata transformed) throws IOException {
         encoder.writeSmallInt(transformed.getVariants().size());
         for (ComponentVariant variant: transformed.getVariants()) {
@@ -122,7 +128,7 @@ protected Map<String, List<GradleDependencyMetadata>> readVariantDependencies(De
     }
 
     protected GradleDependencyMetadata readDependencyMetadata(Decoder decoder) throws IOException {
-        ModuleComponentSelector selector = componentSelectorSerializer.read(decoder);
+        ModuleComponentSelector selector = metadataInterner.intern(componentSelectorSerializer.read(decoder));
         List<ExcludeMetadata> excludes = readMavenExcludes(decoder);
         boolean constraint = decoder.readBoolean();
         boolean endorsing = decoder.readBoolean();
@@ -164,7 +170,7 @@ protected List<ExcludeMetadata> readMavenExcludes(Decoder decoder) throws IOExce
         for (int i = 0; i < excludeCount; i++) {
             String group = decoder.readString();
             String name = decoder.readString();
-            excludes.add(excludeRuleConverter.createExcludeRule(group, name));
+            excludes.add(metadataInterner.intern(excludeRuleConverter.createExcludeRule(group, name)));
         }
         return excludes;
     }
@@ -178,7 +184,7 @@ protected ImmutableCapabilities readCapabilities(Decoder decoder) throws IOExcep
             if (appendix != null) {
                 capability = new DefaultShadowedCapability(capability, appendix);
             }
-            rawCapabilities.add(capability);
+            rawCapabilities.add(metadataInterner.intern(capability));
         }
         return ImmutableCapabilities.of(rawCapabilities);
     }
@@ -283,7 +289,7 @@ protected DefaultExclude readExcludeRule(Decoder decoder) throws IOException {
         IvyArtifactName artifactName = readNullableArtifact(decoder);
         String[] confs = readStringSet(decoder).toArray(new String[0]);
         String matcher = decoder.readNullableString();
-        return new DefaultExclude(moduleIdentifierFactory.module(moduleOrg, moduleName), artifactName, confs, matcher);
+        return (DefaultExclude) metadataInterner.intern(new DefaultExclude(moduleIdentifierFactory.module(moduleOrg, moduleName), artifactName, confs, matcher));
     }
 
     protected Set<String> readStringSet(Decoder decoder) throws IOException {
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.component.external.model;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.internal.component.model.ExcludeMetadata;
+
+/**
+ * Shares the value objects that make up the metadata of external components, such as identifiers, selectors and dependency descriptors.
+ *
+ * <p>The same dependency declarations appear in the metadata of many modules, and the metadata of resolved components is kept in memory for the lifetime of the daemon.
+ * Interning these values when metadata is read means that each distinct value is only retained once, however many modules refer to it.
+ * Values are weakly referenced, so that values which are not used by any metadata can be collected.</p>
+ */
+public class ModuleMetadataInterner {
+    private final Interner<ModuleComponentIdentifier> componentIdentifiers = Interners.newWeakInterner();
+    private final Interner<ModuleComponentSelector> selectors = Interners.newWeakInterner();
+    private final Interner<ExternalDependencyDescriptor> dependencies = Interners.newWeakInterner();
+    private final Interner<CapabilityInternal> capabilities = Interners.newWeakInterner();
+    private final Interner<ExcludeMetadata> excludes = Interners.newWeakInterner();
+
+    public ModuleComponentIdentifier intern(ModuleComponentIdentifier componentIdentifier) {
+        return componentIdentifiers.intern(componentIdentifier);
+    }
+
+    public ModuleComponentSelector intern(ModuleComponentSelector selector) {
+        return selectors.intern(selector);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends ExternalDependencyDescriptor> T intern(T dependency) {
+        return (T) dependencies.intern(dependency);
+    }
+
+    public CapabilityInternal intern(CapabilityInternal capability) {
+        return capabilities.intern(capability);
+    }
+
+    public ExcludeMetadata intern(ExcludeMetadata exclude) {
+        return excludes.intern(exclude);
+    }
+}
@@ -58,4 +58,11 @@ public interface MutableComponentVariant {
     boolean isAvailableExternally();
 
     void setAvailableExternally(boolean availableExternally);
+
+    /**
+     * Populates the dependencies, dependency constraints and files of a variant.
+     */
+    interface DeferredContents {
+        void populate(MutableComponentVariant variant);
+    }
 }
@@ -68,6 +68,11 @@ public interface MutableModuleComponentResolveMetadata {
 
     MutableComponentVariant addVariant(String variantName, ImmutableAttributes attributes);
 
+    /**
+     * Adds a variant whose dependencies, dependency constraints and files are populated by the given contents when they are first used.
+     */
+    MutableComponentVariant addVariant(String variantName, ImmutableAttributes attributes, MutableComponentVariant.DeferredContents contents);
+
     AttributeContainer getAttributes();
 
     void setAttributes(AttributeContainer attributes);
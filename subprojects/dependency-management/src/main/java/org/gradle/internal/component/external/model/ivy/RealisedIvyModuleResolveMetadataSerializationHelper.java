@@ -41,6 +41,7 @@
 import org.gradle.internal.component.external.model.ModuleComponentArtifactMetadata;
 import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata;
 import org.gradle.internal.component.external.model.ModuleDependencyMetadata;
+import org.gradle.internal.component.external.model.ModuleMetadataInterner;
 import org.gradle.internal.component.external.model.RealisedConfigurationMetadata;
 import org.gradle.internal.component.model.ConfigurationMetadata;
 import org.gradle.internal.component.model.DefaultIvyArtifactName;
@@ -59,8 +60,8 @@
 
 public class RealisedIvyModuleResolveMetadataSerializationHelper extends AbstractRealisedModuleResolveMetadataSerializationHelper {
 
-    public RealisedIvyModuleResolveMetadataSerializationHelper(AttributeContainerSerializer attributeContainerSerializer, ImmutableModuleIdentifierFactory moduleIdentifierFactory) {
-        super(attributeContainerSerializer, moduleIdentifierFactory);
+    public RealisedIvyModuleResolveMetadataSerializationHelper(AttributeContainerSerializer attributeContainerSerializer, ImmutableModuleIdentifierFactory moduleIdentifierFactory, ModuleMetadataInterner metadataInterner) {
+        super(attributeContainerSerializer, moduleIdentifierFactory, metadataInterner);
     }
 
     public ModuleComponentResolveMetadata readMetadata(Decoder decoder, DefaultIvyModuleResolveMetadata resolveMetadata) throws IOException {
@@ -189,7 +190,7 @@ private Map<String, ConfigurationMetadata> readIvyConfigurations(Decoder decoder
     }
 
     private IvyDependencyDescriptor readIvyDependency(Decoder decoder) throws IOException {
-        ModuleComponentSelector requested = getComponentSelectorSerializer().read(decoder);
+        ModuleComponentSelector requested = getMetadataInterner().intern(getComponentSelectorSerializer().read(decoder));
         SetMultimap<String, String> configMappings = readDependencyConfigurationMapping(decoder);
         List<Artifact> artifacts = readDependencyArtifactDescriptors(decoder);
         List<Exclude> excludes = readDependencyExcludes(decoder);
@@ -197,7 +198,7 @@ private IvyDependencyDescriptor readIvyDependency(Decoder decoder) throws IOExce
         boolean changing = decoder.readBoolean();
         boolean transitive = decoder.readBoolean();
         boolean optional = decoder.readBoolean();
-        return new IvyDependencyDescriptor(requested, dynamicConstraintVersion, changing, transitive,  optional, configMappings, artifacts, excludes);
+        return getMetadataInterner().intern(new IvyDependencyDescriptor(requested, dynamicConstraintVersion, changing, transitive,  optional, configMappings, artifacts, excludes));
     }
 
     private void writeIvyDependency(Encoder encoder, IvyDependencyDescriptor ivyDependency, String configurationName, boolean configurationAddedByRule) throws IOException {
@@ -38,6 +38,7 @@
 import org.gradle.internal.component.external.model.ModuleComponentArtifactMetadata;
 import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata;
 import org.gradle.internal.component.external.model.ModuleDependencyMetadata;
+import org.gradle.internal.component.external.model.ModuleMetadataInterner;
 import org.gradle.internal.component.external.model.RealisedConfigurationMetadata;
 import org.gradle.internal.component.external.model.UrlBackedArtifactMetadata;
 import org.gradle.internal.component.model.ConfigurationMetadata;
@@ -53,8 +54,8 @@
 
 public class RealisedMavenModuleResolveMetadataSerializationHelper extends AbstractRealisedModuleResolveMetadataSerializationHelper {
 
-    public RealisedMavenModuleResolveMetadataSerializationHelper(AttributeContainerSerializer attributeContainerSerializer, ImmutableModuleIdentifierFactory moduleIdentifierFactory) {
-        super(attributeContainerSerializer, moduleIdentifierFactory);
+    public RealisedMavenModuleResolveMetadataSerializationHelper(AttributeContainerSerializer attributeContainerSerializer, ImmutableModuleIdentifierFactory moduleIdentifierFactory, ModuleMetadataInterner metadataInterner) {
+        super(attributeContainerSerializer, moduleIdentifierFactory, metadataInterner);
     }
 
     @Override
@@ -233,12 +234,12 @@ private ConfigurationMetadata readDerivedVariant(Decoder decoder, DefaultMavenMo
     private MavenDependencyDescriptor readMavenDependency(Decoder decoder, Map<Integer, MavenDependencyDescriptor> deduplicationDependencyCache) throws IOException {
         int mapping = decoder.readSmallInt();
         if (mapping == deduplicationDependencyCache.size()) {
-            ModuleComponentSelector requested = getComponentSelectorSerializer().read(decoder);
+            ModuleComponentSelector requested = getMetadataInterner().intern(getComponentSelectorSerializer().read(decoder));
             IvyArtifactName artifactName = readNullableArtifact(decoder);
             List<ExcludeMetadata> mavenExcludes = readMavenExcludes(decoder);
             MavenScope scope = MavenScope.values()[decoder.readSmallInt()];
             MavenDependencyType type = MavenDependencyType.values()[decoder.readSmallInt()];
-            MavenDependencyDescriptor mavenDependencyDescriptor = new MavenDependencyDescriptor(scope, type, requested, artifactName, mavenExcludes);
+            MavenDependencyDescriptor mavenDependencyDescriptor = getMetadataInterner().intern(new MavenDependencyDescriptor(scope, type, requested, artifactName, mavenExcludes));
             deduplicationDependencyCache.put(mapping, mavenDependencyDescriptor);
             return mavenDependencyDescriptor;
         } else {
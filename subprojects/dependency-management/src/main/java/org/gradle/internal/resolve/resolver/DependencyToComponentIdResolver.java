@@ -29,4 +29,13 @@ public interface DependencyToComponentIdResolver {
      * <p>At some point in the future, this should resolve to a set of candidates rather than a single instance.
      */
     void resolve(DependencyMetadata dependency, VersionSelector acceptor, @Nullable VersionSelector rejector, BuildableComponentIdResolveResult result);
+
+    /**
+     * Fetches ahead of time what resolving the given dependency will certainly need from remote repositories, such as the version listing for a dynamic version.
+     * This allows the remote requests for many dependencies to be made concurrently, rather than one at a time as each dependency is resolved.
+     *
+     * <p>May be called concurrently for different dependencies, before they are resolved. The default implementation does nothing.
+     */
+    default void prefetch(DependencyMetadata dependency, VersionSelector acceptor) {
+    }
 }
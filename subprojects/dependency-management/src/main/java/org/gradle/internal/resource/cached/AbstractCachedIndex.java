@@ -59,7 +59,7 @@ public V lookup(final K key) {
             V found = getPersistentCache().getIfPresent(key);
             if (found == null) {
                 return null;
-            } else if (found.isMissing() || found.getCachedFile().exists()) {
+            } else if (found.isMissing() || isCachedFileAvailable(found.getCachedFile())) {
                 return found;
             } else {
                 clear(key);
@@ -74,6 +74,13 @@ public V lookup(final K key) {
         return result;
     }
 
+    /**
+     * Returns true if the given cached file is available. Caches may make the file available when it is looked up.
+     */
+    protected boolean isCachedFileAvailable(File cachedFile) {
+        return cachedFile.exists();
+    }
+
     protected void storeInternal(final K key, final V entry) {
         artifactCacheLockingManager.useCache(() -> getPersistentCache().put(key, entry));
     }
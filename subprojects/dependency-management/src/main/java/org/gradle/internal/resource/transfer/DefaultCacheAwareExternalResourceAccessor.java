@@ -97,6 +97,11 @@ public LocallyAvailableExternalResource getResource(final ExternalResourceName l
             // We have a cached version, but it might be out of date, so we tell the upstreams to revalidate too
             final boolean revalidate = true;
 
+            // Without local candidates, revalidate and download in a single request, which does not transfer the content when it is unchanged
+            if (additionalCandidates == null && cached.getExternalResourceMetaData() != null) {
+                return copyToCacheIfChanged(location, fileStore, cached, cached.getExternalResourceMetaData());
+            }
+
             // Get the metadata first to see if it's there
             final ExternalResourceMetaData remoteMetaData = delegate.resource(location, revalidate).getMetaData();
             if (remoteMetaData == null) {
@@ -212,6 +217,34 @@ private LocallyAvailableExternalResource copyToCache(final ExternalResourceName
         }
     }
 
+    @Nullable
+    private LocallyAvailableExternalResource copyToCacheIfChanged(final ExternalResourceName source, final ResourceFileStore fileStore, final CachedExternalResource cached, final ExternalResourceMetaData cachedMetaData) {
+        // Download to temporary location, unless the cached version is still current
+        DownloadAction downloadAction = new DownloadAction(source);
+        ExternalResourceReadResult<Object> result;
+        try {
+            result = delegate.withProgressLogging().resource(source, true).withContentIfChanged(cachedMetaData, downloadAction);
+        } catch (Exception e) {
+            throw ResourceExceptions.getFailed(source.getUri(), e);
+        }
+        if (result == null) {
+            return null;
+        }
+        if (downloadAction.metaData == null) {
+            LOGGER.info("Cached resource {} is up-to-date (lastModified: {}).", source, cached.getExternalLastModified());
+            // Update the cache entry in the index: this resets the age of the cached entry to zero
+            cachedExternalResourceIndex.store(source.toString(), cached.getCachedFile(), cachedMetaData);
+            return fileResourceRepository.resource(cached.getCachedFile(), source.getUri(), cachedMetaData);
+        }
+
+        // Move into cache
+        try {
+            return moveIntoCache(source, downloadAction.destination, fileStore, downloadAction.metaData);
+        } finally {
+            downloadAction.destination.delete();
+        }
+    }
+
     private LocallyAvailableExternalResource moveIntoCache(final ExternalResourceName source, final File destination, final ResourceFileStore fileStore, final ExternalResourceMetaData metaData) {
         return artifactCacheLockingManager.useCache(() -> {
             LocallyAvailableResource cachedResource = fileStore.moveIntoCache(destination);
@@ -43,6 +43,17 @@ public ExternalResourceReadResponse openResource(URI location, boolean revalidat
         }
     }
 
+    @Override
+    @Nullable
+    public ExternalResourceReadResponse openResourceIfChanged(URI location, boolean revalidate, ExternalResourceMetaData cached) {
+        ExternalResourceReadResponse resource = delegate.openResourceIfChanged(location, revalidate, cached);
+        if (resource != null && !resource.isUnchanged()) {
+            return new ProgressLoggingExternalResource(location, resource);
+        } else {
+            return resource;
+        }
+    }
+
     @Override
     @Nullable
     public ExternalResourceMetaData getMetaData(URI location, boolean revalidate) {
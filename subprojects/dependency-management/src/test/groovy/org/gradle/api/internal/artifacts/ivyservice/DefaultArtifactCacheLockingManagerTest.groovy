@@ -34,11 +34,13 @@ class DefaultArtifactCacheLockingManagerTest extends Specification {
     def resourcesDir = cacheDir.createDir(CacheLayout.RESOURCES.key)
     def filesDir = cacheDir.createDir(CacheLayout.FILE_STORE.key)
     def metaDataDir = cacheDir.createDir(CacheLayout.META_DATA.key)
+    def resolvedGraphsDir = cacheDir.createDir(CacheLayout.RESOLVED_GRAPHS.key)
     def artifactCacheMetadata = Stub(ArtifactCacheMetadata) {
         getCacheDir() >> cacheDir
         getExternalResourcesStoreDirectory() >> resourcesDir
         getFileStoreDirectory() >> filesDir
         getMetaDataStoreDirectory() >> metaDataDir.file("descriptors")
+        getResolvedGraphStoreDirectory() >> resolvedGraphsDir
     }
     def fileAccessTimeJournal = new ModificationTimeFileAccessTimeJournal()
     def usedGradleVersions = Stub(UsedGradleVersions)
@@ -80,6 +82,20 @@ class DefaultArtifactCacheLockingManagerTest extends Specification {
         file3.assertDoesNotExist()
     }
 
+    def "cleans up resolved graphs"() {
+        given:
+        def file1 = resolvedGraphsDir.createFile("abc.bin")
+        def file2 = resolvedGraphsDir.createFile("xyz.bin")
+        file2.lastModified = 0
+
+        when:
+        cacheLockingManager.close()
+
+        then:
+        file1.assertExists()
+        file2.assertDoesNotExist()
+    }
+
     def "deletes old versions of cache dir"() {
         given:
         def oldCacheDir = cacheDir.getParentFile().createDir("modules-1")
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class PackedArtifactCacheTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+
+    def cacheDir = temporaryFolder.file("cache")
+    def packFile = temporaryFolder.file("cache.pack")
+    def extractionDir = temporaryFolder.file("extracted")
+    def root = CacheLayout.ROOT.key
+    def metadata = "$root/${CacheLayout.META_DATA.key}/descriptors/org/module/descriptor.bin"
+    def artifact = "$root/${CacheLayout.FILE_STORE.key}/org/module/1.0/abc/module-1.0.jar"
+    def copy = "$root/${CacheLayout.FILE_STORE.key}/org/other/1.0/def/other-1.0.jar"
+
+    def setup() {
+        cacheDir.file(metadata).text = "metadata"
+        cacheDir.file(artifact).text = "artifact"
+        cacheDir.file(artifact).lastModified = 1000000000L
+        cacheDir.file(copy).text = "artifact"
+        cacheDir.file("$root/${root}.lock.lck").text = "lock"
+        cacheDir.file("other-cache/file.bin").text = "other"
+        PackedArtifactCacheWriter.write(cacheDir, packFile)
+    }
+
+    def "recognizes packed caches"() {
+        expect:
+        PackedArtifactCache.isPacked(packFile)
+        !PackedArtifactCache.isPacked(cacheDir)
+        !PackedArtifactCache.isPacked(cacheDir.file(artifact))
+    }
+
+    def "extracts metadata when opened and artifacts when looked up"() {
+        when:
+        def cache = PackedArtifactCache.open(packFile, extractionDir)
+
+        then:
+        extractionDir.file(metadata).text == "metadata"
+        !extractionDir.file(artifact).exists()
+        !extractionDir.file("$root/${root}.lock.lck").exists()
+
+        when:
+        def available = cache.makeAvailable(extractionDir.file(artifact))
+
+        then:
+        available
+        extractionDir.file(artifact).text == "artifact"
+        extractionDir.file(artifact).lastModified() == 1000000000L
+        !extractionDir.file(copy).exists()
+        cache.makeAvailable(extractionDir.file(copy))
+        extractionDir.file(copy).text == "artifact"
+    }
+
+    def "packs only the dependency cache"() {
+        given:
+        def cache = PackedArtifactCache.open(packFile, extractionDir)
+
+        expect:
+        !extractionDir.file("other-cache/file.bin").exists()
+        !cache.makeAvailable(extractionDir.file("other-cache/file.bin"))
+        !temporaryFolder.file("cache.pack.part").exists()
+    }
+
+    def "does not make files which are not in the pack available"() {
+        given:
+        def cache = PackedArtifactCache.open(packFile, extractionDir)
+
+        expect:
+        !cache.makeAvailable(extractionDir.file("$root/${CacheLayout.FILE_STORE.key}/org/missing/1.0/abc/missing-1.0.jar"))
+        !cache.makeAvailable(temporaryFolder.file("elsewhere/module-1.0.jar"))
+    }
+
+    def "rejects packs with files outside of the cache"() {
+        given:
+        def hostilePackFile = temporaryFolder.file("hostile.pack")
+        writePack(hostilePackFile, path, "hostile")
+
+        when:
+        PackedArtifactCache.open(hostilePackFile, extractionDir)
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "Packed dependency cache $hostilePackFile contains the file '$path', which is outside of the cache."
+        !temporaryFolder.file("escaped.txt").exists()
+        !extractionDir.exists()
+
+        where:
+        path << ["../escaped.txt", "$root/${CacheLayout.META_DATA.key}/../../../escaped.txt", "", "."]
+    }
+
+    def "does not make files outside of the cache available"() {
+        given:
+        def cache = PackedArtifactCache.open(packFile, extractionDir)
+
+        expect:
+        !cache.makeAvailable(extractionDir.file("../elsewhere/$artifact"))
+        !temporaryFolder.file("elsewhere/$artifact").exists()
+    }
+
+    def "stores identical contents once"() {
+        given:
+        def otherPackFile = temporaryFolder.file("other.pack")
+        cacheDir.file(copy).text = "different"
+
+        when:
+        PackedArtifactCacheWriter.write(cacheDir, otherPackFile)
+
+        then:
+        otherPackFile.length() == packFile.length() + "different".length()
+    }
+
+    private static void writePack(File file, String path, String content) {
+        def bytes = content.getBytes("UTF-8")
+        file.withDataOutputStream { output ->
+            output.writeInt(PackedArtifactCache.MAGIC)
+            output.writeInt(PackedArtifactCache.VERSION)
+            output.writeLong(PackedArtifactCache.HEADER_LENGTH + bytes.length)
+            output.write(bytes)
+            output.writeInt(1)
+            output.writeUTF(path)
+            output.writeLong(1000000000L)
+            output.writeLong(PackedArtifactCache.HEADER_LENGTH)
+            output.writeLong(bytes.length)
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.verification
+
+import org.gradle.cache.internal.CacheScopeMapping
+import org.gradle.cache.internal.DefaultCacheRepository
+import org.gradle.cache.internal.InMemoryCacheDecoratorFactory
+import org.gradle.initialization.layout.ProjectCacheDir
+import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier
+import org.gradle.internal.file.Deleter
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.logging.progress.ProgressLoggerFactory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.testfixtures.internal.TestInMemoryCacheFactory
+import org.junit.Rule
+import spock.lang.Specification
+
+class CrossBuildVerificationResultCacheTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+    def cacheRepository = new DefaultCacheRepository(null, new TestInMemoryCacheFactory())
+    def cacheScopeMapping = Stub(CacheScopeMapping) {
+        getBaseDirectory(_, "dependency-verification", _) >> tmpDir.file("project-cache/dependency-verification")
+    }
+    def projectCacheDir = new ProjectCacheDir(tmpDir.file("project-cache"), Stub(ProgressLoggerFactory), Stub(Deleter))
+    def artifact = Stub(ModuleComponentArtifactIdentifier) {
+        getDisplayName() >> "foo-1.0.jar (org:foo:1.0)"
+    }
+    def file = tmpDir.file("foo-1.0.jar").createFile()
+    def signature = tmpDir.file("foo-1.0.jar.asc").createFile()
+
+    def "artifact is not verified until its verification succeeded"() {
+        def cache = cacheWith(HashCode.fromInt(1))
+
+        expect:
+        !cache.isVerified(artifact, file, signature)
+
+        when:
+        cache.verified(artifact, file, signature)
+
+        then:
+        cache.isVerified(artifact, file, signature)
+    }
+
+    def "remembers verified artifacts across builds"() {
+        given:
+        def cache = cacheWith(HashCode.fromInt(1))
+        cache.verified(artifact, file, signature)
+        cache.stop()
+
+        when:
+        cache = cacheWith(HashCode.fromInt(1))
+
+        then:
+        cache.isVerified(artifact, file, signature)
+    }
+
+    def "verifies artifact again when its file changes"() {
+        given:
+        def cache = cacheWith(HashCode.fromInt(1))
+        file.text = "content"
+        file.lastModified = 1000
+        cache.verified(artifact, file, signature)
+
+        when:
+        change(file)
+
+        then:
+        !cache.isVerified(artifact, file, signature)
+
+        where:
+        change << [
+            { it.text = "other content" },
+            { it.lastModified = 2000 }
+        ]
+    }
+
+    def "verifies artifact again when its signature changes"() {
+        given:
+        def cache = cacheWith(HashCode.fromInt(1))
+        signature.text = "signature"
+        signature.lastModified = 1000
+        cache.verified(artifact, file, signature)
+
+        when:
+        change(signature)
+
+        then:
+        !cache.isVerified(artifact, file, signature)
+
+        where:
+        change << [
+            { it.text = "other signature" },
+            { it.lastModified = 2000 }
+        ]
+    }
+
+    def "verifies artifact again when a signature is found for it"() {
+        given:
+        def cache = cacheWith(HashCode.fromInt(1))
+        cache.verified(artifact, file, null)
+
+        expect:
+        cache.isVerified(artifact, file, null)
+        !cache.isVerified(artifact, file, signature)
+    }
+
+    def "verifies artifacts again when the verification configuration changes"() {
+        given:
+        def cache = cacheWith(HashCode.fromInt(1))
+        cache.verified(artifact, file, signature)
+        cache.stop()
+
+        when:
+        cache = cacheWith(HashCode.fromInt(2))
+
+        then:
+        !cache.isVerified(artifact, file, signature)
+    }
+
+    private CrossBuildVerificationResultCache cacheWith(HashCode configurationHash) {
+        new CrossBuildVerificationResultCache(configurationHash, cacheScopeMapping, projectCacheDir, cacheRepository, Stub(InMemoryCacheDecoratorFactory))
+    }
+}
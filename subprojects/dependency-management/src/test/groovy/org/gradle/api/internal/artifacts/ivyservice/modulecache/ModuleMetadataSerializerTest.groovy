@@ -38,6 +38,7 @@ import org.gradle.api.internal.artifacts.repositories.metadata.IvyMutableModuleM
 import org.gradle.api.internal.artifacts.repositories.metadata.MavenMutableModuleMetadataFactory
 import org.gradle.api.internal.file.TestFiles
 import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.ModuleMetadataInterner
 import org.gradle.internal.component.external.model.MutableModuleComponentResolveMetadata
 import org.gradle.internal.component.external.model.ivy.MutableIvyModuleResolveMetadata
 import org.gradle.internal.component.external.model.maven.MutableMavenModuleResolveMetadata
@@ -97,6 +98,20 @@ class ModuleMetadataSerializerTest extends Specification {
 
     }
 
+    def "shares identifiers and dependency declarations between re-read metadata"() {
+        given:
+        def bytes = serialize(parsePom(sampleFiles().find { it.name == 'junit-4.12.pom' }))
+
+        when:
+        def first = deserialize(bytes) as MutableMavenModuleResolveMetadata
+        def second = deserialize(bytes) as MutableMavenModuleResolveMetadata
+
+        then:
+        !first.dependencies.empty
+        first.id.is(second.id)
+        [first.dependencies, second.dependencies].transpose().every { a, b -> a.is(b) && a.selector.is(b.selector) }
+    }
+
     private MutableModuleComponentResolveMetadata deserialize(byte[] serializedForm) {
         serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(serializedForm)), moduleIdentifierFactory, Maps.newHashMap())
     }
@@ -161,7 +176,8 @@ class ModuleMetadataSerializerTest extends Specification {
                 new DesugaredAttributeContainerSerializer(AttributeTestUtil.attributesFactory(), TestUtil.objectInstantiator()),
                 mavenMetadataFactory,
                 ivyMetadataFactory,
-                new ModuleSourcesSerializer([:])
+                new ModuleSourcesSerializer([:]),
+                new ModuleMetadataInterner()
         )
     }
 
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact
+
+import org.gradle.StartParameter
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class ArtifactStageLimitsTest extends Specification {
+
+    def "reads the limits from the system properties of the build"() {
+        def startParameter = new StartParameter()
+        startParameter.systemPropertiesArgs[ArtifactStageLimits.MAX_CONCURRENT_DOWNLOADS_PROPERTY] = "1"
+        startParameter.systemPropertiesArgs[ArtifactStageLimits.MAX_CONCURRENT_TRANSFORMS_PROPERTY] = "invalid"
+        def limits = ArtifactStageLimits.fromStartParameter(startParameter)
+        def downloading = new CountDownLatch(1)
+        def finish = new CountDownLatch(1)
+
+        when:
+        def thread = Thread.start {
+            limits.downloads.run {
+                downloading.countDown()
+                finish.await()
+            }
+        }
+        downloading.await()
+
+        then:
+        !tryRun(limits.downloads)
+        tryRun(limits.transforms)
+
+        cleanup:
+        finish.countDown()
+        thread?.join()
+    }
+
+    def "limits of different builds do not share permits"() {
+        def startParameter = new StartParameter()
+        startParameter.systemPropertiesArgs[ArtifactStageLimits.MAX_CONCURRENT_DOWNLOADS_PROPERTY] = "1"
+        def limits = ArtifactStageLimits.fromStartParameter(startParameter)
+        def otherBuildLimits = ArtifactStageLimits.fromStartParameter(startParameter)
+        def downloading = new CountDownLatch(1)
+        def finish = new CountDownLatch(1)
+
+        when:
+        def thread = Thread.start {
+            limits.downloads.run {
+                downloading.countDown()
+                finish.await()
+            }
+        }
+        downloading.await()
+
+        then:
+        tryRun(otherBuildLimits.downloads)
+
+        cleanup:
+        finish.countDown()
+        thread?.join()
+    }
+
+    def "does not limit the stages by default"() {
+        def limits = ArtifactStageLimits.fromStartParameter(new StartParameter())
+
+        expect:
+        tryRun(limits.downloads)
+        tryRun(limits.transforms)
+    }
+
+    def "thread holding a permit can enter the same stage again"() {
+        def limit = new ArtifactStageLimit(1)
+
+        expect:
+        limit.call { limit.call { "nested" } } == "nested"
+    }
+
+    private static boolean tryRun(ArtifactStageLimit limit) {
+        def ran = new CountDownLatch(1)
+        Thread.start {
+            limit.run { ran.countDown() }
+        }
+        return ran.await(500, TimeUnit.MILLISECONDS)
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.bitsets
+
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories.ExcludeTestSupport
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeAllOf
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeAnyOf
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import static org.gradle.api.internal.artifacts.DefaultModuleIdentifier.newId
+
+class BitSetExcludeFactoryTest extends Specification implements ExcludeTestSupport {
+
+    def setup() {
+        factory = new BitSetExcludeFactory(factory)
+    }
+
+    @Unroll("#left ∪ #right = #expected")
+    def "union of two elements"() {
+        expect:
+        factory.anyOf(left, right) == expected
+
+        and: "union is commutative"
+        factory.anyOf(right, left) == expected
+
+        where:
+        left                                        | right                                       | expected
+        everything()                                | nothing()                                   | everything()
+        nothing()                                   | nothing()                                   | nothing()
+        everything()                                | group("foo")                                | everything()
+        group("foo")                                | group("bar")                                | anyOf(groupSet("foo", "bar"), nothing())
+        anyOf(group("foo"), group("bar"))           | group("foo")                                | anyOf(groupSet("foo", "bar"), nothing())
+        moduleIdSet(["org", "foo"], ["org", "bar"]) | moduleIdSet(["org", "baz"], ["org", "bar"]) | anyOf(moduleIdSet(["org", "foo"], ["org", "bar"], ["org", "baz"]), nothing())
+        moduleIdSet(["g1", "m1"], ["g2", "m1"])     | module("m1")                                | anyOf(module("m1"), nothing())
+        moduleIdSet(["g1", "m1"], ["g2", "m2"])     | group("g1")                                 | anyOf(group("g1"), moduleId("g2", "m2"))
+        moduleIdSet(["g1", "m1"], ["g1", "m2"])     | groupSet("g1", "g2")                        | anyOf(groupSet("g1", "g2"), nothing())
+    }
+
+    @Unroll("#left ∩ #right = #expected")
+    def "intersection of two elements"() {
+        expect:
+        factory.allOf(left, right) == expected
+
+        and: "intersection is commutative"
+        factory.allOf(right, left) == expected
+
+        where:
+        left                                        | right                                       | expected
+        everything()                                | nothing()                                   | nothing()
+        everything()                                | group("foo")                                | anyOf(group("foo"), nothing())
+        group("foo")                                | group("bar")                                | nothing()
+        groupSet("foo", "bar")                      | groupSet("bar", "baz")                      | anyOf(group("bar"), nothing())
+        group("org")                                | moduleIdSet(["org", "foo"], ["com", "foo"]) | anyOf(moduleId("org", "foo"), nothing())
+        module("foo")                               | moduleIdSet(["org", "foo"], ["org", "bar"]) | anyOf(moduleId("org", "foo"), nothing())
+        moduleIdSet(["org", "foo"], ["org", "bar"]) | moduleIdSet(["org", "bar"], ["org2", "baz"]) | anyOf(moduleId("org", "bar"), nothing())
+        anyOf(group("G1"), module("M1"))            | anyOf(group("G1"), module("M2"))            | anyOf(group("G1"), allOf(module("M1"), module("M2")))
+        anyOf(group("G1"), module("M1"))            | anyOf(group("G2"), module("M1"))            | anyOf(module("M1"), allOf(group("G1"), group("G2")))
+    }
+
+    def "intersection of groups and module names excludes the modules of these groups with these names"() {
+        when:
+        def spec = allOf(groupSet("g1", "g2"), moduleSet("m1", "m2"))
+
+        then:
+        spec instanceof BitSetExclude
+        spec.excludes(newId("g1", "m1"))
+        spec.excludes(newId("g2", "m2"))
+        !spec.excludes(newId("g1", "m3"))
+        !spec.excludes(newId("g3", "m1"))
+        !spec.excludes(newId("unknown", "unknown"))
+
+        and: "unions with the product keep it"
+        def union = anyOf(spec, group("g3"))
+        union.excludes(newId("g1", "m2"))
+        union.excludes(newId("g3", "m3"))
+        !union.excludes(newId("g2", "m3"))
+
+        and: "intersections with the product restrict it"
+        def intersection = allOf(spec, module("m1"))
+        intersection.excludes(newId("g2", "m1"))
+        !intersection.excludes(newId("g2", "m2"))
+    }
+
+    def "flattens nested unions and intersections"() {
+        def nested = anyOf(group("g1"), anyOf(module("m1"), anyOf(moduleId("g2", "m2"), group("g3"))))
+
+        expect:
+        nested instanceof BitSetExclude
+        nested == anyOf(groupSet("g1", "g3"), module("m1"), moduleId("g2", "m2"))
+        allOf(nested, allOf(group("g1"), module("m1"))) == allOf(group("g1"), module("m1"))
+    }
+
+    def "excludes which cannot be represented as bit sets are combined by the delegate"() {
+        def ivyExclude = ivy("org", "foo", artifact("foo"), "exact")
+
+        when:
+        def union = anyOf(group("g1"), module("m1"), ivyExclude)
+
+        then:
+        union instanceof ExcludeAnyOf
+        union.components.size() == 2
+        union.components.contains(ivyExclude)
+        union.components.contains(anyOf(group("g1"), module("m1")))
+        union.excludes(newId("g1", "any"))
+        union.mayExcludeArtifacts()
+
+        when:
+        def intersection = allOf(group("g1"), groupSet("g1", "g2"), ivyExclude)
+
+        then:
+        intersection instanceof ExcludeAllOf
+        intersection.components.size() == 2
+        intersection.components.contains(ivyExclude)
+        intersection.components.contains(anyOf(group("g1"), nothing()))
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store
+
+import org.gradle.cache.CacheAccess
+import org.gradle.cache.internal.BinaryStore
+import org.gradle.internal.Factory
+import org.gradle.internal.file.FileAccessTimeJournal
+import org.gradle.internal.hash.HashCode
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ResolvedGraphCacheTest extends Specification {
+
+    @Rule TestNameTestDirectoryProvider temp = new TestNameTestDirectoryProvider(getClass())
+
+    def journal = Mock(FileAccessTimeJournal)
+    def cacheAccess = Mock(CacheAccess) {
+        _ * useCache(_ as Factory) >> { Factory action -> action.create() }
+        _ * useCache(_ as Runnable) >> { Runnable action -> action.run() }
+    }
+    def cache = new ResolvedGraphCache(temp.file("graphs"), cacheAccess, journal)
+    def key = HashCode.fromInt(1234)
+    def target = new DefaultBinaryStore(temp.file("target.bin"))
+
+    def cleanup() {
+        target.close()
+    }
+
+    def "has no graph for unknown key"() {
+        expect:
+        cache.load(key, target) == null
+    }
+
+    def "stores graph written to binary store when committed"() {
+        def store = new DefaultBinaryStore(temp.file("foo.bin"))
+        store.write({ it.writeString("other") } as BinaryStore.WriteAction)
+        store.done()
+
+        when:
+        def entry = cache.newEntry(key, store)
+        entry.write({ it.writeInt(10) } as BinaryStore.WriteAction)
+        entry.write({ it.writeString("x") } as BinaryStore.WriteAction)
+        def written = entry.done()
+
+        then:
+        written.read({ it.readInt() } as BinaryStore.ReadAction) == 10
+        written.close()
+        cache.load(key, target) == null
+
+        when:
+        entry.commit()
+        def data = cache.load(key, target)
+
+        then:
+        data.read({ it.readInt() } as BinaryStore.ReadAction) == 10
+        data.read({ it.readString() } as BinaryStore.ReadAction) == "x"
+        data.close()
+        (1.._) * journal.setLastAccessTime(temp.file("graphs/${key}.bin"), _)
+
+        cleanup:
+        store.close()
+    }
+
+    def "does not replace a graph stored for the same key"() {
+        def store = new DefaultBinaryStore(temp.file("foo.bin"))
+        def first = cache.newEntry(key, store)
+        first.write({ it.writeString("first") } as BinaryStore.WriteAction)
+        first.done()
+        first.commit()
+
+        when:
+        def second = cache.newEntry(key, store)
+        second.write({ it.writeString("second") } as BinaryStore.WriteAction)
+        second.done()
+        second.commit()
+        def data = cache.load(key, target)
+
+        then:
+        data.read({ it.readString() } as BinaryStore.ReadAction) == "first"
+        data.close()
+
+        cleanup:
+        store.close()
+    }
+
+    def "reads and writes graphs while holding the cache lock"() {
+        def store = new DefaultBinaryStore(temp.file("foo.bin"))
+        def entry = cache.newEntry(key, store)
+        entry.write({ it.writeString("graph") } as BinaryStore.WriteAction)
+        entry.done()
+
+        when:
+        entry.commit()
+
+        then:
+        1 * cacheAccess.useCache(_ as Runnable) >> { Runnable action -> action.run() }
+
+        when:
+        def data = cache.load(key, target)
+
+        then:
+        1 * cacheAccess.useCache(_ as Factory) >> { Factory action -> action.create() }
+
+        and:
+        data.read({ it.readString() } as BinaryStore.ReadAction) == "graph"
+        data.close()
+
+        cleanup:
+        store.close()
+    }
+
+    def "loaded graph is a copy that remains readable after the entry is removed"() {
+        def store = new DefaultBinaryStore(temp.file("foo.bin"))
+        def entry = cache.newEntry(key, store)
+        entry.write({ it.writeString("graph") } as BinaryStore.WriteAction)
+        entry.done()
+        entry.commit()
+
+        when:
+        def data = cache.load(key, target)
+        temp.file("graphs/${key}.bin").delete()
+
+        then:
+        data.read({ it.readString() } as BinaryStore.ReadAction) == "graph"
+        data.close()
+        cache.load(key, target) == null
+
+        cleanup:
+        store.close()
+    }
+}
@@ -18,13 +18,16 @@ package org.gradle.api.internal.artifacts.transform
 
 import com.google.common.collect.ImmutableList
 import org.gradle.api.artifacts.component.ComponentArtifactIdentifier
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactStageLimit
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactVisitor
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DownloadArtifactFile
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvableArtifact
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedArtifactSet
 import org.gradle.api.internal.attributes.ImmutableAttributes
 import org.gradle.internal.Try
 import org.gradle.internal.model.CalculatedValue
 import org.gradle.internal.operations.BuildOperation
+import org.gradle.internal.operations.BuildOperationExecutor
 import org.gradle.internal.operations.BuildOperationQueue
 import spock.lang.Specification
 
@@ -34,7 +37,8 @@ class TransformingAsyncArtifactListenerTest extends Specification {
     def result = ImmutableList.builder()
     CacheableInvocation<TransformationSubject> invocation = Mock(CacheableInvocation)
     def operationQueue = Mock(BuildOperationQueue)
-    def listener = new TransformingAsyncArtifactListener([new BoundTransformationStep(transformation, Stub(TransformUpstreamDependencies))], targetAttributes, result)
+    def buildOperationExecutor = Mock(BuildOperationExecutor)
+    def listener = new TransformingAsyncArtifactListener([new BoundTransformationStep(transformation, Stub(TransformUpstreamDependencies))], targetAttributes, result, buildOperationExecutor, new ArtifactStageLimit(0))
     def file = new File("foo")
     def artifactFile = new File("foo-artifact")
     def artifactId = Stub(ComponentArtifactIdentifier)
@@ -86,4 +90,32 @@ class TransformingAsyncArtifactListenerTest extends Specification {
         2 * invocation.getCachedResult() >> Optional.of(Try.successful(TransformationSubject.initial(artifact)))
         0 * operationQueue._
     }
+
+    def "downloads the input artifact in a separate build operation before transforming it"() {
+        given:
+        def download = Stub(ResolvableArtifact) {
+            getId() >> artifactId
+            getFileSource() >> source
+            getFile() >> artifactFile
+            isResolveSynchronously() >> false
+        }
+
+        when:
+        listener.visitArtifacts(artifacts)
+        def artifacts = result.build()
+
+        then:
+        1 * artifacts.visit(_) >> { ArtifactVisitor visitor -> visitor.visitArtifact(null, null, download) }
+
+        when:
+        artifacts[0].run(null)
+
+        then:
+        1 * buildOperationExecutor.run(_ as DownloadArtifactFile)
+
+        then:
+        1 * transformation.createInvocation(_, _, _) >> invocation
+        1 * invocation.invoke() >> Try.successful(TransformationSubject.initial(download))
+        0 * _
+    }
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.attributes
+
+import org.gradle.api.attributes.Attribute
+import org.gradle.api.attributes.AttributeCompatibilityRule
+import org.gradle.api.attributes.AttributeDisambiguationRule
+import org.gradle.api.attributes.CompatibilityCheckDetails
+import org.gradle.api.attributes.MultipleCandidatesDetails
+import org.gradle.internal.component.model.ComponentAttributeMatcher
+import org.gradle.util.SnapshotTestUtil
+import org.gradle.util.TestUtil
+import spock.lang.Specification
+
+class AttributeMatchingDecisionCacheTest extends Specification {
+    def decisionCache = new AttributeMatchingDecisionCache()
+    def attribute = Attribute.of(String)
+
+    def setup() {
+        CountingCompatibilityRule.count = 0
+        CountingDisambiguationRule.count = 0
+    }
+
+    def "shares compatibility decisions between schemas with the same rules"() {
+        given:
+        def schema1 = schema()
+        def schema2 = schema()
+        schema1.attribute(attribute).compatibilityRules.add(CountingCompatibilityRule)
+        schema2.attribute(attribute).compatibilityRules.add(CountingCompatibilityRule)
+
+        expect:
+        schema1.mergeWith(EmptySchema.INSTANCE).matchValue(attribute, "a", "b")
+        schema2.mergeWith(EmptySchema.INSTANCE).matchValue(attribute, "a", "b")
+        schema1.mergeWith(EmptySchema.INSTANCE).matchValue(attribute, "a", "b")
+        CountingCompatibilityRule.count == 1
+
+        and:
+        !schema2.mergeWith(EmptySchema.INSTANCE).matchValue(attribute, "c", "b")
+        CountingCompatibilityRule.count == 2
+        decisionCache.toString() == "compatibility checks: 4 lookups, 2 hits (50%), disambiguations: 0 lookups, 0 hits (0%)"
+    }
+
+    def "does not share compatibility decisions between schemas with different rules"() {
+        given:
+        def schema1 = schema()
+        def schema2 = schema()
+        schema1.attribute(attribute).compatibilityRules.add(CountingCompatibilityRule)
+        schema2.attribute(attribute).compatibilityRules.add(CountingCompatibilityRule)
+        schema2.attribute(attribute).compatibilityRules.add(CountingCompatibilityRule)
+
+        expect:
+        schema1.mergeWith(EmptySchema.INSTANCE).matchValue(attribute, "a", "b")
+        schema2.mergeWith(EmptySchema.INSTANCE).matchValue(attribute, "a", "b")
+        CountingCompatibilityRule.count == 2
+    }
+
+    def "takes rules added after a decision into account"() {
+        given:
+        def schema = schema()
+        schema.attribute(attribute).compatibilityRules.add(CountingCompatibilityRule)
+
+        expect:
+        !schema.mergeWith(EmptySchema.INSTANCE).matchValue(attribute, "x", "b")
+
+        when:
+        schema.attribute(attribute).compatibilityRules.ordered(Comparator.naturalOrder())
+
+        then:
+        schema.mergeWith(EmptySchema.INSTANCE).matchValue(attribute, "x", "b")
+    }
+
+    def "shares disambiguation decisions between schemas with the same rules"() {
+        given:
+        def schema1 = schema()
+        def schema2 = schema()
+        schema1.attribute(attribute).disambiguationRules.add(CountingDisambiguationRule)
+        schema2.attribute(attribute).disambiguationRules.add(CountingDisambiguationRule)
+
+        expect:
+        schema1.mergeWith(EmptySchema.INSTANCE).disambiguate(attribute, "a", ["b", "c"] as Set) == ["c"] as Set
+        schema2.mergeWith(EmptySchema.INSTANCE).disambiguate(attribute, "a", ["b", "c"] as Set) == ["c"] as Set
+        CountingDisambiguationRule.count == 1
+        decisionCache.toString() == "compatibility checks: 0 lookups, 0 hits (0%), disambiguations: 2 lookups, 1 hits (50%)"
+    }
+
+    def "does not cache decisions when there are no rules"() {
+        given:
+        def schema = schema()
+
+        expect:
+        !schema.mergeWith(EmptySchema.INSTANCE).matchValue(attribute, "a", "b")
+        schema.mergeWith(EmptySchema.INSTANCE).disambiguate(attribute, "a", ["a", "b"] as Set) == ["a"] as Set
+        decisionCache.toString() == "compatibility checks: 0 lookups, 0 hits (0%), disambiguations: 0 lookups, 0 hits (0%)"
+    }
+
+    private DefaultAttributesSchema schema() {
+        new DefaultAttributesSchema(new ComponentAttributeMatcher(), TestUtil.instantiatorFactory(), SnapshotTestUtil.valueSnapshotter(), decisionCache)
+    }
+
+    static class CountingCompatibilityRule implements AttributeCompatibilityRule<String> {
+        static int count
+
+        @Override
+        void execute(CompatibilityCheckDetails<String> details) {
+            count++
+            if (details.consumerValue == "a") {
+                details.compatible()
+            }
+        }
+    }
+
+    static class CountingDisambiguationRule implements AttributeDisambiguationRule<String> {
+        static int count
+
+        @Override
+        void execute(MultipleCandidatesDetails<String> details) {
+            count++
+            details.closestMatch(details.candidateValues.max())
+        }
+    }
+}
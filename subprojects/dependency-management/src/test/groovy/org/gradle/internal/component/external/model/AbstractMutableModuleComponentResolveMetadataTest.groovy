@@ -264,6 +264,35 @@ abstract class AbstractMutableModuleComponentResolveMetadataTest extends Specifi
         immutable3.variants[2].dependencies.empty
     }
 
+    def "populates deferred variant contents when they are first used"() {
+        def contents = Mock(MutableComponentVariant.DeferredContents)
+        def metadata = createMetadata(id)
+
+        when:
+        metadata.addVariant("api", attributes(usage: "compile"), contents)
+        def variant = metadata.asImmutable().variants[0]
+
+        then:
+        variant.name == "api"
+        variant.attributes == attributes(usage: "compile")
+        0 * contents._
+
+        when:
+        def files = variant.files
+        def dependencies = variant.dependencies
+        def constraints = variant.dependencyConstraints
+
+        then:
+        1 * contents.populate(_) >> { MutableComponentVariant populated ->
+            populated.addFile("f1", "dir/f1")
+            populated.addDependency("g1", "m1", v("v1"), [], null, ImmutableAttributes.EMPTY, [], false, null)
+        }
+        0 * contents._
+        files*.name == ["f1"]
+        dependencies*.module == ["m1"]
+        constraints.empty
+    }
+
     def "variants are attached as consumable configurations used for variant aware selection"() {
         def id = DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId("group", "module"), "version")
         def metadata = createMetadata(id)
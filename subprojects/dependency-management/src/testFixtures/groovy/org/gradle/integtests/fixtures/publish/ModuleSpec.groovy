@@ -49,7 +49,7 @@ class ModuleSpec {
                         module.rootMetaData.expectGet()
                         break
                     case InteractionExpectation.HEAD:
-                        module.rootMetaData.expectHead()
+                        module.rootMetaData.expectGetUnmodified()
                         break
                     case InteractionExpectation.MAYBE:
                         module.rootMetaData.allowAll()
@@ -86,13 +86,30 @@ public CachingResult execute(UnitOfWork work, BeforeExecutionContext context) {
         }
 
         ImmutableList<CachingDisabledReason> disabledReasons = cachingState.getDisabledReasons();
+        BuildCacheKey prefetchedKey = null;
         if (disabledReasons.isEmpty()) {
             //noinspection OptionalGetWithoutIsPresent
-            logCacheKey(cachingState.getKey().get(), work);
+            BuildCacheKey cacheKey = cachingState.getKey().get();
+            logCacheKey(cacheKey, work);
+            if (shouldPrefetch(work, context)) {
+                buildCache.prefetch(cacheKey);
+                prefetchedKey = cacheKey;
+            }
         } else {
             logDisabledReasons(disabledReasons, work);
         }
 
+        try {
+            return executeDelegate(work, context, cachingState);
+        } finally {
+            if (prefetchedKey != null) {
+                // Loading the entry removes it from the prefetched entries, so this only discards entries that have not been used
+                buildCache.discardPrefetched(prefetchedKey);
+            }
+        }
+    }
+
+    private CachingResult executeDelegate(UnitOfWork work, BeforeExecutionContext context, CachingState cachingState) {
         UpToDateResult result = delegate.execute(work, new CachingContext() {
             @Override
             public CachingState getCachingState() {
@@ -167,6 +184,15 @@ public Try<ExecutionResult> getExecutionResult() {
         };
     }
 
+    /**
+     * Work without a previous execution, or with a reason to rebuild, cannot be up-to-date.
+     * It will be loaded from the build cache if possible, so the entry can be fetched while the work goes through the remaining steps.
+     */
+    private static boolean shouldPrefetch(UnitOfWork work, BeforeExecutionContext context) {
+        return work.isAllowedToLoadFromCache()
+            && (!context.getAfterPreviousExecutionState().isPresent() || context.getRebuildReason().isPresent());
+    }
+
     private CachingState calculateCachingState(BeforeExecutionState executionState, UnitOfWork work) {
         CachingStateBuilder builder = buildCache.isEmitDebugLogging()
             ? new LoggingCachingStateBuilder()
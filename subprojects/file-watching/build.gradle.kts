@@ -25,6 +25,7 @@ dependencies {
 
     implementation(project(":base-annotations"))
     implementation(project(":build-operations"))
+    implementation(project(":messaging"))
 
     implementation(libs.guava)
     implementation(libs.nativePlatform)
@@ -35,6 +36,7 @@ dependencies {
     testImplementation(project(":resources"))
     testImplementation(project(":persistent-cache"))
     testImplementation(project(":build-option"))
+    testImplementation(testFixtures(project(":base-services")))
     testImplementation(testFixtures(project(":core")))
     testImplementation(testFixtures(project(":file-collections")))
     testImplementation(testFixtures(project(":tooling-api")))
@@ -44,6 +44,8 @@ class BuildOperationsFileSystemWatchingIntegrationTest extends AbstractFileSyste
             inDirectory(projectDir)
         }
         executer.requireDaemon()
+        // Don't restore the virtual file system state persisted by daemons of other tests
+        executer.requireOwnGradleUserHomeDir()
     }
 
     def "emits build operations when watching is enabled"() {
@@ -80,6 +82,35 @@ class BuildOperationsFileSystemWatchingIntegrationTest extends AbstractFileSyste
         retainedFiles(finishedResult)
     }
 
+    def "reports the virtual file system state restored from a stopped daemon"() {
+        when:
+        withWatchFs().run "myTask"
+        then:
+        executedAndNotSkipped(":myTask")
+
+        when:
+        executer.withArguments("--stop").run()
+        inputFile.text = "changed"
+        withWatchFs().run "myTask"
+        then:
+        executedAndNotSkipped(":myTask")
+        def startedResult = buildStartedResult()
+        startedResult.watchingEnabled
+        startedResult.startedWatching
+        startedResult.statistics.restoredLocations > 0
+        startedResult.statistics.droppedRestoredLocations > 0
+
+        when:
+        executer.withArguments("--stop").run()
+        withWatchFs().run "myTask"
+        then:
+        skipped(":myTask")
+        def restartedResult = buildStartedResult()
+        restartedResult.startedWatching
+        restartedResult.statistics.restoredLocations > 0
+        restartedResult.statistics.droppedRestoredLocations == 0
+    }
+
     def "emits build operations when watching is disabled"() {
         when:
         withoutWatchFs().run "myTask"
@@ -23,4 +23,14 @@ public interface FileSystemWatchingStatistics {
     int getRetainedRegularFiles();
     int getRetainedDirectories();
     int getRetainedMissingFiles();
+
+    /**
+     * The number of file system locations restored from the state persisted by a previous daemon, which were unchanged.
+     */
+    int getRestoredLocations();
+
+    /**
+     * The number of file system locations from the state persisted by a previous daemon, which were dropped because they changed.
+     */
+    int getDroppedRestoredLocations();
 }
@@ -29,13 +29,26 @@
 public class DefaultFileSystemWatchingStatistics implements FileSystemWatchingStatistics {
     private final FileWatcherRegistry.FileWatchingStatistics fileWatchingStatistics;
     private final VirtualFileSystemStatistics vfsStatistics;
+    private final int restoredLocations;
+    private final int droppedRestoredLocations;
 
     public DefaultFileSystemWatchingStatistics(
         FileWatcherRegistry.FileWatchingStatistics fileWatchingStatistics,
         SnapshotHierarchy vfsRoot
+    ) {
+        this(fileWatchingStatistics, vfsRoot, 0, 0);
+    }
+
+    public DefaultFileSystemWatchingStatistics(
+        FileWatcherRegistry.FileWatchingStatistics fileWatchingStatistics,
+        SnapshotHierarchy vfsRoot,
+        int restoredLocations,
+        int droppedRestoredLocations
     ) {
         this.fileWatchingStatistics = fileWatchingStatistics;
         this.vfsStatistics = getStatistics(vfsRoot);
+        this.restoredLocations = restoredLocations;
+        this.droppedRestoredLocations = droppedRestoredLocations;
     }
 
     @Override
@@ -63,6 +76,16 @@ public int getRetainedMissingFiles() {
         return vfsStatistics.getRetained(FileType.Missing);
     }
 
+    @Override
+    public int getRestoredLocations() {
+        return restoredLocations;
+    }
+
+    @Override
+    public int getDroppedRestoredLocations() {
+        return droppedRestoredLocations;
+    }
+
     private static VirtualFileSystemStatistics getStatistics(SnapshotHierarchy root) {
         EnumMultiset<FileType> retained = EnumMultiset.create(FileType.class);
         root.visitSnapshotRoots(snapshot -> snapshot.accept(new FileSystemSnapshotVisitor() {
@@ -0,0 +1,405 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.watch.vfs.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import org.gradle.internal.file.FileMetadata;
+import org.gradle.internal.file.FileMetadata.AccessType;
+import org.gradle.internal.file.impl.DefaultFileMetadata;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.HashCodeSerializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.internal.snapshot.CompleteDirectorySnapshot;
+import org.gradle.internal.snapshot.CompleteFileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.FileSystemSnapshotVisitor;
+import org.gradle.internal.snapshot.MissingFileSnapshot;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
+import org.gradle.internal.snapshot.SnapshotHierarchy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Persists the snapshots retained by the virtual file system when the daemon stops, so a later daemon can reuse them.
+ *
+ * Restored snapshots are validated against the file system before they are used.
+ * Regular files need to have the same size and modification time as when they were snapshotted,
+ * and directories need to have the same modification time as when the snapshot was persisted.
+ * Snapshots of unchanged locations within a changed directory are still restored.
+ *
+ * The state is written to a temporary file and moved into place, so daemons sharing the state don't need to coordinate.
+ */
+public class PersistentVfsState {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PersistentVfsState.class);
+    private static final int FORMAT_VERSION = 1;
+
+    private static final byte REGULAR_FILE = 0;
+    private static final byte DIRECTORY = 1;
+    private static final byte MISSING = 2;
+
+    private final File stateFile;
+    private final Interner<String> stringInterner;
+    private final Executor validationExecutor;
+    private final HashCodeSerializer hashCodeSerializer = new HashCodeSerializer();
+
+    public PersistentVfsState(File stateFile, Interner<String> stringInterner, Executor validationExecutor) {
+        this.stateFile = stateFile;
+        this.stringInterner = stringInterner;
+        this.validationExecutor = validationExecutor;
+    }
+
+    /**
+     * Writes the snapshots of the given hierarchy, replacing any previously persisted state.
+     */
+    public void persist(SnapshotHierarchy root) {
+        File tempFile = null;
+        try {
+            Files.createDirectories(stateFile.getParentFile().toPath());
+            tempFile = File.createTempFile(stateFile.getName(), ".tmp", stateFile.getParentFile());
+            try (KryoBackedEncoder encoder = new KryoBackedEncoder(new FileOutputStream(tempFile))) {
+                encoder.writeSmallInt(FORMAT_VERSION);
+                List<CompleteFileSystemLocationSnapshot> roots = new ArrayList<>();
+                root.visitSnapshotRoots(roots::add);
+                encoder.writeSmallInt(roots.size());
+                for (CompleteFileSystemLocationSnapshot snapshot : roots) {
+                    encoder.writeString(snapshot.getAbsolutePath());
+                    write(encoder, snapshot);
+                }
+            }
+            Files.move(tempFile.toPath(), stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.info("Could not persist the virtual file system state to {}.", stateFile, e);
+            if (tempFile != null) {
+                //noinspection ResultOfMethodCallIgnored
+                tempFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Reads the persisted snapshots and validates them against the file system in parallel.
+     *
+     * @return the unchanged snapshots, or {@code null} when there is no persisted state.
+     */
+    @Nullable
+    public RestoredState restore() {
+        List<CompleteFileSystemLocationSnapshot> roots;
+        Map<CompleteDirectorySnapshot, Long> directoryTimestamps = new IdentityHashMap<>();
+        try (KryoBackedDecoder decoder = new KryoBackedDecoder(new FileInputStream(stateFile))) {
+            if (decoder.readSmallInt() != FORMAT_VERSION) {
+                return null;
+            }
+            int rootCount = decoder.readSmallInt();
+            roots = new ArrayList<>(rootCount);
+            for (int i = 0; i < rootCount; i++) {
+                String absolutePath = decoder.readString();
+                String name = stringInterner.intern(decoder.readString());
+                roots.add(read(decoder, absolutePath, name, directoryTimestamps));
+            }
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.info("Could not read the persisted virtual file system state from {}.", stateFile, e);
+            return null;
+        }
+
+        SnapshotValidation validation = new SnapshotValidation(directoryTimestamps);
+        try {
+            List<CompletableFuture<Boolean>> validatedRoots = new ArrayList<>(roots.size());
+            for (CompleteFileSystemLocationSnapshot root : roots) {
+                validatedRoots.add(validation.validateAsync(root));
+            }
+            for (int i = 0; i < roots.size(); i++) {
+                if (validatedRoots.get(i).join()) {
+                    validation.restore(roots.get(i));
+                }
+            }
+        } catch (RuntimeException e) {
+            LOGGER.info("Could not validate the persisted virtual file system state.", e);
+            return null;
+        }
+        return new RestoredState(ImmutableList.copyOf(validation.restored), validation.hits.get(), validation.misses.get());
+    }
+
+    private void write(Encoder encoder, CompleteFileSystemLocationSnapshot snapshot) throws IOException {
+        encoder.writeString(snapshot.getName());
+        encoder.writeSmallInt(snapshot.getAccessType().ordinal());
+        switch (snapshot.getType()) {
+            case RegularFile:
+                FileMetadata metadata = ((RegularFileSnapshot) snapshot).getMetadata();
+                encoder.writeByte(REGULAR_FILE);
+                hashCodeSerializer.write(encoder, snapshot.getHash());
+                encoder.writeLong(metadata.getLastModified());
+                encoder.writeLong(metadata.getLength());
+                break;
+            case Directory:
+                List<CompleteFileSystemLocationSnapshot> children = ((CompleteDirectorySnapshot) snapshot).getChildren();
+                CurrentFile currentDirectory = CurrentFile.of(snapshot.getAbsolutePath());
+                encoder.writeByte(DIRECTORY);
+                hashCodeSerializer.write(encoder, snapshot.getHash());
+                encoder.writeLong(currentDirectory != null && currentDirectory.isDirectory() ? currentDirectory.attributes.lastModifiedTime().toMillis() : -1);
+                encoder.writeSmallInt(children.size());
+                for (CompleteFileSystemLocationSnapshot child : children) {
+                    write(encoder, child);
+                }
+                break;
+            case Missing:
+                encoder.writeByte(MISSING);
+                break;
+            default:
+                throw new AssertionError(snapshot.getType());
+        }
+    }
+
+    private CompleteFileSystemLocationSnapshot read(Decoder decoder, String absolutePath, String name, Map<CompleteDirectorySnapshot, Long> directoryTimestamps) throws IOException {
+        AccessType accessType = AccessType.values()[decoder.readSmallInt()];
+        byte type = decoder.readByte();
+        switch (type) {
+            case REGULAR_FILE:
+                HashCode contentHash = hashCodeSerializer.read(decoder);
+                long lastModified = decoder.readLong();
+                long length = decoder.readLong();
+                return new RegularFileSnapshot(absolutePath, name, contentHash, DefaultFileMetadata.file(lastModified, length, accessType));
+            case DIRECTORY:
+                HashCode directoryHash = hashCodeSerializer.read(decoder);
+                long directoryLastModified = decoder.readLong();
+                int childCount = decoder.readSmallInt();
+                List<CompleteFileSystemLocationSnapshot> children = new ArrayList<>(childCount);
+                String childPathPrefix = absolutePath.endsWith(File.separator) ? absolutePath : absolutePath + File.separatorChar;
+                for (int i = 0; i < childCount; i++) {
+                    String childName = stringInterner.intern(decoder.readString());
+                    children.add(read(decoder, childPathPrefix + childName, childName, directoryTimestamps));
+                }
+                CompleteDirectorySnapshot directory = new CompleteDirectorySnapshot(absolutePath, name, children, directoryHash, accessType);
+                directoryTimestamps.put(directory, directoryLastModified);
+                return directory;
+            case MISSING:
+                return new MissingFileSnapshot(absolutePath, name, accessType);
+            default:
+                throw new IOException("Unexpected snapshot type " + type);
+        }
+    }
+
+    private static int countLocations(CompleteFileSystemLocationSnapshot snapshot) {
+        AtomicInteger count = new AtomicInteger();
+        snapshot.accept(new FileSystemSnapshotVisitor() {
+            @Override
+            public boolean preVisitDirectory(CompleteDirectorySnapshot directorySnapshot) {
+                count.incrementAndGet();
+                return true;
+            }
+
+            @Override
+            public void visitFile(CompleteFileSystemLocationSnapshot fileSnapshot) {
+                count.incrementAndGet();
+            }
+
+            @Override
+            public void postVisitDirectory(CompleteDirectorySnapshot directorySnapshot) {
+            }
+        });
+        return count.get();
+    }
+
+    /**
+     * Validates persisted snapshots, forking the validation of each directory so the file system is queried in parallel.
+     */
+    private class SnapshotValidation {
+        private final Map<CompleteDirectorySnapshot, Long> directoryTimestamps;
+        private final Queue<CompleteFileSystemLocationSnapshot> restored = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger hits = new AtomicInteger();
+        private final AtomicInteger misses = new AtomicInteger();
+
+        SnapshotValidation(Map<CompleteDirectorySnapshot, Long> directoryTimestamps) {
+            this.directoryTimestamps = directoryTimestamps;
+        }
+
+        /**
+         * Completes with {@code true} when the whole snapshot is unchanged, leaving it to the caller to restore the snapshot.
+         * Otherwise the unchanged parts of the snapshot have already been restored.
+         */
+        CompletableFuture<Boolean> validateAsync(CompleteFileSystemLocationSnapshot snapshot) {
+            return CompletableFuture.supplyAsync(() -> validate(snapshot), validationExecutor)
+                .thenCompose(Function.identity());
+        }
+
+        private CompletableFuture<Boolean> validate(CompleteFileSystemLocationSnapshot snapshot) {
+            boolean unchanged = isUnchanged(snapshot);
+            if (!(snapshot instanceof CompleteDirectorySnapshot)) {
+                if (!unchanged) {
+                    misses.incrementAndGet();
+                }
+                return CompletableFuture.completedFuture(unchanged);
+            }
+            List<CompleteFileSystemLocationSnapshot> children = ((CompleteDirectorySnapshot) snapshot).getChildren();
+            List<CompletableFuture<Boolean>> validatedChildren = new ArrayList<>(children.size());
+            for (CompleteFileSystemLocationSnapshot child : children) {
+                validatedChildren.add(child instanceof CompleteDirectorySnapshot
+                    ? validateAsync(child)
+                    : validate(child));
+            }
+            return CompletableFuture.allOf(validatedChildren.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    if (unchanged && validatedChildren.stream().allMatch(CompletableFuture::join)) {
+                        return true;
+                    }
+                    misses.incrementAndGet();
+                    for (int i = 0; i < children.size(); i++) {
+                        if (validatedChildren.get(i).join()) {
+                            restore(children.get(i));
+                        }
+                    }
+                    return false;
+                });
+        }
+
+        private boolean isUnchanged(CompleteFileSystemLocationSnapshot snapshot) {
+            CurrentFile currentFile = CurrentFile.of(snapshot.getAbsolutePath());
+            if (currentFile == null || currentFile.accessType != snapshot.getAccessType()) {
+                return false;
+            }
+            switch (snapshot.getType()) {
+                case RegularFile:
+                    FileMetadata metadata = ((RegularFileSnapshot) snapshot).getMetadata();
+                    return currentFile.isRegularFile()
+                        && currentFile.attributes.lastModifiedTime().toMillis() == metadata.getLastModified()
+                        && currentFile.attributes.size() == metadata.getLength();
+                case Directory:
+                    long lastModified = directoryTimestamps.get(snapshot);
+                    return currentFile.isDirectory()
+                        && lastModified != -1
+                        && currentFile.attributes.lastModifiedTime().toMillis() == lastModified;
+                case Missing:
+                    return currentFile.attributes == null;
+                default:
+                    throw new AssertionError(snapshot.getType());
+            }
+        }
+
+        void restore(CompleteFileSystemLocationSnapshot snapshot) {
+            restored.add(snapshot);
+            hits.addAndGet(countLocations(snapshot));
+        }
+    }
+
+    /**
+     * The current state of a file, accessed the same way as {@link org.gradle.internal.snapshot.impl.DirectorySnapshotter} does.
+     */
+    private static class CurrentFile {
+        private final AccessType accessType;
+        private final BasicFileAttributes attributes;
+
+        private CurrentFile(AccessType accessType, @Nullable BasicFileAttributes attributes) {
+            this.accessType = accessType;
+            this.attributes = attributes;
+        }
+
+        /**
+         * Returns the current state of the file, or {@code null} if the file cannot be read.
+         */
+        @Nullable
+        static CurrentFile of(String absolutePath) {
+            Path path = Paths.get(absolutePath);
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                if (!attributes.isSymbolicLink()) {
+                    return new CurrentFile(AccessType.DIRECT, attributes);
+                }
+            } catch (NoSuchFileException e) {
+                return new CurrentFile(AccessType.DIRECT, null);
+            } catch (IOException e) {
+                return null;
+            }
+            try {
+                return new CurrentFile(AccessType.VIA_SYMLINK, Files.readAttributes(path, BasicFileAttributes.class));
+            } catch (NoSuchFileException e) {
+                return new CurrentFile(AccessType.VIA_SYMLINK, null);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        boolean isRegularFile() {
+            return attributes != null && attributes.isRegularFile();
+        }
+
+        boolean isDirectory() {
+            return attributes != null && attributes.isDirectory();
+        }
+    }
+
+    public static class RestoredState {
+        private final List<CompleteFileSystemLocationSnapshot> snapshots;
+        private final int hits;
+        private final int misses;
+
+        public RestoredState(List<CompleteFileSystemLocationSnapshot> snapshots, int hits, int misses) {
+            this.snapshots = snapshots;
+            this.hits = hits;
+            this.misses = misses;
+        }
+
+        /**
+         * The unchanged snapshots, which can be added to the virtual file system.
+         */
+        public List<CompleteFileSystemLocationSnapshot> getSnapshots() {
+            return snapshots;
+        }
+
+        /**
+         * The number of file system locations which were unchanged since the state was persisted.
+         */
+        public int getHits() {
+            return hits;
+        }
+
+        /**
+         * The number of file system locations which had to be dropped since they changed after the state was persisted.
+         */
+        public int getMisses() {
+            return misses;
+        }
+    }
+}
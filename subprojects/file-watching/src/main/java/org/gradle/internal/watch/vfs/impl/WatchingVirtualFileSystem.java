@@ -22,6 +22,7 @@
 import org.gradle.internal.operations.BuildOperationDescriptor;
 import org.gradle.internal.operations.BuildOperationRunner;
 import org.gradle.internal.operations.CallableBuildOperation;
+import org.gradle.internal.snapshot.CompleteFileSystemLocationSnapshot;
 import org.gradle.internal.snapshot.FileSystemNode;
 import org.gradle.internal.snapshot.SnapshotHierarchy;
 import org.gradle.internal.vfs.impl.AbstractVirtualFileSystem;
@@ -54,6 +55,7 @@ public class WatchingVirtualFileSystem extends AbstractVirtualFileSystem impleme
     private final FileWatcherRegistryFactory watcherRegistryFactory;
     private final DaemonDocumentationIndex daemonDocumentationIndex;
     private final LocationsWrittenByCurrentBuild locationsWrittenByCurrentBuild;
+    private final PersistentVfsState persistentState;
     private final Set<File> watchableHierarchies = new HashSet<>();
 
     private FileWatcherRegistry watchRegistry;
@@ -63,12 +65,14 @@ public WatchingVirtualFileSystem(
         FileWatcherRegistryFactory watcherRegistryFactory,
         VfsRootReference rootReference,
         DaemonDocumentationIndex daemonDocumentationIndex,
-        LocationsWrittenByCurrentBuild locationsWrittenByCurrentBuild
+        LocationsWrittenByCurrentBuild locationsWrittenByCurrentBuild,
+        PersistentVfsState persistentState
     ) {
         super(rootReference);
         this.watcherRegistryFactory = watcherRegistryFactory;
         this.daemonDocumentationIndex = daemonDocumentationIndex;
         this.locationsWrittenByCurrentBuild = locationsWrittenByCurrentBuild;
+        this.persistentState = persistentState;
     }
 
     @Override
@@ -93,11 +97,23 @@ public SnapshotHierarchy call(BuildOperationContext context) {
                 if (watchingEnabled) {
                     SnapshotHierarchy newRoot;
                     FileSystemWatchingStatistics statisticsSinceLastBuild;
-                    if (watchRegistry == null) {
+                    boolean startedWatching = watchRegistry == null;
+                    if (startedWatching) {
                         context.setStatus("Starting file system watching");
                         startWatching(currentRoot);
                         newRoot = currentRoot.empty();
                         statisticsSinceLastBuild = null;
+                        PersistentVfsState.RestoredState restoredState = watchRegistry == null ? null : persistentState.restore();
+                        if (restoredState != null) {
+                            newRoot = restore(newRoot, restoredState.getSnapshots());
+                            statisticsSinceLastBuild = new DefaultFileSystemWatchingStatistics(watchRegistry.getAndResetStatistics(), newRoot, restoredState.getHits(), restoredState.getMisses());
+                            if (vfsLogging == VfsLogging.VERBOSE) {
+                                LOGGER.warn("Virtual file system restored information about {} locations persisted by a previous daemon, {} locations changed since",
+                                    statisticsSinceLastBuild.getRestoredLocations(),
+                                    statisticsSinceLastBuild.getDroppedRestoredLocations()
+                                );
+                            }
+                        }
                     } else {
                         FileWatcherRegistry.FileWatchingStatistics statistics = watchRegistry.getAndResetStatistics();
                         if (hasDroppedStateBecauseOfErrorsReceivedWhileWatching(statistics)) {
@@ -128,7 +144,7 @@ public boolean isWatchingEnabled() {
 
                                           @Override
                                           public boolean isStartedWatching() {
-                                              return statisticsSinceLastBuild == null;
+                                              return startedWatching;
                                           }
 
                                           @Override
@@ -152,6 +168,16 @@ public BuildOperationDescriptor.Builder description() {
         }));
     }
 
+    private SnapshotHierarchy restore(SnapshotHierarchy emptyRoot, Iterable<CompleteFileSystemLocationSnapshot> snapshots) {
+        return updateNotifyingListeners(diffListener -> {
+            SnapshotHierarchy newRoot = emptyRoot;
+            for (CompleteFileSystemLocationSnapshot snapshot : snapshots) {
+                newRoot = newRoot.store(snapshot.getAbsolutePath(), snapshot, diffListener);
+            }
+            return newRoot;
+        });
+    }
+
     @Override
     public void registerWatchableHierarchy(File watchableHierarchy) {
         rootReference.update(currentRoot -> {
@@ -370,6 +396,10 @@ private boolean hasDroppedStateBecauseOfErrorsReceivedWhileWatching(FileWatcherR
     @Override
     public void close() {
         rootReference.update(currentRoot -> {
+            if (watchRegistry != null) {
+                // Only the state of watched locations is known to be up-to-date
+                persistentState.persist(currentRoot);
+            }
             closeUnderLock();
             return currentRoot.empty();
         });
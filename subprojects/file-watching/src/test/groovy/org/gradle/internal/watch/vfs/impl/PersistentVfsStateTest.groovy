@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.watch.vfs.impl
+
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.internal.file.FileMetadata.AccessType
+import org.gradle.internal.hash.TestFileHasher
+import org.gradle.internal.snapshot.CaseSensitivity
+import org.gradle.internal.snapshot.CompleteFileSystemLocationSnapshot
+import org.gradle.internal.snapshot.MissingFileSnapshot
+import org.gradle.internal.snapshot.SnapshotHierarchy
+import org.gradle.internal.snapshot.impl.DirectorySnapshotter
+import org.gradle.internal.snapshot.impl.DirectorySnapshotterStatistics
+import org.gradle.internal.vfs.impl.DefaultSnapshotHierarchy
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicBoolean
+
+class PersistentVfsStateTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def executor = Executors.newFixedThreadPool(4)
+    def directorySnapshotter = new DirectorySnapshotter(new TestFileHasher(), new StringInterner(), [], Stub(DirectorySnapshotterStatistics.Collector))
+    PersistentVfsState persistentState
+
+    def setup() {
+        persistentState = new PersistentVfsState(tmpDir.file("state/vfs.bin"), new StringInterner(), executor)
+    }
+
+    def cleanup() {
+        executor.shutdownNow()
+    }
+
+    def "restores nothing when no state has been persisted"() {
+        expect:
+        persistentState.restore() == null
+    }
+
+    def "restores unchanged snapshots"() {
+        def rootDir = tmpDir.createDir("root")
+        rootDir.file("a.txt").text = "a"
+        rootDir.file("dir/b.txt").text = "b"
+        def missingFile = tmpDir.file("missing")
+        def rootSnapshot = snapshot(rootDir)
+
+        when:
+        persistentState.persist(hierarchyOf(rootSnapshot, new MissingFileSnapshot(missingFile.absolutePath, missingFile.name, AccessType.DIRECT)))
+        def restoredState = persistentState.restore()
+
+        then:
+        restoredState.snapshots*.absolutePath as Set == [rootDir.absolutePath, missingFile.absolutePath] as Set
+        restoredState.snapshots.find { it.absolutePath == rootDir.absolutePath }.hash == rootSnapshot.hash
+        restoredState.hits == 5
+        restoredState.misses == 0
+    }
+
+    def "restores unchanged descendants of changed snapshots"() {
+        def rootDir = tmpDir.createDir("root")
+        def unchangedFile = rootDir.file("a.txt")
+        unchangedFile.text = "a"
+        def changedFile = rootDir.file("dir/b.txt")
+        changedFile.text = "b"
+        def unchangedDir = rootDir.file("other")
+        unchangedDir.file("c.txt").text = "c"
+        persistentState.persist(hierarchyOf(snapshot(rootDir)))
+
+        when:
+        changedFile.text = "changed"
+        def restoredState = persistentState.restore()
+
+        then:
+        restoredState.snapshots*.absolutePath as Set == [unchangedFile.absolutePath, unchangedDir.absolutePath] as Set
+        restoredState.snapshots.find { it.absolutePath == unchangedDir.absolutePath }.hash == snapshot(unchangedDir).hash
+        restoredState.hits == 3
+        restoredState.misses == 3
+    }
+
+    def "drops snapshots of directories with added entries"() {
+        def rootDir = tmpDir.createDir("root")
+        rootDir.file("a.txt").text = "a"
+        persistentState.persist(hierarchyOf(snapshot(rootDir)))
+
+        when:
+        def lastModified = rootDir.lastModified()
+        rootDir.file("added.txt").text = "added"
+        rootDir.setLastModified(lastModified + 2000)
+        def restoredState = persistentState.restore()
+
+        then:
+        restoredState.snapshots*.absolutePath == [rootDir.file("a.txt").absolutePath]
+        restoredState.hits == 1
+        restoredState.misses == 1
+    }
+
+    def "drops snapshots of files which have been deleted"() {
+        def file = tmpDir.file("file.txt")
+        file.text = "content"
+        persistentState.persist(hierarchyOf(snapshot(file)))
+
+        when:
+        file.delete()
+        def restoredState = persistentState.restore()
+
+        then:
+        restoredState.snapshots.empty
+        restoredState.hits == 0
+        restoredState.misses == 1
+    }
+
+    private CompleteFileSystemLocationSnapshot snapshot(TestFile file) {
+        directorySnapshotter.snapshot(file.absolutePath, null, new AtomicBoolean())
+    }
+
+    private static SnapshotHierarchy hierarchyOf(CompleteFileSystemLocationSnapshot... snapshots) {
+        SnapshotHierarchy root = DefaultSnapshotHierarchy.empty(CaseSensitivity.CASE_SENSITIVE)
+        snapshots.each { snapshot ->
+            root = root.store(snapshot.absolutePath, snapshot, SnapshotHierarchy.NodeDiffListener.NOOP)
+        }
+        return root
+    }
+}
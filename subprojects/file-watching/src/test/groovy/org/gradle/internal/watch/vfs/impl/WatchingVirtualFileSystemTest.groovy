@@ -16,9 +16,13 @@
 
 package org.gradle.internal.watch.vfs.impl
 
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.internal.hash.TestFileHasher
 import org.gradle.internal.operations.TestBuildOperationExecutor
 import org.gradle.internal.snapshot.CaseSensitivity
 import org.gradle.internal.snapshot.SnapshotHierarchy
+import org.gradle.internal.snapshot.impl.DirectorySnapshotter
+import org.gradle.internal.snapshot.impl.DirectorySnapshotterStatistics
 import org.gradle.internal.vfs.impl.DefaultSnapshotHierarchy
 import org.gradle.internal.vfs.impl.VfsRootReference
 import org.gradle.internal.watch.registry.FileWatcherRegistry
@@ -26,9 +30,17 @@ import org.gradle.internal.watch.registry.FileWatcherRegistryFactory
 import org.gradle.internal.watch.registry.impl.DaemonDocumentationIndex
 import org.gradle.internal.watch.vfs.BuildLifecycleAwareVirtualFileSystem.VfsLogging
 import org.gradle.internal.watch.vfs.BuildLifecycleAwareVirtualFileSystem.WatchLogging
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
 import spock.lang.Specification
 
+import java.util.concurrent.Executor
+import java.util.concurrent.atomic.AtomicBoolean
+
 class WatchingVirtualFileSystemTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
     def watcherRegistryFactory = Mock(FileWatcherRegistryFactory)
     def watcherRegistry = Mock(FileWatcherRegistry)
     def emptySnapshotHierarchy = DefaultSnapshotHierarchy.empty(CaseSensitivity.CASE_SENSITIVE)
@@ -43,7 +55,8 @@ class WatchingVirtualFileSystemTest extends Specification {
         watcherRegistryFactory,
         rootReference,
         daemonDocumentationIndex,
-        locationsUpdatedByCurrentBuild
+        locationsUpdatedByCurrentBuild,
+        new PersistentVfsState(tmpDir.file("vfs.bin"), new StringInterner(), { it.run() } as Executor)
     )
 
     def "invalidates the virtual file system before and after the build when watching is disabled"() {
@@ -150,4 +163,36 @@ class WatchingVirtualFileSystemTest extends Specification {
         then:
         1 * watcherRegistry.registerWatchableHierarchy(newWatchableHierarchy, _)
     }
+
+    def "persists the retained state when closed and restores it when watching starts"() {
+        def rootDir = tmpDir.createDir("root")
+        rootDir.file("input.txt").text = "input"
+        def directorySnapshotter = new DirectorySnapshotter(new TestFileHasher(), new StringInterner(), [], Stub(DirectorySnapshotterStatistics.Collector))
+        def snapshot = directorySnapshotter.snapshot(rootDir.absolutePath, null, new AtomicBoolean())
+
+        when:
+        watchingVirtualFileSystem.afterBuildStarted(true, VfsLogging.NORMAL, WatchLogging.NORMAL, buildOperationRunner)
+        then:
+        1 * watcherRegistryFactory.createFileWatcherRegistry(_) >> watcherRegistry
+        1 * watcherRegistry.setDebugLoggingEnabled(false)
+        0 * _
+
+        when:
+        rootReference.update { root -> root.store(snapshot.absolutePath, snapshot, SnapshotHierarchy.NodeDiffListener.NOOP) }
+        watchingVirtualFileSystem.close()
+        then:
+        1 * watcherRegistry.close()
+        0 * _
+
+        when:
+        watchingVirtualFileSystem.afterBuildStarted(true, VfsLogging.NORMAL, WatchLogging.NORMAL, buildOperationRunner)
+        then:
+        1 * watcherRegistryFactory.createFileWatcherRegistry(_) >> watcherRegistry
+        1 * watcherRegistry.virtualFileSystemContentsChanged({ it.empty }, { it*.absolutePath == [rootDir.absolutePath] }, _)
+        1 * watcherRegistry.getAndResetStatistics() >> Stub(FileWatcherRegistry.FileWatchingStatistics)
+        1 * watcherRegistry.setDebugLoggingEnabled(false)
+        0 * _
+
+        rootReference.getRoot().getSnapshot(rootDir.absolutePath).get().hash == snapshot.hash
+    }
 }
@@ -15,6 +15,7 @@
  */
 package org.gradle.internal.hash;
 
+import javax.annotation.Nullable;
 import java.io.File;
 
 public interface FileHasher {
@@ -27,4 +28,13 @@ public interface FileHasher {
      * Returns the hash of the current content of the given file, assuming the given file metadata. The provided file must exist and be a file (rather than, say, a directory).
      */
     HashCode hash(File file, long length, long lastModified);
+
+    /**
+     * Returns the hash of the content of the given file if it is known without reading the file, for example from a cache of file hashes, assuming the given file metadata.
+     * Returns {@code null} when the file would need to be read to hash it.
+     */
+    @Nullable
+    default HashCode hashIfCached(File file, long length, long lastModified) {
+        return null;
+    }
 }
@@ -42,6 +42,8 @@ private Hashing() {}
 
     private static final HashFunction SHA512 = MessageDigestHashFunction.of("SHA-512");
 
+    private static final HashFunction MURMUR3 = new Murmur3HashFunction();
+
     private static final HashFunction DEFAULT = MD5;
 
     /**
@@ -117,6 +119,15 @@ public static HashFunction md5() {
         return MD5;
     }
 
+    /**
+     * 128-bit Murmur3 (x64 variant) hashing function.
+     * Much faster than MD5, but not suited for security purposes.
+     * Produces the same hashes as Guava's {@code Hashing.murmur3_128()}.
+     */
+    public static HashFunction murmur3() {
+        return MURMUR3;
+    }
+
     /**
      * SHA1 hashing function.
      */
@@ -230,6 +241,242 @@ protected MessageDigest createDigest() {
         }
     }
 
+    private static class Murmur3HashFunction implements HashFunction {
+        @Override
+        public PrimitiveHasher newPrimitiveHasher() {
+            return new Murmur3Hasher();
+        }
+
+        @Override
+        public Hasher newHasher() {
+            return new DefaultHasher(newPrimitiveHasher());
+        }
+
+        @Override
+        public HashCode hashBytes(byte[] bytes) {
+            PrimitiveHasher hasher = newPrimitiveHasher();
+            hasher.putBytes(bytes);
+            return hasher.hash();
+        }
+
+        @Override
+        public HashCode hashString(CharSequence string) {
+            PrimitiveHasher hasher = newPrimitiveHasher();
+            hasher.putString(string);
+            return hasher.hash();
+        }
+
+        @Override
+        public int getHexDigits() {
+            return 32;
+        }
+    }
+
+    /**
+     * Streaming implementation of MurmurHash3_x64_128 with a seed of 0.
+     * Input is processed in blocks of 16 bytes, incomplete blocks are kept until more input arrives.
+     */
+    private static class Murmur3Hasher implements PrimitiveHasher {
+        private static final int BLOCK_SIZE = 16;
+        private static final long C1 = 0x87c37b91114253d5L;
+        private static final long C2 = 0x4cf5ad432745937fL;
+
+        private final byte[] pending = new byte[BLOCK_SIZE];
+        private int pendingLength;
+        private long h1;
+        private long h2;
+        private long length;
+        private boolean done;
+
+        @Override
+        public void putByte(byte b) {
+            checkNotDone();
+            length++;
+            pending[pendingLength++] = b;
+            if (pendingLength == BLOCK_SIZE) {
+                processPending();
+            }
+        }
+
+        @Override
+        public void putBytes(byte[] bytes) {
+            putBytes(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public void putBytes(byte[] bytes, int off, int len) {
+            checkNotDone();
+            length += len;
+            if (pendingLength > 0) {
+                int count = Math.min(BLOCK_SIZE - pendingLength, len);
+                System.arraycopy(bytes, off, pending, pendingLength, count);
+                pendingLength += count;
+                off += count;
+                len -= count;
+                if (pendingLength < BLOCK_SIZE) {
+                    return;
+                }
+                processPending();
+            }
+            while (len >= BLOCK_SIZE) {
+                mixBlock(getLongLittleEndian(bytes, off), getLongLittleEndian(bytes, off + 8));
+                off += BLOCK_SIZE;
+                len -= BLOCK_SIZE;
+            }
+            System.arraycopy(bytes, off, pending, 0, len);
+            pendingLength = len;
+        }
+
+        @Override
+        public void putBytes(ByteBuffer buffer) {
+            checkNotDone();
+            length += buffer.remaining();
+            while (pendingLength > 0 && buffer.hasRemaining()) {
+                pending[pendingLength++] = buffer.get();
+                if (pendingLength == BLOCK_SIZE) {
+                    processPending();
+                }
+            }
+            if (pendingLength > 0) {
+                // The buffer did not contain enough bytes to complete the pending block
+                return;
+            }
+            // Read blocks via a duplicate, so that the byte order of the given buffer is left alone
+            ByteBuffer input = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            while (input.remaining() >= BLOCK_SIZE) {
+                mixBlock(input.getLong(), input.getLong());
+            }
+            pendingLength = input.remaining();
+            input.get(pending, 0, pendingLength);
+            MessageDigestHasher.castBuffer(buffer).position(buffer.limit());
+        }
+
+        @Override
+        public void putInt(int value) {
+            for (int i = 0; i < 4; i++) {
+                putByte((byte) (value >>> (8 * i)));
+            }
+        }
+
+        @Override
+        public void putLong(long value) {
+            for (int i = 0; i < 8; i++) {
+                putByte((byte) (value >>> (8 * i)));
+            }
+        }
+
+        @Override
+        public void putDouble(double value) {
+            putLong(Double.doubleToRawLongBits(value));
+        }
+
+        @Override
+        public void putBoolean(boolean value) {
+            putByte((byte) (value ? 1 : 0));
+        }
+
+        @Override
+        public void putString(CharSequence value) {
+            putBytes(value.toString().getBytes(Charsets.UTF_8));
+        }
+
+        @Override
+        public void putHash(HashCode hashCode) {
+            putBytes(hashCode.getBytes());
+        }
+
+        @Override
+        public HashCode hash() {
+            checkNotDone();
+            done = true;
+            if (pendingLength > 0) {
+                long k1 = 0;
+                long k2 = 0;
+                for (int i = pendingLength - 1; i >= BLOCK_SIZE / 2; i--) {
+                    k2 = (k2 << 8) | (pending[i] & 0xffL);
+                }
+                for (int i = Math.min(pendingLength, BLOCK_SIZE / 2) - 1; i >= 0; i--) {
+                    k1 = (k1 << 8) | (pending[i] & 0xffL);
+                }
+                h1 ^= mixK1(k1);
+                h2 ^= mixK2(k2);
+            }
+
+            h1 ^= length;
+            h2 ^= length;
+            h1 += h2;
+            h2 += h1;
+            h1 = finalMix(h1);
+            h2 = finalMix(h2);
+            h1 += h2;
+            h2 += h1;
+
+            byte[] bytes = new byte[BLOCK_SIZE];
+            for (int i = 0; i < 8; i++) {
+                bytes[i] = (byte) (h1 >>> (8 * i));
+                bytes[i + 8] = (byte) (h2 >>> (8 * i));
+            }
+            return HashCode.fromBytesNoCopy(bytes);
+        }
+
+        private void checkNotDone() {
+            if (done) {
+                throw new IllegalStateException("Cannot reuse hasher!");
+            }
+        }
+
+        private void processPending() {
+            mixBlock(getLongLittleEndian(pending, 0), getLongLittleEndian(pending, 8));
+            pendingLength = 0;
+        }
+
+        private void mixBlock(long k1, long k2) {
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        private static long mixK1(long k1) {
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            return k1;
+        }
+
+        private static long mixK2(long k2) {
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            return k2;
+        }
+
+        private static long finalMix(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+
+        private static long getLongLittleEndian(byte[] bytes, int offset) {
+            return (bytes[offset] & 0xffL)
+                | (bytes[offset + 1] & 0xffL) << 8
+                | (bytes[offset + 2] & 0xffL) << 16
+                | (bytes[offset + 3] & 0xffL) << 24
+                | (bytes[offset + 4] & 0xffL) << 32
+                | (bytes[offset + 5] & 0xffL) << 40
+                | (bytes[offset + 6] & 0xffL) << 48
+                | (bytes[offset + 7] & 0xffL) << 56;
+        }
+    }
+
     private static class MessageDigestHasher implements PrimitiveHasher {
         private final ByteBuffer buffer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
         private MessageDigest digest;
@@ -260,6 +507,11 @@ public void putBytes(byte[] bytes, int off, int len) {
             getDigest().update(bytes, off, len);
         }
 
+        @Override
+        public void putBytes(ByteBuffer buffer) {
+            getDigest().update(buffer);
+        }
+
         private void update(int length) {
             getDigest().update(buffer.array(), 0, length);
             castBuffer(buffer).clear();
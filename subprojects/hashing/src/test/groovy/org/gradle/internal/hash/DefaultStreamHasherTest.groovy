@@ -16,15 +16,21 @@
 
 package org.gradle.internal.hash
 
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
 import spock.lang.Specification
+import spock.lang.Unroll
 
 class DefaultStreamHasherTest extends Specification {
+    @Rule
+    TemporaryFolder tmpDir = new TemporaryFolder()
+
     def "can hash input"() {
         def input = new ByteArrayInputStream("hello".bytes)
         when:
         def hash = new DefaultStreamHasher().hash(input)
         then:
-        hash.toString() == "af67a92e9f73b51572e9b94e343d2840"
+        hash.toString() == "36e44ebde6f0da7dc1a53de4506f3ffc"
     }
 
     def "can hash input while copying it"() {
@@ -33,7 +39,33 @@ class DefaultStreamHasherTest extends Specification {
         when:
         def hash = new DefaultStreamHasher().hashCopy(input, output)
         then:
-        hash.toString() == "af67a92e9f73b51572e9b94e343d2840"
+        hash.toString() == "36e44ebde6f0da7dc1a53de4506f3ffc"
         output.toByteArray() == "hello".bytes
     }
+
+    def "can hash input with given hash function"() {
+        def input = new ByteArrayInputStream("hello".bytes)
+        when:
+        def hash = new DefaultStreamHasher(Hashing.md5()).hash(input)
+        then:
+        hash.toString() == "af67a92e9f73b51572e9b94e343d2840"
+    }
+
+    @Unroll
+    def "hashing a file channel of #size bytes produces the same hash as hashing a stream"() {
+        def bytes = new byte[size]
+        new Random(size).nextBytes(bytes)
+        def file = tmpDir.newFile()
+        file.bytes = bytes
+        def hasher = new DefaultStreamHasher()
+
+        when:
+        def hash = file.withInputStream { hasher.hash(it.channel) }
+
+        then:
+        hash == hasher.hash(new ByteArrayInputStream(bytes))
+
+        where:
+        size << [0, 5, 64 * 1024 + 1, 1024 * 1024 - 1, 1024 * 1024, 3 * 1024 * 1024 + 17]
+    }
 }
@@ -17,6 +17,7 @@
 package org.gradle.internal.hash
 
 import spock.lang.Specification
+import spock.lang.Unroll
 
 import static java.lang.Thread.currentThread
 import static java.util.concurrent.CompletableFuture.supplyAsync
@@ -109,6 +110,46 @@ class HashingTest extends Specification {
         hashStrings(["abc", "de"]) != hashStrings(["ab", "cde"])
     }
 
+    @Unroll
+    def 'murmur3 produces same hash as Guava for #length bytes'() {
+        def bytes = new byte[length]
+        new Random(length).nextBytes(bytes)
+
+        when:
+        def hasher = Hashing.murmur3().newPrimitiveHasher()
+        // Feed the bytes in uneven chunks to exercise the buffering of incomplete blocks
+        int offset = 0
+        int chunkSize = 1
+        while (offset < length) {
+            int count = Math.min(chunkSize, length - offset)
+            hasher.putBytes(bytes, offset, count)
+            offset += count
+            chunkSize = chunkSize * 2 + 1
+        }
+
+        then:
+        hasher.hash().toString() == com.google.common.hash.Hashing.murmur3_128().hashBytes(bytes).toString()
+
+        where:
+        length << [0, 1, 7, 8, 15, 16, 17, 31, 32, 33, 1000, 65537]
+    }
+
+    def 'murmur3 hashes primitives in little endian order'() {
+        when:
+        def hasher = Hashing.murmur3().newPrimitiveHasher()
+        hasher.putInt(42)
+        hasher.putLong(7L)
+        hasher.putString("hello")
+
+        def guavaHasher = com.google.common.hash.Hashing.murmur3_128().newHasher()
+        guavaHasher.putInt(42)
+        guavaHasher.putLong(7L)
+        guavaHasher.putBytes("hello".bytes)
+
+        then:
+        hasher.hash().toString() == guavaHasher.hash().toString()
+    }
+
     def hashStrings(List<String> strings) {
         def hasher = Hashing.newHasher()
         strings.each { hasher.putString(it) }
@@ -33,6 +33,14 @@ abstract class HttpResource extends AbstractHttpResource {
         server.expectGet(getPath(), file)
     }
 
+    void expectGetUnmodified() {
+        server.expectGetUnmodified(getPath(), file)
+    }
+
+    void expectGetUnmodifiedRevalidate() {
+        server.expectGetUnmodifiedRevalidate(getPath(), file)
+    }
+
     void allowGetOrHead(String userName, String password) {
         server.allowGetOrHead(getPath(), userName, password, file)
     }
@@ -357,6 +357,43 @@ class HttpServer extends ServerWithExpectations implements HttpServerFixture {
         return expect(path, false, ['GET'], fileHandler(path, srcFile))
     }
 
+    /**
+     * Expects one conditional GET request for the given URL, which returns a 304 status code without content, as the given file is unchanged.
+     */
+    HttpResourceInteraction expectGetUnmodified(String path, File srcFile) {
+        return expect(path, false, ['GET'], notModified(srcFile, false))
+    }
+
+    /**
+     * Expects one conditional GET request for the given URL, asserting that the request revalidates. Returns a 304 status code without content, as the given file is unchanged.
+     */
+    HttpResourceInteraction expectGetUnmodifiedRevalidate(String path, File srcFile) {
+        return expect(path, false, ['GET'], notModified(srcFile, true))
+    }
+
+    private Action notModified(File srcFile, boolean revalidate) {
+        new ActionSupport("return 304 not modified for $srcFile.name") {
+            void handle(HttpServletRequest request, HttpServletResponse response) {
+                if (request.getHeader(HttpHeader.IF_NONE_MATCH.asString()) == null && request.getHeader(HttpHeader.IF_MODIFIED_SINCE.asString()) == null) {
+                    response.sendError(412, "Precondition Failed: Expected an If-None-Match or If-Modified-Since header")
+                    return
+                }
+                if (revalidate) {
+                    String cacheControl = request.getHeader("Cache-Control")
+                    if (!cacheControl.equals("max-age=0")) {
+                        response.sendError(412, String.format("Precondition Failed: Expected Cache-Control:max-age=0 but was '%s'", cacheControl))
+                        return
+                    }
+                }
+                if (sendLastModified) {
+                    response.setDateHeader(HttpHeader.LAST_MODIFIED.asString(), srcFile.lastModified())
+                }
+                addEtag(response, srcFile.bytes, etags)
+                response.setStatus(HttpStatus.NOT_MODIFIED_304)
+            }
+        }
+    }
+
     /**
      * Allows one GET request for the given URL with a query string. Reads the request content from the given file.
      */
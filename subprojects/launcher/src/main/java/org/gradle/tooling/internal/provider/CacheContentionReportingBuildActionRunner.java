@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.tooling.internal.provider;
+
+import org.gradle.cache.internal.CacheContentionBuildOperationType;
+import org.gradle.cache.internal.CacheContentionStatistics;
+import org.gradle.internal.invocation.BuildAction;
+import org.gradle.internal.invocation.BuildActionRunner;
+import org.gradle.internal.invocation.BuildController;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationRunner;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.service.ServiceRegistry;
+
+import java.util.List;
+
+/**
+ * Reports how long threads had to wait to access cross-process indexed caches during the build.
+ */
+public class CacheContentionReportingBuildActionRunner implements BuildActionRunner {
+    private final BuildActionRunner delegate;
+
+    public CacheContentionReportingBuildActionRunner(BuildActionRunner delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Result run(BuildAction action, BuildController buildController) {
+        ServiceRegistry services = buildController.getGradle().getServices();
+        CacheContentionStatistics.Collector contentionStatistics = services.get(CacheContentionStatistics.Collector.class);
+        BuildOperationRunner buildOperationRunner = services.get(BuildOperationRunner.class);
+
+        // Discard what has been recorded since the previous build
+        contentionStatistics.collect();
+        try {
+            return delegate.run(action, buildController);
+        } finally {
+            List<CacheContentionStatistics> caches = contentionStatistics.collect();
+            buildOperationRunner.run(new RunnableBuildOperation() {
+                @Override
+                public void run(BuildOperationContext context) {
+                    context.setResult(new CacheContentionBuildOperationType.Result() {
+                        @Override
+                        public List<CacheContentionStatistics> getCaches() {
+                            return caches;
+                        }
+                    });
+                }
+
+                @Override
+                public BuildOperationDescriptor.Builder description() {
+                    return BuildOperationDescriptor.displayName(CacheContentionBuildOperationType.DISPLAY_NAME)
+                        .details(CacheContentionBuildOperationType.Details.INSTANCE);
+                }
+            });
+        }
+    }
+}
@@ -159,9 +159,10 @@ BuildTreeBuildActionExecutor createActionExecuter(List<BuildActionRunner> buildA
                 new RunAsBuildOperationBuildActionRunner(
                     new BuildCompletionNotifyingBuildActionRunner(
                         new FileSystemWatchingBuildActionRunner(
-                            new ValidatingBuildActionRunner(
-                                new BuildOutcomeReportingBuildActionRunner(styledTextOutputFactory,
-                                    new ChainingBuildActionRunner(buildActionRunners)))))));
+                            new CacheContentionReportingBuildActionRunner(
+                                new ValidatingBuildActionRunner(
+                                    new BuildOutcomeReportingBuildActionRunner(styledTextOutputFactory,
+                                        new ChainingBuildActionRunner(buildActionRunners))))))));
         }
     }
 }
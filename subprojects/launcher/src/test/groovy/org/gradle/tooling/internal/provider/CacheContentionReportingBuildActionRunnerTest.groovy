@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.tooling.internal.provider
+
+import org.gradle.api.internal.GradleInternal
+import org.gradle.cache.internal.CacheContentionBuildOperationType
+import org.gradle.cache.internal.CacheContentionStatistics
+import org.gradle.internal.invocation.BuildAction
+import org.gradle.internal.invocation.BuildActionRunner
+import org.gradle.internal.invocation.BuildController
+import org.gradle.internal.operations.BuildOperationContext
+import org.gradle.internal.operations.BuildOperationRunner
+import org.gradle.internal.operations.RunnableBuildOperation
+import org.gradle.internal.service.ServiceRegistry
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class CacheContentionReportingBuildActionRunnerTest extends Specification {
+    def contentionStatistics = new CacheContentionStatistics.Collector()
+    def buildOperationRunner = Mock(BuildOperationRunner)
+    def buildController = Stub(BuildController) {
+        getGradle() >> Stub(GradleInternal) {
+            getServices() >> Stub(ServiceRegistry) {
+                get(CacheContentionStatistics.Collector) >> contentionStatistics
+                get(BuildOperationRunner) >> buildOperationRunner
+            }
+        }
+    }
+    def delegate = Mock(BuildActionRunner)
+    def buildAction = Mock(BuildAction)
+    def runner = new CacheContentionReportingBuildActionRunner(delegate)
+
+    def "reports contention of caches used during the build"() {
+        def beforeBuild = contentionStatistics.forCache("before")
+        def duringBuild = contentionStatistics.forCache("during")
+        beforeBuild.lockWaited(TimeUnit.SECONDS.toNanos(1))
+        CacheContentionBuildOperationType.Result result = null
+
+        when:
+        runner.run(buildAction, buildController)
+
+        then:
+        1 * delegate.run(buildAction, buildController) >> {
+            duringBuild.lockWaited(TimeUnit.MILLISECONDS.toNanos(20))
+            duringBuild.readWaited(TimeUnit.MILLISECONDS.toNanos(30))
+            duringBuild.writeWaited(0)
+            duringBuild.writeCoalesced()
+            BuildActionRunner.Result.nothing()
+        }
+
+        then:
+        1 * buildOperationRunner.run(_) >> { RunnableBuildOperation operation ->
+            operation.run(Stub(BuildOperationContext) {
+                setResult(_) >> { arguments -> result = arguments[0] }
+            })
+        }
+        0 * _
+
+        and:
+        result.caches.size() == 1
+        with(result.caches[0]) {
+            cacheId == "during"
+            lockWaitTimeMillis == 20
+            readWaitTimeMillis == 30
+            writeWaitTimeMillis == 0
+            writeCount == 2
+            coalescedWriteCount == 1
+        }
+    }
+
+    def "reports contention when the build fails"() {
+        def failure = new RuntimeException()
+
+        when:
+        runner.run(buildAction, buildController)
+
+        then:
+        def e = thrown(RuntimeException)
+        e == failure
+
+        and:
+        1 * delegate.run(buildAction, buildController) >> { throw failure }
+        1 * buildOperationRunner.run(_)
+        0 * _
+    }
+}
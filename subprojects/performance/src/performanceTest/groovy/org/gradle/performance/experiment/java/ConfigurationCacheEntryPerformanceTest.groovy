@@ -0,0 +1,131 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.performance.experiment.java
+
+import groovy.io.FileType
+import org.gradle.initialization.StartParameterBuildOptions.ConfigurationCacheOption
+import org.gradle.performance.AbstractCrossBuildPerformanceTest
+import org.gradle.performance.annotations.RunFor
+import org.gradle.performance.annotations.Scenario
+import org.gradle.performance.fixture.GradleBuildExperimentSpec
+import org.gradle.performance.measure.Amount
+import org.gradle.performance.measure.DataAmount
+import org.gradle.performance.measure.DataSeries
+import org.gradle.profiler.BuildContext
+import org.gradle.profiler.BuildMutator
+import org.gradle.profiler.InvocationSettings
+import org.gradle.profiler.Phase
+
+import static org.gradle.performance.annotations.ScenarioType.EXPERIMENT
+import static org.gradle.performance.results.OperatingSystem.LINUX
+
+@RunFor(
+    @Scenario(type = EXPERIMENT, operatingSystems = [LINUX], testProjects = ["largeJavaMultiProjectNoBuildSrc"])
+)
+class ConfigurationCacheEntryPerformanceTest extends AbstractCrossBuildPerformanceTest {
+
+    /**
+     * The size of the configuration cache entries after each measured build, by build spec.
+     */
+    private final Map<String, List<Amount<DataAmount>>> entrySizes = [:].withDefault { [] }
+
+    def "store and load compressed configuration cache entries"() {
+        given:
+        runner.testGroup = "configuration cache"
+        runner.buildSpec {
+            displayName("storing compressed")
+            addBuildMutator { InvocationSettings invocationSettings -> configurationCacheEntryMutatorFor("storing compressed", invocationSettings, true) }
+            invocation {
+                args("-D${COMPRESS_PROPERTY}=true")
+            }
+        }
+        runner.buildSpec {
+            displayName("loading compressed")
+            addBuildMutator { InvocationSettings invocationSettings -> configurationCacheEntryMutatorFor("loading compressed", invocationSettings, false) }
+            invocation {
+                args("-D${COMPRESS_PROPERTY}=true")
+            }
+        }
+        runner.baseline {
+            displayName("storing uncompressed")
+            addBuildMutator { InvocationSettings invocationSettings -> configurationCacheEntryMutatorFor("storing uncompressed", invocationSettings, true) }
+        }
+        runner.baseline {
+            displayName("loading uncompressed")
+            addBuildMutator { InvocationSettings invocationSettings -> configurationCacheEntryMutatorFor("loading uncompressed", invocationSettings, false) }
+        }
+
+        when:
+        def results = runner.run()
+
+        then:
+        results
+
+        and:
+        def compressedSize = new DataSeries<DataAmount>(entrySizes["storing compressed"])
+        def uncompressedSize = new DataSeries<DataAmount>(entrySizes["storing uncompressed"])
+        println("Configuration cache entry size: compressed ${compressedSize.median.format()}, uncompressed ${uncompressedSize.median.format()}")
+        compressedSize.size() == results.buildResult("storing compressed").size()
+        uncompressedSize.size() == results.buildResult("storing uncompressed").size()
+        compressedSize.median < uncompressedSize.median
+    }
+
+    @Override
+    protected void defaultSpec(GradleBuildExperimentSpec.GradleBuilder builder) {
+        super.defaultSpec(builder)
+        builder.warmUpCount = 2
+        builder.invocationCount = 10
+        builder.invocation {
+            tasksToRun("assemble")
+            args("-D${ConfigurationCacheOption.PROPERTY_NAME}=true")
+        }
+    }
+
+    private static final String COMPRESS_PROPERTY = "org.gradle.configuration-cache.internal.compress"
+
+    /**
+     * Discards the cache entries before each build when storing, and records the size of the entries after each measured build.
+     */
+    private BuildMutator configurationCacheEntryMutatorFor(String displayName, InvocationSettings invocationSettings, boolean storing) {
+        File stateDirectory = new File(invocationSettings.projectDir, ".gradle/configuration-cache")
+        List<Amount<DataAmount>> sizes = entrySizes[displayName]
+        return new BuildMutator() {
+            @Override
+            void beforeBuild(BuildContext context) {
+                if (storing) {
+                    stateDirectory.deleteDir()
+                }
+            }
+
+            @Override
+            void afterBuild(BuildContext context, Throwable error) {
+                if (context.phase == Phase.MEASURE) {
+                    sizes << DataAmount.bytes(sizeOf(stateDirectory))
+                }
+            }
+        }
+    }
+
+    private static long sizeOf(File directory) {
+        long size = 0
+        if (directory.directory) {
+            directory.eachFileRecurse(FileType.FILES) { file -> size += file.length() }
+        }
+        return size
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.cache.internal;
+
+import org.gradle.cache.AsyncCacheAccess;
+import org.gradle.cache.FileAccess;
+import org.gradle.cache.internal.logstructured.LogStructuredPersistentIndexedCache;
+import org.gradle.internal.Factory;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how much reads of keys without a queued update are slowed down by the queue writing other keys, as both access the backing cache one at a time.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Group)
+public class AsyncCacheAccessDecoratedCacheBenchmark {
+    private static final int ENTRY_COUNT = 100000;
+
+    private File tempDir;
+    private ExecutorService compactionExecutor;
+    private ExecutorService writer;
+    private LogStructuredPersistentIndexedCache<String, String> store;
+    private AsyncCacheAccessDecoratedCache<String, String> cache;
+
+    @Setup(Level.Trial)
+    public void createCache() throws IOException {
+        tempDir = Files.createTempDirectory("async-cache-benchmark").toFile();
+        compactionExecutor = Executors.newSingleThreadExecutor();
+        writer = Executors.newSingleThreadExecutor();
+        store = new LogStructuredPersistentIndexedCache<>(new File(tempDir, "cache.log"), new File(tempDir, "cache.index"), BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.STRING_SERIALIZER, compactionExecutor);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            store.put(key(i), value(i));
+        }
+        cache = new AsyncCacheAccessDecoratedCache<>(new ExecutorAsyncCacheAccess(writer), new DefaultMultiProcessSafePersistentIndexedCache<>(() -> store, new UnlockedFileAccess()));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteCache() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(1, TimeUnit.MINUTES);
+        cache.finishWork();
+        compactionExecutor.shutdown();
+        File[] files = tempDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        tempDir.delete();
+    }
+
+    @Benchmark
+    @Group("read")
+    @GroupThreads(4)
+    public String readOnly() {
+        return cache.get(key(ThreadLocalRandom.current().nextInt(ENTRY_COUNT)));
+    }
+
+    @Benchmark
+    @Group("readWhileWriting")
+    @GroupThreads(3)
+    public String readWhileWriting() {
+        return cache.get(key(ThreadLocalRandom.current().nextInt(ENTRY_COUNT)));
+    }
+
+    @Benchmark
+    @Group("readWhileWriting")
+    @GroupThreads(1)
+    public void write() {
+        // Writes keys which are not read, so that all reads go to the backing cache
+        int entry = ENTRY_COUNT + ThreadLocalRandom.current().nextInt(ENTRY_COUNT);
+        cache.putLater(key(entry), value(entry + 1), () -> {
+        });
+    }
+
+    private static String key(int entry) {
+        return "/some/project/build/classes/java/main/org/gradle/Entry" + entry + ".class";
+    }
+
+    private static String value(int entry) {
+        return "hash-" + Integer.toHexString(entry * 31) + "-0123456789abcdef0123456789abcdef";
+    }
+
+    private static class ExecutorAsyncCacheAccess implements AsyncCacheAccess {
+        private final ExecutorService executor;
+
+        ExecutorAsyncCacheAccess(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void enqueue(Runnable task) {
+            executor.execute(task);
+        }
+
+        @Override
+        public <T> T read(Factory<T> task) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void flush() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class UnlockedFileAccess implements FileAccess {
+        @Override
+        public <T> T readFile(Callable<? extends T> action) {
+            try {
+                return action.call();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public <T> T readFile(Factory<? extends T> action) {
+            return action.create();
+        }
+
+        @Override
+        public void updateFile(Runnable action) {
+            action.run();
+        }
+
+        @Override
+        public void writeFile(Runnable action) {
+            action.run();
+        }
+    }
+}
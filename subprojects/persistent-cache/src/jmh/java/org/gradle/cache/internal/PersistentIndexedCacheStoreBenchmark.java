@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.cache.internal;
+
+import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
+import org.gradle.cache.internal.logstructured.LogStructuredPersistentIndexedCache;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of looking up and updating random entries of large persistent indexed caches, using the different kinds of storage.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class PersistentIndexedCacheStoreBenchmark {
+
+    @Param({"1000000", "4000000"})
+    int entryCount;
+
+    @Param({"BTREE", "LOG_STRUCTURED"})
+    String storage;
+
+    private File tempDir;
+    private ExecutorService compactionExecutor;
+    private PersistentIndexedCacheStore<String, String> store;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void createCache() throws IOException {
+        tempDir = Files.createTempDirectory("persistent-cache-benchmark").toFile();
+        compactionExecutor = Executors.newSingleThreadExecutor();
+        store = openStore();
+        for (int i = 0; i < entryCount; i++) {
+            store.put(key(i), value(i));
+        }
+        random = new Random(1234L);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteCache() {
+        store.close();
+        compactionExecutor.shutdown();
+        File[] files = tempDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        tempDir.delete();
+    }
+
+    @Benchmark
+    public String get() {
+        return store.get(key(random.nextInt(entryCount)));
+    }
+
+    @Benchmark
+    public void put() {
+        int entry = random.nextInt(entryCount);
+        store.put(key(entry), value(entry + 1));
+    }
+
+    private PersistentIndexedCacheStore<String, String> openStore() {
+        if (storage.equals("BTREE")) {
+            return new BTreePersistentIndexedCache<>(new File(tempDir, "cache.bin"), BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.STRING_SERIALIZER);
+        }
+        return new LogStructuredPersistentIndexedCache<>(new File(tempDir, "cache.log"), new File(tempDir, "cache.index"), BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.STRING_SERIALIZER, compactionExecutor);
+    }
+
+    private static String key(int entry) {
+        return "/some/project/build/classes/java/main/org/gradle/Entry" + entry + ".class";
+    }
+
+    private static String value(int entry) {
+        // Roughly the size of a serialized file hash
+        return "hash-" + Integer.toHexString(entry * 31) + "-0123456789abcdef0123456789abcdef";
+    }
+}
@@ -21,15 +21,38 @@
 import org.gradle.cache.MultiProcessSafePersistentIndexedCache;
 
 import javax.annotation.Nullable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
 
+/**
+ * Applies updates to a backing cache asynchronously, via {@link AsyncCacheAccess}.
+ *
+ * <p>At most one update per key is queued at any time. An update to a key which already has an update queued replaces the value to write,
+ * so that repeated updates are coalesced into a single write. Reads of keys with a queued update are answered from the queued value,
+ * and reads of other keys from the backing cache, without waiting for the queue in both cases.</p>
+ *
+ * <p>The backing cache is still accessed by one thread at a time. The queue holds the lock for a single write only, so a read waits for at most one write
+ * rather than for all queued updates to be written. See {@code AsyncCacheAccessDecoratedCacheBenchmark} for the cost of this.</p>
+ */
 public class AsyncCacheAccessDecoratedCache<K, V> implements MultiProcessSafeAsyncPersistentIndexedCache<K, V> {
     private final AsyncCacheAccess asyncCacheAccess;
     private final MultiProcessSafePersistentIndexedCache<K, V> persistentCache;
+    private final CacheContentionStatistics.Recorder contention;
+    private final ConcurrentMap<K, PendingUpdate<V>> pendingUpdates = new ConcurrentHashMap<>();
+    // The backing cache is read from the calling threads while the queue writes to it. The cross-process lock of the cache does not order the threads
+    // of this process, and the stores are not safe for concurrent use, not even for reads: the log-structured store encodes keys into a shared buffer
+    // and may finish a compaction and replace its index from get(), and the B-tree store reads blocks through a single positioned input of its file.
+    private final Object backingCacheLock = new Object();
 
     public AsyncCacheAccessDecoratedCache(AsyncCacheAccess asyncCacheAccess, MultiProcessSafePersistentIndexedCache<K, V> persistentCache) {
+        this(asyncCacheAccess, persistentCache, new CacheContentionStatistics.Recorder(persistentCache.toString()));
+    }
+
+    public AsyncCacheAccessDecoratedCache(AsyncCacheAccess asyncCacheAccess, MultiProcessSafePersistentIndexedCache<K, V> persistentCache, CacheContentionStatistics.Recorder contention) {
         this.asyncCacheAccess = asyncCacheAccess;
         this.persistentCache = persistentCache;
+        this.contention = contention;
     }
 
     @Override
@@ -40,7 +63,16 @@ public String toString() {
     @Nullable
     @Override
     public V get(final K key) {
-        return asyncCacheAccess.read(() -> persistentCache.getIfPresent(key));
+        PendingUpdate<V> pendingUpdate = pendingUpdates.get(key);
+        if (pendingUpdate != null) {
+            return pendingUpdate.value;
+        }
+        // Without a queued update, the backing cache has the current value, so there is no need to wait for the queue
+        long start = System.nanoTime();
+        synchronized (backingCacheLock) {
+            contention.readWaited(System.nanoTime() - start);
+            return persistentCache.getIfPresent(key);
+        }
     }
 
     @Override
@@ -50,48 +82,89 @@ public V get(K key, Function<? super K, ? extends V> producer, Runnable completi
 
     @Override
     public void putLater(final K key, final V value, final Runnable completion) {
+        update(key, new PendingUpdate<>(value), completion);
+    }
+
+    @Override
+    public void removeLater(final K key, final Runnable completion) {
+        update(key, new PendingUpdate<>(null), completion);
+    }
+
+    private void update(K key, PendingUpdate<V> update, Runnable completion) {
+        if (pendingUpdates.put(key, update) != null) {
+            // The queued update writes this value instead
+            contention.writeCoalesced();
+            completion.run();
+            return;
+        }
+        long start = System.nanoTime();
         try {
             asyncCacheAccess.enqueue(() -> {
                 try {
-                    persistentCache.put(key, value);
+                    writePendingUpdates(key);
                 } finally {
                     completion.run();
                 }
             });
         } catch (RuntimeException e) {
+            pendingUpdates.remove(key, update);
             completion.run();
             throw e;
+        } finally {
+            contention.writeWaited(System.nanoTime() - start);
         }
     }
 
-    @Override
-    public void removeLater(final K key, final Runnable completion) {
+    private void writePendingUpdates(K key) {
         try {
-            asyncCacheAccess.enqueue(() -> {
-                try {
-                    persistentCache.remove(key);
-                } finally {
-                    completion.run();
+            PendingUpdate<V> update = pendingUpdates.get(key);
+            while (update != null) {
+                synchronized (backingCacheLock) {
+                    if (update.value == null) {
+                        persistentCache.remove(key);
+                    } else {
+                        persistentCache.put(key, update.value);
+                    }
                 }
-            });
+                if (pendingUpdates.remove(key, update)) {
+                    return;
+                }
+                // Replaced while writing
+                update = pendingUpdates.get(key);
+            }
         } catch (RuntimeException e) {
-            completion.run();
+            pendingUpdates.remove(key);
             throw e;
         }
     }
 
     @Override
     public void afterLockAcquire(FileLock.State currentCacheState) {
-        persistentCache.afterLockAcquire(currentCacheState);
+        synchronized (backingCacheLock) {
+            persistentCache.afterLockAcquire(currentCacheState);
+        }
     }
 
     @Override
     public void finishWork() {
-        persistentCache.finishWork();
+        synchronized (backingCacheLock) {
+            persistentCache.finishWork();
+        }
     }
 
     @Override
     public void beforeLockRelease(FileLock.State currentCacheState) {
-        persistentCache.beforeLockRelease(currentCacheState);
+        synchronized (backingCacheLock) {
+            persistentCache.beforeLockRelease(currentCacheState);
+        }
+    }
+
+    private static class PendingUpdate<V> {
+        // null for a removal
+        private final V value;
+
+        PendingUpdate(@Nullable V value) {
+            this.value = value;
+        }
     }
 }
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.cache.internal;
+
+import org.gradle.internal.operations.BuildOperationType;
+
+import java.util.List;
+
+/**
+ * Reports how long threads had to wait to access cross-process indexed caches during a build.
+ */
+public final class CacheContentionBuildOperationType implements BuildOperationType<CacheContentionBuildOperationType.Details, CacheContentionBuildOperationType.Result> {
+    public static final String DISPLAY_NAME = "Report cache contention";
+
+    public interface Details {
+        Details INSTANCE = new Details() {};
+    }
+
+    public interface Result {
+        /**
+         * The statistics of the caches which have been used during the build.
+         */
+        List<CacheContentionStatistics> getCaches();
+    }
+
+    private CacheContentionBuildOperationType() {
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.cache.internal;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * How long threads had to wait to access a cross-process indexed cache.
+ */
+public interface CacheContentionStatistics {
+    String getCacheId();
+
+    /**
+     * Time spent waiting for the file lock of the cache, either held by another process or being acquired by another thread.
+     */
+    long getLockWaitTimeMillis();
+
+    /**
+     * Time spent waiting for reads which had to be queued behind writes.
+     */
+    long getReadWaitTimeMillis();
+
+    /**
+     * Time spent waiting for the write queue to accept writes.
+     */
+    long getWriteWaitTimeMillis();
+
+    /**
+     * Number of writes, including removals.
+     */
+    long getWriteCount();
+
+    /**
+     * Number of writes which replaced a queued write of the same key, and did not need to be queued themselves.
+     */
+    long getCoalescedWriteCount();
+
+    class Collector {
+        private final Map<String, Recorder> recorders = new ConcurrentHashMap<>();
+
+        public Recorder forCache(String cacheId) {
+            return recorders.computeIfAbsent(cacheId, Recorder::new);
+        }
+
+        /**
+         * Returns the statistics of the caches which have been used since the last call.
+         */
+        public List<CacheContentionStatistics> collect() {
+            List<CacheContentionStatistics> statistics = new ArrayList<>();
+            for (Recorder recorder : recorders.values()) {
+                CacheContentionStatistics cacheStatistics = recorder.collect();
+                if (cacheStatistics.getWriteCount() > 0 || cacheStatistics.getLockWaitTimeMillis() > 0 || cacheStatistics.getReadWaitTimeMillis() > 0) {
+                    statistics.add(cacheStatistics);
+                }
+            }
+            return statistics;
+        }
+    }
+
+    class Recorder {
+        private final String cacheId;
+        private final LongAdder lockWaitTime = new LongAdder();
+        private final LongAdder readWaitTime = new LongAdder();
+        private final LongAdder writeWaitTime = new LongAdder();
+        private final LongAdder writeCount = new LongAdder();
+        private final LongAdder coalescedWriteCount = new LongAdder();
+
+        public Recorder(String cacheId) {
+            this.cacheId = cacheId;
+        }
+
+        public void lockWaited(long nanos) {
+            lockWaitTime.add(nanos);
+        }
+
+        public void readWaited(long nanos) {
+            readWaitTime.add(nanos);
+        }
+
+        public void writeWaited(long nanos) {
+            writeWaitTime.add(nanos);
+            writeCount.increment();
+        }
+
+        public void writeCoalesced() {
+            writeCount.increment();
+            coalescedWriteCount.increment();
+        }
+
+        CacheContentionStatistics collect() {
+            final long lockWaitTimeMillis = TimeUnit.NANOSECONDS.toMillis(lockWaitTime.sumThenReset());
+            final long readWaitTimeMillis = TimeUnit.NANOSECONDS.toMillis(readWaitTime.sumThenReset());
+            final long writeWaitTimeMillis = TimeUnit.NANOSECONDS.toMillis(writeWaitTime.sumThenReset());
+            final long writeCount = this.writeCount.sumThenReset();
+            final long coalescedWriteCount = this.coalescedWriteCount.sumThenReset();
+
+            return new CacheContentionStatistics() {
+                @Override
+                public String getCacheId() {
+                    return cacheId;
+                }
+
+                @Override
+                public long getLockWaitTimeMillis() {
+                    return lockWaitTimeMillis;
+                }
+
+                @Override
+                public long getReadWaitTimeMillis() {
+                    return readWaitTimeMillis;
+                }
+
+                @Override
+                public long getWriteWaitTimeMillis() {
+                    return writeWaitTimeMillis;
+                }
+
+                @Override
+                public long getWriteCount() {
+                    return writeCount;
+                }
+
+                @Override
+                public long getCoalescedWriteCount() {
+                    return coalescedWriteCount;
+                }
+
+                @Override
+                public String toString() {
+                    return MessageFormat.format("{0}: waited {1,number,integer} ms for lock, {2,number,integer} ms for reads, {3,number,integer} ms for writes. Coalesced {4,number,integer} of {5,number,integer} writes",
+                        cacheId, lockWaitTimeMillis, readWaitTimeMillis, writeWaitTimeMillis, coalescedWriteCount, writeCount);
+                }
+            };
+        }
+    }
+}
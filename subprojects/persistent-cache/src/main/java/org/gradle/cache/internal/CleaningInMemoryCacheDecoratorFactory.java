@@ -25,8 +25,8 @@
 public class CleaningInMemoryCacheDecoratorFactory extends DefaultInMemoryCacheDecoratorFactory {
     private final List<WeakReference<InMemoryCacheController>> inMemoryCaches = Lists.newArrayList();
 
-    public CleaningInMemoryCacheDecoratorFactory(boolean longLivingProcess, CrossBuildInMemoryCacheFactory cacheFactory) {
-        super(longLivingProcess, cacheFactory);
+    public CleaningInMemoryCacheDecoratorFactory(boolean longLivingProcess, CrossBuildInMemoryCacheFactory cacheFactory, CacheContentionStatistics.Collector contentionStatistics) {
+        super(longLivingProcess, cacheFactory, contentionStatistics);
     }
 
     public void clearCaches(Predicate<InMemoryCacheController> predicate) {
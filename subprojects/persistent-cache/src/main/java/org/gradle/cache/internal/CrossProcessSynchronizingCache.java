@@ -29,10 +29,16 @@
 public class CrossProcessSynchronizingCache<K, V> implements MultiProcessSafePersistentIndexedCache<K, V> {
     private final CrossProcessCacheAccess cacheAccess;
     private final MultiProcessSafeAsyncPersistentIndexedCache<K, V> target;
+    private final CacheContentionStatistics.Recorder contention;
 
     public CrossProcessSynchronizingCache(MultiProcessSafeAsyncPersistentIndexedCache<K, V> target, CrossProcessCacheAccess cacheAccess) {
+        this(target, cacheAccess, new CacheContentionStatistics.Recorder(target.toString()));
+    }
+
+    public CrossProcessSynchronizingCache(MultiProcessSafeAsyncPersistentIndexedCache<K, V> target, CrossProcessCacheAccess cacheAccess, CacheContentionStatistics.Recorder contention) {
         this.target = target;
         this.cacheAccess = cacheAccess;
+        this.contention = contention;
     }
 
     @Override
@@ -43,27 +49,38 @@ public String toString() {
     @Nullable
     @Override
     public V getIfPresent(final K key) {
-        return cacheAccess.withFileLock(() -> target.get(key));
+        long start = System.nanoTime();
+        return cacheAccess.withFileLock(() -> {
+            contention.lockWaited(System.nanoTime() - start);
+            return target.get(key);
+        });
     }
 
     @Override
     public V get(final K key, final Function<? super K, ? extends V> producer) {
-        Runnable runnable = cacheAccess.acquireFileLock();
+        Runnable runnable = acquireFileLock();
         return target.get(key, producer, runnable);
     }
 
     @Override
     public void put(K key, V value) {
-        Runnable runnable = cacheAccess.acquireFileLock();
+        Runnable runnable = acquireFileLock();
         target.putLater(key, value, runnable);
     }
 
     @Override
     public void remove(K key) {
-        Runnable runnable = cacheAccess.acquireFileLock();
+        Runnable runnable = acquireFileLock();
         target.removeLater(key, runnable);
     }
 
+    private Runnable acquireFileLock() {
+        long start = System.nanoTime();
+        Runnable runnable = cacheAccess.acquireFileLock();
+        contention.lockWaited(System.nanoTime() - start);
+        return runnable;
+    }
+
     @Override
     public void afterLockAcquire(FileLock.State currentCacheState) {
         target.afterLockAcquire(currentCacheState);
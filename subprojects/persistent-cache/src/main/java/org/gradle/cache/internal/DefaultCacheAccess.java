@@ -32,6 +32,7 @@
 import org.gradle.cache.PersistentIndexedCacheParameters;
 import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
 import org.gradle.cache.internal.cacheops.CacheAccessOperationsStack;
+import org.gradle.cache.internal.logstructured.LogStructuredPersistentIndexedCache;
 import org.gradle.internal.Cast;
 import org.gradle.internal.Factories;
 import org.gradle.internal.Factory;
@@ -52,9 +53,12 @@
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static org.gradle.cache.FileLockManager.LockMode.Exclusive;
 
@@ -75,9 +79,12 @@ public class DefaultCacheAccess implements CacheCoordinator {
     private final CacheAccessOperationsStack operations;
 
     private ManagedExecutor cacheUpdateExecutor;
+    private ManagedExecutor compactionExecutor;
     private CacheAccessWorker cacheAccessWorker;
     private final Lock stateLock = new ReentrantLock(); // protects the following state
     private final Condition condition = stateLock.newCondition();
+    // Keeps reads from threads other than the owner apart from the writes of the owner, which change the state of the file lock
+    private final ReadWriteLock fileLockAccessLock = new ReentrantReadWriteLock();
 
     private boolean open;
     private Thread owner;
@@ -127,6 +134,13 @@ private synchronized AsyncCacheAccess getCacheAccessWorker() {
         return cacheAccessWorker;
     }
 
+    private synchronized Executor getCompactionExecutor() {
+        if (compactionExecutor == null) {
+            compactionExecutor = executorFactory.create("Cache compaction for " + cacheDisplayName);
+        }
+        return compactionExecutor;
+    }
+
     @Override
     public void open() {
         stateLock.lock();
@@ -167,6 +181,10 @@ public synchronized void close() {
                 fileLockHeldByOwner.run();
             }
             crossProcessCacheAccess.close();
+            if (compactionExecutor != null) {
+                compactionExecutor.stop();
+                compactionExecutor = null;
+            }
             if (cleanupAction != null) {
                 try {
                     if (cleanupAction.requiresCleanup()) {
@@ -282,7 +300,7 @@ public <K, V> MultiProcessSafePersistentIndexedCache<K, V> newCache(final Persis
             if (entry == null) {
                 File cacheFile = findCacheFile(parameters);
                 LOG.debug("Creating new cache for {}, path {}, access {}", parameters.getCacheName(), cacheFile, this);
-                Factory<BTreePersistentIndexedCache<K, V>> indexedCacheFactory = () -> doCreateCache(cacheFile, parameters.getKeySerializer(), parameters.getValueSerializer());
+                Factory<PersistentIndexedCacheStore<K, V>> indexedCacheFactory = createStoreFactory(parameters, cacheFile);
 
                 MultiProcessSafePersistentIndexedCache<K, V> indexedCache = new DefaultMultiProcessSafePersistentIndexedCache<K, V>(indexedCacheFactory, fileAccess);
                 CacheDecorator decorator = parameters.getCacheDecorator();
@@ -306,8 +324,21 @@ public <K, V> MultiProcessSafePersistentIndexedCache<K, V> newCache(final Persis
         }
     }
 
+    private <K, V> Factory<PersistentIndexedCacheStore<K, V>> createStoreFactory(PersistentIndexedCacheParameters<K, V> parameters, File cacheFile) {
+        switch (parameters.getStorage()) {
+            case BTREE:
+                return () -> doCreateCache(cacheFile, parameters.getKeySerializer(), parameters.getValueSerializer());
+            case LOG_STRUCTURED:
+                File indexFile = new File(baseDir, parameters.getCacheName() + ".index");
+                return () -> new LogStructuredPersistentIndexedCache<>(cacheFile, indexFile, parameters.getKeySerializer(), parameters.getValueSerializer(), getCompactionExecutor());
+            default:
+                throw new IllegalArgumentException();
+        }
+    }
+
     private <K, V> File findCacheFile(PersistentIndexedCacheParameters<K, V> parameters) {
-        return new File(baseDir, parameters.getCacheName() + ".bin");
+        String extension = parameters.getStorage() == PersistentIndexedCacheParameters.Storage.LOG_STRUCTURED ? ".log" : ".bin";
+        return new File(baseDir, parameters.getCacheName() + extension);
     }
 
     @Override
@@ -400,6 +431,31 @@ private FileLock getFileLock() {
         return fileLock;
     }
 
+    /**
+     * Returns the file lock for a read from a thread that does not own the cache. The file lock must be held by this process,
+     * and the caller must keep it from being released while it reads, for example from within {@link #withFileLock(Runnable)}.
+     */
+    private FileLock getFileLockForConcurrentRead() {
+        stateLock.lock();
+        try {
+            if (fileLock == null) {
+                throw new IllegalStateException(String.format("The %s has not been locked for this thread. File lock: %s, owner: %s", cacheDisplayName, false, owner));
+            }
+            return fileLock;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    private boolean isOwnedByCurrentThread() {
+        stateLock.lock();
+        try {
+            return Thread.currentThread() == owner;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
     private static class TransparentFileAccess implements FileAccess {
         private static final FileAccess INSTANCE = new TransparentFileAccess();
 
@@ -436,17 +492,38 @@ public String toString() {
 
         @Override
         public <T> T readFile(Factory<? extends T> action) throws LockTimeoutException {
-            return getFileLock().readFile(action);
+            if (isOwnedByCurrentThread()) {
+                return getFileLock().readFile(action);
+            }
+            // Another thread owns the cache, but the file lock is held by this process, so the file can be read once the owner is not writing to it
+            fileLockAccessLock.readLock().lock();
+            try {
+                return getFileLockForConcurrentRead().readFile(action);
+            } finally {
+                fileLockAccessLock.readLock().unlock();
+            }
         }
 
         @Override
         public void updateFile(Runnable action) throws LockTimeoutException {
-            getFileLock().updateFile(action);
+            FileLock lock = getFileLock();
+            fileLockAccessLock.writeLock().lock();
+            try {
+                lock.updateFile(action);
+            } finally {
+                fileLockAccessLock.writeLock().unlock();
+            }
         }
 
         @Override
         public void writeFile(Runnable action) throws LockTimeoutException {
-            getFileLock().writeFile(action);
+            FileLock lock = getFileLock();
+            fileLockAccessLock.writeLock().lock();
+            try {
+                lock.writeFile(action);
+            } finally {
+                fileLockAccessLock.writeLock().unlock();
+            }
         }
     }
 
@@ -482,6 +559,7 @@ void assertCompatibleCacheParameters(PersistentIndexedCacheParameters<K, V> para
             checkCompatibleKeySerializer(faultMessages, parameters.getKeySerializer());
             checkCompatibleValueSerializer(faultMessages, parameters.getValueSerializer());
             checkCompatibleCacheDecorator(faultMessages, parameters.getCacheDecorator());
+            checkCompatibleStorage(faultMessages, parameters.getStorage());
 
             if (!faultMessages.isEmpty()) {
                 String lineSeparator = SystemProperties.getInstance().getLineSeparator();
@@ -524,6 +602,14 @@ private void checkCompatibleCacheDecorator(Collection<String> faultMessages, Cac
                         cacheDecorator, parameters.getCacheDecorator()));
             }
         }
+
+        private void checkCompatibleStorage(Collection<String> faultMessages, PersistentIndexedCacheParameters.Storage storage) {
+            if (storage != parameters.getStorage()) {
+                faultMessages.add(
+                    String.format(" * Requested cache storage (%s) doesn't match current cache storage (%s)",
+                        storage, parameters.getStorage()));
+            }
+        }
     }
 
     @VisibleForTesting
@@ -32,16 +32,22 @@
  * A {@link CacheDecorator} that wraps each cache with an in-memory cache that is used to short-circuit reads from the backing cache.
  * The in-memory cache is invalidated when the backing cache is changed by another process.
  *
- * Also decorates each cache so that updates to the backing cache are made asynchronously.
+ * Also decorates each cache so that updates to the backing cache are made asynchronously, and records how long threads wait to access each cache.
  */
 public class DefaultInMemoryCacheDecoratorFactory implements InMemoryCacheDecoratorFactory {
     private final static Logger LOG = LoggerFactory.getLogger(DefaultInMemoryCacheDecoratorFactory.class);
     private final boolean longLivingProcess;
     private final HeapProportionalCacheSizer cacheSizer = new HeapProportionalCacheSizer();
     private final CrossBuildInMemoryCache<String, CacheDetails> caches;
+    private final CacheContentionStatistics.Collector contentionStatistics;
 
     public DefaultInMemoryCacheDecoratorFactory(boolean longLivingProcess, CrossBuildInMemoryCacheFactory cacheFactory) {
+        this(longLivingProcess, cacheFactory, new CacheContentionStatistics.Collector());
+    }
+
+    public DefaultInMemoryCacheDecoratorFactory(boolean longLivingProcess, CrossBuildInMemoryCacheFactory cacheFactory, CacheContentionStatistics.Collector contentionStatistics) {
         this.longLivingProcess = longLivingProcess;
+        this.contentionStatistics = contentionStatistics;
         caches = cacheFactory.newCache();
     }
 
@@ -76,7 +82,12 @@ private CacheDetails getCache(final String cacheId, final int maxSize) {
 
     private Cache<Object, Object> createInMemoryCache(String cacheId, int maxSize) {
         LoggingEvictionListener evictionListener = new LoggingEvictionListener(cacheId, maxSize);
-        final CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().removalListener(evictionListener);
+        // Use as many segments as there can be worker threads, so that concurrent updates of different entries do not block each other
+        final CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder()
+            .concurrencyLevel(Math.max(4, Runtime.getRuntime().availableProcessors()))
+            .maximumSize(maxSize)
+            .recordStats()
+            .removalListener(evictionListener);
         Cache<Object, Object> inMemoryCache = cacheBuilder.build();
         evictionListener.setCache(inMemoryCache);
         return inMemoryCache;
@@ -110,9 +121,10 @@ public int hashCode() {
 
         @Override
         public <K, V> MultiProcessSafePersistentIndexedCache<K, V> decorate(String cacheId, String cacheName, MultiProcessSafePersistentIndexedCache<K, V> persistentCache, CrossProcessCacheAccess crossProcessCacheAccess, AsyncCacheAccess asyncCacheAccess) {
-            MultiProcessSafeAsyncPersistentIndexedCache<K, V> asyncCache = new AsyncCacheAccessDecoratedCache<>(asyncCacheAccess, persistentCache);
+            CacheContentionStatistics.Recorder contention = contentionStatistics.forCache(cacheId);
+            MultiProcessSafeAsyncPersistentIndexedCache<K, V> asyncCache = new AsyncCacheAccessDecoratedCache<>(asyncCacheAccess, persistentCache, contention);
             MultiProcessSafeAsyncPersistentIndexedCache<K, V> memCache = applyInMemoryCaching(cacheId, asyncCache, maxEntriesToKeepInMemory, cacheInMemoryForShortLivedProcesses);
-            return new CrossProcessSynchronizingCache<>(memCache, crossProcessCacheAccess);
+            return new CrossProcessSynchronizingCache<>(memCache, crossProcessCacheAccess, contention);
         }
     }
 
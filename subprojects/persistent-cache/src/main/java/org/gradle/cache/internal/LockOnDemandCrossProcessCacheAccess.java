@@ -27,10 +27,18 @@
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 
+/**
+ * Acquires the file lock when the cache is first used, and keeps it until another process requests it while the cache is not in use.
+ *
+ * While the file lock is held, the number of operations using it is tracked without holding the state lock, so that threads using the cache concurrently do not block each other.
+ * Acquiring and releasing the file lock happens while holding the state lock.
+ */
 class LockOnDemandCrossProcessCacheAccess extends AbstractCrossProcessCacheAccess {
     private static final Logger LOGGER = LoggerFactory.getLogger(LockOnDemandCrossProcessCacheAccess.class);
+    private static final int NOT_HELD = -1;
     private final String cacheDisplayName;
     private final File lockTarget;
     private final LockOptions lockOptions;
@@ -40,10 +48,11 @@ class LockOnDemandCrossProcessCacheAccess extends AbstractCrossProcessCacheAcces
     private final Action<FileLock> onClose;
     private final Runnable unlocker;
     private final Action<FileLockReleasedSignal> whenContended;
-    private int lockCount;
+    // The number of operations using the file lock, or NOT_HELD when the file lock is not held. Only changes from and to NOT_HELD while holding the state lock.
+    private final AtomicInteger lockCount = new AtomicInteger(NOT_HELD);
     private FileLock fileLock;
     private CacheInitializationAction initAction;
-    private FileLockReleasedSignal lockReleaseSignal;
+    private volatile FileLockReleasedSignal lockReleaseSignal;
 
     /**
      * Actions are notified when lock is opened or closed. Actions are called while holding state lock, so that no other threads are working with cache while these are running.
@@ -74,10 +83,14 @@ public void open() {
     public void close() {
         stateLock.lock();
         try {
-            if (lockCount != 0) {
-                throw new IllegalStateException(String.format("Cannot close cache access for %s as it is currently in use for %s operations.", cacheDisplayName, lockCount));
+            // Check and mark the lock as not held in a single transition, so that no operation can start using the lock in between
+            int count = lockCount.getAndUpdate(current -> current == 0 ? NOT_HELD : current);
+            if (count > 0) {
+                throw new IllegalStateException(String.format("Cannot close cache access for %s as it is currently in use for %s operations.", cacheDisplayName, count));
+            }
+            if (count == 0) {
+                releaseLockIfHeld();
             }
-            releaseLockIfHeld();
         } finally {
             stateLock.unlock();
         }
@@ -94,10 +107,17 @@ public <T> T withFileLock(Factory<T> factory) {
     }
 
     private void incrementLockCount() {
+        int count = lockCount.get();
+        while (count != NOT_HELD) {
+            if (lockCount.compareAndSet(count, count + 1)) {
+                return;
+            }
+            count = lockCount.get();
+        }
         stateLock.lock();
         try {
             if (fileLock == null) {
-                if (lockCount != 0) {
+                if (lockCount.get() != NOT_HELD) {
                     throw new IllegalStateException("Mismatched lock count.");
                 }
                 if (LOGGER.isDebugEnabled()) {
@@ -119,25 +139,35 @@ public void run() {
                     fileLock = null;
                     throw UncheckedException.throwAsUncheckedException(e);
                 }
+                lockCount.set(1);
+            } else {
+                lockCount.incrementAndGet();
             }
-            lockCount++;
         } finally {
             stateLock.unlock();
         }
     }
 
     private void decrementLockCount() {
-        stateLock.lock();
-        try {
-            if (lockCount <= 0 || fileLock == null) {
+        while (true) {
+            int count = lockCount.get();
+            if (count <= 0) {
                 throw new IllegalStateException("Mismatched lock count.");
             }
-            lockCount--;
-            if (lockCount == 0 && lockReleaseSignal != null) {
-                releaseLockIfHeld();
-            } // otherwise, keep lock open
-        } finally {
-            stateLock.unlock();
+            if (lockCount.compareAndSet(count, count - 1)) {
+                // Check for contention after decrementing, as the contended action checks the count after recording the contention
+                if (count == 1 && lockReleaseSignal != null) {
+                    stateLock.lock();
+                    try {
+                        if (lockCount.compareAndSet(0, NOT_HELD)) {
+                            releaseLockIfHeld();
+                        }
+                    } finally {
+                        stateLock.unlock();
+                    }
+                } // otherwise, keep lock open
+                return;
+            }
         }
     }
 
@@ -152,8 +182,9 @@ private void releaseLockIfHeld() {
             onClose.execute(fileLock);
         } finally {
             try {
-                fileLock.close();
+                FileLock lock = fileLock;
                 fileLock = null;
+                lock.close();
             } finally {
                 if (lockReleaseSignal != null) {
                     lockReleaseSignal.trigger();
@@ -174,14 +205,17 @@ private class ContendedAction implements Action<FileLockReleasedSignal> {
         public void execute(FileLockReleasedSignal signal) {
             stateLock.lock();
             try {
-                if (lockCount == 0) {
+                if (fileLock == null) {
+                    signal.trigger();
+                    return;
+                }
+                lockReleaseSignal = signal;
+                if (lockCount.compareAndSet(0, NOT_HELD)) {
                     LOGGER.debug("Lock on {} requested by another process - releasing lock.", cacheDisplayName);
                     releaseLockIfHeld();
-                    signal.trigger();
                 } else {
                     // Lock is in use - mark as contended
                     LOGGER.debug("Lock on {} requested by another process - lock is in use and will be released when operation completed.", cacheDisplayName);
-                    lockReleaseSignal = signal;
                 }
             } finally {
                 stateLock.unlock();
@@ -0,0 +1,749 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.cache.internal.logstructured;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.cache.internal.PersistentIndexedCacheStore;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.os.OperatingSystem;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A persistent indexed cache which appends its entries to a log file, and finds them through a hash index kept in a memory-mapped file.
+ *
+ * <p>Each record of the log holds the serialized key and value of an entry, or only the key for a removed entry.
+ * The index is a hash table using linear probing, where each slot holds a 64 bit hash of the serialized key and the offset of the latest record for the key.
+ * The key is compared with the key of the record, so hash collisions are handled.</p>
+ *
+ * <p>Replaced and removed entries are left in the log. Once they take up more than half of a large log, the live records are copied into a new log
+ * in the background while the cache continues to be used. The records appended in the meantime are added to the new log when the copy has finished.</p>
+ *
+ * <p>The log header holds a random generation, which changes whenever the log is compacted. The index records the generation and the length of the log it covers,
+ * so that it can be brought up to date when the log has been written without the index, for example after a crash.</p>
+ *
+ * This class is not thread-safe, and must only be used while holding the lock of the cache.
+ */
+public class LogStructuredPersistentIndexedCache<K, V> implements PersistentIndexedCacheStore<K, V> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogStructuredPersistentIndexedCache.class);
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int LOG_MAGIC = 0x474c4f47;
+    private static final int INDEX_MAGIC = 0x47494458;
+
+    // magic, version, generation
+    private static final int LOG_HEADER_SIZE = 16;
+    // key length, value length
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int REMOVED = -1;
+
+    // magic, version, generation, indexed log length, dead bytes, capacity, size, used slots
+    private static final int INDEX_HEADER_SIZE = 48;
+    private static final int GENERATION_OFFSET = 8;
+    private static final int INDEXED_LENGTH_OFFSET = 16;
+    private static final int DEAD_BYTES_OFFSET = 24;
+    private static final int CAPACITY_OFFSET = 32;
+    private static final int SIZE_OFFSET = 36;
+    private static final int USED_SLOTS_OFFSET = 40;
+    // hash, offset of the record in the log
+    private static final int SLOT_SIZE = 16;
+    private static final long EMPTY_SLOT = 0;
+    private static final long DELETED_SLOT = -1;
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    // The index is a single buffer and slots are addressed with int offsets, so the whole index has to fit into 2 GiB
+    private static final int MAX_CAPACITY = Integer.highestOneBit((Integer.MAX_VALUE - INDEX_HEADER_SIZE) / SLOT_SIZE);
+
+    private static final long MIN_COMPACTION_LENGTH = 4 * 1024 * 1024;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    // Mapped files cannot be replaced or deleted while mapped on Windows, so the index is read into memory there and written back on close
+    private static final boolean MAP_INDEX = !OperatingSystem.current().isWindows();
+
+    private final File logFile;
+    private final File indexFile;
+    private final File compactedLogFile;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final Executor compactionExecutor;
+    private final int maxCapacity;
+    private final ByteArrayOutputStream keyBytes = new ByteArrayOutputStream();
+    private final KryoBackedEncoder keyEncoder = new KryoBackedEncoder(keyBytes);
+    private final ByteArrayOutputStream valueBytes = new ByteArrayOutputStream();
+    private final KryoBackedEncoder valueEncoder = new KryoBackedEncoder(valueBytes);
+    private final ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+
+    private FileChannel log;
+    private long generation;
+    private long logLength;
+    private long deadBytes;
+    private FileChannel indexChannel;
+    private ByteBuffer index;
+    private int capacity;
+    private int size;
+    private int usedSlots;
+    private Compaction compaction;
+
+    public LogStructuredPersistentIndexedCache(File logFile, File indexFile, Serializer<K> keySerializer, Serializer<V> valueSerializer, Executor compactionExecutor) {
+        this(logFile, indexFile, keySerializer, valueSerializer, compactionExecutor, MAX_CAPACITY);
+    }
+
+    @VisibleForTesting
+    LogStructuredPersistentIndexedCache(File logFile, File indexFile, Serializer<K> keySerializer, Serializer<V> valueSerializer, Executor compactionExecutor, int maxCapacity) {
+        this.logFile = logFile;
+        this.indexFile = indexFile;
+        this.compactedLogFile = new File(logFile.getParentFile(), logFile.getName() + ".compacting");
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.compactionExecutor = compactionExecutor;
+        this.maxCapacity = maxCapacity;
+        try {
+            open();
+        } catch (Exception e) {
+            close();
+            throw new UncheckedIOException(String.format("Could not open %s.", this), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "cache " + logFile.getName() + " (" + logFile + ")";
+    }
+
+    private void open() throws IOException {
+        LOGGER.debug("Opening {}", this);
+        log = FileChannel.open(logFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (!readLogHeader()) {
+            startNewLog();
+        }
+        indexChannel = FileChannel.open(indexFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (!readIndex()) {
+            LOGGER.debug("Rebuilding index of {}", this);
+            createIndex(INITIAL_CAPACITY);
+            replayLog(LOG_HEADER_SIZE);
+        }
+        Files.deleteIfExists(compactedLogFile.toPath());
+        maybeStartCompaction();
+    }
+
+    private boolean readLogHeader() throws IOException {
+        logLength = log.size();
+        if (logLength < LOG_HEADER_SIZE) {
+            return false;
+        }
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+        readFully(log, header, 0);
+        if (header.getInt(0) != LOG_MAGIC || header.getInt(4) != FORMAT_VERSION) {
+            LOGGER.debug("{} has an unexpected format. Discarding.", this);
+            return false;
+        }
+        generation = header.getLong(GENERATION_OFFSET);
+        return true;
+    }
+
+    private void startNewLog() throws IOException {
+        generation = newGeneration();
+        log.truncate(0);
+        writeFully(log, logHeader(generation), 0);
+        logLength = LOG_HEADER_SIZE;
+    }
+
+    private boolean readIndex() throws IOException {
+        long indexLength = indexChannel.size();
+        if (indexLength < INDEX_HEADER_SIZE) {
+            return false;
+        }
+        loadIndex(indexLength);
+        if (index.getInt(0) != INDEX_MAGIC || index.getInt(4) != FORMAT_VERSION || index.getLong(GENERATION_OFFSET) != generation) {
+            return false;
+        }
+        long indexedLength = index.getLong(INDEXED_LENGTH_OFFSET);
+        int indexCapacity = index.getInt(CAPACITY_OFFSET);
+        if (indexedLength < LOG_HEADER_SIZE || indexedLength > logLength
+            || Integer.bitCount(indexCapacity) != 1 || indexCapacity > maxCapacity || indexLength != INDEX_HEADER_SIZE + (long) indexCapacity * SLOT_SIZE) {
+            return false;
+        }
+        capacity = indexCapacity;
+        size = index.getInt(SIZE_OFFSET);
+        usedSlots = index.getInt(USED_SLOTS_OFFSET);
+        deadBytes = index.getLong(DEAD_BYTES_OFFSET);
+        if (indexedLength < logLength) {
+            // The log has been written after the index was last updated
+            replayLog(indexedLength);
+        }
+        return true;
+    }
+
+    private void loadIndex(long length) throws IOException {
+        if (MAP_INDEX) {
+            index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+        } else {
+            ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(length));
+            int existing = (int) Math.min(length, indexChannel.size());
+            ((Buffer) buffer).limit(existing);
+            readFully(indexChannel, buffer, 0);
+            ((Buffer) buffer).clear();
+            index = buffer;
+        }
+    }
+
+    private void resizeIndex(long length) throws IOException {
+        if (MAP_INDEX) {
+            index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+        } else {
+            ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(length));
+            ((Buffer) index).clear();
+            ((Buffer) index).limit((int) Math.min(length, index.capacity()));
+            buffer.put(index);
+            ((Buffer) buffer).clear();
+            index = buffer;
+        }
+    }
+
+    private void createIndex(int newCapacity) throws IOException {
+        index = null;
+        indexChannel.truncate(0);
+        loadIndex(INDEX_HEADER_SIZE + (long) newCapacity * SLOT_SIZE);
+        index.putInt(0, INDEX_MAGIC);
+        index.putInt(4, FORMAT_VERSION);
+        capacity = newCapacity;
+        size = 0;
+        usedSlots = 0;
+        deadBytes = 0;
+        writeIndexHeader();
+    }
+
+    private void writeIndexHeader() {
+        index.putLong(GENERATION_OFFSET, generation);
+        index.putLong(INDEXED_LENGTH_OFFSET, logLength);
+        index.putLong(DEAD_BYTES_OFFSET, deadBytes);
+        index.putInt(CAPACITY_OFFSET, capacity);
+        index.putInt(SIZE_OFFSET, size);
+        index.putInt(USED_SLOTS_OFFSET, usedSlots);
+    }
+
+    /**
+     * Adds the records of the log starting at the given offset to the index. Discards an incomplete record at the end of the log.
+     */
+    private void replayLog(long offset) throws IOException {
+        long end = logLength;
+        long position = offset;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile), COPY_BUFFER_SIZE))) {
+            skipFully(input, position);
+            while (position < end) {
+                if (end - position < RECORD_HEADER_SIZE) {
+                    break;
+                }
+                int keyLength = input.readInt();
+                int valueLength = input.readInt();
+                long recordSize = recordSize(keyLength, valueLength);
+                if (keyLength < 0 || valueLength < REMOVED || position + recordSize > end) {
+                    break;
+                }
+                byte[] key = new byte[keyLength];
+                input.readFully(key);
+                skipFully(input, Math.max(valueLength, 0));
+                logLength = position;
+                index(key, position, recordSize, valueLength == REMOVED);
+                position += recordSize;
+            }
+        }
+        if (position < end) {
+            LOGGER.debug("Discarding incomplete record at the end of {}", this);
+            log.truncate(position);
+        }
+        logLength = position;
+        writeIndexHeader();
+    }
+
+    @Override
+    public V get(K key) {
+        try {
+            maybeFinishCompaction();
+            byte[] serializedKey = serialize(keyBytes, keyEncoder, keySerializer, key);
+            int slot = findSlot(hash(serializedKey), serializedKey);
+            if (slot < 0) {
+                return null;
+            }
+            long offset = slotOffset(slot);
+            int valueLength = readRecordHeader(offset).getInt(4);
+            ByteBuffer value = ByteBuffer.allocate(valueLength);
+            readFully(log, value, offset + RECORD_HEADER_SIZE + serializedKey.length);
+            return valueSerializer.read(new KryoBackedDecoder(new ByteArrayInputStream(value.array())));
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not read entry '%s' from %s.", key, this), e);
+        }
+    }
+
+    @Override
+    public void put(K key, V value) {
+        try {
+            maybeFinishCompaction();
+            byte[] serializedKey = serialize(keyBytes, keyEncoder, keySerializer, key);
+            byte[] serializedValue = serialize(valueBytes, valueEncoder, valueSerializer, value);
+            long offset = append(serializedKey, serializedValue);
+            index(serializedKey, offset, recordSize(serializedKey.length, serializedValue.length), false);
+            writeIndexHeader();
+            maybeStartCompaction();
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not add entry '%s' to %s.", key, this), e);
+        }
+    }
+
+    @Override
+    public void remove(K key) {
+        try {
+            maybeFinishCompaction();
+            byte[] serializedKey = serialize(keyBytes, keyEncoder, keySerializer, key);
+            if (findSlot(hash(serializedKey), serializedKey) < 0) {
+                return;
+            }
+            long offset = append(serializedKey, null);
+            index(serializedKey, offset, recordSize(serializedKey.length, REMOVED), true);
+            writeIndexHeader();
+            maybeStartCompaction();
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not remove entry '%s' from %s.", key, this), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        LOGGER.debug("Closing {}", this);
+        try {
+            if (compaction != null) {
+                if (compaction.isFinished()) {
+                    finishCompaction();
+                } else {
+                    compaction.cancel();
+                    compaction = null;
+                }
+            }
+            if (index != null && !MAP_INDEX) {
+                writeFully(indexChannel, (ByteBuffer) ((Buffer) index).clear(), 0);
+            }
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            index = null;
+            closeQuietly(indexChannel);
+            indexChannel = null;
+            closeQuietly(log);
+            log = null;
+        }
+    }
+
+    private long append(byte[] key, byte[] value) throws IOException {
+        int valueLength = value == null ? REMOVED : value.length;
+        ByteBuffer record = ByteBuffer.allocate((int) recordSize(key.length, valueLength));
+        record.putInt(key.length);
+        record.putInt(valueLength);
+        record.put(key);
+        if (value != null) {
+            record.put(value);
+        }
+        ((Buffer) record).flip();
+        long offset = logLength;
+        writeFully(log, record, offset);
+        logLength += record.capacity();
+        return offset;
+    }
+
+    /**
+     * Points the index entry for the given key to the record at the given offset of the log, keeping track of the records which are not live anymore.
+     */
+    private void index(byte[] key, long offset, long recordSize, boolean removed) throws IOException {
+        long hash = hash(key);
+        int slot = findSlot(hash, key);
+        if (slot >= 0) {
+            long previous = slotOffset(slot);
+            if (previous == offset) {
+                // Already indexed when replaying the log
+                return;
+            }
+            ByteBuffer previousHeader = readRecordHeader(previous);
+            deadBytes += recordSize(previousHeader.getInt(0), previousHeader.getInt(4));
+            if (removed) {
+                setSlot(slot, hash, DELETED_SLOT);
+                size--;
+                deadBytes += recordSize;
+            } else {
+                setSlot(slot, hash, offset);
+            }
+        } else if (removed) {
+            deadBytes += recordSize;
+        } else {
+            int free = -slot - 1;
+            if (slotOffset(free) == EMPTY_SLOT) {
+                usedSlots++;
+            }
+            setSlot(free, hash, offset);
+            size++;
+            if (usedSlots > capacity / 4 * 3) {
+                rehash(size > capacity / 2 ? capacity * 2 : capacity);
+            }
+        }
+    }
+
+    /**
+     * Returns the slot holding the given key, or {@code -(slot + 1)} for the slot where the key should be added.
+     */
+    private int findSlot(long hash, byte[] key) throws IOException {
+        int mask = capacity - 1;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        int firstDeleted = -1;
+        while (true) {
+            long offset = slotOffset(slot);
+            if (offset == EMPTY_SLOT) {
+                return -(firstDeleted >= 0 ? firstDeleted : slot) - 1;
+            }
+            if (offset == DELETED_SLOT) {
+                if (firstDeleted < 0) {
+                    firstDeleted = slot;
+                }
+            } else if (slotHash(slot) == hash && keyMatches(offset, key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private boolean keyMatches(long offset, byte[] key) throws IOException {
+        if (readRecordHeader(offset).getInt(0) != key.length) {
+            return false;
+        }
+        ByteBuffer storedKey = ByteBuffer.allocate(key.length);
+        readFully(log, storedKey, offset + RECORD_HEADER_SIZE);
+        return Arrays.equals(storedKey.array(), key);
+    }
+
+    /**
+     * Rebuilds the hash table with the given capacity, dropping deleted slots.
+     */
+    private void rehash(int newCapacity) throws IOException {
+        if (newCapacity > maxCapacity) {
+            throw new IllegalStateException(String.format("Cannot add more entries to %s. It holds %d entries, and its index is limited to %d slots, which are kept in a single memory mapped buffer.", this, size, maxCapacity));
+        }
+        long[] hashes = new long[size];
+        long[] offsets = new long[size];
+        collectLiveSlots(hashes, offsets);
+        if (newCapacity != capacity) {
+            resizeIndex(INDEX_HEADER_SIZE + (long) newCapacity * SLOT_SIZE);
+            capacity = newCapacity;
+        }
+        fillSlots(hashes, offsets);
+    }
+
+    private void collectLiveSlots(long[] hashes, long[] offsets) {
+        int count = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            long offset = slotOffset(slot);
+            if (offset != EMPTY_SLOT && offset != DELETED_SLOT) {
+                hashes[count] = slotHash(slot);
+                offsets[count] = offset;
+                count++;
+            }
+        }
+    }
+
+    private void fillSlots(long[] hashes, long[] offsets) {
+        for (int slot = 0; slot < capacity; slot++) {
+            setSlot(slot, 0, EMPTY_SLOT);
+        }
+        int mask = capacity - 1;
+        for (int i = 0; i < hashes.length; i++) {
+            long hash = hashes[i];
+            int slot = (int) (hash ^ (hash >>> 32)) & mask;
+            while (slotOffset(slot) != EMPTY_SLOT) {
+                slot = (slot + 1) & mask;
+            }
+            setSlot(slot, hash, offsets[i]);
+        }
+        usedSlots = hashes.length;
+        writeIndexHeader();
+    }
+
+    private long slotHash(int slot) {
+        return index.getLong(INDEX_HEADER_SIZE + slot * SLOT_SIZE);
+    }
+
+    private long slotOffset(int slot) {
+        return index.getLong(INDEX_HEADER_SIZE + slot * SLOT_SIZE + 8);
+    }
+
+    private void setSlot(int slot, long hash, long offset) {
+        index.putLong(INDEX_HEADER_SIZE + slot * SLOT_SIZE, hash);
+        index.putLong(INDEX_HEADER_SIZE + slot * SLOT_SIZE + 8, offset);
+    }
+
+    private ByteBuffer readRecordHeader(long offset) throws IOException {
+        ((Buffer) recordHeader).clear();
+        readFully(log, recordHeader, offset);
+        return recordHeader;
+    }
+
+    private void maybeStartCompaction() {
+        if (compaction == null && logLength >= MIN_COMPACTION_LENGTH && deadBytes > logLength / 2) {
+            long[] hashes = new long[size];
+            long[] offsets = new long[size];
+            collectLiveSlots(hashes, offsets);
+            Arrays.sort(offsets);
+            LOGGER.debug("Compacting {} in the background", this);
+            compaction = new Compaction(offsets, logLength, deadBytes);
+            compactionExecutor.execute(compaction);
+        }
+    }
+
+    private void maybeFinishCompaction() throws IOException {
+        if (compaction != null && compaction.isFinished()) {
+            finishCompaction();
+        }
+    }
+
+    /**
+     * Replaces the log with the compacted log, adding the records appended since the compaction started and updating the index to point into the compacted log.
+     */
+    private void finishCompaction() throws IOException {
+        Compaction finished = compaction;
+        compaction = null;
+        if (finished.failure != null) {
+            LOGGER.debug("Could not compact {}", this, finished.failure);
+            Files.deleteIfExists(compactedLogFile.toPath());
+            return;
+        }
+        long tailLength = logLength - finished.sourceLength;
+        try (FileChannel target = FileChannel.open(compactedLogFile.toPath(), StandardOpenOption.WRITE)) {
+            long transferred = 0;
+            while (transferred < tailLength) {
+                transferred += log.transferTo(finished.sourceLength + transferred, tailLength - transferred, target.position(finished.compactedLength + transferred));
+            }
+        }
+
+        long[] hashes = new long[size];
+        long[] offsets = new long[size];
+        collectLiveSlots(hashes, offsets);
+        long shift = finished.compactedLength - finished.sourceLength;
+        for (int i = 0; i < offsets.length; i++) {
+            if (offsets[i] >= finished.sourceLength) {
+                offsets[i] += shift;
+            } else {
+                // Records which were live when the compaction started have been copied, the others have been replaced by appended records
+                int copied = Arrays.binarySearch(finished.sourceOffsets, offsets[i]);
+                if (copied < 0) {
+                    throw new IllegalStateException(String.format("Record at offset %d of %s was not compacted.", offsets[i], this));
+                }
+                offsets[i] = finished.compactedOffsets[copied];
+            }
+        }
+
+        log.close();
+        Files.move(compactedLogFile.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log = FileChannel.open(logFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        generation = finished.generation;
+        logLength = finished.compactedLength + tailLength;
+        // Records which became dead during the compaction have been copied as well
+        deadBytes -= finished.deadBytesAtStart;
+        fillSlots(hashes, offsets);
+        LOGGER.debug("Compacted {}", this);
+    }
+
+    private static long recordSize(int keyLength, int valueLength) {
+        return RECORD_HEADER_SIZE + (long) keyLength + Math.max(valueLength, 0);
+    }
+
+    private static <T> byte[] serialize(ByteArrayOutputStream bytes, KryoBackedEncoder encoder, Serializer<T> serializer, T value) throws Exception {
+        bytes.reset();
+        serializer.write(encoder, value);
+        encoder.flush();
+        return bytes.toByteArray();
+    }
+
+    private static long hash(byte[] key) {
+        return ByteBuffer.wrap(Hashing.murmur3().hashBytes(key).toByteArray()).getLong();
+    }
+
+    private static long newGeneration() {
+        return ThreadLocalRandom.current().nextLong();
+    }
+
+    private static ByteBuffer logHeader(long generation) {
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+        header.putInt(LOG_MAGIC);
+        header.putInt(FORMAT_VERSION);
+        header.putLong(generation);
+        ((Buffer) header).flip();
+        return header;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long current = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, current);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            current += read;
+        }
+        ((Buffer) buffer).flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long current = position;
+        while (buffer.hasRemaining()) {
+            current += channel.write(buffer, current);
+        }
+    }
+
+    private static void skipFully(InputStream input, long count) throws IOException {
+        long remaining = count;
+        while (remaining > 0) {
+            long skipped = input.skip(remaining);
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+            remaining -= skipped;
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.debug("Could not close file channel", e);
+            }
+        }
+    }
+
+    /**
+     * Copies the records which are live at the start of the compaction into a new log.
+     */
+    private class Compaction implements Runnable {
+        private final long[] sourceOffsets;
+        private final long[] compactedOffsets;
+        private final long sourceLength;
+        private final long deadBytesAtStart;
+        private final long generation = newGeneration();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile boolean cancelled;
+        private long compactedLength;
+        private Throwable failure;
+
+        Compaction(long[] sourceOffsets, long sourceLength, long deadBytesAtStart) {
+            this.sourceOffsets = sourceOffsets;
+            this.compactedOffsets = new long[sourceOffsets.length];
+            this.sourceLength = sourceLength;
+            this.deadBytesAtStart = deadBytesAtStart;
+        }
+
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                copyLiveRecords();
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                finished.countDown();
+            }
+        }
+
+        private void copyLiveRecords() throws IOException {
+            // Read the log sequentially, as most of the records are live
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile), COPY_BUFFER_SIZE));
+                 DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(compactedLogFile), COPY_BUFFER_SIZE))) {
+                output.write(logHeader(generation).array());
+                long compactedPosition = LOG_HEADER_SIZE;
+                long position = LOG_HEADER_SIZE;
+                skipFully(input, position);
+                byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                for (int i = 0; i < sourceOffsets.length; i++) {
+                    if (cancelled) {
+                        return;
+                    }
+                    skipFully(input, sourceOffsets[i] - position);
+                    position = sourceOffsets[i];
+                    int keyLength = input.readInt();
+                    int valueLength = input.readInt();
+                    output.writeInt(keyLength);
+                    output.writeInt(valueLength);
+                    long remaining = recordSize(keyLength, valueLength) - RECORD_HEADER_SIZE;
+                    while (remaining > 0) {
+                        int count = (int) Math.min(remaining, buffer.length);
+                        input.readFully(buffer, 0, count);
+                        output.write(buffer, 0, count);
+                        remaining -= count;
+                    }
+                    compactedOffsets[i] = compactedPosition;
+                    long recordSize = recordSize(keyLength, valueLength);
+                    compactedPosition += recordSize;
+                    position += recordSize;
+                }
+                compactedLength = compactedPosition;
+            }
+        }
+
+        boolean isFinished() {
+            return finished.getCount() == 0 && !cancelled;
+        }
+
+        void cancel() throws IOException {
+            cancelled = true;
+            if (started.compareAndSet(false, true)) {
+                // Not started yet, and will not run anymore
+                return;
+            }
+            try {
+                finished.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Files.deleteIfExists(compactedLogFile.toPath());
+        }
+    }
+}
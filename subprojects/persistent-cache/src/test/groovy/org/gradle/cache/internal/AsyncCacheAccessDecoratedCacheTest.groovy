@@ -0,0 +1,163 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.cache.internal
+
+import org.gradle.cache.AsyncCacheAccess
+import org.gradle.cache.MultiProcessSafePersistentIndexedCache
+import spock.lang.Specification
+
+class AsyncCacheAccessDecoratedCacheTest extends Specification {
+    def asyncCacheAccess = Mock(AsyncCacheAccess)
+    def persistentCache = Mock(MultiProcessSafePersistentIndexedCache)
+    def contention = new CacheContentionStatistics.Recorder("cache")
+    def cache = new AsyncCacheAccessDecoratedCache<String, String>(asyncCacheAccess, persistentCache, contention)
+
+    def "queues update and runs completion after writing"() {
+        def completion = Mock(Runnable)
+        Runnable queued = null
+
+        when:
+        cache.putLater("key", "value", completion)
+
+        then:
+        1 * asyncCacheAccess.enqueue(_) >> { Runnable task -> queued = task }
+        0 * _
+
+        when:
+        queued.run()
+
+        then:
+        1 * persistentCache.put("key", "value")
+
+        then:
+        1 * completion.run()
+        0 * _
+    }
+
+    def "coalesces updates of a key while an update is queued"() {
+        def completion1 = Mock(Runnable)
+        def completion2 = Mock(Runnable)
+        def completion3 = Mock(Runnable)
+        Runnable queued = null
+
+        when:
+        cache.putLater("key", "value 1", completion1)
+        cache.putLater("key", "value 2", completion2)
+        cache.removeLater("key", completion3)
+        cache.putLater("key", "value 4", completion3)
+
+        then:
+        1 * asyncCacheAccess.enqueue(_) >> { Runnable task -> queued = task }
+        1 * completion2.run()
+        2 * completion3.run()
+        0 * _
+
+        when:
+        queued.run()
+
+        then:
+        1 * persistentCache.put("key", "value 4")
+
+        then:
+        1 * completion1.run()
+        0 * _
+
+        and:
+        with(contention.collect()) {
+            writeCount == 4
+            coalescedWriteCount == 3
+        }
+    }
+
+    def "queues another update once the queued update has been written"() {
+        Runnable queued = null
+
+        when:
+        cache.putLater("key", "value 1", {})
+        cache.putLater("other", "value 1", {})
+
+        then:
+        2 * asyncCacheAccess.enqueue(_) >> { Runnable task -> queued = task }
+
+        when:
+        queued.run()
+        cache.putLater("other", "value 2", {})
+
+        then:
+        1 * persistentCache.put("other", "value 1")
+        1 * asyncCacheAccess.enqueue(_)
+    }
+
+    def "reads queued value without waiting for the queue"() {
+        when:
+        cache.putLater("key", "value", {})
+        cache.removeLater("removed", {})
+
+        then:
+        cache.get("key") == "value"
+        cache.get("removed") == null
+        0 * asyncCacheAccess.read(_)
+    }
+
+    def "reads from backing cache without waiting for the queue when no update is queued"() {
+        when:
+        def result = cache.get("key")
+
+        then:
+        result == "value"
+        1 * persistentCache.getIfPresent("key") >> "value"
+        0 * _
+    }
+
+    def "reads other keys from backing cache while an update is queued"() {
+        when:
+        cache.putLater("key", "value", {})
+        def result = cache.get("other")
+
+        then:
+        result == "other value"
+        1 * asyncCacheAccess.enqueue(_)
+        1 * persistentCache.getIfPresent("other") >> "other value"
+        0 * asyncCacheAccess.read(_)
+    }
+
+    def "discards queued update when the write fails"() {
+        def failure = new RuntimeException()
+        Runnable queued = null
+
+        when:
+        cache.putLater("key", "value", {})
+
+        then:
+        1 * asyncCacheAccess.enqueue(_) >> { Runnable task -> queued = task }
+
+        when:
+        queued.run()
+
+        then:
+        def e = thrown(RuntimeException)
+        e == failure
+        1 * persistentCache.put("key", "value") >> { throw failure }
+
+        when:
+        cache.putLater("key", "value 2", {})
+
+        then:
+        1 * asyncCacheAccess.enqueue(_)
+    }
+}
@@ -536,6 +536,40 @@ class DefaultCacheAccessTest extends ConcurrentSpec {
         mode << [Exclusive, OnDemand]
     }
 
+    def "file can be read without an owner while the file lock is held"() {
+        Factory<String> action = Mock()
+        def access = newAccess(OnDemand)
+
+        given:
+        lockManager.lock(lockFile, mode(Exclusive), "<display-name>", "", _) >> lock
+        access.open()
+
+        when:
+        def result = access.withFileLock { access.fileAccess.readFile(action) }
+
+        then:
+        result == "result"
+        1 * lock.readFile(action) >> "result"
+
+        and:
+        !access.owner
+    }
+
+    def "file can not be read without an owner when the file lock is not held"() {
+        Factory<String> action = Mock()
+        def access = newAccess(OnDemand)
+
+        given:
+        access.open()
+
+        when:
+        access.fileAccess.readFile(action)
+
+        then:
+        thrown(IllegalStateException)
+        0 * action._
+    }
+
     def "can close cache when the cache has not been used"() {
         def access = newAccess(OnDemand)
 
@@ -719,6 +753,20 @@ class DefaultCacheAccessTest extends ConcurrentSpec {
         access?.close()
     }
 
+    def "throws InvalidCacheReuseException when cache storage differs"() {
+        def access = newAccess(OnDemand)
+
+        when:
+        access.newCache(PersistentIndexedCacheParameters.of('cache', String.class, Integer.class))
+        access.newCache(PersistentIndexedCacheParameters.of('cache', String.class, Integer.class).withStorage(PersistentIndexedCacheParameters.Storage.LOG_STRUCTURED))
+
+        then:
+        thrown(DefaultCacheAccess.InvalidCacheReuseException)
+
+        cleanup:
+        access?.close()
+    }
+
     def "returns the same cache object when cache decorator match"() {
         def access = newAccess(OnDemand)
         def decorator = Mock(CacheDecorator)
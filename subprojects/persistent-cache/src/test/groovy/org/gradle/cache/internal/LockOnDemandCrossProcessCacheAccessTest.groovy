@@ -26,6 +26,8 @@ import org.gradle.internal.Factory
 import org.gradle.test.fixtures.concurrent.ConcurrentSpec
 import org.gradle.test.fixtures.file.TestFile
 
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
 import java.util.concurrent.locks.ReentrantLock
 
 class LockOnDemandCrossProcessCacheAccessTest extends ConcurrentSpec {
@@ -799,4 +801,40 @@ class LockOnDemandCrossProcessCacheAccessTest extends ConcurrentSpec {
         1 * lock.close()
         0 * _
     }
+
+    def "actions run concurrently with close always run while the lock is held"() {
+        def held = new AtomicBoolean()
+        def onOpen = { held.set(true) } as Action<FileLock>
+        def onClose = { held.set(false) } as Action<FileLock>
+        def cacheAccess = new LockOnDemandCrossProcessCacheAccess("<cache>", file, LockOptionsBuilder.mode(FileLockManager.LockMode.Exclusive), lockManager, new ReentrantLock(), Stub(CacheInitializationAction), onOpen, onClose)
+        def failures = new AtomicInteger()
+
+        given:
+        lockManager.lock(file, _, _, _, _) >> Stub(FileLock)
+
+        when:
+        async {
+            start {
+                1000.times {
+                    cacheAccess.withFileLock {
+                        if (!held.get()) {
+                            failures.incrementAndGet()
+                        }
+                    }
+                }
+            }
+            start {
+                1000.times {
+                    try {
+                        cacheAccess.close()
+                    } catch (IllegalStateException ignored) {
+                        // In use by the other thread
+                    }
+                }
+            }
+        }
+
+        then:
+        failures.get() == 0
+    }
 }
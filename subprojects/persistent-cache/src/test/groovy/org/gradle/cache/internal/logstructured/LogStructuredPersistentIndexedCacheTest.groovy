@@ -0,0 +1,217 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.cache.internal.logstructured
+
+import org.gradle.internal.serialize.BaseSerializerFactory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.Executor
+
+class LogStructuredPersistentIndexedCacheTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+    def logFile = tmpDir.file("cache.log")
+    def indexFile = tmpDir.file("cache.index")
+    List<Runnable> compactions = []
+    Executor executor = { Runnable action -> compactions << action } as Executor
+
+    def "returns null for unknown entries"() {
+        def cache = createCache()
+
+        expect:
+        cache.get("unknown") == null
+
+        cleanup:
+        cache.close()
+    }
+
+    def "persists added, updated and removed entries"() {
+        def cache = createCache()
+
+        when:
+        (0..<5000).each { cache.put("key-$it".toString(), "value-$it".toString()) }
+        (0..<5000).step(3) { cache.put("key-$it".toString(), "updated-$it".toString()) }
+        (0..<5000).step(5) { cache.remove("key-$it".toString()) }
+
+        then:
+        checkEntries(cache, 5000)
+
+        when:
+        cache.close()
+        cache = createCache()
+
+        then:
+        checkEntries(cache, 5000)
+
+        cleanup:
+        cache.close()
+    }
+
+    def "can add an entry again after it has been removed"() {
+        def cache = createCache()
+
+        when:
+        cache.put("key", "value")
+        cache.remove("key")
+        cache.remove("key")
+        cache.put("key", "other")
+
+        then:
+        cache.get("key") == "other"
+
+        cleanup:
+        cache.close()
+    }
+
+    def "rebuilds the index from the log when the index is missing or stale"() {
+        def cache = createCache()
+        (0..<100).each { cache.put("key-$it".toString(), "value-$it".toString()) }
+        cache.close()
+        def staleIndex = indexFile.bytes
+        cache = createCache()
+        (100..<200).each { cache.put("key-$it".toString(), "value-$it".toString()) }
+        cache.remove("key-1")
+        cache.close()
+
+        when:
+        indexFile.bytes = staleIndex
+        cache = createCache()
+
+        then:
+        cache.get("key-0") == "value-0"
+        cache.get("key-1") == null
+        cache.get("key-150") == "value-150"
+
+        when:
+        cache.close()
+        indexFile.delete()
+        cache = createCache()
+
+        then:
+        cache.get("key-0") == "value-0"
+        cache.get("key-1") == null
+        cache.get("key-150") == "value-150"
+
+        cleanup:
+        cache.close()
+    }
+
+    def "fails with a clear message when the index cannot grow anymore"() {
+        def cache = new LogStructuredPersistentIndexedCache<String, String>(logFile, indexFile, BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.STRING_SERIALIZER, executor, 1024)
+
+        when:
+        (0..<1024).each { cache.put("key-$it".toString(), "value-$it".toString()) }
+
+        then:
+        def e = thrown(IllegalStateException)
+        e.message.contains("its index is limited to 1024 slots")
+        cache.get("key-0") == "value-0"
+
+        cleanup:
+        cache.close()
+    }
+
+    def "discards incomplete record at the end of the log"() {
+        def cache = createCache()
+        cache.put("key", "value")
+        cache.close()
+        logFile << ([0, 0, 0, 12, 0, 0] as byte[])
+
+        when:
+        cache = createCache()
+        cache.put("other", "value")
+        cache.close()
+        cache = createCache()
+
+        then:
+        cache.get("key") == "value"
+        cache.get("other") == "value"
+
+        cleanup:
+        cache.close()
+    }
+
+    def "compacts the log in the background once most records are replaced"() {
+        def cache = createCache()
+        def value = "x" * 1000
+
+        when:
+        5.times { round ->
+            (0..<1000).each { cache.put("key-$it".toString(), "$value-$round-$it".toString()) }
+        }
+
+        then:
+        compactions.size() == 1
+
+        when:
+        def lengthBeforeCompaction = logFile.length()
+        compactions.remove(0).run()
+        (0..<100).each { cache.put("key-$it".toString(), "$value-final-$it".toString()) }
+
+        then:
+        logFile.length() < lengthBeforeCompaction
+        !tmpDir.file("cache.log.compacting").exists()
+        (0..<1000).every { cache.get("key-$it".toString()) == (it < 100 ? "$value-final-$it" : "$value-4-$it").toString() }
+
+        when:
+        cache.close()
+        cache = createCache()
+
+        then:
+        (0..<1000).every { cache.get("key-$it".toString()) == (it < 100 ? "$value-final-$it" : "$value-4-$it").toString() }
+
+        cleanup:
+        cache.close()
+    }
+
+    def "discards unfinished compaction on close"() {
+        def cache = createCache()
+        def value = "x" * 1000
+        5.times { round ->
+            (0..<1000).each { cache.put("key-$it".toString(), "$value-$round-$it".toString()) }
+        }
+
+        when:
+        cache.close()
+
+        then:
+        !tmpDir.file("cache.log.compacting").exists()
+
+        when:
+        cache = createCache()
+
+        then:
+        (0..<1000).every { cache.get("key-$it".toString()) == "$value-4-$it".toString() }
+
+        cleanup:
+        cache.close()
+    }
+
+    private LogStructuredPersistentIndexedCache<String, String> createCache() {
+        return new LogStructuredPersistentIndexedCache<String, String>(logFile, indexFile, BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.STRING_SERIALIZER, executor)
+    }
+
+    private static boolean checkEntries(LogStructuredPersistentIndexedCache<String, String> cache, int count) {
+        (0..<count).every {
+            def expected = it % 5 == 0 ? null : it % 3 == 0 ? "updated-$it".toString() : "value-$it".toString()
+            cache.get("key-$it".toString()) == expected
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.resource.transport.http;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the requests sent by an HTTP client, and how many of them were sent over a connection that had already been used before.
+ */
+class ConnectionReuseCountingRequestExecutor extends HttpRequestExecutor {
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong reusedConnectionCount = new AtomicLong();
+
+    @Override
+    public HttpResponse execute(HttpRequest request, HttpClientConnection conn, HttpContext context) throws IOException, HttpException {
+        requestCount.incrementAndGet();
+        // The metrics only count requests once they have been sent
+        if (conn.getMetrics().getRequestCount() > 0) {
+            reusedConnectionCount.incrementAndGet();
+        }
+        return super.execute(request, conn, context);
+    }
+
+    long getRequestCount() {
+        return requestCount.get();
+    }
+
+    long getReusedConnectionCount() {
+        return reusedConnectionCount.get();
+    }
+}
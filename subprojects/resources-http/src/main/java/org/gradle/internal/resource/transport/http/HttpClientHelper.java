@@ -23,6 +23,7 @@
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.utils.DateUtils;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
@@ -42,6 +43,7 @@
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
@@ -66,6 +68,8 @@ public class HttpClientHelper implements Closeable {
      */
     private final ConcurrentLinkedQueue<HttpContext> sharedContext;
 
+    private final ConnectionReuseCountingRequestExecutor requestExecutor = new ConnectionReuseCountingRequestExecutor();
+
     /**
      * Use {@link HttpClientHelper.Factory#create(HttpSettings)} to instantiate instances.
      */
@@ -96,6 +100,21 @@ public HttpClientResponse performGet(String source, boolean revalidate) {
         return processResponse(performRawGet(source, revalidate));
     }
 
+    /**
+     * Performs a GET which only returns the content when it differs from a cached copy with the given entity tag or modification date.
+     * When the content is unchanged, the response is a {@code 304 Not Modified} without content.
+     */
+    public HttpClientResponse performConditionalGet(String source, boolean revalidate, @Nullable String etag, @Nullable Date lastModified) {
+        HttpGet request = new HttpGet(source);
+        if (etag != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        if (lastModified != null) {
+            request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, DateUtils.formatDate(lastModified));
+        }
+        return processResponse(performRequest(request, revalidate));
+    }
+
     public HttpClientResponse performRequest(HttpRequestBase request, boolean revalidate) {
         String method = request.getMethod();
         if (revalidate) {
@@ -222,11 +241,26 @@ private synchronized CloseableHttpClient getClient() {
         if (client == null) {
             HttpClientBuilder builder = HttpClientBuilder.create();
             new HttpClientConfigurer(settings).configure(builder);
+            builder.setRequestExecutor(requestExecutor);
             this.client = builder.build();
         }
         return client;
     }
 
+    /**
+     * The number of requests sent by this helper, including the requests sent for redirects and authentication.
+     */
+    public long getRequestCount() {
+        return requestExecutor.getRequestCount();
+    }
+
+    /**
+     * The number of requests sent by this helper over a connection that had already been used for a previous request.
+     */
+    public long getReusedConnectionCount() {
+        return requestExecutor.getReusedConnectionCount();
+    }
+
     @Override
     public synchronized void close() throws IOException {
         if (client != null) {
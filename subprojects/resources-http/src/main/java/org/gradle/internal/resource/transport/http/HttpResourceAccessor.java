@@ -48,6 +48,20 @@ public HttpResponseResource openResource(final URI uri, boolean revalidate) {
         return null;
     }
 
+    @Override
+    @Nullable
+    public HttpResponseResource openResourceIfChanged(URI uri, boolean revalidate, ExternalResourceMetaData cached) {
+        String location = uri.toString();
+        LOGGER.debug("Constructing external resource if changed: {}", location);
+
+        HttpClientResponse response = http.performConditionalGet(location, revalidate, cached.getEtag(), cached.getLastModified());
+        if (response != null) {
+            return wrapResponse(uri, response);
+        }
+
+        return null;
+    }
+
     /**
      * Same as #getResource except that it always gives access to the response body,
      * irrespective of the returned HTTP status code. Never returns {@code null}.
@@ -60,6 +60,11 @@ public ExternalResourceMetaData getMetaData() {
         return metaData;
     }
 
+    @Override
+    public boolean isUnchanged() {
+        return response.wasNotModified();
+    }
+
     public int getStatusCode() {
         return response.getStatusLine().getStatusCode();
     }
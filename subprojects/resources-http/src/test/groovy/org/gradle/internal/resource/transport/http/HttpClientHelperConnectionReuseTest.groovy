@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.resource.transport.http
+
+import org.apache.http.ssl.SSLContexts
+import org.gradle.api.internal.DocumentationRegistry
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.test.fixtures.server.http.HttpServer
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Subject
+
+class HttpClientHelperConnectionReuseTest extends Specification {
+
+    @Rule TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+    @Rule HttpServer httpServer = new HttpServer()
+    @Subject HttpClientHelper client = new HttpClientHelper(new DocumentationRegistry(), httpSettings)
+
+    def "counts requests sent over reused connections"() {
+        given:
+        def file = temporaryFolder.createFile("file.txt")
+        file.text = "content"
+        httpServer.expectGet("/first", file)
+        httpServer.expectGet("/second", file)
+        httpServer.start()
+
+        expect:
+        client.requestCount == 0
+        client.reusedConnectionCount == 0
+
+        when:
+        readFully("first")
+        readFully("second")
+
+        then:
+        client.requestCount == 2
+        client.reusedConnectionCount == 1
+
+        cleanup:
+        client.close()
+    }
+
+    private void readFully(String path) {
+        def response = client.performGet("${httpServer.uri}/${path}", false)
+        try {
+            assert response.content.text == "content"
+        } finally {
+            response.close()
+        }
+    }
+
+    private HttpSettings getHttpSettings() {
+        Stub(HttpSettings) {
+            getProxySettings() >> Mock(HttpProxySettings)
+            getSecureProxySettings() >> Mock(HttpProxySettings)
+            getTimeoutSettings() >> { new JavaSystemPropertiesHttpTimeoutSettings() }
+            getSslContextFactory() >> Mock(SslContextFactory) {
+                createSslContext() >> SSLContexts.createDefault()
+            }
+        }
+    }
+}
@@ -16,9 +16,12 @@
 
 package org.gradle.internal.resource.transport.http
 
+import org.apache.http.HttpVersion
+import org.apache.http.client.methods.CloseableHttpResponse
 import org.apache.http.client.methods.HttpGet
 import org.apache.http.client.methods.HttpRequestBase
 import org.apache.http.impl.client.CloseableHttpClient
+import org.apache.http.message.BasicStatusLine
 import org.apache.http.ssl.SSLContexts
 import org.gradle.api.internal.DocumentationRegistry
 import org.gradle.util.SetSystemProperties
@@ -75,6 +78,28 @@ class HttpClientHelperTest extends AbstractHttpClientTest {
         request.getHeaders("Cache-Control")[0].value == "max-age=0"
     }
 
+    def "conditional get adds If-None-Match and If-Modified-Since headers"() {
+        def requests = []
+        def response = Mock(CloseableHttpResponse) {
+            getStatusLine() >> new BasicStatusLine(HttpVersion.HTTP_1_1, 304, "Not Modified")
+        }
+        def client = new HttpClientHelper(new DocumentationRegistry(), httpSettings) {
+            @Override
+            protected HttpClientResponse executeGetOrHead(HttpRequestBase method) {
+                requests << method
+                return new HttpClientResponse("GET", method.URI, response)
+            }
+        }
+
+        when:
+        def result = client.performConditionalGet("http://gradle.org", false, '"abc"', new Date(0))
+
+        then:
+        result.wasNotModified()
+        requests[0].getFirstHeader("If-None-Match").value == '"abc"'
+        requests[0].getFirstHeader("If-Modified-Since").value == "Thu, 01 Jan 1970 00:00:00 GMT"
+    }
+
     def "stripping user credentials removes username and password"() {
         given:
         def uri = new URI("https", "admin:password", "foo.example", 80, null, null, null)
@@ -16,6 +16,10 @@
 package org.gradle.internal.resource;
 
 import org.gradle.api.Transformer;
+import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
+import org.gradle.internal.resource.metadata.ExternalResourceMetaDataCompare;
+
+import javax.annotation.Nullable;
 
 import java.io.File;
 import java.io.InputStream;
@@ -52,4 +56,17 @@ public <T> ExternalResourceReadResult<T> withContent(ContentAction<? extends T>
         }
         return result;
     }
+
+    @Nullable
+    @Override
+    public <T> ExternalResourceReadResult<T> withContentIfChanged(ExternalResourceMetaData cached, ContentAction<? extends T> readAction) {
+        ExternalResourceMetaData metaData = getMetaData();
+        if (metaData == null) {
+            return null;
+        }
+        if (ExternalResourceMetaDataCompare.isDefinitelyUnchanged(cached, () -> metaData)) {
+            return ExternalResourceReadResult.of(0, null);
+        }
+        return withContentIfPresent(readAction);
+    }
 }
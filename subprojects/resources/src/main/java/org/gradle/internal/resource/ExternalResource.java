@@ -110,6 +110,16 @@ public interface ExternalResource extends Resource {
     @Nullable
     <T> ExternalResourceReadResult<T> withContentIfPresent(ContentAction<? extends T> readAction) throws ResourceException;
 
+    /**
+     * Executes the given action against the binary contents and meta-data of this resource, unless the resource is unchanged since
+     * a copy with the given meta-data was cached. When the resource is unchanged, the action is not executed and no bytes are read.
+     *
+     * @throws ResourceException on failure to read the content.
+     * @return null if the resource does not exist.
+     */
+    @Nullable
+    <T> ExternalResourceReadResult<T> withContentIfChanged(ExternalResourceMetaData cached, ContentAction<? extends T> readAction) throws ResourceException;
+
     /**
      * Copies the given content to this resource.
      *
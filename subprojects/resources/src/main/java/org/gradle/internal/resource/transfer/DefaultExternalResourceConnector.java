@@ -56,6 +56,13 @@ public ExternalResourceReadResponse openResource(URI location, boolean revalidat
         return accessor.openResource(location, revalidate);
     }
 
+    @Nullable
+    @Override
+    public ExternalResourceReadResponse openResourceIfChanged(URI location, boolean revalidate, ExternalResourceMetaData cached) {
+        STATS.resource(location);
+        return accessor.openResourceIfChanged(location, revalidate, cached);
+    }
+
     @Nullable
     @Override
     public ExternalResourceMetaData getMetaData(URI location, boolean revalidate) {
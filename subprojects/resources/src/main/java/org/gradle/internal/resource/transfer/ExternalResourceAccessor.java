@@ -18,8 +18,11 @@
 
 import org.gradle.api.resources.ResourceException;
 import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
+import org.gradle.internal.resource.metadata.ExternalResourceMetaDataCompare;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 
 public interface ExternalResourceAccessor {
@@ -56,4 +59,46 @@ public interface ExternalResourceAccessor {
     @Nullable
     ExternalResourceMetaData getMetaData(URI location, boolean revalidate) throws ResourceException;
 
+    /**
+     * Reads the resource at the given location, unless it is unchanged since a copy with the given metadata was cached.
+     *
+     * The default implementation compares the cached metadata with the metadata of the resource before reading it.
+     * Implementations which support conditional requests should override this method to make a single request instead.
+     *
+     * @param location The address of the resource to obtain
+     * @param revalidate The resource should be revalidated as part of the request
+     * @param cached The metadata of the cached copy of the resource
+     * @return The resource if it exists, otherwise null. When the resource is unchanged, the response is {@link ExternalResourceReadResponse#isUnchanged() unchanged}. Caller is responsible for closing the result.
+     * @throws ResourceException If the resource may exist, but not could be obtained for some reason.
+     */
+    @Nullable
+    default ExternalResourceReadResponse openResourceIfChanged(URI location, boolean revalidate, ExternalResourceMetaData cached) throws ResourceException {
+        ExternalResourceMetaData remoteMetaData = getMetaData(location, revalidate);
+        if (remoteMetaData == null) {
+            return null;
+        }
+        if (ExternalResourceMetaDataCompare.isDefinitelyUnchanged(cached, () -> remoteMetaData)) {
+            return new ExternalResourceReadResponse() {
+                @Override
+                public InputStream openStream() throws IOException {
+                    throw new IOException("Unchanged resource " + location + " has no content.");
+                }
+
+                @Override
+                public ExternalResourceMetaData getMetaData() {
+                    return remoteMetaData;
+                }
+
+                @Override
+                public boolean isUnchanged() {
+                    return true;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+        return openResource(location, revalidate);
+    }
 }
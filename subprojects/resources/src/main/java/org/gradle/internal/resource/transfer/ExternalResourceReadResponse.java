@@ -29,4 +29,14 @@ public interface ExternalResourceReadResponse extends Closeable {
     InputStream openStream() throws IOException;
 
     ExternalResourceMetaData getMetaData();
+
+    /**
+     * Returns true when this is the response to a conditional read and the resource has not changed since it was cached.
+     * Such a response has no content.
+     *
+     * @see ExternalResourceAccessor#openResourceIfChanged(java.net.URI, boolean, ExternalResourceMetaData)
+     */
+    default boolean isUnchanged() {
+        return false;
+    }
 }
@@ -17,6 +17,7 @@
 package org.gradle.internal.snapshot.impl;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Interner;
 import com.google.common.collect.Lists;
@@ -29,6 +30,7 @@
 import org.gradle.internal.snapshot.MerkleDirectorySnapshotBuilder;
 import org.gradle.internal.snapshot.MissingFileSnapshot;
 import org.gradle.internal.snapshot.RegularFileSnapshot;
+import org.gradle.internal.snapshot.RelativePathSegmentsTracker;
 import org.gradle.internal.snapshot.SnapshottingFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,13 +47,19 @@
 import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Deque;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 public class DirectorySnapshotter {
     private static final Logger LOGGER = LoggerFactory.getLogger(DirectorySnapshotter.class);
@@ -61,20 +69,33 @@ public class DirectorySnapshotter {
     private final Interner<String> stringInterner;
     private final DefaultExcludes defaultExcludes;
     private final DirectorySnapshotterStatistics.Collector collector;
+    private final Executor hashingExecutor;
 
     public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner, Collection<String> defaultExcludes, DirectorySnapshotterStatistics.Collector collector) {
+        this(hasher, stringInterner, defaultExcludes, collector, null);
+    }
+
+    /**
+     * Creates a snapshotter that hashes regular files using the given executor, so that the directory walk does not need to wait for the hashing.
+     * Files are hashed during the walk when no executor is given.
+     */
+    public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner, Collection<String> defaultExcludes, DirectorySnapshotterStatistics.Collector collector, @Nullable Executor hashingExecutor) {
         this.hasher = hasher;
         this.stringInterner = stringInterner;
         this.defaultExcludes = new DefaultExcludes(defaultExcludes);
         this.collector = collector;
+        this.hashingExecutor = hashingExecutor;
     }
 
     public CompleteFileSystemLocationSnapshot snapshot(String absolutePath, @Nullable SnapshottingFilter.DirectoryWalkerPredicate predicate, final AtomicBoolean hasBeenFiltered) {
+        long startTime = System.nanoTime();
         try {
             Path rootPath = Paths.get(absolutePath);
-            PathVisitor visitor = new PathVisitor(predicate, hasBeenFiltered, hasher, stringInterner, defaultExcludes, collector);
+            PathVisitor visitor = new PathVisitor(predicate, hasBeenFiltered, hasher, stringInterner, defaultExcludes, collector, hashingExecutor);
             Files.walkFileTree(rootPath, DONT_FOLLOW_SYMLINKS, Integer.MAX_VALUE, visitor);
-            return visitor.getResult();
+            CompleteFileSystemLocationSnapshot result = visitor.getResult();
+            collector.recordVisitHierarchyCompleted(visitor.getHashedBytes(), System.nanoTime() - startTime);
+            return result;
         } catch (IOException e) {
             throw new UncheckedIOException(String.format("Could not list contents of directory '%s'.", absolutePath), e);
         }
@@ -173,8 +194,14 @@ public boolean test(String element) {
         }
     }
 
+    /**
+     * Walks a directory tree, recording what is visited so that the snapshot can be built once all files have been hashed.
+     *
+     * The recorded visits are replayed in walk order to build the snapshot, so the result does not depend on the order in which the files are hashed.
+     */
     private static class PathVisitor extends DirectorySnapshotterStatistics.CollectingFileVisitor {
-        private final MerkleDirectorySnapshotBuilder builder;
+        private final RelativePathSegmentsTracker relativePathSegmentsTracker = new RelativePathSegmentsTracker();
+        private final List<Consumer<MerkleDirectorySnapshotBuilder>> visits = new ArrayList<>();
         private final SnapshottingFilter.DirectoryWalkerPredicate predicate;
         private final AtomicBoolean hasBeenFiltered;
         private final FileHasher hasher;
@@ -182,6 +209,8 @@ private static class PathVisitor extends DirectorySnapshotterStatistics.Collecti
         private final DefaultExcludes defaultExcludes;
         private final Deque<SymbolicLinkMapping> symbolicLinkMappings = new ArrayDeque<>();
         private final Deque<String> parentDirectories = new ArrayDeque<>();
+        private final Executor hashingExecutor;
+        private long hashedBytes;
 
         public PathVisitor(
             @Nullable SnapshottingFilter.DirectoryWalkerPredicate predicate,
@@ -189,23 +218,26 @@ public PathVisitor(
             FileHasher hasher,
             Interner<String> stringInterner,
             DefaultExcludes defaultExcludes,
-            DirectorySnapshotterStatistics.Collector statisticsCollector
+            DirectorySnapshotterStatistics.Collector statisticsCollector,
+            @Nullable Executor hashingExecutor
         ) {
             super(statisticsCollector);
-            this.builder = MerkleDirectorySnapshotBuilder.sortingRequired();
             this.predicate = predicate;
             this.hasBeenFiltered = hasBeenFiltered;
             this.hasher = hasher;
             this.stringInterner = stringInterner;
             this.defaultExcludes = defaultExcludes;
+            this.hashingExecutor = hashingExecutor;
         }
 
         @Override
         protected FileVisitResult doPreVisitDirectory(Path dir, BasicFileAttributes attrs) {
             String fileName = getFilename(dir);
             String internedName = intern(fileName);
-            if (builder.isRoot() || shouldVisit(dir, internedName, true, builder.getRelativePath())) {
-                builder.preVisitDirectory(intern(remapAbsolutePath(dir)), internedName);
+            if (relativePathSegmentsTracker.isRoot() || shouldVisit(dir, internedName, true, relativePathSegmentsTracker.getRelativePath())) {
+                String internedAbsolutePath = intern(remapAbsolutePath(dir));
+                relativePathSegmentsTracker.enter(internedName);
+                visits.add(builder -> builder.preVisitDirectory(internedAbsolutePath, internedName));
                 parentDirectories.addFirst(dir.toString());
                 return FileVisitResult.CONTINUE;
             } else {
@@ -261,8 +293,9 @@ private String remapAbsolutePath(Path dir) {
 
         private void visitResolvedFile(Path file, BasicFileAttributes targetAttributes, AccessType accessType) {
             String internedName = intern(file.getFileName().toString());
-            if (shouldVisit(file, internedName, false, builder.getRelativePath())) {
-                builder.visitFile(snapshotFile(file, internedName, targetAttributes, accessType));
+            if (shouldVisit(file, internedName, false, relativePathSegmentsTracker.getRelativePath())) {
+                Supplier<CompleteFileSystemLocationSnapshot> snapshot = snapshotFile(file, internedName, targetAttributes, accessType);
+                visits.add(builder -> builder.visitFile(snapshot.get()));
             }
         }
 
@@ -276,20 +309,48 @@ private BasicFileAttributes readAttributesOfSymlinkTarget(Path symlink, BasicFil
             }
         }
 
-        private CompleteFileSystemLocationSnapshot snapshotFile(Path absoluteFilePath, String internedName, BasicFileAttributes attrs, AccessType accessType) {
+        private Supplier<CompleteFileSystemLocationSnapshot> snapshotFile(Path absoluteFilePath, String internedName, BasicFileAttributes attrs, AccessType accessType) {
             String internedAbsoluteFilePath = intern(remapAbsolutePath(absoluteFilePath));
-            if (attrs.isRegularFile()) {
+            if (!attrs.isRegularFile()) {
+                MissingFileSnapshot snapshot = new MissingFileSnapshot(internedAbsoluteFilePath, internedName, accessType);
+                return () -> snapshot;
+            }
+            long lastModified = attrs.lastModifiedTime().toMillis();
+            long fileLength = attrs.size();
+            FileMetadata metadata = DefaultFileMetadata.file(lastModified, fileLength, accessType);
+            HashCode cachedHash = hasher.hashIfCached(absoluteFilePath.toFile(), fileLength, lastModified);
+            if (cachedHash != null) {
+                RegularFileSnapshot snapshot = new RegularFileSnapshot(internedAbsoluteFilePath, internedName, cachedHash, metadata);
+                return () -> snapshot;
+            }
+            hashedBytes += fileLength;
+            if (hashingExecutor == null) {
+                CompleteFileSystemLocationSnapshot snapshot = snapshotRegularFile(absoluteFilePath, internedAbsoluteFilePath, internedName, metadata);
+                return () -> snapshot;
+            }
+            // Only files which actually need to be read are worth handing over to the hashing executor
+            CompletableFuture<CompleteFileSystemLocationSnapshot> snapshot = CompletableFuture.supplyAsync(
+                () -> snapshotRegularFile(absoluteFilePath, internedAbsoluteFilePath, internedName, metadata),
+                hashingExecutor
+            );
+            return () -> {
                 try {
-                    long lastModified = attrs.lastModifiedTime().toMillis();
-                    long fileLength = attrs.size();
-                    FileMetadata metadata = DefaultFileMetadata.file(lastModified, fileLength, accessType);
-                    HashCode hash = hasher.hash(absoluteFilePath.toFile(), fileLength, lastModified);
-                    return new RegularFileSnapshot(internedAbsoluteFilePath, internedName, hash, metadata);
-                } catch (UncheckedIOException e) {
-                    LOGGER.info("Could not read file path '{}'.", absoluteFilePath, e);
+                    return snapshot.join();
+                } catch (CompletionException e) {
+                    Throwables.throwIfUnchecked(e.getCause());
+                    throw e;
                 }
+            };
+        }
+
+        private CompleteFileSystemLocationSnapshot snapshotRegularFile(Path absoluteFilePath, String internedAbsoluteFilePath, String internedName, FileMetadata metadata) {
+            try {
+                HashCode hash = hasher.hash(absoluteFilePath.toFile(), metadata.getLength(), metadata.getLastModified());
+                return new RegularFileSnapshot(internedAbsoluteFilePath, internedName, hash, metadata);
+            } catch (UncheckedIOException e) {
+                LOGGER.info("Could not read file path '{}'.", absoluteFilePath, e);
+                return new MissingFileSnapshot(internedAbsoluteFilePath, internedName, metadata.getAccessType());
             }
-            return new MissingFileSnapshot(internedAbsoluteFilePath, internedName, accessType);
         }
 
         /** unlistable directories (and maybe some locked files) will stop here */
@@ -301,10 +362,11 @@ protected FileVisitResult doVisitFileFailed(Path file, IOException exc) {
             if (isNotFileSystemLoopException(exc)) {
                 String internedName = intern(file.getFileName().toString());
                 boolean isDirectory = Files.isDirectory(file);
-                if (shouldVisit(file, internedName, isDirectory, builder.getRelativePath())) {
+                if (shouldVisit(file, internedName, isDirectory, relativePathSegmentsTracker.getRelativePath())) {
                     LOGGER.info("Could not read file path '{}'.", file);
                     String internedAbsolutePath = intern(file.toString());
-                    builder.visitFile(new MissingFileSnapshot(internedAbsolutePath, internedName, AccessType.DIRECT));
+                    MissingFileSnapshot snapshot = new MissingFileSnapshot(internedAbsolutePath, internedName, AccessType.DIRECT);
+                    visits.add(builder -> builder.visitFile(snapshot));
                 }
             }
             return FileVisitResult.CONTINUE;
@@ -321,7 +383,8 @@ protected FileVisitResult doPostVisitDirectory(Path dir, IOException exc) {
             AccessType accessType = AccessType.viaSymlink(
                 !symbolicLinkMappings.isEmpty() && symbolicLinkMappings.getFirst().target.equals(dir.toString())
             );
-            builder.postVisitDirectory(accessType);
+            relativePathSegmentsTracker.leave();
+            visits.add(builder -> builder.postVisitDirectory(accessType));
             parentDirectories.removeFirst();
             return FileVisitResult.CONTINUE;
         }
@@ -359,7 +422,15 @@ private boolean shouldVisit(Path path, String internedName, boolean isDirectory,
         }
 
         public CompleteFileSystemLocationSnapshot getResult() {
+            MerkleDirectorySnapshotBuilder builder = MerkleDirectorySnapshotBuilder.sortingRequired();
+            for (Consumer<MerkleDirectorySnapshotBuilder> visit : visits) {
+                visit.accept(builder);
+            }
             return builder.getResult();
         }
+
+        public long getHashedBytes() {
+            return hashedBytes;
+        }
     }
 }
@@ -22,6 +22,7 @@
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.text.MessageFormat;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 public interface DirectorySnapshotterStatistics {
@@ -45,11 +46,24 @@ public interface DirectorySnapshotterStatistics {
      */
     long getFailedFiles();
 
+    /**
+     * The total size of the regular files that were hashed.
+     * Files whose hash was found in the file hash cache are included.
+     */
+    long getHashedBytes();
+
+    /**
+     * The wall time spent snapshotting directory trees, summed up over all threads.
+     */
+    long getSnapshotTimeMillis();
+
     class Collector {
         private final AtomicLong hierarchyCount = new AtomicLong();
         private final AtomicLong directoryCount = new AtomicLong();
         private final AtomicLong fileCount = new AtomicLong();
         private final AtomicLong failedFileCount = new AtomicLong();
+        private final AtomicLong hashedBytes = new AtomicLong();
+        private final AtomicLong snapshotTimeNanos = new AtomicLong();
 
         public void recordVisitHierarchy() {
             hierarchyCount.incrementAndGet();
@@ -67,11 +81,18 @@ public void recordVisitFileFailed() {
             failedFileCount.incrementAndGet();
         }
 
+        public void recordVisitHierarchyCompleted(long hashedBytes, long snapshotTimeNanos) {
+            this.hashedBytes.addAndGet(hashedBytes);
+            this.snapshotTimeNanos.addAndGet(snapshotTimeNanos);
+        }
+
         public DirectorySnapshotterStatistics collect() {
             long hierarchyCount = this.hierarchyCount.getAndSet(0);
             long directoryCount = this.directoryCount.getAndSet(0);
             long fileCount = this.fileCount.getAndSet(0);
             long failedFileCount = this.failedFileCount.getAndSet(0);
+            long hashedBytes = this.hashedBytes.getAndSet(0);
+            long snapshotTimeMillis = TimeUnit.NANOSECONDS.toMillis(this.snapshotTimeNanos.getAndSet(0));
 
             return new DirectorySnapshotterStatistics() {
                 @Override
@@ -94,10 +115,20 @@ public long getFailedFiles() {
                     return failedFileCount;
                 }
 
+                @Override
+                public long getHashedBytes() {
+                    return hashedBytes;
+                }
+
+                @Override
+                public long getSnapshotTimeMillis() {
+                    return snapshotTimeMillis;
+                }
+
                 @Override
                 public String toString() {
-                    return MessageFormat.format("Snapshot {0,number,integer} directory hierarchies (visited {1,number,integer} directories, {2,number,integer} files and {3,number,integer} failed files)",
-                        hierarchyCount, directoryCount, fileCount, failedFileCount);
+                    return MessageFormat.format("Snapshot {0,number,integer} directory hierarchies (visited {1,number,integer} directories, {2,number,integer} files and {3,number,integer} failed files, hashed {4,number,integer} bytes in {5,number,integer} ms)",
+                        hierarchyCount, directoryCount, fileCount, failedFileCount, hashedBytes, snapshotTimeMillis);
                 }
             };
         }
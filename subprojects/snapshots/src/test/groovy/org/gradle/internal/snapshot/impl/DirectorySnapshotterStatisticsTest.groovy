@@ -47,6 +47,7 @@ class DirectorySnapshotterStatisticsTest extends Specification {
 
         then:
         1 * statisticsCollector.recordVisitFileFailed()
+        1 * statisticsCollector.recordVisitHierarchyCompleted(_, _)
         0 * _
     }
 
@@ -59,6 +60,7 @@ class DirectorySnapshotterStatisticsTest extends Specification {
 
         then:
         1 * statisticsCollector.recordVisitFile()
+        1 * statisticsCollector.recordVisitHierarchyCompleted(_, _)
         0 * _
     }
 
@@ -71,6 +73,7 @@ class DirectorySnapshotterStatisticsTest extends Specification {
 
         then:
         1 * statisticsCollector.recordVisitDirectory()
+        1 * statisticsCollector.recordVisitHierarchyCompleted(_, _)
         0 * _
     }
 
@@ -91,6 +94,7 @@ class DirectorySnapshotterStatisticsTest extends Specification {
         then:
         3 * statisticsCollector.recordVisitDirectory()
         2 * statisticsCollector.recordVisitFile()
+        1 * statisticsCollector.recordVisitHierarchyCompleted(_, _)
         0 * _
     }
 
@@ -110,6 +114,7 @@ class DirectorySnapshotterStatisticsTest extends Specification {
         then:
         1 * statisticsCollector.recordVisitDirectory()
         1 * statisticsCollector.recordVisitFile()
+        1 * statisticsCollector.recordVisitHierarchyCompleted(_, _)
         0 * _
     }
 
@@ -130,6 +135,7 @@ class DirectorySnapshotterStatisticsTest extends Specification {
         then:
         3 * statisticsCollector.recordVisitDirectory()
         3 * statisticsCollector.recordVisitFile()
+        1 * statisticsCollector.recordVisitHierarchyCompleted(_, _)
         0 * _
     }
 
@@ -150,12 +156,32 @@ class DirectorySnapshotterStatisticsTest extends Specification {
         2 * statisticsCollector.recordVisitDirectory()
         2 * statisticsCollector.recordVisitFile()
         1 * statisticsCollector.recordVisitFileFailed()
+        1 * statisticsCollector.recordVisitHierarchyCompleted(_, _)
         0 * _
 
         cleanup:
         rootDir.listFiles()*.makeReadable()
     }
 
+    def "records the size of hashed files"() {
+        given:
+        def root = tmpDir.createDir("root")
+        root.file("file1.txt").text = "12345"
+        root.createDir("sub-dir").file("file2.txt").text = "123"
+
+        when:
+        snapshot(root)
+
+        then:
+        1 * statisticsCollector.recordVisitHierarchy()
+
+        then:
+        2 * statisticsCollector.recordVisitDirectory()
+        2 * statisticsCollector.recordVisitFile()
+        1 * statisticsCollector.recordVisitHierarchyCompleted(8, _)
+        0 * _
+    }
+
     private snapshot(File root) {
         directorySnapshotter.snapshot(root.absolutePath, null, new AtomicBoolean())
     }
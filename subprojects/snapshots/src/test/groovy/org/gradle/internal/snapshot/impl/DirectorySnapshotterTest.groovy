@@ -22,6 +22,7 @@ import org.gradle.api.internal.file.TestFiles
 import org.gradle.api.tasks.util.PatternSet
 import org.gradle.internal.file.FileMetadata.AccessType
 import org.gradle.internal.fingerprint.impl.PatternSetSnapshottingFilter
+import org.gradle.internal.hash.HashCode
 import org.gradle.internal.hash.TestFileHasher
 import org.gradle.internal.snapshot.CompleteDirectorySnapshot
 import org.gradle.internal.snapshot.CompleteFileSystemLocationSnapshot
@@ -39,6 +40,8 @@ import spock.lang.Issue
 import spock.lang.Specification
 
 import java.nio.file.Paths
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
 import java.util.concurrent.atomic.AtomicBoolean
 
 @UsesNativeServices
@@ -118,6 +121,82 @@ class DirectorySnapshotterTest extends Specification {
         0 * _
     }
 
+    def "hashing files in parallel produces the same snapshot"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        (1..20).each { index ->
+            rootDir.file("dir${index % 4}/sub-dir${index % 3}/file${index}.txt").text = "content ${index}"
+        }
+        def executor = Executors.newFixedThreadPool(4)
+        def parallelSnapshotter = new DirectorySnapshotter(fileHasher, new StringInterner(), [], statisticsCollector, executor)
+
+        when:
+        def sequentialSnapshot = directorySnapshotter.snapshot(rootDir.absolutePath, null, actuallyFiltered)
+        def parallelSnapshot = parallelSnapshotter.snapshot(rootDir.absolutePath, null, actuallyFiltered)
+
+        then:
+        parallelSnapshot.hash == sequentialSnapshot.hash
+        collectHashes(parallelSnapshot) == collectHashes(sequentialSnapshot)
+        collectHashes(parallelSnapshot).size() == 37
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "only hands files without cached hash to the hashing executor"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        def cachedFile = rootDir.file("cached.txt")
+        cachedFile.text = "cached"
+        def changedFile = rootDir.file("changed.txt")
+        changedFile.text = "changed"
+        def cachedHash = HashCode.fromInt(1234)
+        def cachingHasher = new TestFileHasher() {
+            @Override
+            HashCode hashIfCached(File file, long length, long lastModified) {
+                return file.name == cachedFile.name ? cachedHash : null
+            }
+        }
+        def hashedFiles = []
+        def executor = { Runnable command ->
+            hashedFiles << command
+            command.run()
+        } as Executor
+        def parallelSnapshotter = new DirectorySnapshotter(cachingHasher, new StringInterner(), [], statisticsCollector, executor)
+
+        when:
+        def snapshot = parallelSnapshotter.snapshot(rootDir.absolutePath, null, actuallyFiltered)
+        def hashes = collectHashes(snapshot)
+
+        then:
+        hashedFiles.size() == 1
+        hashes[cachedFile.absolutePath] == cachedHash
+        hashes[changedFile.absolutePath] == cachingHasher.hash(changedFile)
+    }
+
+    def "only counts bytes of files which are actually hashed"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        def cachedFile = rootDir.file("cached.txt")
+        cachedFile.text = "cached contents"
+        def changedFile = rootDir.file("changed.txt")
+        changedFile.text = "changed"
+        def cachingHasher = new TestFileHasher() {
+            @Override
+            HashCode hashIfCached(File file, long length, long lastModified) {
+                return file.name == cachedFile.name ? HashCode.fromInt(1234) : null
+            }
+        }
+        def collector = new DirectorySnapshotterStatistics.Collector()
+        def snapshotter = new DirectorySnapshotter(cachingHasher, new StringInterner(), [], collector)
+
+        when:
+        snapshotter.snapshot(rootDir.absolutePath, null, actuallyFiltered)
+
+        then:
+        collector.collect().hashedBytes == changedFile.length()
+    }
+
     def "should snapshot with filters"() {
         given:
         def rootDir = tmpDir.createDir("root")
@@ -308,6 +387,27 @@ class DirectorySnapshotterTest extends Specification {
         !defaultExcludes.excludeFile('#some')
     }
 
+    private static Map<String, HashCode> collectHashes(CompleteFileSystemLocationSnapshot snapshot) {
+        def hashes = [:]
+        snapshot.accept(new FileSystemSnapshotVisitor() {
+            @Override
+            boolean preVisitDirectory(CompleteDirectorySnapshot directorySnapshot) {
+                hashes[directorySnapshot.absolutePath] = directorySnapshot.hash
+                return true
+            }
+
+            @Override
+            void visitFile(CompleteFileSystemLocationSnapshot fileSnapshot) {
+                hashes[fileSnapshot.absolutePath] = fileSnapshot.hash
+            }
+
+            @Override
+            void postVisitDirectory(CompleteDirectorySnapshot directorySnapshot) {
+            }
+        })
+        return hashes
+    }
+
     private static String fileSystemRoot() {
         "${Paths.get("").toAbsolutePath().root}"
     }